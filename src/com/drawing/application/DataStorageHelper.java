@@ -18,17 +18,21 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
 
 import android.content.Context;
+import android.support.v4.util.AtomicFile;
 import android.util.Log;
 import android.widget.Toast;
 
 import com.drawing.datastructure.CustomPath;
 import com.drawing.datastructure.DrawingComposite;
+import com.drawing.datastructure.SessionReader;
+import com.drawing.datastructure.SessionWriter;
 
 
 /**
@@ -48,14 +52,14 @@ public class DataStorageHelper {
 	static String FILENAMESLIST = "filenames";
 	
 	/**
-	 * Store the <b>DrawingComponent</b> object and all its children to internal storage
+	 * Store the <b>DrawingComponent</b> object and all its children to internal storage.
+	 * The components, the transformation matrices and the ontology list are written into
+	 * a single binary session file, see {@link com.drawing.datastructure.SessionWriter}
 	 * @param context The current <b>Context</b> of the application
 	 * @param drawView The instance of the current <b>DrawView</b> object that should be stored
 	 * @param filename The name of the file that should be stored
-	 * @param components The <b>DrawingComponent</b> that should be stored
 	 * @return True if everything was stored successfully
 	 */
-	@SuppressWarnings("resource")
 	public static boolean storeData(Context context, DrawView drawView, String filename)
 	{
 		FILENAME = filename;
@@ -64,13 +68,6 @@ public class DataStorageHelper {
 		
 		ONTOFILENAME = FILENAME + "_ontolist";
 
-		FileOutputStream fos = null;
-		FileOutputStream fosMatrix = null;
-		FileOutputStream fosOnto = null;
-		ObjectOutputStream oos = null;
-		ObjectOutputStream oosMatrix = null;
-		ObjectOutputStream oosOnto = null;
-		
 		DrawingComposite components = drawView.getDrawingObjects();
 		
 		ArrayList<String> ontoList = drawView.ma.getOntoList();
@@ -85,133 +82,130 @@ public class DataStorageHelper {
 		
 		float[][] matrices = drawView.getMatrices();
 		
+		if (!writeSession(context, FILENAME, components, matrices, ontoList)) return false;
+
+		// a session of an older version may still have its separate files
+		deleteLegacyFiles(context);
+
+		Toast toast = Toast.makeText(context, "Session was successfully stored.", Toast.LENGTH_SHORT);
+
+		toast.show();
+
+		return true;
+	}
+
+	/**
+	 * Write a binary session file, the previous file is only replaced if the write succeeds
+	 * @return True if the file was written successfully
+	 */
+	private static boolean writeSession(Context context, String filename, DrawingComposite components, float[][] matrices, List<String> ontoList)
+	{
+		long start = PerformanceMetrics.start();
+
+		ByteBuffer buffer = new SessionWriter().writeSession(components, matrices, ontoList);
+
+		boolean written = writeFile(new File(context.getFilesDir(), filename), buffer);
+
+		PerformanceMetrics.SAVETIME.stop(start);
+
+		return written;
+	}
+
+	/**
+	 * Replace the content of a file by the remaining bytes of the buffer, the previous
+	 * content is kept if the write fails
+	 * @return True if the file was written successfully
+	 */
+	static boolean writeFile(File target, ByteBuffer buffer)
+	{
+		AtomicFile file = new AtomicFile(target);
+
+		FileOutputStream fos = null;
+
 		try
 		{
-			fos = context.openFileOutput(FILENAME, Context.MODE_WORLD_READABLE);
-			fosMatrix = context.openFileOutput(MATRIXFILENAME, Context.MODE_WORLD_READABLE);
-			fosOnto = context.openFileOutput(ONTOFILENAME, Context.MODE_WORLD_READABLE);
+			fos = file.startWrite();
 			
-			try
-			{
-				oos = new ObjectOutputStream(fos);
-	
-				oosMatrix = new ObjectOutputStream(fosMatrix);
-				
-				oosOnto = new ObjectOutputStream(fosOnto);
-				
-				oos.writeObject(components);
-				
-				oosMatrix.writeObject(matrices);
-				
-				oosOnto.writeObject(ontoList);
+			FileChannel channel = fos.getChannel();
 			
-			} 
-			catch (IOException e)
+			while (buffer.hasRemaining())
 			{
-				e.printStackTrace();
-				Log.d("STORAGEEXCEPTION", e.toString());
-				return false;
+				channel.write(buffer);
 			}
 			
-			
-		} 
-		catch (FileNotFoundException e)
-		{	
+			file.finishWrite(fos);
+		}
+		catch (IOException e)
+		{
 			e.printStackTrace();
-//			Log.d("STORAGEEXCEPTION", e.toString());
+			Log.d("STORAGEEXCEPTION", e.toString());
+
+			if (fos != null) file.failWrite(fos);
+
 			return false;
 		}
 		
+		return true;
+	}
 
-		if(oos != null)
-		{
-			try
-			{
-				oos.close();
-			} 
-			catch (IOException e)
-			{
-				e.printStackTrace();
-//				Log.d("STORAGEEXCEPTION", e.toString());
-				return false;
-			}
-		}
+	/**
+	 * Read a complete file into a buffer
+	 * @return The buffer or null if the file could not be read
+	 */
+	static ByteBuffer readFile(File source)
+	{
+		AtomicFile file = new AtomicFile(source);
+
+		FileInputStream fis = null;
 		
-		if(oosMatrix != null)
+		ByteBuffer buffer = null;
+
+		try
 		{
-			try
-			{
-				oosMatrix.close();
-			} 
-			catch (IOException e)
-			{
-				e.printStackTrace();
-//				Log.d("STORAGEEXCEPTION", e.toString());
-				return false;
-			}
+			fis = file.openRead();
+
+			FileChannel channel = fis.getChannel();
+
+			buffer = ByteBuffer.allocate((int) channel.size());
+
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0);
+
+			buffer.flip();
 		}
-		
-		if(oosOnto != null)
+		catch (IOException e)
 		{
-			try
-			{
-				oosOnto.close();
-			} 
-			catch (IOException e)
-			{
-				e.printStackTrace();
-//				Log.d("STORAGEEXCEPTION", e.toString());
-				return false;
-			}
+			e.printStackTrace();
+//			Log.d("STORAGEEXCEPTION", e.toString());
+			buffer = null;
 		}
 		
-		if(fos != null)
+		if (fis != null)
 		{
 			try
 			{
-				fos.close();
+				fis.close();
 			}
 			catch (IOException e)
 			{
 				e.printStackTrace();
-//				Log.d("STORAGEEXCEPTION", e.toString());
-				return false;
 			}
 		}
 		
-		if(fosMatrix != null)
-		{
-			try 
-			{
-				fosMatrix.close();
-			} 
-			catch (IOException e)
-			{
-				e.printStackTrace();
-//				Log.d("STORAGEEXCEPTION", e.toString());
-				return false;
-			}
-		}
-		
-		if(fosOnto != null)
-		{
-			try 
-			{
-				fosOnto.close();
-			} 
-			catch (IOException e)
-			{
-				e.printStackTrace();
-//				Log.d("STORAGEEXCEPTION", e.toString());
-				return false;
-			}
-		}
+		return buffer;
+	}
+
+	/**
+	 * Delete the matrix and ontology list files that were written by older versions
+	 */
+	private static void deleteLegacyFiles(Context context)
+	{
+		File file = new File(context.getFilesDir().getPath() + "/" + MATRIXFILENAME);
 		
-		Toast toast = Toast.makeText(context, "Session was successfully stored.", Toast.LENGTH_SHORT);
+		if (file.exists()) file.delete();
 		
-		toast.show();
+		file = new File(context.getFilesDir().getPath() + "/" + ONTOFILENAME);
 		
-		return true;
+		if (file.exists()) file.delete();
 	}
 	
 	/**
@@ -235,13 +229,10 @@ public class DataStorageHelper {
 	
 	deleted = file.delete();
 	
-	file = new File(context.getFilesDir().getPath() + "/" + MATRIXFILENAME);
-	
-	deleted = file.delete() && deleted;
+	// remove the backup of an interrupted write as well
+	new AtomicFile(file).delete();
 	
-	file = new File(context.getFilesDir().getPath() + "/" + ONTOFILENAME);
-	
-	deleted = file.delete() && deleted;
+	deleteLegacyFiles(context);
 	
 	}catch(Exception e)
 	{
@@ -254,7 +245,8 @@ public class DataStorageHelper {
 	}
 	
 	/**
-	 * Load the <b>DrawingComponent</b> object and all its children to internal storage
+	 * Load the <b>DrawingComponent</b> object and all its children to internal storage.
+	 * Sessions that were stored by older versions are converted to the binary format.
 	 * @param context The current <b>Context</b> of the application
 	 * @param filename The name of the file that should be restored
 	 * @return The <b>DrawingComponent</b> that was stored before
@@ -267,6 +259,45 @@ public class DataStorageHelper {
 		
 		ONTOFILENAME = FILENAME + "_ontolist";
 		
+		long start = PerformanceMetrics.start();
+
+		ByteBuffer buffer = readFile(new File(context.getFilesDir(), FILENAME));
+
+		if (buffer == null) return null;
+
+		if (!SessionReader.isSession(buffer)) return loadLegacyData(context);
+
+		SessionReader reader = new SessionReader(buffer);
+
+		try
+		{
+			reader.readSession();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			Log.d("STORAGEEXCEPTION", e.toString());
+			return null;
+		}
+
+		((MainActivity)context).drawView.restoreMatrices(reader.getMatrices());
+
+		((MainActivity)context).setOntoList(reader.getOntoList());
+
+		PerformanceMetrics.LOADTIME.stop(start);
+
+		return reader.getRoot();
+	}
+
+	/**
+	 * Load a session that was stored with Java serialization into three separate files
+	 * and replace it by a binary session
+	 * @param context The current <b>Context</b> of the application
+	 * @return The <b>DrawingComponent</b> that was stored before
+	 */
+	@SuppressWarnings("unchecked")
+	private static DrawingComposite loadLegacyData(Context context)
+	{
 		FileInputStream fis = null;
 		
 		ObjectInputStream ois = null;
@@ -350,6 +381,11 @@ public class DataStorageHelper {
 		
 		if (ontFileNames != null) ((MainActivity)context).setOntoList(ontFileNames);
 		
+		if (component != null && ontFileNames != null)
+		{
+			if (writeSession(context, FILENAME, component, matrices, ontFileNames)) deleteLegacyFiles(context);
+		}
+
 		return component;
 	}
 }
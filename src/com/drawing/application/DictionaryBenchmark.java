@@ -0,0 +1,241 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.application;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+import android.content.res.AssetManager;
+import android.os.AsyncTask;
+import android.util.Log;
+import android.widget.Toast;
+
+import com.hwr.android.RecoInterface.DictionaryLoader;
+import com.hwr.android.RecoInterface.MappedDictionary;
+import com.hwr.android.RecoInterface.RecognizerService;
+import com.hwr.android.RecoInterface.WordTrie;
+
+/**
+ * Measures the memory mapped dictionaries of all languages: the time to open them, which
+ * includes their compilation the first time, the mapped and the heap memory and the throughput
+ * of exact, prefix and edit distance lookups of words that are sampled from the dictionary.
+ * <p>
+ * The report is written to <i>dictionary_benchmark.txt</i> in the files directory.
+ *
+ */
+class DictionaryBenchmark extends AsyncTask<Void, Void, String>
+{
+	private static final String TAG = "DictionaryBenchmark";
+
+	/**
+	 * Number of words that are looked up
+	 */
+	static final int SAMPLES = 1000;
+
+	/**
+	 * Number of times the exact and the prefix lookups are repeated
+	 */
+	static final int ROUNDS = 10;
+
+	private MainActivity ma;
+
+	private AssetManager assets;
+
+	private File directory;
+
+	private File reportFile;
+
+	private Random random = new Random(0);
+
+	/**
+	 * @param ma The activity whose assets contain the dictionaries
+	 */
+	DictionaryBenchmark(MainActivity ma)
+	{
+		this.ma = ma;
+
+		assets = ma.getAssets();
+		directory = RecognizerService.getDictionaryDirectory(ma);
+
+		reportFile = new File(ma.getFilesDir(), "dictionary_benchmark.txt");
+	}
+
+	protected String doInBackground(Void... params)
+	{
+		StringBuilder report = new StringBuilder();
+
+		for (String language : DictionaryLoader.getLanguages(assets))
+		{
+			if (isCancelled()) break;
+
+			Runtime runtime = Runtime.getRuntime();
+
+			long heap = runtime.totalMemory() - runtime.freeMemory();
+			long start = System.nanoTime();
+
+			MappedDictionary dictionary = DictionaryLoader.load(assets, directory, language);
+
+			long openTime = System.nanoTime() - start;
+
+			heap = runtime.totalMemory() - runtime.freeMemory() - heap;
+
+			report.append(language).append(": ");
+
+			if (dictionary == null || dictionary.getWordCount() == 0)
+			{
+				report.append("no words\n");
+				continue;
+			}
+
+			String[] samples = new String[SAMPLES];
+
+			for (int i = 0; i < SAMPLES; i++)
+			{
+				samples[i] = sample(dictionary);
+			}
+
+			int found = 0;
+
+			start = System.nanoTime();
+
+			for (int round = 0; round < ROUNDS; round++)
+			{
+				for (String word : samples)
+				{
+					if (dictionary.contains(word)) found++;
+				}
+			}
+
+			long exactTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+
+			for (int round = 0; round < ROUNDS; round++)
+			{
+				for (String word : samples)
+				{
+					if (dictionary.findPrefix(word.subSequence(0, (word.length() + 1) / 2)) != WordTrie.NONODE) found++;
+				}
+			}
+
+			long prefixTime = System.nanoTime() - start;
+
+			String[] results = new String[5];
+
+			start = System.nanoTime();
+
+			for (String word : samples)
+			{
+				found += dictionary.findSimilar(word, 1, results, null);
+			}
+
+			long similarTime = System.nanoTime() - start;
+
+			int lookups = SAMPLES * ROUNDS;
+
+			report.append(dictionary.getWordCount()).append(" words, ").append(dictionary.getEdgeCount()).append(" edges, open ")
+					.append(openTime / 1000000).append(" ms, mapped ").append(dictionary.getMappedSize() / 1024).append(" KB, heap ")
+					.append(heap / 1024).append(" KB\n  exact ").append(perSecond(lookups, exactTime)).append("/s, prefix ")
+					.append(perSecond(lookups, prefixTime)).append("/s, distance 1 ").append(perSecond(SAMPLES, similarTime))
+					.append("/s\n");
+
+			// keeps the lookups from being optimized away
+			if (found == 0) Log.d(TAG, "no words found in " + language);
+		}
+
+		if (report.length() == 0) report.append("No dictionaries\n");
+
+		writeReport(report.toString());
+
+		return report.toString();
+	}
+
+	protected void onPostExecute(String report)
+	{
+		Log.d(TAG, report);
+
+		Toast.makeText(ma, report, Toast.LENGTH_LONG).show();
+	}
+
+	/**
+	 * Pick a word by a random walk from the root
+	 */
+	private String sample(WordTrie trie)
+	{
+		StringBuilder word = new StringBuilder();
+
+		int node = trie.getRoot();
+
+		while (true)
+		{
+			int count = 0;
+
+			for (int child = trie.getFirstChild(node); child != WordTrie.NONODE; child = trie.getNextSibling(child))
+			{
+				count++;
+			}
+
+			if (count == 0 || (word.length() > 0 && trie.getFrequency(node) > 0 && random.nextInt(3) == 0)) break;
+
+			int child = trie.getFirstChild(node);
+
+			for (int i = random.nextInt(count); i > 0; i--)
+			{
+				child = trie.getNextSibling(child);
+			}
+
+			word.append(trie.getSymbol(child));
+
+			node = child;
+		}
+
+		return word.toString();
+	}
+
+	private static long perSecond(int count, long time)
+	{
+		return (time > 0) ? count * 1000000000L / time : 0;
+	}
+
+	private void writeReport(String report)
+	{
+		FileWriter writer = null;
+
+		try
+		{
+			writer = new FileWriter(reportFile, false);
+
+			writer.write(report);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+		finally
+		{
+			if (writer != null)
+			{
+				try
+				{
+					writer.close();
+				}
+				catch (IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+}
@@ -13,11 +13,14 @@
 package com.drawing.application;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.CornerPathEffect;
@@ -28,6 +31,7 @@ import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PathEffect;
 import android.graphics.PointF;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.SumPathEffect;
 import android.os.AsyncTask;
@@ -42,8 +46,9 @@ import android.view.MotionEvent;
 import android.view.View;
 import android.view.View.OnTouchListener;
 import android.view.inputmethod.InputMethodManager;
+import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
 import android.widget.Button;
-import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.LinearLayout;
 import android.widget.TextView;
@@ -71,7 +76,9 @@ import com.drawing.datastructure.GestureTypes;
 import com.drawing.datastructure.InstatiationRelation;
 import com.drawing.datastructure.OntologyObjectTypes;
 import com.drawing.datastructure.PropertyRelation;
+import com.drawing.datastructure.RelationGeometry;
 import com.drawing.datastructure.ScaledPathArray;
+import com.drawing.datastructure.SpatialIndex;
 import com.drawing.datastructure.SubClassRelation;
 import com.drawing.gestures.Point;
 import com.drawing.gestures.Recognizer;
@@ -85,6 +92,7 @@ import com.hp.hpl.jena.ontology.OntProperty;
 import com.hp.hpl.jena.ontology.OntResource;
 import com.hp.hpl.jena.rdf.model.Statement;
 import com.hp.hpl.jena.rdf.model.StmtIterator;
+import com.hwr.android.RecoInterface.RecognizerService;
 
 /**
  * SkechBoard
@@ -108,6 +116,23 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 	 */
 	static final float threshold = 50f;
 
+	/**
+	 * Stroke widths and corner radius of the path paints in screen pixels
+	 */
+	static final float STROKEWIDTH = 2.5f;
+	static final float HIGHLIGHTEDSTROKEWIDTH = 3f;
+	static final float CORNERRADIUS = 20f;
+	
+	/**
+	 * Margin in screen pixels that is added to the viewport for icons and help texts next to a path
+	 */
+	static final float CULLINGMARGIN = 150f;
+	
+	/**
+	 * Deviation in screen pixels that is allowed when a simplified path is drawn
+	 */
+	static final float DETAILTOLERANCE = 0.5f;
+
 	/**
 	 * Set to true if the pan mode was enabled by the System menu
 	 */
@@ -150,11 +175,6 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 	 */
 	Paint textPaint = new Paint();
 
-	/**
-	 * true if a new path was created and no vertices were attached to it so far
-	 */
-	boolean firstPointOfPath = true;
-
 	/**
 	 * The center between two contact points in case of multi touch
 	 */
@@ -181,15 +201,32 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 	 */
 	Recognizer recognizer;
 	
+	/**
+	 * Protractor gesture recognizer, used instead of the $1 recognizer if
+	 * <b>protractorRecognition</b> is set
+	 */
+	ProtractorRecognizer protractor;
+	
+	/**
+	 * true if gestures are recognized by the Protractor recognizer
+	 */
+	boolean protractorRecognition = true;
+	
+	/**
+	 * Decides which strokes are passed to the gesture recognizer
+	 */
+	private GestureFilter gestureFilter = new GesturePreClassifier();
+	
 	/**
 	 * Result of the modified $1 Gesture Recognizer
 	 */
 	Result result;
 	
 	/**
-	 * Input points for the modified $1 gesture recognizer
+	 * Vertices of the stroke that is currently drawn, the input for the modified $1 gesture
+	 * recognizer and the handwriting recognition
 	 */
-	List<Point> pointsForRecognizer;
+	StrokeBuffer stroke;
 
 	/**
 	 * debug object
@@ -224,7 +261,89 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 	public boolean drawDebugRegions = false;
 	
 	private float instanziationStrokeSize;
-	private RectF instanziationStrokeRect;
+
+	/**
+	 * Corner effect of the path paints for drawing in screen coordinates
+	 */
+	private PathEffect cornerEffect;
+	
+	/**
+	 * Corner effects for drawing through the transformation matrix and the backup matrix,
+	 * recreated when the scale of the matrix has changed
+	 */
+	private PathEffect[] worldCornerEffects = new PathEffect[2];
+	private float[] worldCornerScales = new float[2];
+	
+	/**
+	 * Scale of the matrix that was passed to the last {@link #beginWorldDraw(Canvas, Matrix)}
+	 */
+	private float worldScale = 1f;
+	
+	/**
+	 * Minimal size in screen pixels of a component whose icon and help text are drawn
+	 */
+	private float minDecorationSize = 24f;
+	
+	private RectF decorationBounds = new RectF();
+	
+	/**
+	 * Off-screen layer with all paths that do not move while a selection is transformed,
+	 * drawn with the backup matrix
+	 */
+	private Bitmap staticLayer;
+	private Canvas staticLayerCanvas;
+	private boolean staticLayerValid = false;
+	
+	/**
+	 * The state the static layer was drawn for
+	 */
+	private Matrix staticLayerMatrix = new Matrix();
+	private int staticLayerChangeCount;
+	private int staticLayerLiveCount;
+	private int staticLayerLiveHash;
+	
+	/**
+	 * Paths that are redrawn on every frame while a selection is transformed
+	 */
+	private ArrayList<CustomPath> livePaths = new ArrayList<CustomPath>();
+	private int livePathsHash;
+	
+	/**
+	 * Visible area in world coordinates for the transformation matrix and the backup matrix
+	 */
+	private RectF viewport = new RectF();
+	private RectF backupViewport = new RectF();
+	
+	/**
+	 * The area that is repainted during the current frame and the area of the whole view
+	 */
+	private Rect clipBounds = new Rect();
+	private Rect viewBounds = new Rect();
+	
+	private RectF cullingBounds = new RectF();
+	private RectF cullingHelperBounds = new RectF();
+	
+	/**
+	 * Number of components that were drawn and skipped during the last frame
+	 */
+	private int drawnComponents = 0;
+	private int culledComponents = 0;
+	private RectF instanziationStrokeRect = new RectF();
+	
+	/**
+	 * Screen positions of the start element, the end element and the center of the relation
+	 * that is currently drawn, reused for all relations
+	 */
+	private float[] anchors = new float[6];
+	
+	private Path relationLine = new Path();
+	
+	private RectF relationBounds = new RectF();
+	private RectF instanziationStartBounds = new RectF();
+	private RectF instanziationEndBounds = new RectF();
+	
+	private Point arrowCenter = new Point(0, 0);
+	private Point arrowEnd = new Point(0, 0);
 
 	private Context context;
 	
@@ -249,7 +368,7 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		paint.setColor(getResources().getColor(R.color.sketch));
 		paint.setAntiAlias(true);
 		paint.setStyle(Paint.Style.STROKE);
-		paint.setStrokeWidth(2.5f);
+		paint.setStrokeWidth(STROKEWIDTH);
 
 		filledPaint.setColor(getResources().getColor(R.color.sketchBackground));
 		filledPaint.setAntiAlias(true);
@@ -259,7 +378,7 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		defaultPaint = paint;
 
 		// tint path effect
-		PathEffect effect = new CornerPathEffect(20);
+		PathEffect effect = new CornerPathEffect(CORNERRADIUS);
 		PathEffect randomLines = new DiscretePathEffect(5, 2);
 		PathEffect dashEffect = new DashPathEffect(new float[] { 2, 1, 5, 0, 3,
 				8, 7, 4, 2, 3 }, 5);
@@ -271,12 +390,14 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		highlightedPaint.setColor(getResources().getColor(R.color.highlight));
 		highlightedPaint.setAntiAlias(true);
 		highlightedPaint.setStyle(Paint.Style.STROKE);
-		highlightedPaint.setStrokeWidth(3);
+		highlightedPaint.setStrokeWidth(HIGHLIGHTEDSTROKEWIDTH);
 
 		highlightedPaint.setPathEffect(effect);
 		paint.setPathEffect(effect);
 		filledPaint.setPathEffect(effect);
 		
+		cornerEffect = effect;
+		
 		//propertyRelationPaint
 		propertyRelationPaint.setColor(getResources().getColor(R.color.sketch));
 		propertyRelationPaint.setAntiAlias(true);
@@ -307,8 +428,9 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		
 		// setup recognizer
 		recognizer = new Recognizer();
+		protractor = new ProtractorRecognizer();
 		result = null;
-		pointsForRecognizer = new ArrayList<Point>();
+		stroke = new StrokeBuffer();
 
 		debugPaint.setColor(Color.RED);
 		debugPaint.setAntiAlias(true);
@@ -350,10 +472,27 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 	 */
 	protected void onDraw(Canvas canvas) 
 	{
+		long frameStart = PerformanceMetrics.start();
+		
+		long phase;
+		
 		matrix.invert(inverse);
 
 		backupTransformationMatrix.invert(backupInverse);
 
+		// only the dirty region is repainted if the view was invalidated partially
+		if (!canvas.getClipBounds(clipBounds)) clipBounds.set(0, 0, getWidth(), getHeight());
+		
+		viewBounds.set(0, 0, getWidth(), getHeight());
+		
+		updateViewport(viewport, inverse, clipBounds);
+		
+		// the static layer is reused for later frames and always covers the whole view
+		updateViewport(backupViewport, backupInverse, viewBounds);
+		
+		drawnComponents = 0;
+		culledComponents = 0;
+
 		canvas.clipRect(0, 0, screenWidth, screenHeight);
 
 		canvas.save();
@@ -375,914 +514,674 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 
 			// draw highlighted paths
 
-			Log.d("DrawView", "onDraw ==========================================");
+//			Log.d("DrawView", "onDraw ==========================================");
+			
+			// everything that does not follow the selection comes from the static layer
+			collectLivePaths();
+			
+			phase = PerformanceMetrics.GEOMETRYTIME.stop(frameStart);
+			
+			if (!isStaticLayerValid())
+			{
+				drawStaticLayer();
+				
+				phase = PerformanceMetrics.STATICLAYERTIME.stop(phase);
+				PerformanceMetrics.STATICLAYERREDRAWS.increment();
+			}
+			
+			canvas.drawBitmap(staticLayer, 0, 0, null);
+			
+			for (int i = 0; i < livePaths.size(); i++) 
+			{
+				drawPath = livePaths.get(i);
+				
+				DrawingComponent dc = drawingObjects.getObjectByPathId(drawPath.getUid());
+				
+				// relations to highlighted components mix both matrices and are always drawn
+				if (drawPath.isHighlighted() && !isRelation(dc) && !isOnScreen(dc, viewport))
+				{
+					culledComponents++;
+					continue;
+				}
+				
+				drawnComponents++;
+
+				drawComponent(canvas, dc, drawPath.isHighlighted() ? matrix : backupTransformationMatrix, true);
+			}
+			
+			phase = PerformanceMetrics.PATHSTIME.stop(phase);
+			
+			if (drawingObjects.ContainsFormalizedConceptObjects()) 
+			{
+				drawingObjects.drawFormalizedConceptObjects(canvas, matrix, backupTransformationMatrix, true);
+			}
+			
+			if (drawingObjects.ContainsFormalizedIndividualObjects()) 
+			{
+				drawingObjects.drawFormalizedIndividualObjects(canvas, matrix, backupTransformationMatrix, true);
+			}
+
+		} 
+		else 
+		{
+			///////////////////////////////////////////
+			//////////// draw stored paths ////////////
+			///////////////////////////////////////////
+			
+			staticLayerValid = false;
+
+//			Log.d("DrawView",  " size: " + drawingObjects.getPathList().getPaths().size());
 			
+			phase = PerformanceMetrics.GEOMETRYTIME.stop(frameStart);
+
 			for (int i = 0; i < drawingObjects.getPathList().getPaths().size(); i++) 
 			{
 				drawPath = drawingObjects.getPathList().getPath(i);
 				
 				DrawingComponent dc = drawingObjects.getObjectByPathId(drawPath.getUid());
-
-				paint.setColor(drawPath.getColor());
 				
-				if( dc instanceof InstatiationRelation)
+				if (!isOnScreen(dc, viewport))
 				{
-					Log.d("DrawView", "IR " + dc.isHighlighted());
+					culledComponents++;
+					continue;
 				}
 				
-				instanziationStrokeRect = new RectF(0, 0, instanziationStrokeSize, instanziationStrokeSize);
+				drawnComponents++;
+				
+				drawComponent(canvas, dc, matrix, false);
+			}
+			
+			phase = PerformanceMetrics.PATHSTIME.stop(phase);
+			
+			if (drawingObjects.ContainsFormalizedConceptObjects()) 
+			{
+				drawingObjects.drawFormalizedConceptObjects(canvas, matrix, backupTransformationMatrix, false);
+			}
+			
+			if (drawingObjects.ContainsFormalizedIndividualObjects()) 
+			{
+				drawingObjects.drawFormalizedIndividualObjects(canvas, matrix, backupTransformationMatrix, false);
+			}
+
+			paint.setColor(getResources().getColor(R.color.highlight));
+			
+			if (!tempPath.isEmpty() && mode == DRAW) 
+			{
+				canvas.drawPath(tempPath, paint);
+			}
+
+			// attach new paths
+			for (int j = 0; j < newPaths.size(); j++) 
+			{
+				paint.setColor(getResources().getColor(R.color.activeSketch));
+				
+				canvas.drawPath(newPaths.get(j), paint);
+			}
+			
+			canvas.restore();
 
-				// apply the inverse matrix of the canvas upon the path
-				if (drawPath.isHighlighted()) 
+			// DEBUG ///////////////////////
+			// draw bounding boxes of paths for debugging purposes
+			 
+			if (drawDebugRegions)
+			{
+				RectF rect = new RectF();
+				
+				if(drawingObjects.getPathList().getPaths() != null)
 				{
-					
-					///////////////////////////////////////////
-					///////// draw highlighted paths //////////
-					///////////////////////////////////////////
-					
-					if (dc instanceof CustomObjectRelation)
+					for(int i = 0; i < drawingObjects.getPathList().getPaths().size(); i++)
 					{
-						Point startp = ((CustomObjectRelation) dc).getStartElementCenterPoint();
-						float[] anchor_start = new float[] { startp.x, startp.y};
-						
-						Point endp = ((CustomObjectRelation) dc).getEndElementCenterPoint();
-						float[] anchor_end = new float[] { endp.x, endp.y};
-						
-						if (((CustomObjectRelation) dc).getStartElement().isHighlighted())
-						{
-							matrix.mapPoints(anchor_start);
-						}
-						else
-						{
-							backupTransformationMatrix.mapPoints(anchor_start);
-						}
-						
-						if (((CustomObjectRelation) dc).getEndElement().isHighlighted())
-						{
-							matrix.mapPoints(anchor_end);
-						}
-						else 
-						{
-							backupTransformationMatrix.mapPoints(anchor_end);
-						}
-						
-						((CustomObjectRelation) dc).setStartPoint(new Point(anchor_start[0], anchor_start[1]));
-						((CustomObjectRelation) dc).setEndPoint(new Point(anchor_end[0], anchor_end[1]));
+						drawingObjects.getPathList().getPath(i).computeBounds(rect, true);
 						
+						CustomPath cp = new CustomPath();
 
-						if (!(dc instanceof PropertyRelation))
-						{			
-							RectF bounds = new RectF();
-							dc.getPath().computeBounds(bounds, true);
-							
-							backupTransformationMatrix.mapRect(bounds);
-							
-							float radius = bounds.height()/2;
-							
-							Point newStartp = ((CustomObjectRelation) dc).getStartPoint();
-							Point newEndp = ((CustomObjectRelation) dc).getEndPoint(); 
-							
-							Point newCenterp = getCenterPoint(newStartp, newEndp);
-
-							dc.getPath().reset();
-							
-							dc.getPath().moveTo(newCenterp.x, newCenterp.y);
-							
-							if (dc instanceof SubClassRelation)
-							{
-								dc.getPath().addCircle(newCenterp.x, newCenterp.y, radius, Path.Direction.CW);
-							}
-							else if (dc instanceof InstatiationRelation)
-							{
-								dc.getPath().addCircle(newCenterp.x, newCenterp.y, radius, Path.Direction.CW);
-							}
-
-							List<Point> vertices = dc.getPath().getVertices();
-							
-							dc.getPath().transform(backupInverse);
-
-							dc.getPath().setVertices(CustomPath.transformVertices(vertices, backupInverse));
-						}
-					
-						Path p = new Path();
-						
-						startp = ((CustomObjectRelation) dc).getStartPoint();
-						Point centerp = dc.getCenterPoint();
-						endp = ((CustomObjectRelation) dc).getEndPoint();
-						
-						float[] anchor_old = new float[] { startp.x, startp.y, endp.x, endp.y };
-						float[] anchor_current = new float[] { centerp.x, centerp.y};
-						
-						matrix.mapPoints(anchor_current);
+						cp.moveTo(rect.left, rect.top);
+						cp.lineTo(rect.left, rect.bottom);
+						cp.lineTo(rect.right, rect.top);
+						cp.lineTo(rect.right, rect.bottom);
+						cp.lineTo(rect.left, rect.top);
 						
-						if (dc instanceof PropertyRelation)
-						{
-							p.moveTo(anchor_old[0], anchor_old[1]);
-							
-							p.lineTo(anchor_current[0], anchor_current[1]);
-							p.lineTo(anchor_old[2], anchor_old[3]);
-							
-							propertyRelationPaint.setColor(drawPath.getColor());
-							relationPaint = propertyRelationPaint;
-						}
-						else if (dc instanceof SubClassRelation)
-						{
-							p.moveTo(anchor_old[0], anchor_old[1]);
-							
-							p.lineTo(anchor_old[2], anchor_old[3]);
-							
-							((SubClassRelation) dc).updateArrow(canvas, matrix, getCenterPoint(new Point(anchor_old[0], anchor_old[1]), new Point(anchor_old[2], anchor_old[3])), new Point(anchor_old[2], anchor_old[3]));
+						cp.moveTo(rect.left, rect.top);
+						cp.lineTo(rect.right, rect.top);
+						cp.moveTo(rect.left, rect.bottom);
+						cp.lineTo(rect.right, rect.bottom);
 
-							
-							relationPaint = subclassRelationPaint;
-						}
-						else if (dc instanceof InstatiationRelation)
-						{
-							p.moveTo(anchor_old[0], anchor_old[1]);
+						cp.transform(matrix);
+					
+						canvas.drawPath(cp, debugPaint); //rot
+						//canvas.drawRect(rect, debugPaint2); //gelb
+					}
+				}
+			}
+			
+			// DEBUG ///////////////////////
+			 
+		}
 
-							p.lineTo(anchor_old[2], anchor_old[3]);
-							
-							RectF startBounds = new RectF();
-							((CustomObjectRelation) dc).getStartElement().getPath().computeBounds(startBounds, true);
-							
-							startBounds.bottom = (float) (startBounds.bottom+12);
-							startBounds.top = (float) (startBounds.top-12);
-							startBounds.left = (float) (startBounds.left-10);
-							startBounds.right = (float) (startBounds.right+10);
-							
-							RectF endBounds = new RectF();
-							((CustomObjectRelation) dc).getEndElement().getPath().computeBounds(endBounds, true);
-							
-							endBounds.bottom = (float) (endBounds.bottom+12);
-							endBounds.top = (float) (endBounds.top-12);
-							endBounds.left = (float) (endBounds.left-10);
-							endBounds.right = (float) (endBounds.right+10);
+		canvas.restore();
 
-							backupTransformationMatrix.mapRect(startBounds);
-							backupTransformationMatrix.mapRect(endBounds);
-							
-							filledInstanziiationRelationPaint.setAlpha(dc.getAlpha());
-							
-							canvas.drawRect(startBounds, filledInstanziiationRelationPaint);
-							canvas.drawRect(endBounds, filledInstanziiationRelationPaint);
-							
-							backupTransformationMatrix.mapRect(instanziationStrokeRect);
-							instanziiationRelationPaint.setStrokeWidth(instanziationStrokeRect.height());
-							
-							relationPaint = instanziiationRelationPaint;
-						}
+		PerformanceMetrics.DRAWNCOMPONENTS.set(drawnComponents);
+		PerformanceMetrics.CULLEDCOMPONENTS.set(culledComponents);
 
-						relationPaint.setAlpha(dc.getAlpha());
-						
-						canvas.drawPath(p, relationPaint);
+		PerformanceMetrics.DECORATIONTIME.stop(phase);
+		PerformanceMetrics.FRAMETIME.stop(frameStart);
 
-					}
-					
-					if (dc instanceof DrawingPropertyRelation )
-					{
-						Point startp = ((DrawingPropertyRelation) dc).getStartElementCenterPoint();
-						float[] anchor_start = new float[] { startp.x, startp.y};
-						
-						Point endp = ((DrawingPropertyRelation) dc).getEndElementCenterPoint();
-						float[] anchor_end = new float[] { endp.x, endp.y};
-						
-						if (((DrawingPropertyRelation) dc).getStartElement().isHighlighted())
-						{
-							matrix.mapPoints(anchor_start);
-						}
-						else
-						{
-							backupTransformationMatrix.mapPoints(anchor_start);
-						}
-						
-						if (((DrawingPropertyRelation) dc).getEndElement().isHighlighted())
-						{
-							matrix.mapPoints(anchor_end);
-						}
-						else 
-						{
-							backupTransformationMatrix.mapPoints(anchor_end);
-						}
-						
-						((DrawingPropertyRelation) dc).setStartPoint(new Point(anchor_start[0], anchor_start[1]));
-						((DrawingPropertyRelation) dc).setEndPoint(new Point(anchor_end[0], anchor_end[1]));
+		if (PerformanceMetrics.isEnabled()) PerformanceMetrics.drawHud(canvas);
 
-						Path p = new Path();
-						
-						startp = ((DrawingPropertyRelation) dc).getStartPoint();
-						Point centerp = dc.getCenterPoint();
-						endp = ((DrawingPropertyRelation) dc).getEndPoint();
-						
-						float[] anchor_old = new float[] { startp.x, startp.y, endp.x, endp.y };
-						float[] anchor_current = new float[] { centerp.x, centerp.y};
+		super.onDraw(canvas);
+	}
 
-						matrix.mapPoints(anchor_current);
+	/**
+	 * Getter for the number of components that were drawn during the last frame, components
+	 * that come from the static layer are only counted when it was redrawn
+	 * @return The number of drawn components
+	 */
+	public int getDrawnComponentCount()
+	{
+		return drawnComponents;
+	}
 	
-						p.moveTo(anchor_old[0], anchor_old[1]);
-						
-						p.lineTo(anchor_current[0], anchor_current[1]);
-						p.lineTo(anchor_old[2], anchor_old[3]);
-						
-						propertyRelationPaint.setColor(drawPath.getColor());
-						relationPaint = propertyRelationPaint;
-						
-						relationPaint.setAlpha(dc.getAlpha());
-						
-						canvas.drawPath(p, relationPaint);
-						
-						if (((DrawingPropertyRelation) dc).formalizedRelationbuttons != null)
-						{
-							if (((DrawingPropertyRelation) dc).formalizedRelationbuttons.size() > 0)
-							{
-								int count = 1;
-								
-								Point p2 = new Point(anchor_current[0], anchor_current[1]);
-								
-								RectF r = new RectF();
-								
-								CustomPath cp = new CustomPath();
-								cp.set(dc.getPath());
-								
-								cp.transform(matrix);
-								
-								cp.computeBounds(r, true);
-								float radius = r.height()/2;
-								
-								for (FormalizedPropertyRelationButton fb : ((DrawingPropertyRelation) dc).formalizedRelationbuttons)
-								{
-									fb.getPath().reset();
-									
-									p2.y = (float) (anchor_current[1] + ((radius*2) * count));
-									
-									fb.getPath().moveTo(p2.x, p2.y);
-									fb.getPath().addCircle(p2.x, p2.y, radius, Path.Direction.CW);
-									
-									List<Point> vertices = fb.getPath().getVertices();
-									
-									fb.getPath().transform(backupInverse);
-
-									fb.getPath().setVertices(CustomPath.transformVertices(vertices, backupInverse));
-									
-									count++;
-								}
-							}
-						}
-					}
-					
-					if (dc instanceof PropertyRelation)
-					{
-						((PropertyRelation) dc).drawPropertyRelation(canvas, matrix);
-					} 
-					else if (dc instanceof SubClassRelation)
-					{
-						((SubClassRelation) dc).drawPropertyRelationHelpText(canvas, matrix);
-					}
-					
-					drawPath.transform(matrix);
-					
-					try
-					{
-						if (drawPath.isVisible())
-						{
-							highlightedPaint.setAlpha(dc.getAlpha());
-						}
-						else
-						{
-							highlightedPaint.setAlpha(0);
-						}
-					}
-					catch(Exception e){System.out.print(e);}
-
-					if( dc instanceof DrawingIndividual || dc instanceof DrawingConcept)
-					{
-						// fill the background
-						filledPaint.setAlpha(dc.getAlpha());
-						filledPaint.setColor(getResources().getColor(R.color.sketchBackground));
-						canvas.drawPath(drawPath, filledPaint);
-					}
-
-					if (dc instanceof SubClassRelation || dc instanceof PropertyRelation)
-					{
-						// draw the path
-						// fill the background
-						filledPaint.setColor(drawPath.getColor());
-						filledPaint.setAlpha(dc.getAlpha());
-						canvas.drawPath(drawPath, filledPaint);
-					}
-					
-					if (dc instanceof DrawingPropertyRelation)
-					{
-						filledPaint.setColor(getResources().getColor(R.color.sketchBackground));
-						filledPaint.setAlpha(dc.getAlpha());
-						canvas.drawPath(drawPath, filledPaint);
-					}
-					
-					// draw the path
-					canvas.drawPath(drawPath, highlightedPaint);
-					
-					if (dc instanceof PropertyRelation)
-					{
-						((PropertyRelation) dc).updateArrow(canvas, matrix);
-					}
-					else if (dc instanceof SubClassRelation)
-					{
-						((SubClassRelation) dc).drawRelationIcon(canvas, matrix);
-					}
-					else if (dc instanceof DrawingConcept)
-					{
-						((DrawingConcept) dc).drawDrawingConceptIcon(canvas, matrix);
-					}
-					else if (dc instanceof DrawingIndividual)
-					{
-						((DrawingIndividual) dc).drawDrawingIndividualIcon(canvas, matrix);
-					}
-					else if (dc instanceof DrawingPropertyRelation)
-					{
-						((DrawingPropertyRelation) dc).updateArrow(canvas, matrix);
-					}
-					
-					
-					// restore the initial path object with the original
-					// transformation
-					// Matrix
-
-					drawPath.transform(inverse);
-					
-				} 
-				else 
-				{
-					///////////////////////////////////////////
-					//////// draw not highlighted paths ///////
-					///////////////////////////////////////////
-					
-					if ((dc instanceof FormalizedPropertyRelationButton) && dc.getPath().isVisible() == false) break;
-					
-					
-					if (dc instanceof CustomObjectRelation && !(dc instanceof FormalizedPropertyRelationButton))
-					{
-						Point startp = ((CustomObjectRelation) dc).getStartElementCenterPoint();
-						float[] anchor_start = new float[] { startp.x, startp.y};
-						
-						Point endp = ((CustomObjectRelation) dc).getEndElementCenterPoint();
-						float[] anchor_end = new float[] { endp.x, endp.y};
-						
-						if (((CustomObjectRelation) dc).getStartElement().isHighlighted())
-						{
-							matrix.mapPoints(anchor_start);
-						}
-						else
-						{
-							backupTransformationMatrix.mapPoints(anchor_start);
-						}
-						
-						if (((CustomObjectRelation) dc).getEndElement().isHighlighted())
-						{
-							matrix.mapPoints(anchor_end);
-						}
-						else 
-						{
-							backupTransformationMatrix.mapPoints(anchor_end);
-						}
-						
-						((CustomObjectRelation) dc).setStartPoint(new Point(anchor_start[0], anchor_start[1]));
-						((CustomObjectRelation) dc).setEndPoint(new Point(anchor_end[0], anchor_end[1]));
-						
-						if (!(dc instanceof PropertyRelation))
-						{
-
-							RectF bounds = new RectF();
-							dc.getPath().computeBounds(bounds, true);
-							
-							backupTransformationMatrix.mapRect(bounds);
-							
-							float radius = bounds.height()/2;
-							
-							Point newStartp = ((CustomObjectRelation) dc).getStartPoint();
-							Point newEndp = ((CustomObjectRelation) dc).getEndPoint(); 
-							
-							Point newCenterp = getCenterPoint(newStartp, newEndp);
-
-							dc.getPath().reset();
-							
-							dc.getPath().moveTo(newCenterp.x, newCenterp.y);
-							
-							if (dc instanceof SubClassRelation)
-							{
-								dc.getPath().addCircle(newCenterp.x, newCenterp.y, radius, Path.Direction.CW);
-							}
-							else if (dc instanceof InstatiationRelation)
-							{
-								dc.getPath().addCircle(newCenterp.x, newCenterp.y, radius, Path.Direction.CW);
-							}
-
-							List<Point> vertices = dc.getPath().getVertices();
-							
-							dc.getPath().transform(backupInverse);
-
-							dc.getPath().setVertices(CustomPath.transformVertices(vertices, backupInverse));
-
-						}
-						
-						Path p = new Path();
-						
-						startp = ((CustomObjectRelation) dc).getStartPoint();
-						Point centerp = dc.getCenterPoint();
-						endp = ((CustomObjectRelation) dc).getEndPoint();
-						
-						float[] anchor_old_start = new float[] { startp.x, startp.y};
-						float[] anchor_old_end = new float[] { endp.x, endp.y };
-						float[] anchor_current = new float[] { centerp.x, centerp.y};
-						
-						backupTransformationMatrix.mapPoints(anchor_current);
-
-						if (dc instanceof PropertyRelation)
-						{
-							p.moveTo(anchor_old_start[0], anchor_old_start[1]);
-							
-							p.lineTo(anchor_current[0], anchor_current[1]);
-							p.lineTo(anchor_old_end[0], anchor_old_end[1]);
-							
-							propertyRelationPaint.setColor(drawPath.getColor());
-							relationPaint = propertyRelationPaint;
-						}
-						else if (dc instanceof SubClassRelation)
-						{
-							
-							p.moveTo(anchor_old_start[0], anchor_old_start[1]);
-
-							p.lineTo(anchor_old_end[0], anchor_old_end[1]);
-							
-							((SubClassRelation) dc).updateArrow(canvas, backupTransformationMatrix, getCenterPoint(new Point(anchor_old_start[0], anchor_old_start[1]), new Point(anchor_old_end[0], anchor_old_end[1])), new Point(anchor_old_end[0], anchor_old_end[1]));
-
-							relationPaint = subclassRelationPaint;
-						}
-						else if (dc instanceof InstatiationRelation)
-						{
-							p.moveTo(anchor_old_start[0], anchor_old_start[1]);
-							
-							p.lineTo(anchor_old_end[0], anchor_old_end[1]);
-							
-							RectF startBounds = new RectF();
-							((CustomObjectRelation) dc).getStartElement().getPath().computeBounds(startBounds, true);
-							
-							startBounds.bottom = (float) (startBounds.bottom+12);
-							startBounds.top = (float) (startBounds.top-12);
-							startBounds.left = (float) (startBounds.left-10);
-							startBounds.right = (float) (startBounds.right+10);
-							
-							RectF endBounds = new RectF();
-							((CustomObjectRelation) dc).getEndElement().getPath().computeBounds(endBounds, true);
-							
-							endBounds.bottom = (float) (endBounds.bottom+12);
-							endBounds.top = (float) (endBounds.top-12);
-							endBounds.left = (float) (endBounds.left-10);
-							endBounds.right = (float) (endBounds.right+10);
-
-							if (((CustomObjectRelation) dc).getStartElement().isHighlighted())
-							{
-								matrix.mapRect(startBounds);
-								backupTransformationMatrix.mapRect(endBounds);
-							}
-							else if (((CustomObjectRelation) dc).getEndElement().isHighlighted())
-							{
-								backupTransformationMatrix.mapRect(startBounds);
-								matrix.mapRect(endBounds);
-							}
-							else 
-							{
-								backupTransformationMatrix.mapRect(startBounds);
-								backupTransformationMatrix.mapRect(endBounds);
-							}
-
-							filledInstanziiationRelationPaint.setAlpha(dc.getAlpha());
-							
-							canvas.drawRect(startBounds, filledInstanziiationRelationPaint);
-							canvas.drawRect(endBounds, filledInstanziiationRelationPaint);
-							
-							backupTransformationMatrix.mapRect(instanziationStrokeRect);
-							instanziiationRelationPaint.setStrokeWidth(instanziationStrokeRect.height());
-							
-							relationPaint = instanziiationRelationPaint;
-						}
-
-						relationPaint.setAlpha(dc.getAlpha());
-						
-						canvas.drawPath(p, relationPaint);
-					}
-					
-					if (dc instanceof DrawingPropertyRelation)
-					{
-						Point startp = ((DrawingPropertyRelation) dc).getStartElementCenterPoint();
-						float[] anchor_start = new float[] { startp.x, startp.y};
-						
-						Point endp = ((DrawingPropertyRelation) dc).getEndElementCenterPoint();
-						float[] anchor_end = new float[] { endp.x, endp.y};
-						
-						if (((DrawingPropertyRelation) dc).getStartElement().isHighlighted())
-						{
-							matrix.mapPoints(anchor_start);
-						}
-						else
-						{
-							backupTransformationMatrix.mapPoints(anchor_start);
-						}
-						
-						if (((DrawingPropertyRelation) dc).getEndElement().isHighlighted())
-						{
-							matrix.mapPoints(anchor_end);
-						}
-						else 
-						{
-							backupTransformationMatrix.mapPoints(anchor_end);
-						}
-						
-						((DrawingPropertyRelation) dc).setStartPoint(new Point(anchor_start[0], anchor_start[1]));
-						((DrawingPropertyRelation) dc).setEndPoint(new Point(anchor_end[0], anchor_end[1]));
-					
-						Path p = new Path();
-						
-						startp = ((DrawingPropertyRelation) dc).getStartPoint();
-						Point centerp = dc.getCenterPoint();
-						endp = ((DrawingPropertyRelation) dc).getEndPoint();
-						
-						float[] anchor_old_start = new float[] { startp.x, startp.y};
-						float[] anchor_old_end = new float[] { endp.x, endp.y };
-						float[] anchor_current = new float[] { centerp.x, centerp.y};
-					
-						backupTransformationMatrix.mapPoints(anchor_current);
-
-						p.moveTo(anchor_old_start[0], anchor_old_start[1]);
-						
-						p.lineTo(anchor_current[0], anchor_current[1]);
-						p.lineTo(anchor_old_end[0], anchor_old_end[1]);
-						
-						propertyRelationPaint.setColor(drawPath.getColor());
-						relationPaint = propertyRelationPaint;
-				
-						relationPaint.setAlpha(dc.getAlpha());
-						
-						canvas.drawPath(p, relationPaint);
-
-					}
-					
-					if (dc instanceof PropertyRelation)
-					{
-						((PropertyRelation) dc).drawPropertyRelation(canvas, backupTransformationMatrix);
-					}
-					else if (dc instanceof SubClassRelation)
-					{
-						((SubClassRelation) dc).drawPropertyRelationHelpText(canvas, backupTransformationMatrix);
-					}
-					
-					drawPath.transform(backupTransformationMatrix);
-					
-					if( dc instanceof DrawingIndividual || dc instanceof DrawingConcept)
-					{
-						// fill the background
-						filledPaint.setColor(getResources().getColor(R.color.sketchBackground));
-						filledPaint.setAlpha(dc.getAlpha());
-						canvas.drawPath(drawPath, filledPaint);
-					}
-
-					if (dc instanceof SubClassRelation || dc instanceof PropertyRelation )
-					{
-						// draw the path
-						// fill the background
-						filledPaint.setColor(drawPath.getColor());
-						filledPaint.setAlpha(dc.getAlpha());
-						canvas.drawPath(drawPath, filledPaint);
+	/**
+	 * Getter for the number of components that were skipped during the last frame, because
+	 * they were outside of the visible area
+	 * @return The number of culled components
+	 */
+	public int getCulledComponentCount()
+	{
+		return culledComponents;
+	}
+	
+	/**
+	 * Map the visible area of the view into world coordinates
+	 * @param target Receives the visible area including the culling margin
+	 * @param inverse The inverse of the matrix the paths are drawn with
+	 * @param area The area of the view that is repainted, in screen coordinates
+	 */
+	private void updateViewport(RectF target, Matrix inverse, Rect area)
+	{
+		target.set(area.left - CULLINGMARGIN, area.top - CULLINGMARGIN, area.right + CULLINGMARGIN, area.bottom + CULLINGMARGIN);
+		
+		inverse.mapRect(target);
+	}
+	
+	/**
+	 * Setter for the size below which the icons and help texts of components are not drawn
+	 * @param size The minimal width or height of a component in screen pixels
+	 */
+	public void setMinDecorationSize(float size)
+	{
+		minDecorationSize = size;
+	}
+	
+	public float getMinDecorationSize()
+	{
+		return minDecorationSize;
+	}
+	
+	/**
+	 * Check whether a component is large enough on the screen to show its icon and help text
+	 * @param dc The examined component
+	 * @param componentMatrix The matrix the component is drawn with
+	 * @return False if the decorations would be too small to be recognized
+	 */
+	private boolean isDecorationVisible(DrawingComponent dc, Matrix componentMatrix)
+	{
+		if (!drawingObjects.getSpatialIndex().getBounds(dc, decorationBounds)) return true;
+		
+		componentMatrix.mapRect(decorationBounds);
+		
+		return Math.max(decorationBounds.width(), decorationBounds.height()) >= minDecorationSize;
+	}
+	
+	private boolean isRelation(DrawingComponent dc)
+	{
+		return dc instanceof CustomObjectRelation || dc instanceof DrawingPropertyRelation;
+	}
+	
+	/**
+	 * Test the indexed world space bounds of a component against the visible area. Relations
+	 * are tested together with their start and end element since they connect them.
+	 * @param dc The examined component
+	 * @param worldViewport The visible area in world coordinates
+	 * @return False if the component can be skipped
+	 */
+	private boolean isOnScreen(DrawingComponent dc, RectF worldViewport)
+	{
+		if (dc == null) return true;
+		
+		SpatialIndex index = drawingObjects.getSpatialIndex();
+		
+		if (!index.getBounds(dc, cullingBounds)) return true;
+		
+		DrawingComponent start = null;
+		DrawingComponent end = null;
+		
+		if (dc instanceof CustomObjectRelation)
+		{
+			start = ((CustomObjectRelation) dc).getStartElement();
+			end = ((CustomObjectRelation) dc).getEndElement();
+		}
+		else if (dc instanceof DrawingPropertyRelation)
+		{
+			start = ((DrawingPropertyRelation) dc).getStartElement();
+			end = ((DrawingPropertyRelation) dc).getEndElement();
+		}
+		
+		if (start != null)
+		{
+			if (!index.getBounds(start, cullingHelperBounds)) return true;
+			
+			cullingBounds.union(cullingHelperBounds);
+		}
+		
+		if (end != null)
+		{
+			if (!index.getBounds(end, cullingHelperBounds)) return true;
+			
+			cullingBounds.union(cullingHelperBounds);
+		}
+		
+		return RectF.intersects(worldViewport, cullingBounds);
+	}
 
-					}
-					
-					if (dc instanceof DrawingPropertyRelation)
-					{
-						filledPaint.setColor(getResources().getColor(R.color.sketchBackground));
-						filledPaint.setAlpha(dc.getAlpha());
-						canvas.drawPath(drawPath, filledPaint);
-					}
-					
-					if (drawPath.isVisible())
-					{
-						paint.setAlpha(dc.getAlpha());
-					}
-					else
-					{
-						paint.setAlpha(0);
-					}
-					
-					canvas.drawPath(drawPath, paint);
-					
-					drawPath.transform(backupInverse);
-					
-					if (dc instanceof PropertyRelation)
-					{
-						((PropertyRelation) dc).updateArrow(canvas, backupTransformationMatrix);
-					}
-					else if (dc instanceof SubClassRelation)
-					{
-						((SubClassRelation) dc).drawRelationIcon(canvas, backupTransformationMatrix);
-					}
-					else if (dc instanceof DrawingConcept)
-					{
-						((DrawingConcept) dc).drawDrawingConceptIcon(canvas, backupTransformationMatrix);
-					}
-					else if (dc instanceof DrawingIndividual)
-					{
-						((DrawingIndividual) dc).drawDrawingIndividualIcon(canvas, backupTransformationMatrix);
-					}
-					else if (dc instanceof DrawingPropertyRelation)
-					{
-						((DrawingPropertyRelation) dc).updateArrow(canvas, backupTransformationMatrix);
-					}
-				}
-			}
+	/**
+	 * Mark the static layer as outdated, needed after changes of the visual attributes of paths
+	 * that are not highlighted while a selection is transformed
+	 */
+	public void invalidateStaticLayer()
+	{
+		staticLayerValid = false;
+	}
+	
+	/**
+	 * Check whether a path has to be redrawn on every frame while a selection is transformed
+	 * @param path The examined path
+	 * @param dc The component of the path
+	 * @return True if the path is highlighted or depends on a highlighted component
+	 */
+	private boolean isLivePath(CustomPath path, DrawingComponent dc)
+	{
+		if (path.isHighlighted()) return true;
+		
+		// the buttons are placed by their relation
+		if (dc instanceof FormalizedPropertyRelationButton) return true;
+		
+		if (dc instanceof CustomObjectRelation)
+		{
+			return ((CustomObjectRelation) dc).getStartElement().isHighlighted() || ((CustomObjectRelation) dc).getEndElement().isHighlighted();
+		}
+		
+		if (dc instanceof DrawingPropertyRelation)
+		{
+			return ((DrawingPropertyRelation) dc).getStartElement().isHighlighted() || ((DrawingPropertyRelation) dc).getEndElement().isHighlighted();
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Collect the paths that are redrawn on every frame in their drawing order
+	 */
+	private void collectLivePaths()
+	{
+		livePaths.clear();
+		livePathsHash = 1;
+		
+		List<CustomPath> paths = drawingObjects.getPathList().getPaths();
+		
+		for (int i = 0; i < paths.size(); i++)
+		{
+			CustomPath path = paths.get(i);
 			
-			if (drawingObjects.ContainsFormalizedConceptObjects()) 
+			if (isLivePath(path, drawingObjects.getObjectByPathId(path.getUid())))
 			{
-				drawingObjects.drawFormalizedConceptObjects(canvas, matrix, backupTransformationMatrix, true);
+				livePaths.add(path);
+				livePathsHash = 31 * livePathsHash + System.identityHashCode(path);
 			}
+		}
+	}
+	
+	/**
+	 * Check whether the static layer still shows the current state, it has to be redrawn when
+	 * the structure, the backup matrix or the set of live paths has changed
+	 */
+	private boolean isStaticLayerValid()
+	{
+		return staticLayerValid
+				&& staticLayer.getWidth() == getWidth()
+				&& staticLayer.getHeight() == getHeight()
+				&& staticLayerChangeCount == drawingObjects.getChangeCount()
+				&& staticLayerLiveCount == livePaths.size()
+				&& staticLayerLiveHash == livePathsHash
+				&& staticLayerMatrix.equals(backupTransformationMatrix);
+	}
+	
+	/**
+	 * Draw all paths that are not collected by {@link #collectLivePaths()} into the static layer
+	 */
+	private void drawStaticLayer()
+	{
+		if (staticLayer == null || staticLayer.getWidth() != getWidth() || staticLayer.getHeight() != getHeight())
+		{
+			staticLayer = Bitmap.createBitmap(Math.max(getWidth(), 1), Math.max(getHeight(), 1), Bitmap.Config.ARGB_8888);
+			staticLayerCanvas = new Canvas(staticLayer);
+		}
+		
+		staticLayer.eraseColor(Color.TRANSPARENT);
+		
+		List<CustomPath> paths = drawingObjects.getPathList().getPaths();
+		
+		for (int i = 0; i < paths.size(); i++)
+		{
+			drawPath = paths.get(i);
 			
-			if (drawingObjects.ContainsFormalizedIndividualObjects()) 
+			DrawingComponent dc = drawingObjects.getObjectByPathId(drawPath.getUid());
+			
+			if (isLivePath(drawPath, dc)) continue;
+			
+			if (!isOnScreen(dc, backupViewport))
 			{
-				drawingObjects.drawFormalizedIndividualObjects(canvas, matrix, backupTransformationMatrix, true);
+				culledComponents++;
+				continue;
 			}
-
-		} 
-		else 
+			
+			drawnComponents++;
+			
+			drawComponent(staticLayerCanvas, dc, backupTransformationMatrix, true);
+		}
+		
+		staticLayerMatrix.set(backupTransformationMatrix);
+		staticLayerChangeCount = drawingObjects.getChangeCount();
+		staticLayerLiveCount = livePaths.size();
+		staticLayerLiveHash = livePathsHash;
+		staticLayerValid = true;
+	}
+	
+	/**
+	 * Draw the path of the field <b>drawPath</b> with its relation line, its filling and its
+	 * decorations. While a selection is transformed, highlighted paths are drawn with the
+	 * transformation matrix and all others with the backup matrix, relations follow the
+	 * current position of their elements.
+	 * @param canvas The canvas of the <b>DrawView</b> or the static layer
+	 * @param dc The component the path of the field <b>drawPath</b> belongs to
+	 * @param pathMatrix The matrix the path and its decorations are drawn with
+	 * @param transforming True if a selection is transformed
+	 */
+	private void drawComponent(Canvas canvas, DrawingComponent dc, Matrix pathMatrix, boolean transforming)
+	{
+		if ((dc instanceof FormalizedPropertyRelationButton) && dc.getPath().isVisible() == false) return;
+		
+		// the view matrix of the paths that are not transformed
+		Matrix viewMatrix = transforming ? backupTransformationMatrix : matrix;
+		
+		paint.setColor(drawPath.getColor());
+		
+		instanziationStrokeRect.set(0, 0, instanziationStrokeSize, instanziationStrokeSize);
+		
+		if (dc instanceof CustomObjectRelation && !(dc instanceof FormalizedPropertyRelationButton))
 		{
-			///////////////////////////////////////////
-			//////////// draw stored paths ////////////
-			///////////////////////////////////////////
-
-			Log.d("DrawView",  " size: " + drawingObjects.getPathList().getPaths().size());
-
-			for (int i = 0; i < drawingObjects.getPathList().getPaths().size(); i++) 
+			CustomObjectRelation relation = (CustomObjectRelation) dc;
+			RelationGeometry geometry = relation.getGeometry();
+			
+			geometry.update(dc, relation.getStartElement(), relation.getEndElement());
+			
+			if (transforming)
 			{
-
-				instanziationStrokeRect = new RectF(0, 0, instanziationStrokeSize, instanziationStrokeSize);
-				
-				drawPath = drawingObjects.getPathList().getPath(i);
-				
-				DrawingComponent dc = drawingObjects.getObjectByPathId(drawPath.getUid());
+				mapElementAnchors(geometry, relation.getStartElement(), relation.getEndElement());
 				
-				paint.setColor(drawPath.getColor());
+				relation.setAnchors(anchors[0], anchors[1], anchors[2], anchors[3]);
 				
-				if (dc != null)
+				if (!(dc instanceof PropertyRelation) && geometry.needsPlacement(relation.getStartElement().isHighlighted() || relation.getEndElement().isHighlighted()))
 				{
-					if (drawPath.isVisible())
-					{
-						paint.setAlpha(dc.getAlpha());
-					}
-					else
-					{
-						paint.setAlpha(0);
-					}
-
-				}
-				
-				if (dc instanceof CustomObjectRelation && !(dc instanceof FormalizedPropertyRelationButton))
-				{
-					Path p = new Path();
-					
-					Point startp = ((CustomObjectRelation) dc).getStartElementCenterPoint();
-					Point centerp = dc.getCenterPoint();
-					Point endp = ((CustomObjectRelation) dc).getEndElementCenterPoint();
-					
-					
-					if (dc instanceof PropertyRelation)
-					{
-						p.moveTo(startp.x, startp.y);
-						
-						p.lineTo(centerp.x, centerp.y);
-						p.lineTo(endp.x, endp.y);
-						
-						propertyRelationPaint.setColor(drawPath.getColor());
-						relationPaint = propertyRelationPaint;
-					}
-					else if (dc instanceof SubClassRelation)
-					{
-						p.moveTo(startp.x, startp.y);
-
-						p.lineTo(endp.x, endp.y);
-						
-						((SubClassRelation) dc).updateArrow(canvas, matrix);
-						
-						relationPaint = subclassRelationPaint;
-					}
-					else if (dc instanceof InstatiationRelation)
-					{
-						p.moveTo(startp.x, startp.y);
-						
-						p.lineTo(endp.x, endp.y);
-
-						RectF startBounds = new RectF();
-						((CustomObjectRelation) dc).getStartElement().getPath().computeBounds(startBounds, true);
-						
-						startBounds.bottom = (float) (startBounds.bottom+12);
-						startBounds.top = (float) (startBounds.top-12);
-						startBounds.left = (float) (startBounds.left-10);
-						startBounds.right = (float) (startBounds.right+10);
-						
-						RectF endBounds = new RectF();
-						((CustomObjectRelation) dc).getEndElement().getPath().computeBounds(endBounds, true);
-						
-						endBounds.bottom = (float) (endBounds.bottom+12);
-						endBounds.top = (float) (endBounds.top-12);
-						endBounds.left = (float) (endBounds.left-10);
-						endBounds.right = (float) (endBounds.right+10);
-
-						matrix.mapRect(startBounds);
-						matrix.mapRect(endBounds);
-						
-						filledInstanziiationRelationPaint.setAlpha(dc.getAlpha());
-						
-						canvas.drawRect(startBounds, filledInstanziiationRelationPaint);
-						canvas.drawRect(endBounds, filledInstanziiationRelationPaint);
-						
-						matrix.mapRect(instanziationStrokeRect);
-						instanziiationRelationPaint.setStrokeWidth(instanziationStrokeRect.height());
-						
-						relationPaint = instanziiationRelationPaint;
-					}
-
-					p.transform(matrix);
-					
-					relationPaint.setAlpha(dc.getAlpha());
-					
-					canvas.drawPath(p, relationPaint);
+					placeRelation(dc, geometry);
 					
+					geometry.update(dc, relation.getStartElement(), relation.getEndElement());
 				}
 				
-				if (dc instanceof DrawingPropertyRelation)
-				{
-					Path p = new Path();
-					
-					Point startp = ((DrawingPropertyRelation) dc).getStartElementCenterPoint();
-					Point centerp = dc.getCenterPoint();
-					Point endp = ((DrawingPropertyRelation) dc).getEndElementCenterPoint();
-
-					p.moveTo(startp.x, startp.y);
-					
-					p.lineTo(centerp.x, centerp.y);
-					p.lineTo(endp.x, endp.y);
-					
-					propertyRelationPaint.setColor(drawPath.getColor());
-					relationPaint = propertyRelationPaint;
-
-					p.transform(matrix);
-					
-					relationPaint.setAlpha(dc.getAlpha());
-					
-					canvas.drawPath(p, relationPaint);
-
-				}
-
-				// apply the inverse matrix of the canvas upon the path
+				mapRelationAnchor(dc, geometry, pathMatrix);
+			}
+			else
+			{
+				mapStoredAnchors(dc, geometry);
+			}
+			
+			relationLine.reset();
 
-				if (dc instanceof PropertyRelation)
-				{
-					((PropertyRelation) dc).drawPropertyRelation(canvas, matrix);
-				}
-				else if (dc instanceof SubClassRelation)
-				{
-					((SubClassRelation) dc).drawPropertyRelationHelpText(canvas, matrix);
-				}
+			if (dc instanceof PropertyRelation)
+			{
+				relationLine.moveTo(anchors[0], anchors[1]);
 				
-				drawPath.transform(matrix);
+				relationLine.lineTo(anchors[4], anchors[5]);
+				relationLine.lineTo(anchors[2], anchors[3]);
 				
-				if( dc instanceof DrawingIndividual || dc instanceof DrawingConcept)
-				{
-					// fill the background
-					filledPaint.setColor(getResources().getColor(R.color.sketchBackground));
-					filledPaint.setAlpha(dc.getAlpha());
-					canvas.drawPath(drawPath, filledPaint);
-				}
-
-				if (dc instanceof SubClassRelation || dc instanceof PropertyRelation)
-				{
-					// draw the path
-					// fill the background	
-					filledPaint.setColor(drawPath.getColor());
-					filledPaint.setAlpha(dc.getAlpha());
-					if(drawPath.isVisible()) canvas.drawPath(drawPath, filledPaint);
+				propertyRelationPaint.setColor(drawPath.getColor());
+				relationPaint = propertyRelationPaint;
+			}
+			else if (dc instanceof SubClassRelation)
+			{
+				relationLine.moveTo(anchors[0], anchors[1]);
 
-				}
+				relationLine.lineTo(anchors[2], anchors[3]);
 				
-				if (dc instanceof DrawingPropertyRelation)
+				if (transforming)
 				{
-					filledPaint.setColor(getResources().getColor(R.color.sketchBackground));
-					filledPaint.setAlpha(dc.getAlpha());
-					canvas.drawPath(drawPath, filledPaint);
-				}
-
-				if (drawPath.isVisible())
-				{
-					paint.setAlpha(dc.getAlpha());
+					arrowCenter.x = (anchors[0] + anchors[2]) / 2;
+					arrowCenter.y = (anchors[1] + anchors[3]) / 2;
+					arrowEnd.x = anchors[2];
+					arrowEnd.y = anchors[3];
+					
+					((SubClassRelation) dc).updateArrow(canvas, pathMatrix, arrowCenter, arrowEnd);
 				}
 				else
 				{
-					paint.setAlpha(0);
+					((SubClassRelation) dc).updateArrow(canvas, pathMatrix);
 				}
-				
-				if(drawPath.isVisible()) canvas.drawPath(drawPath, paint);
-
-				// restore the initial path object with the original
-				// transformation
-				// Matrix
 
-				drawPath.transform(inverse);
-
-				if (dc instanceof PropertyRelation)
-				{
-					((PropertyRelation) dc).updateArrow(canvas, matrix);
-				}
-				else if (dc instanceof SubClassRelation)
-				{
-					((SubClassRelation) dc).drawRelationIcon(canvas, matrix);
-				}
-				else if (dc instanceof DrawingConcept)
-				{
-					((DrawingConcept) dc).drawDrawingConceptIcon(canvas, matrix);
-				}
-				else if (dc instanceof DrawingIndividual)
-				{
-					((DrawingIndividual) dc).drawDrawingIndividualIcon(canvas, matrix);
-				}
-				else if (dc instanceof DrawingPropertyRelation)
-				{
-					((DrawingPropertyRelation) dc).updateArrow(canvas, matrix);
-				} 
+				relationPaint = subclassRelationPaint;
+			}
+			else if (dc instanceof InstatiationRelation)
+			{
+				relationLine.moveTo(anchors[0], anchors[1]);
+				
+				relationLine.lineTo(anchors[2], anchors[3]);
+				
+				drawInstantiationBounds(canvas, dc, geometry,
+						relation.getStartElement().isHighlighted() ? matrix : viewMatrix,
+						relation.getEndElement().isHighlighted() ? matrix : viewMatrix);
+				
+				viewMatrix.mapRect(instanziationStrokeRect);
+				instanziiationRelationPaint.setStrokeWidth(instanziationStrokeRect.height());
+				
+				relationPaint = instanziiationRelationPaint;
 			}
+
+			relationPaint.setAlpha(dc.getAlpha());
 			
+			canvas.drawPath(relationLine, relationPaint);
+		}
+		
+		if (dc instanceof DrawingPropertyRelation)
+		{
+			DrawingPropertyRelation relation = (DrawingPropertyRelation) dc;
+			RelationGeometry geometry = relation.getGeometry();
 			
-			if (drawingObjects.ContainsFormalizedConceptObjects()) 
+			geometry.update(dc, relation.getStartElement(), relation.getEndElement());
+			
+			if (transforming)
 			{
-				drawingObjects.drawFormalizedConceptObjects(canvas, matrix, backupTransformationMatrix, false);
+				mapElementAnchors(geometry, relation.getStartElement(), relation.getEndElement());
+				
+				relation.setAnchors(anchors[0], anchors[1], anchors[2], anchors[3]);
+				
+				mapRelationAnchor(dc, geometry, pathMatrix);
 			}
-			
-			if (drawingObjects.ContainsFormalizedIndividualObjects()) 
+			else
 			{
-				drawingObjects.drawFormalizedIndividualObjects(canvas, matrix, backupTransformationMatrix, false);
+				mapStoredAnchors(dc, geometry);
 			}
+			
+			relationLine.reset();
 
-			paint.setColor(getResources().getColor(R.color.highlight));
+			relationLine.moveTo(anchors[0], anchors[1]);
 			
-			if (!tempPath.isEmpty() && mode == DRAW) 
+			relationLine.lineTo(anchors[4], anchors[5]);
+			relationLine.lineTo(anchors[2], anchors[3]);
+			
+			propertyRelationPaint.setColor(drawPath.getColor());
+			relationPaint = propertyRelationPaint;
+	
+			relationPaint.setAlpha(dc.getAlpha());
+			
+			canvas.drawPath(relationLine, relationPaint);
+			
+			// the buttons below a transformed relation move with it
+			if (transforming && drawPath.isHighlighted())
 			{
-				canvas.drawPath(tempPath, paint);
+				placeRelationButtons(relation, geometry);
 			}
-
-			// attach new paths
-			for (int j = 0; j < newPaths.size(); j++) 
+		}
+		
+		if (dc instanceof PropertyRelation && isDecorationVisible(dc, pathMatrix))
+		{
+			((PropertyRelation) dc).drawPropertyRelation(canvas, pathMatrix);
+		}
+		else if (dc instanceof SubClassRelation && isDecorationVisible(dc, pathMatrix))
+		{
+			((SubClassRelation) dc).drawPropertyRelationHelpText(canvas, pathMatrix);
+		}
+		
+		beginWorldDraw(canvas, pathMatrix);
+		
+		Path detailPath = drawPath.getDetailPath(DETAILTOLERANCE / worldScale);
+		
+		if (drawPath.isVisible())
+		{
+			if( dc instanceof DrawingIndividual || dc instanceof DrawingConcept || dc instanceof DrawingPropertyRelation)
 			{
-				paint.setColor(getResources().getColor(R.color.activeSketch));
-				
-				canvas.drawPath(newPaths.get(j), paint);
+				// fill the background
+				filledPaint.setColor(getResources().getColor(R.color.sketchBackground));
+				filledPaint.setAlpha(dc.getAlpha());
+				canvas.drawPath(detailPath, filledPaint);
 			}
-			
-			canvas.restore();
-
-			// DEBUG ///////////////////////
-			// draw bounding boxes of paths for debugging purposes
-			 
-			if (drawDebugRegions)
+			else if (dc instanceof SubClassRelation || dc instanceof PropertyRelation)
 			{
-				RectF rect = new RectF();
-				
-				if(drawingObjects.getPathList().getPaths() != null)
-				{
-					for(int i = 0; i < drawingObjects.getPathList().getPaths().size(); i++)
-					{
-						drawingObjects.getPathList().getPath(i).computeBounds(rect, true);
-						
-						CustomPath cp = new CustomPath();
+				// fill the circle with the color of the relation
+				filledPaint.setColor(drawPath.getColor());
+				filledPaint.setAlpha(dc.getAlpha());
+				canvas.drawPath(detailPath, filledPaint);
+			}
+			
+			Paint strokePaint = drawPath.isHighlighted() ? highlightedPaint : paint;
+			
+			strokePaint.setAlpha(dc.getAlpha());
+			
+			canvas.drawPath(detailPath, strokePaint);
+		}
+		
+		endWorldDraw(canvas);
+		
+		if (dc instanceof PropertyRelation)
+		{
+			((PropertyRelation) dc).updateArrow(canvas, pathMatrix);
+		}
+		else if (dc instanceof SubClassRelation && isDecorationVisible(dc, pathMatrix))
+		{
+			((SubClassRelation) dc).drawRelationIcon(canvas, pathMatrix);
+		}
+		else if (dc instanceof DrawingConcept && isDecorationVisible(dc, pathMatrix))
+		{
+			((DrawingConcept) dc).drawDrawingConceptIcon(canvas, pathMatrix);
+		}
+		else if (dc instanceof DrawingIndividual && isDecorationVisible(dc, pathMatrix))
+		{
+			((DrawingIndividual) dc).drawDrawingIndividualIcon(canvas, pathMatrix);
+		}
+		else if (dc instanceof DrawingPropertyRelation)
+		{
+			((DrawingPropertyRelation) dc).updateArrow(canvas, pathMatrix);
+		}
+	}
+	
+	/**
+	 * Place the buttons of the formalized properties below the anchor of a property relation,
+	 * which has to be stored in <b>anchors</b>. The paths are stored in world coordinates.
+	 */
+	private void placeRelationButtons(DrawingPropertyRelation relation, RelationGeometry geometry)
+	{
+		if (relation.formalizedRelationbuttons == null || relation.formalizedRelationbuttons.size() == 0) return;
+		
+		int count = 1;
+		
+		relationBounds.set(geometry.getRelationBounds());
+		
+		matrix.mapRect(relationBounds);
+		
+		float radius = relationBounds.height()/2;
+		
+		for (FormalizedPropertyRelationButton fb : relation.formalizedRelationbuttons)
+		{
+			fb.getPath().reset();
+			
+			float y = anchors[5] + ((radius*2) * count);
+			
+			fb.getPath().moveTo(anchors[4], y);
+			fb.getPath().addCircle(anchors[4], y, radius, Path.Direction.CW);
+			
+			fb.getPath().transform(backupInverse);
 
-						cp.moveTo(rect.left, rect.top);
-						cp.lineTo(rect.left, rect.bottom);
-						cp.lineTo(rect.right, rect.top);
-						cp.lineTo(rect.right, rect.bottom);
-						cp.lineTo(rect.left, rect.top);
-						
-						cp.moveTo(rect.left, rect.top);
-						cp.lineTo(rect.right, rect.top);
-						cp.moveTo(rect.left, rect.bottom);
-						cp.lineTo(rect.right, rect.bottom);
+			fb.getPath().transformVertices(backupInverse);
 
-						cp.transform(matrix);
-					
-						canvas.drawPath(cp, debugPaint); //rot
-						//canvas.drawRect(rect, debugPaint2); //gelb
-					}
-				}
-			}
+			drawingObjects.getSpatialIndex().update(fb);
 			
-			// DEBUG ///////////////////////
-			 
+			count++;
+		}
+	}
+
+	/**
+	 * Concatenate a transformation matrix to the canvas, so that paths can be drawn in world
+	 * coordinates without transforming them. The stroke widths and corner radii of the path
+	 * paints are divided by the scale of the matrix to keep their size on the screen.
+	 * Has to be followed by {@link #endWorldDraw(Canvas)}.
+	 * @param canvas The canvas of the <b>DrawView</b>
+	 * @param worldMatrix Either the transformation matrix or the backup matrix
+	 */
+	private void beginWorldDraw(Canvas canvas, Matrix worldMatrix)
+	{
+		worldScale = worldMatrix.mapRadius(1f);
+		
+		int slot = (worldMatrix == matrix) ? 0 : 1;
+		
+		if (worldCornerEffects[slot] == null || worldCornerScales[slot] != worldScale)
+		{
+			worldCornerEffects[slot] = new CornerPathEffect(CORNERRADIUS / worldScale);
+			worldCornerScales[slot] = worldScale;
 		}
-
+		
+		canvas.save();
+		canvas.concat(worldMatrix);
+		
+		paint.setStrokeWidth(STROKEWIDTH / worldScale);
+		highlightedPaint.setStrokeWidth(HIGHLIGHTEDSTROKEWIDTH / worldScale);
+		
+		paint.setPathEffect(worldCornerEffects[slot]);
+		highlightedPaint.setPathEffect(worldCornerEffects[slot]);
+		filledPaint.setPathEffect(worldCornerEffects[slot]);
+	}
+	
+	/**
+	 * Restore the canvas and the path paints after {@link #beginWorldDraw(Canvas, Matrix)}
+	 * @param canvas The canvas of the <b>DrawView</b>
+	 */
+	private void endWorldDraw(Canvas canvas)
+	{
 		canvas.restore();
-
-		super.onDraw(canvas);
+		
+		paint.setStrokeWidth(STROKEWIDTH);
+		highlightedPaint.setStrokeWidth(HIGHLIGHTEDSTROKEWIDTH);
+		
+		paint.setPathEffect(cornerEffect);
+		highlightedPaint.setPathEffect(cornerEffect);
+		filledPaint.setPathEffect(cornerEffect);
 	}
 
 	
@@ -1404,8 +1303,7 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 						mode = DRAW;
 					}
 	
-					pointsForRecognizer.clear();
-					firstPointOfPath = true;
+					stroke.reset();
 					tempPath = new CustomPath();
 	
 					calculateCanvasSize = true;
@@ -1529,8 +1427,12 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 					{
 						paint.setColor(getResources().getColor(R.color.activeGray));
 	
-						CustomPath path = new CustomPath();
-						boolean first = true;
+						// the samples that were batched into the last event belong to the stroke as well
+						if (stroke.getVertexCount() > 0)
+						{
+							stroke.addSamples(event);
+							stroke.finish();
+						}
 						
 						boolean startsOnElement= false;
 						boolean endsOnElement = false;
@@ -1539,38 +1441,20 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 						DrawingComponent endElement = null;
 	
 						// recognize gestures that consist of at least 10 Points
-						if (pointsForRecognizer.size() > MINSTROKELENGTH) 
+						if (stroke.getVertexCount() > MINSTROKELENGTH) 
 						{
-							Point lastPoint = null;
+							CustomPath path = stroke.toPath();
 							
-							for (Point point : pointsForRecognizer) 
-							{
-								if (first) 
-								{
-									path.moveTo(point.x, point.y);
-									
-									first = false;
-									
-									CustomPath tpath = new CustomPath();
+							int last = stroke.getVertexCount() - 1;
+							
+							startElement = getRelationTargetElementUnderPoint(new Point(stroke.getX(0), stroke.getY(0)));
 
-									tpath.moveTo(point.x, point.y);
-									
-									tpath.transform(matrix);
-									
-									startElement = getRelationTargetElementUnderPoint(point);
-		
-									if(startElement != null)
-									{
-										startsOnElement = true;
-									}
-								}
-	
-								path.lineTo(point.x, point.y);
-								
-								lastPoint = point;
+							if(startElement != null)
+							{
+								startsOnElement = true;
 							}
 							
-							endElement = getRelationTargetElementUnderPoint(lastPoint);
+							endElement = getRelationTargetElementUnderPoint(new Point(stroke.getX(last), stroke.getY(last)));
 							
 							if(endElement != null)
 							{
@@ -1645,24 +1529,21 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 									toast.show();
 								}
 								
-								pointsForRecognizer.clear();
+								stroke.reset();
 								newPaths.clear();
-								firstPointOfPath = true;
 								tempPath.reset();			
 							}
 							else
 							{
 								asyncRecognizeGestues(pathArray);
 								
-								recognizeHandwriting(pointsForRecognizer, path);
+								recognizeHandwriting(path);
 							}
 						}
 	
 						tempPath = new CustomPath();
 	
-						firstPointOfPath = true;
-	
-						pointsForRecognizer.clear();
+						stroke.reset();
 	
 					}
 	
@@ -1679,27 +1560,11 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 					{
 						paint.setColor(getResources().getColor(R.color.highlight));
 
-						Point point = new Point();
-
-						point.x = (int) x;
-
-						point.y = (int) y;
-
-						if (((int) historicalX) != point.x && ((int) historicalY) != point.y) 
-						{
-
-							pointsForRecognizer.add(point);
+						// take all samples since the last event, close samples are dropped
+						stroke.addSamples(event);
 
-							if (firstPointOfPath) 
-							{
-								tempPath.moveTo(point.x, point.y);
-								firstPointOfPath = false;
-							} 
-							else 
-							{
-								tempPath.lineTo(point.x, point.y);
-							}
-						}
+						// only the new vertices are attached to the path that is shown while drawing
+						stroke.appendTo(tempPath);
 					}
 				}
 
@@ -1708,9 +1573,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 			// delete path if canvas was zoomed
 			if (mode == PANZOOM) 
 			{
-				pointsForRecognizer.clear();
+				stroke.reset();
 				newPaths.clear();
-				firstPointOfPath = true;
 			}
 
 		} 
@@ -1727,9 +1591,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 
 	public void resetView()
 	{
-		if (pointsForRecognizer != null) pointsForRecognizer.clear();
+		if (stroke != null) stroke.reset();
 		if (newPaths != null) newPaths.clear();
-		firstPointOfPath = true;
 		if (tempPath != null) tempPath.reset();
 		if (tempHandwritingPaths != null) tempHandwritingPaths.clear();
 		
@@ -1737,42 +1600,87 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 	}
 	
 	/**
-	 * Returns a DrawigComponent for adding a relation of the type DrawingIndividual, DrawingConcept or FormalizedObject if the point is contained by the returned object.
-	 * @param point to check if their is any object under
-	 * @return DrawigComponent of the type DrawingIndividual, DrawingConcept or FormalizedObject or null
+	 * Filter that decides whether a stroke is passed to the gesture recognizer, it runs on
+	 * the thread of the recognition
 	 */
-	private DrawingComponent getRelationTargetElementUnderPoint(Point point) 
+	public interface GestureFilter
 	{
-		RectF rect = new RectF();
-		
-		DrawingComponent dc = null;
-		
-		if(drawingObjects.getPathList().getPaths() != null)
+		/**
+		 * @param stroke The stroke in screen coordinates
+		 * @param handwritingLine The bounds of the current handwriting in screen coordinates, or null
+		 * @return True if the stroke may be a gesture
+		 */
+		public boolean isGestureCandidate(CustomPath stroke, RectF handwritingLine);
+	}
+	
+	/**
+	 * Setter for the filter that decides whether a stroke is passed to the gesture recognizer
+	 * @param gestureFilter The filter, by default a {@link GesturePreClassifier}
+	 */
+	public void setGestureFilter(GestureFilter gestureFilter)
+	{
+		this.gestureFilter = gestureFilter;
+	}
+	
+	/**
+	 * Accepts objects that can be the target of a relation
+	 */
+	private static final SpatialIndex.Filter relationTargetFilter = new SpatialIndex.Filter()
+	{
+		public boolean accept(DrawingComponent dc)
 		{
-			for(int i = 0; i < drawingObjects.getPathList().getPaths().size(); i++)
-			{
-				CustomPath cp = new CustomPath();
-				
-				cp.addPath(drawingObjects.getPathList().getPath(i));
-				
-				cp.transform(matrix);
-				
-				cp.computeBounds(rect, true);
-				
-				dc = (DrawingComponent) (drawingObjects.getObjectByPathId(drawingObjects.getPathList().getPath(i).getUid()));
-
-				if (dc != null)
-				{
-					if(rect.contains(point.x, point.y) 
-							&& (dc.getAlpha() != 0)
-							&& (dc instanceof DrawingIndividual || dc instanceof DrawingConcept || dc instanceof FormalizedObject ))
-						return dc;
-				}
+			return (dc.getAlpha() != 0)
+					&& (dc instanceof DrawingIndividual || dc instanceof DrawingConcept || dc instanceof FormalizedObject);
+		}
+	};
 
-			}
+	/**
+	 * Accepts objects that react on a tap
+	 */
+	private static final SpatialIndex.Filter tapTargetFilter = new SpatialIndex.Filter()
+	{
+		public boolean accept(DrawingComponent dc)
+		{
+			return (dc.getAlpha() != 0)
+					&& (dc instanceof DrawingIndividual || dc instanceof DrawingConcept 
+							|| dc instanceof FormalizedObject || dc instanceof CustomObjectRelation 
+							|| dc instanceof DrawingPropertyRelation || dc instanceof FormalizedPropertyRelationButton);
 		}
+	};
 
-		return null;
+	/**
+	 * Reused buffer for mapping touch points into the coordinate system of the paths
+	 */
+	private float[] hitTestPoint = new float[2];
+
+	private Matrix hitTestInverse = new Matrix();
+
+	/**
+	 * Query the spatial index of the drawing objects with a point in screen coordinates
+	 * @param point The point in screen coordinates
+	 * @param filter Filter for the accepted objects
+	 * @return The matching DrawingComponent or null
+	 */
+	private DrawingComponent queryElementUnderPoint(Point point, SpatialIndex.Filter filter)
+	{
+		if (!matrix.invert(hitTestInverse)) return null;
+
+		hitTestPoint[0] = point.x;
+		hitTestPoint[1] = point.y;
+
+		hitTestInverse.mapPoints(hitTestPoint);
+
+		return drawingObjects.getSpatialIndex().query(hitTestPoint[0], hitTestPoint[1], filter);
+	}
+
+	/**
+	 * Returns a DrawigComponent for adding a relation of the type DrawingIndividual, DrawingConcept or FormalizedObject if the point is contained by the returned object.
+	 * @param point to check if their is any object under
+	 * @return DrawigComponent of the type DrawingIndividual, DrawingConcept or FormalizedObject or null
+	 */
+	private DrawingComponent getRelationTargetElementUnderPoint(Point point) 
+	{
+		return queryElementUnderPoint(point, relationTargetFilter);
 	}
 	
 	/**
@@ -1782,64 +1690,59 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 	 */
 	private DrawingComponent getElementUnderPoint(Point point) 
 	{
-		RectF rect = new RectF();
-		
-		DrawingComponent dc = null;
-		
-		if(drawingObjects.getPathList().getPaths() != null)
-		{
-			for(int i = 0; i < drawingObjects.getPathList().getPaths().size(); i++)
-			{
-				CustomPath cp = new CustomPath();
-				
-				cp.addPath(drawingObjects.getPathList().getPath(i));
-				
-				cp.transform(matrix);
-				
-				cp.computeBounds(rect, true);
-				
-				dc = (DrawingComponent) (drawingObjects.getObjectByPathId(drawingObjects.getPathList().getPath(i).getUid()));
-
-				if (dc != null)
-				{
-					if(rect.contains(point.x, point.y) 
-							&& (dc.getAlpha() != 0)
-							&& (dc instanceof DrawingIndividual || dc instanceof DrawingConcept 
-									|| dc instanceof FormalizedObject || dc instanceof CustomObjectRelation 
-									|| dc instanceof DrawingPropertyRelation || dc instanceof FormalizedPropertyRelationButton))
-						return dc;
-				}
-
-			}
-		}
-
-		return null;
+		return queryElementUnderPoint(point, tapTargetFilter);
 	}
 
 	/**
 	 * Submit the point data to the RecognizerService in order to recognize the
 	 * letters that were drawn out of the respective list of points
 	 * 
-	 * @param pointsForRecognizer2
-	 *            The list of points that deliver the basis for the recognition
 	 * @param path
-	 *            The path object that was created out of the respective list of
-	 *            points
+	 *            The path object that was created out of the vertices of the
+	 *            stroke
 	 */
-	private void recognizeHandwriting(List<Point> pointsForRecognizer2, CustomPath path) 
+	private void recognizeHandwriting(CustomPath path) 
 	{
 		// handwriting recognition
 
-		if (pointsForRecognizer2.size() > MINSTROKELENGTH) 
+		if (path.getVertexCount() > MINSTROKELENGTH) 
 		{
 
 
 
 			tempHandwritingPaths.add(path);
 
+			nStrokeCnt = tempHandwritingPaths.size();
+
 			// notify recognizer thread about data availability
-			ma.mBoundService.dataNotify(nStrokeCnt);
+			notifyRecognizer();
+		}
+	}
+
+	/**
+	 * Copy the vertices of the strokes of the current word for the <b>RecognizerService</b>
+	 * @return The vertices of every stroke with alternating x and y coordinates
+	 */
+	private float[][] getHandwritingStrokes()
+	{
+		float[][] strokes = new float[tempHandwritingPaths.size()][];
+
+		for (int s = 0; s < strokes.length; s++)
+		{
+			CustomPath path = tempHandwritingPaths.get(s);
+
+			float[] stroke = new float[path.getVertexCount() * 2];
+
+			for (int i = 0; i < path.getVertexCount(); i++)
+			{
+				stroke[2 * i] = path.getVertexX(i);
+				stroke[2 * i + 1] = path.getVertexY(i);
+			}
+
+			strokes[s] = stroke;
 		}
+
+		return strokes;
 	}
 
 	/**
@@ -1858,9 +1761,10 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		
 		if (scaledPathArray2.getPaths().size() > 0)
 		{
-			PathRetrieverTask retriever = 	new PathRetrieverTask(this);
+			PathRetrieverTask retriever = 	new PathRetrieverTask(this, scaledPathArray2.getPathsArray());
 			
-			retriever.execute(scaledPathArray2.getPathsArray());
+			// a new selection supersedes the one that may still be retrieved
+			RecognitionScheduler.getInstance().execute(retriever, RecognitionScheduler.SELECTION, this);
 		}
 
 	}
@@ -1879,6 +1783,9 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		
 		Log.d("DrawView", "::::::::::::::::::::::: updatePath starts :::::::::::::::::::::::");
 
+		// changes of the selection or of the matrices affect the whole view
+		boolean repaintAll = false;
+		
 		if (path != null) 
 		{
 
@@ -1895,7 +1802,13 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 			{
 				Log.d("DrawView", "update_NOT_HighlightedPath " + component);
 
+				invalidateComponent(component);
+				
 				component.updatePath(matrix, backupTransformationMatrix, true);
+
+				drawingObjects.updateSpatialIndex(component);
+				
+				invalidateComponent(component);
 				
 				if (!(component instanceof InstatiationRelation) 
 						&& !(component instanceof SubClassRelation)
@@ -1918,6 +1831,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 			{
 				Log.d("DrawView", "updateHighlightedPath " + component);
 	
+				repaintAll = true;
+				
 				// update object dependencies
 	
 				if (!component.isGrouped())
@@ -1979,6 +1894,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 				backupCurrentTransformationMatrix();
 				firstBackup = false;
 				
+				repaintAll = true;
+				
 				 updateAllowScale(path);
 				 
 				 ma.activateScrollBarPanel(false);
@@ -1996,6 +1913,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 			restoreBackupTransformationMatrix();
 			firstBackup = true;
 			
+			repaintAll = true;
+			
 			allowScale = true;
 			allowTranslate = true;
 			
@@ -2008,7 +1927,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 
 		Log.d("DrawView", "::::::::::::::::::::::::: end of updatePath :::::::::::::::::::::::::::::::::::");
 		
-		invalidate();
+		if (repaintAll) invalidate();
+		else invalidateDirtyRegion();
 
 	}
 	
@@ -2377,7 +2297,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		
 		drawingObjects.addComponent(relation);
 		
-		invalidate();
+		invalidateComponent(relation);
+		invalidateDirtyRegion();
 		
 		if(!formalized)
 		{
@@ -2485,7 +2406,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		
 		drawingObjects.addComponent(relation);
 		
-		invalidate();
+		invalidateComponent(relation);
+		invalidateDirtyRegion();
 		
 		if (ma.scrollBar.getProgress() > 50) ma.scrollBar.setProgress(50);
 		
@@ -2536,6 +2458,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		{
 			parent.removeRelationButton(fbutton);
 			drawingObjects.children.remove(fbutton);
+			drawingObjects.unregisterComponent(fbutton, false);
+			drawingObjects.setChanged();
 			return;
 		}
 		
@@ -2585,6 +2509,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		int index = drawingObjects.getLastRelationIndex();
 		
 		drawingObjects.children.add(index,relation);
+		drawingObjects.registerComponent(relation);
+		drawingObjects.setChanged();
 		
 		parent.getPath().reset();
 		
@@ -2593,9 +2519,11 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		for (FormalizedPropertyRelationButton fb : toDelete)
 		{
 			if(drawingObjects.children.contains(fb)) drawingObjects.children.remove(fb);
+			drawingObjects.unregisterComponent(fb, false);
 		}
 
 		if(drawingObjects.children.contains(fbutton.getParentRelation())) drawingObjects.children.remove(fbutton.getParentRelation());
+		drawingObjects.unregisterComponent(fbutton.getParentRelation(), true);
 
 		parent.removeRelationButtons();
 		
@@ -2804,6 +2732,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 					((DrawingPropertyRelation)relation).addRelationButton(fprb);
 					
 					drawingObjects.children.add(fprb);
+					drawingObjects.registerComponent(fprb);
+					drawingObjects.setChanged();
 					
 					count++;
 				}
@@ -2829,12 +2759,107 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 	 */
 	public DrawingComponent getDrawingComponent(String uri)
 	{
-		for (DrawingComponent dc : drawingObjects.children)
+		return drawingObjects.getChildByUri(uri);
+	}
+	
+	
+	/**
+	 * Map the cached centers of the elements of a relation into <b>anchors</b>, highlighted
+	 * elements follow the current transformation
+	 */
+	private void mapElementAnchors(RelationGeometry geometry, DrawingComponent start, DrawingComponent end)
+	{
+		anchors[0] = geometry.getStartBounds().centerX();
+		anchors[1] = geometry.getStartBounds().centerY();
+		anchors[2] = geometry.getEndBounds().centerX();
+		anchors[3] = geometry.getEndBounds().centerY();
+		
+		(start.isHighlighted() ? matrix : backupTransformationMatrix).mapPoints(anchors, 0, anchors, 0, 1);
+		(end.isHighlighted() ? matrix : backupTransformationMatrix).mapPoints(anchors, 2, anchors, 2, 1);
+	}
+	
+	/**
+	 * Map the cached center of a relation into <b>anchors</b>
+	 */
+	private void mapRelationAnchor(DrawingComponent dc, RelationGeometry geometry, Matrix relationMatrix)
+	{
+		anchors[4] = getRelationAnchorX(dc, geometry);
+		anchors[5] = geometry.getRelationBounds().centerY();
+		
+		relationMatrix.mapPoints(anchors, 4, anchors, 4, 1);
+	}
+	
+	/**
+	 * Map all cached centers of a relation that is drawn while no transformation is running
+	 */
+	private void mapStoredAnchors(DrawingComponent dc, RelationGeometry geometry)
+	{
+		anchors[0] = geometry.getStartBounds().centerX();
+		anchors[1] = geometry.getStartBounds().centerY();
+		anchors[2] = geometry.getEndBounds().centerX();
+		anchors[3] = geometry.getEndBounds().centerY();
+		anchors[4] = getRelationAnchorX(dc, geometry);
+		anchors[5] = geometry.getRelationBounds().centerY();
+		
+		matrix.mapPoints(anchors);
+	}
+	
+	/**
+	 * The line of a <b>DrawingPropertyRelation</b> passes the path on its left side, see
+	 * {@link DrawingPropertyRelation#getCenterPoint()}
+	 */
+	private float getRelationAnchorX(DrawingComponent dc, RelationGeometry geometry)
+	{
+		RectF bounds = geometry.getRelationBounds();
+		
+		if (dc instanceof DrawingPropertyRelation) return bounds.centerX() - DrawingPropertyRelation.CENTEROFFSET * bounds.height() / 2;
+		
+		return bounds.centerX();
+	}
+	
+	/**
+	 * Place the path of a relation in the middle between the screen positions of its elements,
+	 * which have to be stored in <b>anchors</b>. The path is stored in world coordinates.
+	 */
+	private void placeRelation(DrawingComponent dc, RelationGeometry geometry)
+	{
+		float radius = geometry.getRelationBounds().height()/2;
+		
+		anchors[4] = (anchors[0] + anchors[2]) / 2;
+		anchors[5] = (anchors[1] + anchors[3]) / 2;
+		
+		backupInverse.mapPoints(anchors, 4, anchors, 4, 1);
+		
+		dc.getPath().reset();
+		
+		dc.getPath().moveTo(anchors[4], anchors[5]);
+		
+		if (dc instanceof SubClassRelation || dc instanceof InstatiationRelation)
 		{
-			if (dc.getUri().equalsIgnoreCase(uri)) return dc;
+			dc.getPath().addCircle(anchors[4], anchors[5], radius, Path.Direction.CW);
 		}
 		
-		return null;
+		drawingObjects.getSpatialIndex().update(dc);
+	}
+	
+	/**
+	 * Draw the filled areas around the elements of an instantiation relation
+	 */
+	private void drawInstantiationBounds(Canvas canvas, DrawingComponent dc, RelationGeometry geometry, Matrix startMatrix, Matrix endMatrix)
+	{
+		instanziationStartBounds.set(geometry.getStartBounds());
+		instanziationStartBounds.inset(-10, -12);
+		
+		instanziationEndBounds.set(geometry.getEndBounds());
+		instanziationEndBounds.inset(-10, -12);
+		
+		startMatrix.mapRect(instanziationStartBounds);
+		endMatrix.mapRect(instanziationEndBounds);
+		
+		filledInstanziiationRelationPaint.setAlpha(dc.getAlpha());
+		
+		canvas.drawRect(instanziationStartBounds, filledInstanziiationRelationPaint);
+		canvas.drawRect(instanziationEndBounds, filledInstanziiationRelationPaint);
 	}
 	
 	
@@ -2861,13 +2886,7 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 	 */
 	private boolean containsOntResource(String uri) 
 	{
-
-		for (DrawingComponent dc : drawingObjects.children)
-		{
-			if (dc.getUri().equalsIgnoreCase(uri)) return true;
-		}
-
-		return false;
+		return drawingObjects.getChildByUri(uri) != null;
 	}
 
 	/**
@@ -2896,65 +2915,37 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		{
 			examinedPath = paths[0];
 
-			List<Point> params = examinedPath.getVertices();
-
-			//TODO: Neukonfigurieren der Grenzen mit anschlieenden Tests
-			
 			// Decide whether to reset word recognition and enable gesture
-			// recognition
+			// recognition, strokes that are obviously no gestures are not
+			// passed to the recognizer
 
-			if (examinedPath.getVertices().size() > 25)
-			{
-				if (tempHandwritingPaths.size() > 1)
-				{
-
-					CustomPath referencePath = tempHandwritingPaths.get(0);
-
-					float[] extrema = new float[] { referencePath.minX,
-							referencePath.minY, referencePath.maxX,
-							referencePath.maxY };
+			RectF handwritingLine = null;
 
-					matrix.mapPoints(extrema);
-
-					float tolerance = (extrema[3] - extrema[1]) * 1.5f;
-					
-					if (tolerance > 80) 
-					{
-						tolerance = 100;
-					}
+			if (tempHandwritingPaths.size() > 1)
+			{
+				CustomPath referencePath = tempHandwritingPaths.get(0);
 
-					if ((examinedPath.minY < extrema[1] - tolerance || (examinedPath.maxY > extrema[3]+ tolerance))
-							&&
-							// examined Path exceeds upper or lower tolerance
-							// border
-							// of previously drawn elements
-							!((examinedPath.minY >= extrema[1]) && (examinedPath.maxY <= extrema[3])))
-					// examined path is not located between the tolerance
-					// borders
-					{
-						asyncGestureRecognition = true;
-					} 
-					else 
-					{
-						asyncGestureRecognition = false;
-					}
+				handwritingLine = new RectF(referencePath.minX, referencePath.minY, referencePath.maxX, referencePath.maxY);
 
-				} 
-				else 
-				{
-					asyncGestureRecognition = true;
-				}
-			} 
-			else 
-			{
-				asyncGestureRecognition = false;
+				matrix.mapRect(handwritingLine);
 			}
 
+			asyncGestureRecognition = gestureFilter.isGestureCandidate(examinedPath, handwritingLine);
+
 			// only initiate recognition if no word is written at this very
 			// moment
-			if (params.size() > MINRECOGNITIONLENGTH && asyncGestureRecognition) 
+			if (examinedPath.getVertexCount() > MINRECOGNITIONLENGTH && asyncGestureRecognition) 
 			{
-				return recognizer.Recognize(params);
+				long start = PerformanceMetrics.start();
+				
+				Result recognized;
+				
+				if (protractorRecognition) recognized = protractor.recognize(examinedPath);
+				else recognized = recognizer.Recognize(examinedPath.getVertices());
+				
+				PerformanceMetrics.RECOGNITIONTIME.stop(start);
+				
+				return recognized;
 			} 
 			else
 			{
@@ -3100,6 +3091,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 				drawingObjects.addComponent(object);
 
 			newPaths.remove(examinedPath);
+			
+			invalidateComponent(object);
 
 			// clean View if the gesture Recognition is enabled, because word
 			// suggestions would still be displayed
@@ -3120,7 +3113,7 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 				}
 			}
 
-			invalidate();
+			invalidateDirtyRegion();
 
 			if (result.getName().contains("rectangle") || result.getName().contains("circle")) 
 			{
@@ -3153,7 +3146,7 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 	 */
 	private void asyncRecognizeGestues(CustomPath[] paths)
 	{
-		new RecognizerTask().execute(paths);
+		RecognitionScheduler.getInstance().execute(new RecognizerTask(), RecognitionScheduler.GESTURE, null, paths);
 	}
 
 
@@ -3191,6 +3184,10 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 
 					component = drawingObjects.getObjectByPathId(path.getUid());
 
+					invalidateComponent(component);
+					
+					if (component.isGrouped() || component instanceof DrawingWordLetter) invalidateComponent(component.getParent());
+					
 					// delete object if it is part of a written but not
 					// confirmed word or sketch
 
@@ -3200,8 +3197,9 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 						// remove stroke from the set that was delivered for
 						// handwriting recognition
 
+						tempHandwritingPaths.remove(path);
 
-
+						nStrokeCnt = tempHandwritingPaths.size();
 					}
 					
 					if (component instanceof FormalizedConcept)
@@ -3246,6 +3244,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 						
 						for (DrawingComponent dc : tempArray)
 						{
+							invalidateComponent(dc);
+							
 							drawingObjects.removeComponent(dc);
 						}
 					}
@@ -3319,14 +3319,15 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 			cleanView();
 		else {
 			// notify recognizer thread about data availability
-			ma.mBoundService.dataNotify(nStrokeCnt);
+			notifyRecognizer();
 		}
 		
 		restoreBackupTransformationMatrix();
 
 		configureButtonActivation();
 
-		invalidate();
+		// the remaining paths were drawn with the backup matrix already
+		invalidateDirtyRegion();
 
 	}
 
@@ -3368,7 +3369,7 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 			}
 
 			// notify recognizer thread about data availability
-			ma.mBoundService.dataNotify(nStrokeCnt);
+			notifyRecognizer();
 
 			if (nStrokeCnt > 0) 
 			{
@@ -3383,7 +3384,7 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		{
 
 			// notify recognizer thread about data availability
-			ma.mBoundService.dataNotify(nStrokeCnt);
+			notifyRecognizer();
 
 			cleanView();
 
@@ -3396,6 +3397,22 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 
 	private int nStrokeCnt;
 
+	/**
+	 * Incremented whenever the strokes of the current word change, candidates for older
+	 * generations are dropped
+	 */
+	private int strokeGeneration;
+
+	/**
+	 * Pass the strokes of the current word to the <b>RecognizerService</b> as a new generation
+	 */
+	private void notifyRecognizer()
+	{
+		strokeGeneration++;
+
+		ma.mBoundService.dataNotify(nStrokeCnt, getHandwritingStrokes(), strokeGeneration);
+	}
+
 
 	/**
 	 * Reset the handwriting recognizer and respective help structures
@@ -3409,6 +3426,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		ma.setUnsaved(false);
 		
 		tempHandwritingPaths.clear();
+		nStrokeCnt = 0;
+		strokeGeneration++;
 		mCurrMessage = null;
 
 		gestureRecognitionEnabled = true;
@@ -3583,7 +3602,18 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		 */
 		public void handleMessage(Message msg) 
 		{
-			if (!msg.getData().isEmpty()) 
+			if (msg.what == RecognizerService.MSG_CANDIDATES)
+			{
+				// candidates of strokes that were changed or confirmed in the meantime
+				if (msg.arg1 != strokeGeneration) return;
+
+				String[] candidates = msg.getData().getStringArray(RecognizerService.CANDIDATES);
+
+				mCurrMessage = new LinkedHashSet<String>(Arrays.asList(candidates));
+
+				showCandidates(candidates);
+			}
+			else if (!msg.getData().isEmpty()) 
 			{
 				mCurrMessage = msg.getData().keySet();
 
@@ -3599,7 +3629,13 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 
 	};
 
-	private EditText editText;
+	private AutoCompleteTextView editText;
+
+	/**
+	 * The candidate that was filled in, it is replaced by the candidates of further strokes
+	 * unless the user changed it
+	 */
+	private String suggestedWord = "";
 
 	private Button confirmButton;
 
@@ -3613,6 +3649,34 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		return mHandler;
 	}
 
+	/**
+	 * Fill in the best candidate of the recognizer and offer the others in the drop down list of
+	 * the text field
+	 */
+	private void showCandidates(String[] candidates)
+	{
+		String text = editText.getText().toString();
+
+		if (text.length() == 0 || text.equals(suggestedWord))
+		{
+			// the adapter is set afterwards, so the candidates are not filtered by the text
+			editText.setAdapter(null);
+			editText.setText(candidates[0]);
+			editText.setSelection(candidates[0].length());
+
+			suggestedWord = candidates[0];
+		}
+
+		editText.setAdapter(new ArrayAdapter<String>(context, android.R.layout.simple_dropdown_item_1line, candidates));
+
+		changeAlternatives = true;
+		editText.setVisibility(VISIBLE);
+		confirmButton.setVisibility(VISIBLE);
+		cancelButton.setVisibility(VISIBLE);
+
+		if (candidates.length > 1 && editText.getWindowToken() != null) editText.showDropDown();
+	}
+
 	// end region hwr
 
 	/**
@@ -3626,7 +3690,7 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 	public void initializeAlternativeWordListView(LinearLayout alternativeWordListView)
 	{
 		DrawView.alternativeWordListView = alternativeWordListView;
-		editText = (EditText) alternativeWordListView.findViewById(R.id.editText);
+		editText = (AutoCompleteTextView) alternativeWordListView.findViewById(R.id.editText);
 		confirmButton = (Button) alternativeWordListView.findViewById(R.id.buttonConfirm);
 		cancelButton = (Button) alternativeWordListView.findViewById(R.id.buttonCancel);
 		editText.setOnEditorActionListener(new OnEditorActionListener() {
@@ -3732,6 +3796,8 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 
 			DrawingCompositeWord compositeWord = new DrawingCompositeWord(wordChildren, word.replace(" ", ""));
 
+			if (ma.mBoundService != null) ma.mBoundService.confirmWord(word.replace(" ", ""));
+
 			drawingObjects.addComponent(compositeWord);
 
 			Toast toast = Toast.makeText(getContext(), "The word '" + word + "' was recognized!", Toast.LENGTH_LONG);
@@ -3891,6 +3957,7 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 			matrix.set(new Matrix());
 		}
 
+		invalidate();
 	}
 
 
@@ -4064,8 +4131,10 @@ public class DrawView extends GeneralView implements OnTouchListener, MainActivi
 		for (FormalizedPropertyRelationButton fb :formalizedRelationbuttons)
 		{
 			if(drawingObjects.children.contains(fb)) drawingObjects.children.remove(fb);
+			drawingObjects.unregisterComponent(fb, false);
 		}
 		
+		drawingObjects.setChanged();
 	}
 
 }
@@ -20,6 +20,8 @@ import android.content.Context;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.util.FloatMath;
 import android.util.Log;
@@ -27,9 +29,11 @@ import android.view.Display;
 import android.view.MotionEvent;
 import android.widget.ImageView;
 
+import com.drawing.datastructure.CustomObjectRelation;
 import com.drawing.datastructure.CustomPath;
 import com.drawing.datastructure.DrawingComponent;
 import com.drawing.datastructure.DrawingComposite;
+import com.drawing.datastructure.DrawingPropertyRelation;
 import com.drawing.datastructure.DrawingWordLetter;
 import com.drawing.gestures.Point;
 
@@ -55,6 +59,12 @@ public abstract class GeneralView extends ImageView {
 	 * Zoom mode is activated
 	 */
 	protected static final int PANZOOM = 2;
+	
+	/**
+	 * Margin around the bounds of changed components that is repainted as well, it covers
+	 * stroke widths and icons, in screen pixels. Help text labels are added with their own bounds.
+	 */
+	protected static final float DIRTYMARGIN = 150f;
 
 	protected MainActivity ma;
 
@@ -134,6 +144,14 @@ public abstract class GeneralView extends ImageView {
 	protected Paint highlightedPaint = new Paint();
 	
 	protected DrawingComponent lastHighlightedComponent = null;
+	
+	/**
+	 * Screen area that has changed since the last repaint, see {@link #invalidateComponent(DrawingComponent)}
+	 */
+	private RectF dirtyRegion = new RectF();
+	private RectF dirtyBounds = new RectF();
+	private RectF labelBounds = new RectF();
+	private Rect dirtyRect = new Rect();
 
 	/**
 	 * helper array for displaying and storing temporary paths
@@ -202,6 +220,8 @@ public abstract class GeneralView extends ImageView {
 				
 				component.updatePath(matrix, backupTransformationMatrix, true);
 
+				drawingObjects.updateSpatialIndex(component);
+
 			} else {
 
 				// update object dependencies
@@ -462,6 +482,86 @@ public abstract class GeneralView extends ImageView {
 
 	}
 	
+	/**
+	 * Add the screen bounds of a component, of its relations and of the elements they
+	 * connect to the dirty region. Has to be called before and after a component is changed,
+	 * the region is repainted by {@link #invalidateDirtyRegion()}.
+	 * @param dc The changed component
+	 */
+	public void invalidateComponent(DrawingComponent dc)
+	{
+		if (dc == null) return;
+		
+		// paths that are not highlighted stay at the backup matrix during a selection
+		boolean selection = drawingObjects.getPathList().ContainsHighlightedPath();
+		
+		addDirtyComponent(dc, selection);
+		
+		List<DrawingComponent> relations = dc.getRelations();
+		
+		if (relations == null) return;
+		
+		for (int i = 0; i < relations.size(); i++)
+		{
+			addDirtyComponent(relations.get(i), selection);
+		}
+	}
+	
+	/**
+	 * Repaint the dirty region that was collected by {@link #invalidateComponent(DrawingComponent)}
+	 */
+	public void invalidateDirtyRegion()
+	{
+		if (dirtyRegion.isEmpty()) return;
+		
+		dirtyRegion.roundOut(dirtyRect);
+		
+		dirtyRegion.setEmpty();
+		
+		invalidate(dirtyRect);
+	}
+	
+	/**
+	 * Add a component to the dirty region, relations are added together with the elements
+	 * they connect
+	 */
+	private void addDirtyComponent(DrawingComponent dc, boolean selection)
+	{
+		addDirtyBounds(dc, selection);
+		
+		if (dc instanceof CustomObjectRelation)
+		{
+			addDirtyBounds(((CustomObjectRelation) dc).getStartElement(), selection);
+			addDirtyBounds(((CustomObjectRelation) dc).getEndElement(), selection);
+		}
+		else if (dc instanceof DrawingPropertyRelation)
+		{
+			addDirtyBounds(((DrawingPropertyRelation) dc).getStartElement(), selection);
+			addDirtyBounds(((DrawingPropertyRelation) dc).getEndElement(), selection);
+		}
+	}
+	
+	private void addDirtyBounds(DrawingComponent dc, boolean selection)
+	{
+		if (dc == null || dc.getPath() == null) return;
+		
+		if (!drawingObjects.getSpatialIndex().getBounds(dc, dirtyBounds))
+		{
+			dc.getPath().computeBounds(dirtyBounds, true);
+		}
+		
+		Matrix componentMatrix = (selection && !dc.getPath().isHighlighted()) ? backupTransformationMatrix : matrix;
+		
+		componentMatrix.mapRect(dirtyBounds);
+		
+		// the label of an opened component reaches beyond the margin with long help texts
+		if (dc.computeLabelBounds(componentMatrix, labelBounds)) dirtyBounds.union(labelBounds);
+		
+		dirtyBounds.inset(-DIRTYMARGIN, -DIRTYMARGIN);
+		
+		dirtyRegion.union(dirtyBounds);
+	}
+	
 	protected void removeHighlightFromPaths()
 	{
 		
@@ -0,0 +1,208 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.application;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import android.os.AsyncTask;
+import android.util.Log;
+import android.widget.Toast;
+
+import com.drawing.datastructure.CustomPath;
+import com.drawing.datastructure.GestureTypes;
+import com.drawing.gestures.Point;
+import com.drawing.gestures.Recognizer;
+import com.drawing.gestures.Result;
+
+/**
+ * Compares the accuracy and the latency of the $1 recognizer and the {@link ProtractorRecognizer}
+ * on the strokes of the current session. The gesture type a stroke was stored with is taken as
+ * the expected result, strokes that were not recognized as gestures are expected to stay
+ * unrecognized.
+ * <p>
+ * The report is written to <i>gesture_benchmark.txt</i> in the files directory.
+ *
+ */
+class GestureBenchmark extends AsyncTask<Void, Void, String>
+{
+	private static final String TAG = "GestureBenchmark";
+
+	/**
+	 * Number of times every stroke is recognized by each recognizer
+	 */
+	static final int ROUNDS = 5;
+
+	private MainActivity ma;
+
+	private Recognizer recognizer;
+
+	private ProtractorRecognizer protractor;
+
+	// copies of the strokes, the session may change while the benchmark runs
+
+	private List<float[]> strokes = new ArrayList<float[]>();
+
+	private List<List<Point>> strokePoints = new ArrayList<List<Point>>();
+
+	private List<GestureTypes> expectedTypes = new ArrayList<GestureTypes>();
+
+	private File reportFile;
+
+	/**
+	 * Copy the strokes of the session, has to be called on the UI thread
+	 * @param ma The activity that shows the session
+	 */
+	GestureBenchmark(MainActivity ma)
+	{
+		this.ma = ma;
+
+		recognizer = ma.drawView.recognizer;
+		protractor = ma.drawView.protractor;
+
+		reportFile = new File(ma.getFilesDir(), "gesture_benchmark.txt");
+
+		List<CustomPath> paths = ma.drawView.getDrawingObjects().getPathList().getPaths();
+
+		for (int i = 0; i < paths.size(); i++)
+		{
+			CustomPath path = paths.get(i);
+
+			int count = path.getVertexCount();
+
+			if (count <= DrawView.MINRECOGNITIONLENGTH || path.getGestureType() == null) continue;
+
+			float[] stroke = new float[count * 2];
+
+			for (int j = 0; j < count; j++)
+			{
+				stroke[2 * j] = path.getVertexX(j);
+				stroke[2 * j + 1] = path.getVertexY(j);
+			}
+
+			strokes.add(stroke);
+			strokePoints.add(path.getVertices());
+			expectedTypes.add(path.getGestureType());
+		}
+	}
+
+	protected String doInBackground(Void... params)
+	{
+		if (strokes.isEmpty()) return "No strokes to recognize";
+
+		int dollarMatches = 0;
+		int protractorMatches = 0;
+
+		long dollarTime = 0;
+		long protractorTime = 0;
+
+		long dollarMax = 0;
+		long protractorMax = 0;
+
+		// the first recognitions include the class loading and the preprocessing of the templates
+		recognizer.Recognize(strokePoints.get(0));
+		protractor.recognize(strokes.get(0), strokes.get(0).length / 2);
+
+		for (int i = 0; i < strokes.size(); i++)
+		{
+			float[] stroke = strokes.get(i);
+			GestureTypes expected = expectedTypes.get(i);
+
+			Result dollar = null;
+			Result fast = null;
+
+			for (int round = 0; round < ROUNDS; round++)
+			{
+				long start = System.nanoTime();
+
+				dollar = recognizer.Recognize(strokePoints.get(i));
+
+				long time = System.nanoTime() - start;
+
+				dollarTime += time;
+				dollarMax = Math.max(dollarMax, time);
+
+				start = System.nanoTime();
+
+				fast = protractor.recognize(stroke, stroke.length / 2);
+
+				time = System.nanoTime() - start;
+
+				protractorTime += time;
+				protractorMax = Math.max(protractorMax, time);
+			}
+
+			if (dollar.getType() == expected) dollarMatches++;
+			if (fast.getType() == expected) protractorMatches++;
+		}
+
+		int recognitions = strokes.size() * ROUNDS;
+
+		StringBuilder report = new StringBuilder();
+
+		report.append(strokes.size()).append(" strokes, ").append(ROUNDS).append(" rounds\n");
+
+		appendLine(report, "$1", dollarMatches, dollarTime / recognitions, dollarMax);
+		appendLine(report, "Protractor", protractorMatches, protractorTime / recognitions, protractorMax);
+
+		writeReport(report.toString());
+
+		return report.toString();
+	}
+
+	protected void onPostExecute(String report)
+	{
+		Log.d(TAG, report);
+
+		Toast.makeText(ma, report, Toast.LENGTH_LONG).show();
+	}
+
+	private void appendLine(StringBuilder report, String name, int matches, long mean, long max)
+	{
+		report.append(name).append(": ").append(matches * 100 / strokes.size()).append("% as stored, mean ")
+				.append(mean / 1000).append(" us, max ").append(max / 1000).append(" us\n");
+	}
+
+	private void writeReport(String report)
+	{
+		FileWriter writer = null;
+
+		try
+		{
+			writer = new FileWriter(reportFile, false);
+
+			writer.write(report);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+		finally
+		{
+			if (writer != null)
+			{
+				try
+				{
+					writer.close();
+				}
+				catch (IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.application;
+
+import android.graphics.RectF;
+
+import com.drawing.datastructure.CustomPath;
+
+/**
+ * Rejects strokes that are obviously no gestures by simple geometric features, before the
+ * gesture recognizer compares them with its templates. Concepts and individuals are drawn as
+ * large closed shapes that turn about once around their center, handwriting and scribbles are
+ * short, open or turn back and forth.
+ * <p>
+ * The features are the number of vertices, the size and the aspect ratio of the bounding box,
+ * the distance between the ends relative to the length of the stroke, a histogram of the
+ * turning angles and the height relative to the line of the current handwriting.
+ *
+ */
+public class GesturePreClassifier implements DrawView.GestureFilter
+{
+	/**
+	 * Number of bins of the turning angle histogram, each covers 180 / BINS degrees
+	 */
+	static final int BINS = 4;
+
+	/**
+	 * Number of segments the turning angles are measured on, relative to the bounding box
+	 */
+	private static final int SEGMENTS = 12;
+
+	private int minVertexCount = 25;
+
+	private float minSize = 80;
+
+	private float minAspectRatio = 0.15f;
+
+	private float maxClosureRatio = 0.3f;
+
+	private float maxTurns = 1.75f;
+
+	private int maxReversals = 1;
+
+	private float lineTolerance = 1.5f;
+
+	/**
+	 * Tolerance bands higher than this are set to {@link #clampedLineTolerance}
+	 */
+	private float maxLineTolerance = 80;
+
+	private float clampedLineTolerance = 100;
+
+	private int[] histogram = new int[BINS];
+
+	/**
+	 * @see com.drawing.application.DrawView.GestureFilter#isGestureCandidate(CustomPath, RectF)
+	 */
+	public synchronized boolean isGestureCandidate(CustomPath stroke, RectF handwritingLine)
+	{
+		int count = stroke.getVertexCount();
+
+		if (count <= minVertexCount) return false;
+
+		float width = stroke.maxX - stroke.minX;
+		float height = stroke.maxY - stroke.minY;
+
+		if (width <= minSize || height <= minSize) return false;
+
+		if (Math.min(width, height) < minAspectRatio * Math.max(width, height)) return false;
+
+		if (handwritingLine != null && isOnLine(stroke, handwritingLine)) return false;
+
+		float length = 0;
+
+		for (int i = 1; i < count; i++)
+		{
+			length += distance(stroke, i - 1, i);
+		}
+
+		if (distance(stroke, 0, count - 1) > maxClosureRatio * length) return false;
+
+		double turning = fillHistogram(stroke, (float) Math.hypot(width, height) / SEGMENTS);
+
+		if (turning > maxTurns * 2 * Math.PI) return false;
+
+		return histogram[BINS - 1] <= maxReversals;
+	}
+
+	/**
+	 * Check whether a stroke stays within the tolerance band around the line of the current
+	 * handwriting
+	 */
+	private boolean isOnLine(CustomPath stroke, RectF line)
+	{
+		float tolerance = line.height() * lineTolerance;
+
+		if (tolerance > maxLineTolerance) tolerance = clampedLineTolerance;
+
+		boolean exceedsBand = stroke.minY < line.top - tolerance || stroke.maxY > line.bottom + tolerance;
+		boolean insideLine = stroke.minY >= line.top && stroke.maxY <= line.bottom;
+
+		return !exceedsBand || insideLine;
+	}
+
+	/**
+	 * Fill the histogram of the absolute turning angles between segments of at least the
+	 * passed length
+	 * @return The sum of the absolute turning angles in radians
+	 */
+	private double fillHistogram(CustomPath stroke, float step)
+	{
+		for (int i = 0; i < BINS; i++)
+		{
+			histogram[i] = 0;
+		}
+
+		double turning = 0;
+
+		float anchorX = stroke.getVertexX(0);
+		float anchorY = stroke.getVertexY(0);
+
+		double previousDirection = Double.NaN;
+
+		for (int i = 1; i < stroke.getVertexCount(); i++)
+		{
+			float x = stroke.getVertexX(i);
+			float y = stroke.getVertexY(i);
+
+			if (Math.hypot(x - anchorX, y - anchorY) < step) continue;
+
+			double direction = Math.atan2(y - anchorY, x - anchorX);
+
+			if (!Double.isNaN(previousDirection))
+			{
+				double angle = Math.abs(direction - previousDirection);
+
+				if (angle > Math.PI) angle = 2 * Math.PI - angle;
+
+				turning += angle;
+
+				histogram[Math.min((int) (angle / Math.PI * BINS), BINS - 1)]++;
+			}
+
+			previousDirection = direction;
+
+			anchorX = x;
+			anchorY = y;
+		}
+
+		return turning;
+	}
+
+	private static float distance(CustomPath stroke, int i, int j)
+	{
+		return (float) Math.hypot(stroke.getVertexX(i) - stroke.getVertexX(j), stroke.getVertexY(i) - stroke.getVertexY(j));
+	}
+
+	/**
+	 * Getter for the histogram of the turning angles of the last stroke that reached this feature
+	 * @return The number of turning angles per bin, starting with the smallest angles
+	 */
+	public synchronized int[] getHistogram()
+	{
+		return histogram.clone();
+	}
+
+	/**
+	 * @param minVertexCount Strokes with at most this number of vertices are rejected
+	 */
+	public void setMinVertexCount(int minVertexCount)
+	{
+		this.minVertexCount = minVertexCount;
+	}
+
+	/**
+	 * @param minSize Strokes that are not larger than this in both dimensions are rejected, in pixels
+	 */
+	public void setMinSize(float minSize)
+	{
+		this.minSize = minSize;
+	}
+
+	/**
+	 * @param minAspectRatio Minimum ratio between the shorter and the longer side of the bounding box
+	 */
+	public void setMinAspectRatio(float minAspectRatio)
+	{
+		this.minAspectRatio = minAspectRatio;
+	}
+
+	/**
+	 * @param maxClosureRatio Maximum distance between the ends of a stroke relative to its length
+	 */
+	public void setMaxClosureRatio(float maxClosureRatio)
+	{
+		this.maxClosureRatio = maxClosureRatio;
+	}
+
+	/**
+	 * @param maxTurns Maximum sum of the absolute turning angles in full turns
+	 */
+	public void setMaxTurns(float maxTurns)
+	{
+		this.maxTurns = maxTurns;
+	}
+
+	/**
+	 * @param maxReversals Maximum number of turning angles in the last bin of the histogram
+	 */
+	public void setMaxReversals(int maxReversals)
+	{
+		this.maxReversals = maxReversals;
+	}
+
+	/**
+	 * @param lineTolerance Height of the tolerance band around the handwriting line, relative to the line height
+	 * @param maxLineTolerance Maximum height of the tolerance band in pixels
+	 * @param clampedLineTolerance Height in pixels of tolerance bands that exceed the maximum
+	 */
+	public void setLineTolerance(float lineTolerance, float maxLineTolerance, float clampedLineTolerance)
+	{
+		this.lineTolerance = lineTolerance;
+		this.maxLineTolerance = maxLineTolerance;
+		this.clampedLineTolerance = clampedLineTolerance;
+	}
+}
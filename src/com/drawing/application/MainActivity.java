@@ -18,13 +18,17 @@ import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
@@ -39,6 +43,7 @@ import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.ServiceConnection;
 import android.graphics.PixelFormat;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.Environment;
 import android.os.Handler;
@@ -68,8 +73,8 @@ import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.LinearLayout.LayoutParams;
+import android.widget.ListView;
 import android.widget.RelativeLayout;
-import android.widget.ScrollView;
 import android.widget.SeekBar;
 import android.widget.SeekBar.OnSeekBarChangeListener;
 import android.widget.Spinner;
@@ -94,13 +99,11 @@ import com.drawing.datastructure.GestureTypes;
 import com.drawing.datastructure.InstatiationRelation;
 import com.drawing.datastructure.OntologyObjectTypes;
 import com.drawing.ontosketch.R;
-import com.drawing.ontosketch.ui.ClassListItem;
 import com.drawing.ontosketch.ui.FilterListHeaderItem;
-import com.drawing.ontosketch.ui.IndividualListItem;
-import com.drawing.ontosketch.ui.ListHeaderItem;
-import com.drawing.ontosketch.ui.ListItem;
 import com.drawing.ontosketch.ui.ListItem.ListItemState;
-import com.drawing.ontosketch.ui.PropertyListItem;
+import com.drawing.ontosketch.ui.OntologyListAdapter;
+import com.drawing.ontosketch.ui.OntologyListNode;
+import com.drawing.ontosketch.ui.OntologyListNode.NodeType;
 import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.ontology.Individual;
 import com.hp.hpl.jena.ontology.OntClass;
@@ -111,6 +114,7 @@ import com.hp.hpl.jena.rdf.model.ModelFactory;
 import com.hp.hpl.jena.rdf.model.Property;
 import com.hp.hpl.jena.rdf.model.Statement;
 import com.hp.hpl.jena.rdf.model.StmtIterator;
+import com.hwr.android.RecoInterface.DictionaryLoader;
 import com.hwr.android.RecoInterface.RecognizerService;
 
 
@@ -143,17 +147,32 @@ public class MainActivity extends Activity
 	 */
 	private ArrayList<String> ontologyFileNames = new ArrayList<String>();
 	
-	private LinearLayout ontopanelConceptList;
-	private LinearLayout ontopanelIndividualList;
-	private LinearLayout ontopanelPropertyList;
+	private ListView ontopanelConceptList;
+	private ListView ontopanelIndividualList;
+	private ListView ontopanelPropertyList;
 	
-	private ScrollView ontopanelConceptContainer;
-	private ScrollView ontopanelIndividualContainer;
-	private ScrollView ontopanelPropertyContainer;
+	/**
+	 * Models of the ontology panel, only the visible list items are created by them
+	 */
+	private OntologyListAdapter ontopanelConceptAdapter;
+	private OntologyListAdapter ontopanelIndividualAdapter;
+	private OntologyListAdapter ontopanelPropertyAdapter;
+	
+	private LinearLayout ontopanelConceptContainer;
+	private LinearLayout ontopanelIndividualContainer;
+	private LinearLayout ontopanelPropertyContainer;
+	
+	private ListView ontopanelSearchConceptList;
+	private ListView ontopanelSearchIndividualList;
+	private ListView ontopanelSearchPropertyList;
 	
-	private LinearLayout ontopanelSearchConceptList;
-	private LinearLayout ontopanelSearchIndividualList;
-	private LinearLayout ontopanelSearchPropertyList;
+	private OntologyListAdapter ontopanelSearchConceptAdapter;
+	private OntologyListAdapter ontopanelSearchIndividualAdapter;
+	private OntologyListAdapter ontopanelSearchPropertyAdapter;
+	
+	private TextView ontopanelSearchConceptHint;
+	private TextView ontopanelSearchIndividualHint;
+	private TextView ontopanelSearchPropertyHint;
 	
 	private LinearLayout ontopanelSearchConceptContainer;
 	private LinearLayout ontopanelSearchIndividualContainer;
@@ -188,8 +207,24 @@ public class MainActivity extends Activity
 	
 	private RelativeLayout progressLayer;
 	private ImageView progressIcon;
+	private TextView progressText;
 	private Animation progressRotation;
 	
+	/**
+	 * Ontology files that wait for their import
+	 */
+	private LinkedList<String> pendingOntologies = new LinkedList<String>();
+	
+	/**
+	 * The running ontology import or null
+	 */
+	private OntologyImportTask ontologyImport;
+	
+	/**
+	 * Actions that are run as soon as all queued ontologies are imported
+	 */
+	private ArrayList<Runnable> ontologiesLoadedActions = new ArrayList<Runnable>();
+	
 	private boolean activeSearch = false;
 	
 	private boolean unsaved = false;
@@ -280,6 +315,13 @@ public class MainActivity extends Activity
 		
 		protected void onDestroy() {
 
+			ontologiesLoadedActions.clear();
+			cancelOntologyImport();
+			
+			if (journal != null) journal.close();
+			
+			PerformanceMetrics.setEnabled(false, null);
+			
 			if(boundToService && mConnection != null)
 			{
 				unbindService(mConnection);
@@ -293,6 +335,9 @@ public class MainActivity extends Activity
 		@Override
 		protected void onPause() {
 		
+			// the process may be killed at any time from now on
+			if (journal != null) journal.flush();
+			
 			super.onPause();
 		}
 		
@@ -317,6 +362,11 @@ public class MainActivity extends Activity
 		
 		DrawView drawView;
 
+		/**
+		 * Autosave of the current session
+		 */
+		SessionJournal journal;
+
 		public MenuItem undoButton, deleteButton;
 		
 		public VerticalSeekBar scrollBar;
@@ -356,6 +406,8 @@ public class MainActivity extends Activity
 
 			mListener = drawView;
 			
+			journal = new SessionJournal(this);
+			
 			// startService
 			
 			ComponentName recognizerService = startService(new Intent(
@@ -371,17 +423,42 @@ public class MainActivity extends Activity
 			for (int i = 0; i <= 5; i++)
 				fillColorList();
 		
-			ontopanelConceptList = (LinearLayout) findViewById(R.id.classList);
-			ontopanelIndividualList = (LinearLayout) findViewById(R.id.individualList);
-			ontopanelPropertyList = (LinearLayout) findViewById(R.id.propertyList);
+			ontopanelConceptList = (ListView) findViewById(R.id.classList);
+			ontopanelIndividualList = (ListView) findViewById(R.id.individualList);
+			ontopanelPropertyList = (ListView) findViewById(R.id.propertyList);
+			
+			ontopanelConceptAdapter = new OntologyListAdapter(this, true);
+			ontopanelIndividualAdapter = new OntologyListAdapter(this, true);
+			ontopanelPropertyAdapter = new OntologyListAdapter(this, true);
+			
+			ontopanelConceptList.setAdapter(ontopanelConceptAdapter);
+			ontopanelIndividualList.setAdapter(ontopanelIndividualAdapter);
+			ontopanelPropertyList.setAdapter(ontopanelPropertyAdapter);
 			
-			ontopanelConceptContainer = (ScrollView) findViewById(R.id.scrollView1);
-			ontopanelIndividualContainer = (ScrollView) findViewById(R.id.scrollView2);
-			ontopanelPropertyContainer = (ScrollView) findViewById(R.id.scrollView3);
+			ontopanelConceptContainer = (LinearLayout) findViewById(R.id.classesContainer);
+			ontopanelIndividualContainer = (LinearLayout) findViewById(R.id.individualsContainer);
+			ontopanelPropertyContainer = (LinearLayout) findViewById(R.id.propertiesContainer);
 			
-			ontopanelSearchConceptList = (LinearLayout) findViewById(R.id.searchClassList);
-			ontopanelSearchIndividualList = (LinearLayout) findViewById(R.id.searchIndividualsList);
-			ontopanelSearchPropertyList = (LinearLayout) findViewById(R.id.searchPropertiesList);
+			ontopanelSearchConceptList = (ListView) findViewById(R.id.searchClassList);
+			ontopanelSearchIndividualList = (ListView) findViewById(R.id.searchIndividualsList);
+			ontopanelSearchPropertyList = (ListView) findViewById(R.id.searchPropertiesList);
+			
+			// the concepts of a selective update are shown as a hierarchy, search results are flat
+			ontopanelSearchConceptAdapter = new OntologyListAdapter(this, true);
+			ontopanelSearchIndividualAdapter = new OntologyListAdapter(this, false);
+			ontopanelSearchPropertyAdapter = new OntologyListAdapter(this, false);
+			
+			ontopanelSearchConceptList.setAdapter(ontopanelSearchConceptAdapter);
+			ontopanelSearchIndividualList.setAdapter(ontopanelSearchIndividualAdapter);
+			ontopanelSearchPropertyList.setAdapter(ontopanelSearchPropertyAdapter);
+			
+			ontopanelSearchConceptHint = (TextView) findViewById(R.id.searchClassHint);
+			ontopanelSearchIndividualHint = (TextView) findViewById(R.id.searchIndividualsHint);
+			ontopanelSearchPropertyHint = (TextView) findViewById(R.id.searchPropertiesHint);
+			
+			ontopanelSearchConceptList.setEmptyView(ontopanelSearchConceptHint);
+			ontopanelSearchIndividualList.setEmptyView(ontopanelSearchIndividualHint);
+			ontopanelSearchPropertyList.setEmptyView(ontopanelSearchPropertyHint);
 			
 			ontopanelSearchConceptContainer = (LinearLayout) findViewById(R.id.searchClassesContainer);
 			ontopanelSearchIndividualContainer = (LinearLayout) findViewById(R.id.searchIndividualsContainer);
@@ -604,9 +681,19 @@ public class MainActivity extends Activity
 						{
 							DrawingComponent dc = sketchBoard.drawingObjects.getObjectByPathId(sketchBoard.drawingObjects.getPathList().getPath(i).getUid());
 							
-							dc.setAlpha(calculateAlpha(dc, progress));
+							int alpha = calculateAlpha(dc, progress);
+							
+							// only the components whose transparency changes have to be repainted
+							if (dc.getAlpha() != alpha)
+							{
+								dc.setAlpha(alpha);
+								
+								sketchBoard.invalidateComponent(dc);
+							}
 						}
 						
+						sketchBoard.invalidateStaticLayer();
+						
 						if (progress <= 40)
 						{
 						    btnCenter.setTextColor(getResources().getColor(R.color.black));
@@ -620,7 +707,7 @@ public class MainActivity extends Activity
 						    btnCenter.setTextColor(getResources().getColor(R.color.black));
 						}
 						
-						sketchBoard.invalidate();
+						sketchBoard.invalidateDirtyRegion();
 					}
 				}
 			});
@@ -640,6 +727,7 @@ public class MainActivity extends Activity
 			
 			progressLayer = (RelativeLayout) findViewById(R.id.progressLayer);
 			progressIcon = (ImageView) findViewById(R.id.progressIcon);
+			progressText = (TextView) findViewById(R.id.progressText);
 			
 			progressLayer.setOnTouchListener(new OnTouchListener()
 			{
@@ -647,6 +735,8 @@ public class MainActivity extends Activity
 				@Override
 				public boolean onTouch(View v, MotionEvent event) 
 				{
+					if (event.getAction() == MotionEvent.ACTION_UP && ontologyImport != null) cancelOntologyImport();
+					
 					return true;
 				}
 			});
@@ -660,16 +750,36 @@ public class MainActivity extends Activity
 
 			//to fill the generalProperties List
 			loadOntology("", true);
+			
+			if (journal.hasAutosave())
+			{
+				// continue the session that was autosaved before the process was terminated
+				drawView.post(new Runnable()
+				{
+					public void run()
+					{
+						loadData(null);
+					}
+				});
+			}
+			else
+			{
+				journal.attach(drawView.getDrawingObjects());
+			}
 		}
 
 		private void showProgressLayer()
 		{
-//			progressIcon.startAnimation(progressRotation);
-//			progressLayer.setVisibility(View.VISIBLE);
+			progressIcon.startAnimation(progressRotation);
+			progressLayer.setVisibility(View.VISIBLE);
 		}
 		
 		private void hideProgressLayer()
 		{
+			// the layer stays visible until the running ontology import is finished
+			if (ontologyImport != null) return;
+			
+			progressText.setText("");
 			progressIcon.clearAnimation();
 			progressLayer.setVisibility(View.GONE);
 		}
@@ -1006,6 +1116,26 @@ public class MainActivity extends Activity
 
 		            return true;
 		            
+		        case R.id.menu_metrics:
+		        	item.setChecked(!item.isChecked());
+		        	
+		        	// the metrics are written to the files directory every few seconds while enabled
+		        	PerformanceMetrics.setEnabled(item.isChecked(), new File(getFilesDir(), "metrics.txt"));
+		        	drawView.invalidate();
+		            return true;
+		            
+		        case R.id.menu_gesture_benchmark:
+		        	RecognitionScheduler.getInstance().execute(new GestureBenchmark(this), RecognitionScheduler.BACKGROUND, null);
+		            return true;
+		            
+		        case R.id.menu_language:
+		        	showLanguageDialog();
+		            return true;
+		            
+		        case R.id.menu_dictionary_benchmark:
+		        	RecognitionScheduler.getInstance().execute(new DictionaryBenchmark(this), RecognitionScheduler.BACKGROUND, null);
+		            return true;
+		            
 		        case R.id.menu_settings:
 
 		            return true;
@@ -1099,10 +1229,15 @@ public class MainActivity extends Activity
 		 * initiates loading the previously stored state of the application
 		 * 
 		 * @param filename
-		 *            The filename that will be associated with the stored state
+		 *            The filename that will be associated with the stored state,
+		 *            or null to restore the autosaved session
 		 */
 		private void loadData(String filename) 
 		{
+			// the imports of the current session are not needed anymore
+			ontologiesLoadedActions.clear();
+			cancelOntologyImport();
+			
 			loadedOntoModel.removeAll();
 			generalProperties.clear();
 			properties.clear();
@@ -1115,57 +1250,13 @@ public class MainActivity extends Activity
 			sketchBoard.resetMode();
 			sketchBoard.resetView();
 			
-			int count = ontopanelConceptList.getChildCount();
-			int current = 0;
-			
-			for (int i = 0; i < count; i++)
-			{
-				if (ontopanelConceptList.getChildAt(current) instanceof ClassListItem || ontopanelConceptList.getChildAt(current) instanceof ListHeaderItem)
-				{
-					ontopanelConceptList.removeViewAt(current);
-				}
-				else
-				{
-					current++;
-				}
-				
-			}
-			
-			count = ontopanelIndividualList.getChildCount();
-			current = 0;
-			
-			for (int i = 0; i < count; i++)
-			{
-				if (ontopanelIndividualList.getChildAt(current) instanceof IndividualListItem || ontopanelIndividualList.getChildAt(current) instanceof ListHeaderItem)
-				{
-					ontopanelIndividualList.removeViewAt(current);
-				}
-				else
-				{
-					current++;
-				}
-				
-			}
-			
-			count = ontopanelPropertyList.getChildCount();
-			current = 0;
-			
-			for (int i = 0; i < count; i++)
-			{
-				if (ontopanelPropertyList.getChildAt(current) instanceof PropertyListItem || ontopanelPropertyList.getChildAt(current) instanceof ListHeaderItem)
-				{
-					ontopanelPropertyList.removeViewAt(current);
-				}
-				else
-				{
-					current++;
-				}
-				
-			}
+			ontopanelConceptAdapter.clear();
+			ontopanelIndividualAdapter.clear();
+			ontopanelPropertyAdapter.clear();
 			
-			ontopanelSearchConceptList.removeAllViews();
-			ontopanelSearchIndividualList.removeAllViews();
-			ontopanelSearchPropertyList.removeAllViews();
+			ontopanelSearchConceptAdapter.clear();
+			ontopanelSearchIndividualAdapter.clear();
+			ontopanelSearchPropertyAdapter.clear();
 			
 			TextView t1 = (TextView) findViewById(R.id.ontoPanelHintText1);
 			TextView t2 = (TextView) findViewById(R.id.ontoPanelHintText2);
@@ -1177,7 +1268,10 @@ public class MainActivity extends Activity
 			
 			loadOntology("", true);
 			
-			drawView.setDrawingObjects(DataStorageHelper.loadData(this, filename));
+			if (filename != null) drawView.setDrawingObjects(DataStorageHelper.loadData(this, filename));
+			else drawView.setDrawingObjects(journal.restore());
+			
+			journal.attach(drawView.getDrawingObjects());
 
 			ArrayList<String> temp = new ArrayList<String>();
 			
@@ -1188,6 +1282,21 @@ public class MainActivity extends Activity
 				loadOntology(s, false);
 			}
 			
+			runWhenOntologiesLoaded(new Runnable()
+			{
+				public void run()
+				{
+					updateOntologyResources();
+				}
+			});
+		}
+		
+		/**
+		 * Connect the loaded components with the resources of the imported ontologies
+		 * and update the list items in the ontology panel accordingly
+		 */
+		private void updateOntologyResources()
+		{
 			//update ListItems in Ontopanel
 			for (DrawingComponent dc : drawView.getDrawingObjects().children)
 			{
@@ -1268,6 +1377,7 @@ public class MainActivity extends Activity
 				dc.setAlpha(calculateAlpha(dc, 50));
 			}
 			
+			sketchBoard.invalidateStaticLayer();
 			sketchBoard.invalidate();
 		}
 
@@ -1890,6 +2000,35 @@ public class MainActivity extends Activity
 			return sb.toString();
 		}
 		
+		/**
+		 * Let the user choose the language of the handwriting recognition, the dictionary is
+		 * switched by the <b>RecognizerService</b> while the application keeps running
+		 */
+		private void showLanguageDialog()
+		{
+			if (mBoundService == null) return;
+			
+			final String[] languages = DictionaryLoader.getLanguages(getAssets());
+			
+			int checked = Arrays.asList(languages).indexOf(mBoundService.getLanguage());
+			
+			AlertDialog.Builder languageDialogBuilder = new AlertDialog.Builder(this);
+			
+			languageDialogBuilder.setTitle(R.string.menu_language);
+			
+			languageDialogBuilder.setSingleChoiceItems(languages, checked, new DialogInterface.OnClickListener()
+			{
+				public void onClick(DialogInterface dialog, int which)
+				{
+					if (mBoundService != null) mBoundService.setLanguage(languages[which]);
+					
+					dialog.dismiss();
+				}
+			});
+			
+			languageDialogBuilder.show();
+		}
+		
 		private void showLoadOntologyDialog() 
 		{
 
@@ -1984,16 +2123,8 @@ public class MainActivity extends Activity
 		
 		private void loadOntology(String filepath, boolean first)
 		{
-			showProgressLayer();
-			
-			InputStream is = null;
-
-			File file = new File(getResources().getString(R.string.import_ontology_folder)+ "/"+ filepath);
-			
 			if (!filepath.equalsIgnoreCase("")) ontologyFileNames.add(filepath);
 			
-			OntModel tempModel = null;
-			
 			if (first)
 			{
 				loadedOntoModel = ModelFactory.createOntologyModel();
@@ -2011,129 +2142,89 @@ public class MainActivity extends Activity
 				t3.setVisibility(TextView.GONE);
 			}
 			
-			try 
-			{   
-			     tempModel = ModelFactory.createOntologyModel();
-			     is = new BufferedInputStream(new FileInputStream(file));
-			    
-			     tempModel.read(is, getResources().getString(R.string.onto_namespace));
-			}
-			catch (Exception fnf) 
-			{
-				System.out.println("The file was not found!!\n");
-			}
+			pendingOntologies.add(filepath);
 			
-			if (tempModel != null)
+			if (ontologyImport == null) importNextOntology();
+		}
+		
+		/**
+		 * Start the import of the next queued ontology file, if the queue is empty the
+		 * progress layer is hidden and the actions waiting for the ontologies are run
+		 */
+		private void importNextOntology()
+		{
+			if (pendingOntologies.isEmpty())
 			{
-				loadedOntoModel.addSubModel(tempModel);
-
-				ListHeaderItem lhiConcepts = new ListHeaderItem(this, filepath);
+				ontologyImport = null;
 				
-				ontopanelConceptList.addView(lhiConcepts);
-
-				ArrayList<OntClass> oClasslist = (ArrayList<OntClass>) tempModel.listHierarchyRootClasses().toList();
-				ArrayList<Individual> indList = new ArrayList<Individual>();
+				hideProgressLayer();
 				
-				if (oClasslist != null)
-					Collections.sort(oClasslist, new Comparator<OntClass>()
-							{
-								@Override
-						        public int compare(OntClass o1, OntClass o2)
-								{
-						            if (o1.getLocalName() == null || o2.getLocalName() == null) return 0;
-						            else return o1.getLocalName().compareToIgnoreCase(o2.getLocalName());
-								}
-							}
-					);
-
-				for (OntClass o : oClasslist)
-				{
-					if (o.getURI() != null)
-					{
-						ClassListItem cll = new ClassListItem(this, o.getLocalName(), 0);
-		
-						cll.setUri(o.getURI());
-						
-						ontopanelConceptList.addView(cll);
-						
-						lhiConcepts.addChildren(cll);
-
-						List<Individual> temp = sortIndividuals(o.listInstances(true).toList());
-						
-						if (temp.size() > 0) 
-						{
-							cll.setHasIndividuals(true);
-							
-							indList.addAll(temp);
-						}
-						
-						if (o.hasSubClass()) indList.addAll(addSubClasses(o, ontopanelConceptList, 1, lhiConcepts, cll));
-						
-						cll.checkChildCount();
-					}
-				}
-
-				ListHeaderItem lhiIndividuals = new ListHeaderItem(this,filepath);
+				ArrayList<Runnable> actions = new ArrayList<Runnable>(ontologiesLoadedActions);
 				
-				ontopanelIndividualList.addView(lhiIndividuals);
+				ontologiesLoadedActions.clear();
 				
-				indList = (ArrayList<Individual>) sortIndividuals(indList);
-
-				for (Individual item : indList) 
+				for (Runnable action : actions)
 				{
-					individuals.add(item);
-					
-					IndividualListItem ill = new IndividualListItem(this, item.getLocalName(), item.getOntClass().getLocalName());
-
-					ill.setUri(item.getURI());
-
-					ontopanelIndividualList.addView(ill);
-					
-					lhiIndividuals.addChildren(ill);
+					action.run();
 				}
 				
-				ArrayList<OntProperty> pl = (ArrayList<OntProperty>) tempModel.listOntProperties().toList();
-				
-				Collections.sort(pl, new Comparator<OntProperty>()
-						{
-							@Override
-					        public int compare(OntProperty o1, OntProperty o2)
-							{
-								 if (o1.getLocalName() == null || o2.getLocalName() == null) return 0;
-					            return o1.getLocalName().compareToIgnoreCase(o2.getLocalName());
-							}
-						}
-				);
-				
-				ListHeaderItem lhiRelations = new ListHeaderItem(this,filepath);
-				
-				ontopanelPropertyList.addView(lhiRelations);
-				
-				for (OntProperty item : pl) 
-				{
-					if (!isGeneralProperty(item))
-					{
-						properties.add(item);
-						
-						PropertyListItem pll = new PropertyListItem(this, item.getLocalName(), getNextFreeColor(item.getURI()));
-						
-						pll.setUri(item.getURI());
-						pll.setCurrentState(ListItemState.INACTIVE);
-								
-						ontopanelPropertyList.addView(pll);
-						
-						lhiRelations.addChildren(pll);
-					}
-					
-				}
+				return;
 			}
 			
-			tempModel = null;
+			ontologyImport = new OntologyImportTask(pendingOntologies.removeFirst());
 			
-			if (!ontoPanelOpenState) toggleOntoPannel(true, mShortAnimationDuration);
-
-			hideProgressLayer();
+			showProgressLayer();
+			
+			RecognitionScheduler.getInstance().execute(ontologyImport, RecognitionScheduler.BACKGROUND, null);
+		}
+		
+		/**
+		 * Called by an {@link OntologyImportTask} when it has published all nodes or was cancelled
+		 * @param task The finished task
+		 * @param completed False if the import was cancelled or the file could not be read
+		 */
+		private void ontologyImportFinished(OntologyImportTask task, boolean completed)
+		{
+			if (task != ontologyImport) return;
+			
+			if (!completed) ontologyFileNames.remove(task.fileName);
+			
+			ontologyImport = null;
+			
+			if (completed && !ontoPanelOpenState) toggleOntoPannel(true, mShortAnimationDuration);
+			
+			importNextOntology();
+		}
+		
+		/**
+		 * Cancel the running ontology import and all queued ones, nodes that were already
+		 * published by the running import are removed again
+		 */
+		public void cancelOntologyImport()
+		{
+			for (String filepath : pendingOntologies)
+			{
+				ontologyFileNames.remove(filepath);
+			}
+			
+			pendingOntologies.clear();
 			
+			if (ontologyImport != null) ontologyImport.abort();
+		}
+		
+		/**
+		 * Run an action as soon as all queued ontologies are imported
+		 * @param action The action, it is run immediately if no import is running
+		 */
+		private void runWhenOntologiesLoaded(Runnable action)
+		{
+			if (ontologyImport == null && pendingOntologies.isEmpty()) action.run();
+			else ontologiesLoadedActions.add(action);
+		}
+		
+		private void setImportProgress(String filepath, int progress)
+		{
+			progressText.setText(getString(R.string.ontology_import_progress, filepath, Integer.valueOf(progress)));
 		}
 		
 		private List<Individual> sortIndividuals(List<? extends OntResource> list) 
@@ -2157,19 +2248,9 @@ public class MainActivity extends Activity
 		{
 			int color = 0;
 			
-			for (int i = 0; i < ontopanelPropertyList.getChildCount(); i++)
-			{
-				if (ontopanelPropertyList.getChildAt(i) instanceof PropertyListItem)
-				{
-					PropertyListItem li = (PropertyListItem) ontopanelPropertyList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) 
-					{
-						return li.getColor();
-					}
-				}
-				
-			}
+			OntologyListNode node = ontopanelPropertyAdapter.getNode(uri);
+			
+			if (node != null) return node.getColor();
 
 			if (propertyColors.isEmpty())
 			{
@@ -2185,73 +2266,431 @@ public class MainActivity extends Activity
 		}
 
 		
-		private ArrayList<Individual> addSubClasses(OntClass oClass, LinearLayout layout, int hLevel, ListHeaderItem lhi, ClassListItem cll2)
+		/**
+		 * Asynchronous import of an ontology file. The file is parsed and its class hierarchy,
+		 * individuals and properties are collected on a worker thread, afterwards their nodes
+		 * are added to the ontology panel in batches, one batch per message, so that the
+		 * UI thread stays responsive for large ontologies.
+		 * 
+		 * @see android.os.AsyncTask
+		 */
+		private class OntologyImportTask extends AsyncTask<Void, Integer, OntologyIndex>
 		{
-			ArrayList<OntClass> list = (ArrayList<OntClass>) oClass.listSubClasses(true).toList();
-			ArrayList<Individual> newIdividuals = new ArrayList<Individual>();
-
-			Collections.sort(list, new Comparator<OntClass>()
-					{
-						@Override
-				        public int compare(OntClass o1, OntClass o2)
-						{
-				            return o1.getLocalName().compareToIgnoreCase(o2.getLocalName());
-						}
-					}
-			);
+			/**
+			 * Share of the progress that is reached after parsing and after indexing the file
+			 */
+			private static final int PARSEPROGRESS = 50;
+			private static final int INDEXPROGRESS = 70;
 			
-			int h = hLevel+1;
+			/**
+			 * Number of nodes that are added to the ontology panel in one message
+			 */
+			private static final int PUBLISHBATCH = 500;
 			
-			for (OntClass o : list) 
-			{
-				if (o.getURI() != null)
-				{
-					ClassListItem cll = new ClassListItem(this, o.getLocalName(), hLevel);
-	
-					cll.setUri(o.getURI());
-					
-					layout.addView(cll);
-					
-					lhi.addChildren(cll);
-					
-					cll2.addChildren(cll);
-					
-					List<Individual> temp = sortIndividuals(o.listInstances(true).toList());
-					
-					if (temp.size() > 0) 
-					{
-						cll.setHasIndividuals(true);
-						
-						newIdividuals.addAll(temp);
-					}
-
-					if (o.hasSubClass())
-					{
-						newIdividuals.addAll(addSubClasses(o, layout, h, lhi, cll));
-					}
-				}
-			}
+			String fileName;
 			
-			cll2.checkChildCount();
+			private File file;
 			
-			return newIdividuals;
-		}
-		
-		private boolean isGeneralProperty(OntProperty op)
-		{
-			if (generalProperties != null)
+			private String namespace;
+			
+			/**
+			 * Lower case local names of the general properties which are not displayed
+			 */
+			private HashSet<String> generalPropertyNames = new HashSet<String>();
+			
+			private Handler handler = new Handler();
+			
+			private OntologyIndex index;
+			
+			private OntologyListNode conceptHeader, individualHeader, propertyHeader;
+			
+			private OntologyListNode[] classNodes;
+			
+			/**
+			 * Number of classes, individuals and properties that have been published
+			 */
+			private int published = 0;
+			
+			private boolean aborted = false;
+			
+			private ArrayList<Individual> publishedIndividuals = new ArrayList<Individual>();
+			
+			private ArrayList<OntProperty> publishedProperties = new ArrayList<OntProperty>();
+			
+			private Comparator<OntClass> classOrder = new Comparator<OntClass>()
+			{
+				@Override
+				public int compare(OntClass o1, OntClass o2)
+				{
+					if (o1.getLocalName() == null || o2.getLocalName() == null) return 0;
+					else return o1.getLocalName().compareToIgnoreCase(o2.getLocalName());
+				}
+			};
+			
+			private Runnable publishBatch = new Runnable()
+			{
+				public void run()
+				{
+					publish();
+				}
+			};
+			
+			OntologyImportTask(String fileName)
+			{
+				this.fileName = fileName;
+				
+				file = new File(getResources().getString(R.string.import_ontology_folder)+ "/"+ fileName);
+				namespace = getResources().getString(R.string.onto_namespace);
+			}
+			
+			protected void onPreExecute()
 			{
-				for (OntProperty p : generalProperties)
+				// jena models are not thread safe, so the general properties are read on the UI thread
+				if (generalProperties != null)
 				{
-					if(p.getLocalName().equalsIgnoreCase(op.getLocalName()))
+					for (OntProperty p : generalProperties)
+					{
+						if (p.getLocalName() != null) generalPropertyNames.add(p.getLocalName().toLowerCase(Locale.ENGLISH));
+					}
+				}
+				
+				setImportProgress(fileName, 0);
+			}
+			
+			protected OntologyIndex doInBackground(Void... params)
+			{
+				OntologyIndex index = new OntologyIndex();
+				
+				InputStream is = null;
+				
+				try 
+				{
+					index.model = ModelFactory.createOntologyModel();
+					
+					is = new BufferedInputStream(new FileInputStream(file))
+					{
+						private long read = 0;
 						
-						return true;
+						private int progress = -1;
+						
+						@Override
+						public int read(byte[] buffer, int offset, int length) throws IOException
+						{
+							// abort the parser as soon as the import is cancelled
+							if (isCancelled()) throw new InterruptedIOException("Import cancelled");
+							
+							int count = super.read(buffer, offset, length);
+							
+							if (count > 0) 
+							{
+								read += count;
+								reportParseProgress();
+							}
+							
+							return count;
+						}
+						
+						@Override
+						public int read() throws IOException
+						{
+							if (isCancelled()) throw new InterruptedIOException("Import cancelled");
+							
+							int b = super.read();
+							
+							if (b >= 0)
+							{
+								read++;
+								reportParseProgress();
+							}
+							
+							return b;
+						}
+						
+						private void reportParseProgress()
+						{
+							int current = (int) (read * PARSEPROGRESS / Math.max(1, file.length()));
+							
+							if (current != progress)
+							{
+								progress = current;
+								publishProgress(Integer.valueOf(current));
+							}
+						}
+					};
+					
+					index.model.read(is, namespace);
+				}
+				catch (Exception e) 
+				{
+					if (!isCancelled()) Log.d("OntologyImport", "The file " + file + " could not be read: " + e);
+					
+					return null;
+				}
+				finally
+				{
+					if (is != null)
+					{
+						try
+						{
+							is.close();
+						}
+						catch (IOException e)
+						{
+							e.printStackTrace();
+						}
+					}
+				}
+				
+				ArrayList<OntClass> oClasslist = (ArrayList<OntClass>) index.model.listHierarchyRootClasses().toList();
+				ArrayList<Individual> indList = new ArrayList<Individual>();
+				
+				Collections.sort(oClasslist, classOrder);
+				
+				for (int i = 0; i < oClasslist.size(); i++)
+				{
+					if (isCancelled()) return null;
+					
+					OntClass o = oClasslist.get(i);
+					
+					if (o.getURI() != null) addClass(index, o, 0, -1, indList);
+					
+					publishProgress(Integer.valueOf(PARSEPROGRESS + (INDEXPROGRESS - PARSEPROGRESS) * (i + 1) / oClasslist.size()));
+				}
+				
+				index.individuals = (ArrayList<Individual>) sortIndividuals(indList);
+				index.individualClassNames = new String[index.individuals.size()];
+				
+				for (int i = 0; i < index.individuals.size(); i++)
+				{
+					index.individualClassNames[i] = index.individuals.get(i).getOntClass().getLocalName();
+				}
+				
+				if (isCancelled()) return null;
+				
+				ArrayList<OntProperty> pl = (ArrayList<OntProperty>) index.model.listOntProperties().toList();
+				
+				Collections.sort(pl, new Comparator<OntProperty>()
+						{
+							@Override
+					        public int compare(OntProperty o1, OntProperty o2)
+							{
+								 if (o1.getLocalName() == null || o2.getLocalName() == null) return 0;
+					            return o1.getLocalName().compareToIgnoreCase(o2.getLocalName());
+							}
+						}
+				);
+				
+				index.properties = new ArrayList<OntProperty>(pl.size());
+				
+				for (OntProperty item : pl) 
+				{
+					if (item.getLocalName() == null || !generalPropertyNames.contains(item.getLocalName().toLowerCase(Locale.ENGLISH)))
+					{
+						index.properties.add(item);
+					}
 				}
+				
+				return index;
+			}
+			
+			/**
+			 * Add a class and all its sub classes to the index in the order they are listed in the ontology panel
+			 * @param parent Index of the entry of the super class or -1 for root classes
+			 * @param individuals List the individuals of the classes are appended to
+			 */
+			private void addClass(OntologyIndex index, OntClass oClass, int hLevel, int parent, ArrayList<Individual> individuals)
+			{
+				int position = index.classes.size();
+				
+				OntologyIndex.ClassEntry entry = new OntologyIndex.ClassEntry(oClass.getLocalName(), oClass.getURI(), hLevel, parent);
+				
+				index.classes.add(entry);
+				
+				List<Individual> temp = sortIndividuals(oClass.listInstances(true).toList());
+				
+				if (temp.size() > 0) 
+				{
+					entry.hasIndividuals = true;
+					
+					individuals.addAll(temp);
+				}
+				
+				if (oClass.hasSubClass())
+				{
+					ArrayList<OntClass> list = (ArrayList<OntClass>) oClass.listSubClasses(true).toList();
+					
+					Collections.sort(list, classOrder);
+					
+					for (OntClass o : list) 
+					{
+						if (o.getURI() != null) addClass(index, o, hLevel + 1, position, individuals);
+					}
+				}
+			}
+			
+			protected void onProgressUpdate(Integer... progress)
+			{
+				setImportProgress(fileName, progress[0].intValue());
+			}
+			
+			protected void onPostExecute(OntologyIndex result)
+			{
+				if (result == null)
+				{
+					Toast.makeText(MainActivity.this, getString(R.string.ontology_import_error, fileName), Toast.LENGTH_LONG).show();
+					
+					ontologyImportFinished(this, false);
+					return;
+				}
+				
+				index = result;
+				
+				loadedOntoModel.addSubModel(index.model);
+				
+				// the names of the ontology elements are the words that are written most
+				if (mBoundService != null) mBoundService.addWords(index.getLocalNames());
+				
+				conceptHeader = new OntologyListNode(NodeType.HEADER, fileName, null);
+				individualHeader = new OntologyListNode(NodeType.HEADER, fileName, null);
+				propertyHeader = new OntologyListNode(NodeType.HEADER, fileName, null);
+				
+				ontopanelConceptAdapter.add(null, conceptHeader);
+				ontopanelIndividualAdapter.add(null, individualHeader);
+				ontopanelPropertyAdapter.add(null, propertyHeader);
+				
+				classNodes = new OntologyListNode[index.classes.size()];
+				
+				handler.post(publishBatch);
+			}
+			
+			protected void onCancelled()
+			{
+				ontologyImportFinished(this, false);
+			}
+			
+			/**
+			 * Add the next batch of nodes to the ontology panel
+			 */
+			private void publish()
+			{
+				if (aborted) return;
+				
+				int classCount = index.classes.size();
+				int individualCount = index.individuals.size();
+				int total = classCount + individualCount + index.properties.size();
+				
+				int end = Math.min(published + PUBLISHBATCH, total);
+				
+				for (; published < end; published++)
+				{
+					if (published < classCount)
+					{
+						publishClass(published);
+					}
+					else if (published < classCount + individualCount)
+					{
+						publishIndividual(published - classCount);
+					}
+					else
+					{
+						publishProperty(index.properties.get(published - classCount - individualCount));
+					}
+				}
+				
+				ontopanelConceptAdapter.update();
+				ontopanelIndividualAdapter.update();
+				ontopanelPropertyAdapter.update();
+				
+				setImportProgress(fileName, INDEXPROGRESS + (100 - INDEXPROGRESS) * published / Math.max(1, total));
+				
+				if (published < total)
+				{
+					handler.post(publishBatch);
+				}
+				else
+				{
+					index = null;
+					
+					ontologyImportFinished(this, true);
+				}
+			}
+			
+			private void publishClass(int position)
+			{
+				OntologyIndex.ClassEntry entry = index.classes.get(position);
+				
+				OntologyListNode node = new OntologyListNode(NodeType.CONCEPT, entry.localName, entry.uri);
+				
+				node.sethLevel(entry.hLevel);
+				node.setHasIndividuals(entry.hasIndividuals);
+				
+				ontopanelConceptAdapter.add((entry.parent >= 0) ? classNodes[entry.parent] : conceptHeader, node);
+				
+				classNodes[position] = node;
+			}
+			
+			private void publishIndividual(int position)
+			{
+				Individual item = index.individuals.get(position);
+				
+				individuals.add(item);
+				publishedIndividuals.add(item);
+				
+				OntologyListNode node = new OntologyListNode(NodeType.INDIVIDUAL, item.getLocalName(), item.getURI());
+				
+				node.setClassName(index.individualClassNames[position]);
+				
+				ontopanelIndividualAdapter.add(individualHeader, node);
+			}
+			
+			private void publishProperty(OntProperty item)
+			{
+				properties.add(item);
+				publishedProperties.add(item);
+				
+				OntologyListNode node = new OntologyListNode(NodeType.PROPERTY, item.getLocalName(), item.getURI());
+				
+				node.setColor(getNextFreeColor(item.getURI()));
+				
+				ontopanelPropertyAdapter.add(propertyHeader, node);
+			}
+			
+			/**
+			 * Stop the import, if its nodes are already being published they are removed
+			 * from the ontology panel and the model is removed from the loaded ontologies
+			 */
+			void abort()
+			{
+				if (getStatus() != AsyncTask.Status.FINISHED)
+				{
+					cancel(true);
+				}
+				else if (!aborted && index != null)
+				{
+					handler.removeCallbacks(publishBatch);
+					
+					loadedOntoModel.removeSubModel(index.model);
+					
+					ontopanelConceptAdapter.remove(conceptHeader);
+					ontopanelIndividualAdapter.remove(individualHeader);
+					ontopanelPropertyAdapter.remove(propertyHeader);
+					
+					ontopanelConceptAdapter.update();
+					ontopanelIndividualAdapter.update();
+					ontopanelPropertyAdapter.update();
+					
+					individuals.removeAll(publishedIndividuals);
+					properties.removeAll(publishedProperties);
+					
+					index = null;
+				}
+				
+				aborted = true;
+				
+				ontologyImportFinished(this, false);
 			}
-
-			return false;
 		}
-
+		
 		public VerticalSeekBar getScrollBar()
 		{
 			return scrollBar;
@@ -2297,128 +2736,34 @@ public class MainActivity extends Activity
 
 		public void setOntopanelConceptListItemActive(String uri)
 		{
-			for (int i = 0; i < ontopanelConceptList.getChildCount(); i++)
-			{
-				if (ontopanelConceptList.getChildAt(i) instanceof ListItem)
-				{
-					ListItem li = (ListItem) ontopanelConceptList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) li.setCurrentState(ListItemState.ACTIVE); 
-				}
-			}
-			
-			for (int i = 0; i < ontopanelSearchConceptList.getChildCount(); i++)
-			{
-				if (ontopanelSearchConceptList.getChildAt(i) instanceof ListItem)
-				{
-					ListItem li = (ListItem) ontopanelSearchConceptList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) li.setCurrentState(ListItemState.ACTIVE); 
-				}
-			}
+			ontopanelConceptAdapter.setCurrentState(uri, ListItemState.ACTIVE);
+			ontopanelSearchConceptAdapter.setCurrentState(uri, ListItemState.ACTIVE);
 		}
 		
 		public void setOntopanelConceptListItemInactive(String uri)
 		{
-			for (int i = 0; i < ontopanelConceptList.getChildCount(); i++)
-			{
-				if (ontopanelConceptList.getChildAt(i) instanceof ListItem)
-				{
-					ListItem li = (ListItem) ontopanelConceptList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) li.setCurrentState(ListItemState.INACTIVE); 
-				}
-			}
-			
-			for (int i = 0; i < ontopanelSearchConceptList.getChildCount(); i++)
-			{
-				if (ontopanelSearchConceptList.getChildAt(i) instanceof ListItem)
-				{
-					ListItem li = (ListItem) ontopanelSearchConceptList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) li.setCurrentState(ListItemState.INACTIVE); 
-				}
-			}
+			ontopanelConceptAdapter.setCurrentState(uri, ListItemState.INACTIVE);
+			ontopanelSearchConceptAdapter.setCurrentState(uri, ListItemState.INACTIVE);
 		}
 		
 		public void setOntopanelPropertyListItemActive(String uri, boolean active)
 		{
-			for (int i = 0; i < ontopanelPropertyList.getChildCount(); i++)
-			{
-				if (ontopanelPropertyList.getChildAt(i) instanceof PropertyListItem)
-				{
-					PropertyListItem li = (PropertyListItem) ontopanelPropertyList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) 
-					{
-						if (active) li.setCurrentState(ListItemState.ACTIVE);
-						else li.setCurrentState(ListItemState.INACTIVE);
-					}
-				}
-			}
+			ListItemState state = active ? ListItemState.ACTIVE : ListItemState.INACTIVE;
 			
-			for (int i = 0; i < ontopanelSearchPropertyList.getChildCount(); i++)
-			{
-				if (ontopanelSearchPropertyList.getChildAt(i) instanceof PropertyListItem)
-				{
-					PropertyListItem li = (PropertyListItem) ontopanelSearchPropertyList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) 
-					{
-						if (active) li.setCurrentState(ListItemState.ACTIVE);
-						else li.setCurrentState(ListItemState.INACTIVE);
-					}
-				}
-				
-			}
-
+			ontopanelPropertyAdapter.setCurrentState(uri, state);
+			ontopanelSearchPropertyAdapter.setCurrentState(uri, state);
 		}
 		
 		public void setOntopanelIndividualListItemActive(String uri)
 		{
-			for (int i = 0; i < ontopanelIndividualList.getChildCount(); i++)
-			{
-				if (ontopanelIndividualList.getChildAt(i) instanceof ListItem)
-				{
-					ListItem li = (ListItem) ontopanelIndividualList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) li.setCurrentState(ListItemState.ACTIVE); 
-				}
-			}
-			
-			for (int i = 0; i < ontopanelSearchIndividualList.getChildCount(); i++)
-			{
-				if (ontopanelSearchIndividualList.getChildAt(i) instanceof ListItem)
-				{
-					ListItem li = (ListItem) ontopanelSearchIndividualList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) li.setCurrentState(ListItemState.ACTIVE); 
-				}
-			}
+			ontopanelIndividualAdapter.setCurrentState(uri, ListItemState.ACTIVE);
+			ontopanelSearchIndividualAdapter.setCurrentState(uri, ListItemState.ACTIVE);
 		}
 		
 		public void setOntopanelIndividualListItemInactive(String uri)
 		{
-			for (int i = 0; i < ontopanelIndividualList.getChildCount(); i++)
-			{
-				if (ontopanelIndividualList.getChildAt(i) instanceof ListItem)
-				{
-					ListItem li = (ListItem) ontopanelIndividualList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) li.setCurrentState(ListItemState.INACTIVE); 
-				}
-				
-			}
-			
-			for (int i = 0; i < ontopanelSearchIndividualList.getChildCount(); i++)
-			{
-				if (ontopanelSearchIndividualList.getChildAt(i) instanceof ListItem)
-				{
-					ListItem li = (ListItem) ontopanelSearchIndividualList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) li.setCurrentState(ListItemState.INACTIVE); 
-				}
-			}
+			ontopanelIndividualAdapter.setCurrentState(uri, ListItemState.INACTIVE);
+			ontopanelSearchIndividualAdapter.setCurrentState(uri, ListItemState.INACTIVE);
 		}
 		
 		public void findObjectsPropertyRelations(String objectUri, DrawingComponent endComponent)
@@ -2473,27 +2818,19 @@ public class MainActivity extends Activity
 		
 		public boolean isPropertyListItemActive(String uri)
 		{
-			for (int i = 0; i < ontopanelPropertyList.getChildCount(); i++)
+			for (OntologyListNode node : ontopanelPropertyAdapter.getNodes(uri))
 			{
-				if (ontopanelPropertyList.getChildAt(i) instanceof PropertyListItem)
+				switch(node.getCurrentState())
 				{
-					PropertyListItem li = (PropertyListItem) ontopanelPropertyList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) 
-					{
-						switch(li.getCurrentState())
-						{
-							case ACTIVE:
-								return true;
-							case INACTIVE:
-									return false;
-							case NONE:
-									break;
-								default:
-									break;
-						}
-					}
-				}	
+					case ACTIVE:
+						return true;
+					case INACTIVE:
+							return false;
+					case NONE:
+							break;
+						default:
+							break;
+				}
 			}
 			
 			return false;
@@ -2534,18 +2871,8 @@ public class MainActivity extends Activity
 			
 			if (range != null && domain != null)
 			{
-				for (DrawingComponent dc : GeneralView.drawingObjects.children)
-				{
-					if (dc.getUri().equalsIgnoreCase(domain.getURI()))
-					{
-						drawingDomain = dc;
-					}
-					
-					if (dc.getUri().equalsIgnoreCase(range.getURI()))
-					{
-						drawingRange = dc;
-					}
-				}
+				drawingDomain = GeneralView.drawingObjects.getChildByUri(domain.getURI());
+				drawingRange = GeneralView.drawingObjects.getChildByUri(range.getURI());
 				
 				if (drawingDomain != null && drawingRange != null)
 				{
@@ -2559,26 +2886,22 @@ public class MainActivity extends Activity
 		{
 			ArrayList<DrawingComponent> toDelete = new ArrayList<DrawingComponent>();
 			
-			for (DrawingComponent dc : sketchBoard.drawingObjects.children)
+			for (DrawingComponent dc : sketchBoard.drawingObjects.getChildrenByUri(uri))
 			{
-				if (dc.getUri().equalsIgnoreCase(uri))
+				if (dc instanceof CustomObjectRelation)
 				{
-					if (dc instanceof CustomObjectRelation)
-					{
-						if ((((CustomObjectRelation) dc).getStartElement() instanceof FormalizedObject)
-								&& (((CustomObjectRelation) dc).getEndElement() instanceof FormalizedObject)
-							)
-						{
-							((CustomObjectRelation) dc).removeReferences();
-							
-							toDelete.add(dc);
-						}
-					}
-					else
+					if ((((CustomObjectRelation) dc).getStartElement() instanceof FormalizedObject)
+							&& (((CustomObjectRelation) dc).getEndElement() instanceof FormalizedObject)
+						)
 					{
+						((CustomObjectRelation) dc).removeReferences();
+						
 						toDelete.add(dc);
 					}
-
+				}
+				else
+				{
+					toDelete.add(dc);
 				}
 			}
 
@@ -2594,19 +2917,12 @@ public class MainActivity extends Activity
 		{
 			int color = 0;
 			
-			for (int i = 0; i < ontopanelPropertyList.getChildCount(); i++)
+			// the last matching node wins, as it did when the list items were searched
+			for (OntologyListNode node : ontopanelPropertyAdapter.getNodes(uri))
 			{
-				if (ontopanelPropertyList.getChildAt(i) instanceof PropertyListItem)
-				{
-					PropertyListItem li = (PropertyListItem) ontopanelPropertyList.getChildAt(i);
-
-					if (li.getUri().equalsIgnoreCase(uri)) 
-					{
-						color = li.getColor();
-					}
-				}
-				
+				color = node.getColor();
 			}
+			
 			return color;
 		}
 
@@ -2645,9 +2961,9 @@ public class MainActivity extends Activity
 
 		public void selectiveUpdateOntoPanel(OntologyObjectTypes fromTab, OntologyObjectTypes gotoTab, String uri, String localName) 
 		{
-			ontopanelSearchConceptList.removeAllViews();
-			ontopanelSearchIndividualList.removeAllViews();
-			ontopanelSearchPropertyList.removeAllViews();
+			ontopanelSearchConceptAdapter.clear();
+			ontopanelSearchIndividualAdapter.clear();
+			ontopanelSearchPropertyAdapter.clear();
 			
 			OntResource oRes = getOntologyResource(uri);
 			
@@ -2687,98 +3003,47 @@ public class MainActivity extends Activity
 
 			if(oClass != null)
 			{
-				ArrayList<ClassListItem> childs = addSuperConceptsToView(oClass, true, 0);
-
-				int lastIndex = childs.size()-1;
-				if (lastIndex < 0) lastIndex= 0;
-				
-				ClassListItem cli2 = childs.get(lastIndex);
-				
-				if (cli2 != null)
-				{
-					childs.addAll(addSubClasses(oClass, cli2.gethLevel(), cli2));
-					
-					cli2.checkChildCount();
-				}
-
-				for (ClassListItem cli : childs)
-				{
-					ontopanelSearchConceptList.addView(cli);
-				}
-				
-				addIndividualsToView(oClass, ontopanelSearchIndividualList);
-				addPropertiesToView(oClass, ontopanelSearchPropertyList);
+				addClassHierarchyToView(oClass);
 			}
 			else if (individual != null)
 			{
-				ArrayList<ClassListItem> childs = addSuperConceptsToView(individual.getOntClass(), true, 0);
-
-				int lastIndex = childs.size()-1;
-				if (lastIndex < 0) lastIndex= 0;
-				
-				ClassListItem cli2 = childs.get(lastIndex);
-				
-				if (cli2 != null)
-				{
-					childs.addAll(addSubClasses(individual.getOntClass(), cli2.gethLevel(), cli2));
-					
-					cli2.checkChildCount();
-				}
-				
-				for (ClassListItem cli : childs)
-				{
-					ontopanelSearchConceptList.addView(cli);
-				}
-				
-				addIndividualsToView(individual.getOntClass(), ontopanelSearchIndividualList);
-				addPropertiesToView(individual.getOntClass(), ontopanelSearchPropertyList);
+				addClassHierarchyToView(individual.getOntClass());
 			}
 			else if (property !=null)
 			{
-				ArrayList<ClassListItem> childs = addSuperConceptsToView(property.getDomain().asClass(), true, 0);
-				
-				int lastIndex = childs.size()-1;
-				if (lastIndex < 0) lastIndex= 0;
-				
-				ClassListItem cli2 = childs.get(lastIndex);
-				
-				if (cli2 != null)
-				{
-					childs.addAll(addSubClasses(property.getDomain().asClass(), cli2.gethLevel(), cli2));
-					
-					cli2.checkChildCount();
-				}
-				
-				for (ClassListItem cli : childs)
-				{
-					ontopanelSearchConceptList.addView(cli);
-				}
-				
-				addIndividualsToView(property.getDomain().asClass(), ontopanelSearchIndividualList);
-				addPropertiesToView(property.getDomain().asClass(), ontopanelSearchPropertyList);
+				addClassHierarchyToView(property.getDomain().asClass());
 			}
 			
-			if (ontopanelSearchConceptList.getChildCount() <= 0)
-			{
-				ontopanelSearchConceptList.addView(getEmptyResultHint("Concepts", oRes.getLocalName()));
-			}
+			setEmptyResultHint(ontopanelSearchConceptHint, "Concepts", oRes.getLocalName());
+			setEmptyResultHint(ontopanelSearchIndividualHint, "Individuals", oRes.getLocalName());
+			setEmptyResultHint(ontopanelSearchPropertyHint, "Properties", oRes.getLocalName());
 			
-			if (ontopanelSearchIndividualList.getChildCount() <= 0)
-			{
-				ontopanelSearchIndividualList.addView(getEmptyResultHint("Individuals", oRes.getLocalName()));
-			}
+			updateSearch(uri, oRes.getLocalName());
+		}
+		
+		/**
+		 * Show the super concepts and the sub concepts of a class together with its individuals
+		 * and the properties that use it in the search lists
+		 */
+		private void addClassHierarchyToView(OntClass oClass)
+		{
+			ArrayList<OntologyListNode> childs = addSuperConceptsToView(oClass, true);
 			
+			OntologyListNode cli2 = childs.get(childs.size()-1);
 			
-			if (ontopanelSearchPropertyList.getChildCount() <= 0)
-			{
-				ontopanelSearchPropertyList.addView(getEmptyResultHint("Properties", oRes.getLocalName()));
-			}
+			addSubClasses(oClass, cli2.gethLevel()+1, cli2);
 			
-			updateSearch(uri, oRes.getLocalName());
+			// the first super concept is the root of the hierarchy
+			ontopanelSearchConceptAdapter.setNodes(childs.subList(0, 1));
+			
+			addIndividualsToView(oClass);
+			addPropertiesToView(oClass);
 		}
 		
-		private void addPropertiesToView(OntClass oClass, LinearLayout container) 
+		private void addPropertiesToView(OntClass oClass) 
 		{
+			ArrayList<OntologyListNode> nodes = new ArrayList<OntologyListNode>();
+			
 			for (OntProperty p : properties)
 			{
 				OntResource range = null;
@@ -2796,41 +3061,47 @@ public class MainActivity extends Activity
 				if (pDuri.equalsIgnoreCase(oClass.getURI())
 						|| pRUri.equalsIgnoreCase(oClass.getURI()))
 				{
-					PropertyListItem pll = new PropertyListItem(this, p.getLocalName(), getNextFreeColor(p.getURI()));
+					OntologyListNode node = new OntologyListNode(NodeType.PROPERTY, p.getLocalName(), p.getURI());
 					
-					pll.setUri(p.getURI());
+					node.setColor(getNextFreeColor(p.getURI()));
 					
 					if (isPropertyListItemActive(p.getURI()))
-						pll.setCurrentState(ListItemState.ACTIVE);
+						node.setCurrentState(ListItemState.ACTIVE);
 					else
-						pll.setCurrentState(ListItemState.INACTIVE);
+						node.setCurrentState(ListItemState.INACTIVE);
 				
-					container.addView(pll);
+					nodes.add(node);
 				}
 			}
 			
+			ontopanelSearchPropertyAdapter.setNodes(nodes);
 		}
 
-		private void addIndividualsToView(OntClass oClass, LinearLayout cotainer)
+		private void addIndividualsToView(OntClass oClass)
 		{
 			List<Individual> temp = sortIndividuals(oClass.listInstances(true).toList());
 			
-			if (temp.size() > 0) 
+			ArrayList<OntologyListNode> nodes = new ArrayList<OntologyListNode>(temp.size());
+			
+			for (Individual individual : temp)
 			{
-				for (Individual individual : temp)
-				{
-					IndividualListItem ill = new IndividualListItem(this, individual.getLocalName(), individual.getOntClass().getLocalName());
+				OntologyListNode node = new OntologyListNode(NodeType.INDIVIDUAL, individual.getLocalName(), individual.getURI());
 
-					ill.setUri(individual.getURI());
+				node.setClassName(individual.getOntClass().getLocalName());
 
-					cotainer.addView(ill);
-				}
-			}	
+				nodes.add(node);
+			}
+			
+			ontopanelSearchIndividualAdapter.setNodes(nodes);
 		}
 
-		private ArrayList<ClassListItem> addSuperConceptsToView(OntClass oClass, boolean up, int hlevel)
+		/**
+		 * Create the nodes of a class and its super classes, every node is the child of its super class
+		 * @return The nodes starting with the topmost super class
+		 */
+		private ArrayList<OntologyListNode> addSuperConceptsToView(OntClass oClass, boolean up)
 		{
-			ArrayList<ClassListItem> tempArray = new ArrayList<ClassListItem>();
+			ArrayList<OntologyListNode> tempArray = new ArrayList<OntologyListNode>();
 			
 			if (oClass != null)
 			{
@@ -2842,49 +3113,32 @@ public class MainActivity extends Activity
 						
 						if (!sClass.getURI().contains("rdf-schema")) 
 						{
-							tempArray.addAll(addSuperConceptsToView(sClass, true, hlevel-1));
+							tempArray.addAll(addSuperConceptsToView(sClass, true));
 						}
 					}
 				}
 				
-				ClassListItem cll = new ClassListItem(this, oClass.getLocalName(), hlevel+1);
-
-				cll.setUri(oClass.getURI());
+				OntologyListNode node = new OntologyListNode(NodeType.CONCEPT, oClass.getLocalName(), oClass.getURI());
+				
+				node.sethLevel(tempArray.size());
 				
 				if (tempArray.size() >= 1)
 				{
-					int lastIndex = tempArray.size()-1;
-
-					ClassListItem cli = tempArray.get(lastIndex);
-					
-					if (cli != null)
-					{
-							cli.addChildren(cll);
-					}
+					tempArray.get(tempArray.size()-1).addChild(node);
 				}
 				
-				tempArray.add(cll);
-
-				List<Individual> temp = sortIndividuals(oClass.listInstances(true).toList());
-				
-				if (temp.size() > 0) 
-				{
-					cll.setHasIndividuals(true);
-				}
-
-				cll.checkChildCount();
+				tempArray.add(node);
 
+				node.setHasIndividuals(oClass.listInstances(true).hasNext());
 			}
 			
 			return tempArray;
 		}
 		
-		private ArrayList<ClassListItem> addSubClasses(OntClass oClass, int hLevel, ClassListItem cll2)
+		private void addSubClasses(OntClass oClass, int hLevel, OntologyListNode parent)
 		{
 			ArrayList<OntClass> list = (ArrayList<OntClass>) oClass.listSubClasses(true).toList();
 			
-			ArrayList<ClassListItem> tempArray = new ArrayList<ClassListItem>();
-
 			Collections.sort(list, new Comparator<OntClass>()
 					{
 						@Override
@@ -2895,30 +3149,22 @@ public class MainActivity extends Activity
 					}
 			);
 			
-			int h = hLevel+1;
-			
 			for (OntClass o : list) 
 			{
 				if (o.getURI() != null)
 				{
-					ClassListItem cll = new ClassListItem(this, o.getLocalName(), hLevel);
+					OntologyListNode node = new OntologyListNode(NodeType.CONCEPT, o.getLocalName(), o.getURI());
 	
-					cll.setUri(o.getURI());
-					
-					tempArray.add(cll);
+					node.sethLevel(hLevel);
 					
-					cll2.addChildren(cll);
+					parent.addChild(node);
 					
 					if (o.hasSubClass())
 					{
-						tempArray.addAll(addSubClasses(o, h, cll));
+						addSubClasses(o, hLevel+1, node);
 					}
 				}
 			}
-			
-			cll2.checkChildCount();
-			
-			return tempArray;
 		}
 
 		private void updateSearch(String uri, String localName)
@@ -2931,60 +3177,55 @@ public class MainActivity extends Activity
 				ontopanelSearchIndividualItem.updateText("Search", localName);
 				ontopanelSearchPropertyItem.updateText("Search", localName);
 				
-				ontopanelSearchConceptList.removeAllViews();
-				ontopanelSearchIndividualList.removeAllViews();
-				ontopanelSearchPropertyList.removeAllViews();
+				String filter = localName.toLowerCase();
 				
 				//Concepts
-				for (int i = 0; i < ontopanelConceptList.getChildCount(); i++)
+				ArrayList<OntologyListNode> nodes = new ArrayList<OntologyListNode>();
+				
+				for (OntologyListNode node : ontopanelConceptAdapter.getNodes())
 				{
-					if (ontopanelConceptList.getChildAt(i) instanceof ClassListItem)
+					if (node.getType() == NodeType.CONCEPT && node.getItemname().toLowerCase().contains(filter))
 					{
-						ClassListItem li = (ClassListItem) ontopanelConceptList.getChildAt(i);
-
-						if (li.getItemname().toLowerCase().contains(localName.toLowerCase())) ontopanelSearchConceptList.addView(new ClassListItem(li));
+						// a copy, the search results are shown without their sub concepts
+						OntologyListNode copy = new OntologyListNode(NodeType.CONCEPT, node.getItemname(), node.getUri());
+						
+						copy.sethLevel(node.gethLevel());
+						copy.setHasIndividuals(node.hasIndividuals());
+						copy.setCurrentState(node.getCurrentState());
+						
+						nodes.add(copy);
 					}
 				}
 				
-				if (ontopanelSearchConceptList.getChildCount() <= 0)
-				{
-					ontopanelSearchConceptList.addView(getEmptyResultHint("Concepts", localName));
-				}
+				ontopanelSearchConceptAdapter.setNodes(nodes);
+				
+				setEmptyResultHint(ontopanelSearchConceptHint, "Concepts", localName);
 				
 				//Individuals
-				for (int i = 0; i < ontopanelIndividualList.getChildCount(); i++)
-				{
-					if (ontopanelIndividualList.getChildAt(i) instanceof IndividualListItem)
-					{
-						IndividualListItem li = (IndividualListItem) ontopanelIndividualList.getChildAt(i);
-
-						if (li.getItemname().toLowerCase().contains(localName.toLowerCase()) || 
-								li.getClassName().toLowerCase().contains(localName.toLowerCase())) 
-							ontopanelSearchIndividualList.addView(new IndividualListItem(li));
-					}
-				}
+				nodes = new ArrayList<OntologyListNode>();
 				
-				if (ontopanelSearchIndividualList.getChildCount() <= 0)
+				for (OntologyListNode node : ontopanelIndividualAdapter.getNodes())
 				{
-					ontopanelSearchIndividualList.addView(getEmptyResultHint("Individuals", localName));
+					if (node.getType() == NodeType.INDIVIDUAL && (node.getItemname().toLowerCase().contains(filter) || 
+							node.getClassName().toLowerCase().contains(filter)))
+						nodes.add(node);
 				}
 				
+				ontopanelSearchIndividualAdapter.setNodes(nodes);
+				
+				setEmptyResultHint(ontopanelSearchIndividualHint, "Individuals", localName);
+				
 				//Relations
-				for (int i = 0; i < ontopanelPropertyList.getChildCount(); i++)
-				{
-					if (ontopanelPropertyList.getChildAt(i) instanceof PropertyListItem)
-					{
-						PropertyListItem li = (PropertyListItem) ontopanelPropertyList.getChildAt(i);
-
-						if (li.getItemname().toLowerCase().contains(localName.toLowerCase())) ontopanelSearchPropertyList.addView(new PropertyListItem(li));
-					}
-				}
+				nodes = new ArrayList<OntologyListNode>();
 				
-				if (ontopanelSearchPropertyList.getChildCount() <= 0)
+				for (OntologyListNode node : ontopanelPropertyAdapter.getNodes())
 				{
-					ontopanelSearchPropertyList.addView(getEmptyResultHint("Properties", localName));
+					if (node.getType() == NodeType.PROPERTY && node.getItemname().toLowerCase().contains(filter)) nodes.add(node);
 				}
 				
+				ontopanelSearchPropertyAdapter.setNodes(nodes);
+				
+				setEmptyResultHint(ontopanelSearchPropertyHint, "Properties", localName);
 			}
 			else
 			{
@@ -2998,19 +3239,12 @@ public class MainActivity extends Activity
 			hideProgressLayer();
 		}
 		
-		private TextView getEmptyResultHint(String type, String localName)
+		/**
+		 * Set the text that is shown by a search list without results
+		 */
+		private void setEmptyResultHint(TextView hint, String type, String localName)
 		{
-			TextView noResults = new TextView(this);
-			
-			noResults.setText("No " + type + " were found for \"" + localName + "\".");
-			
-			LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
-			params.setMargins(25, 25, 25, 25);
-			noResults.setLayoutParams(params);
-			
-			noResults.setTextColor(getResources().getColor(R.color.ontoPanelBtn));
-			
-			return noResults;
+			hint.setText("No " + type + " were found for \"" + localName + "\".");
 		}
 
 		public void closeFilter() 
@@ -0,0 +1,106 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+ 
+package com.drawing.application;
+
+import java.util.ArrayList;
+
+import com.hp.hpl.jena.ontology.Individual;
+import com.hp.hpl.jena.ontology.OntModel;
+import com.hp.hpl.jena.ontology.OntProperty;
+
+/**
+ * Content of an imported ontology file as it is listed in the ontology panel. The index is
+ * built by a worker thread and contains no views, the list items are created from it on
+ * the UI thread.
+ *
+ */
+public class OntologyIndex
+{
+	/**
+	 * Entry of a class in the concept list
+	 */
+	static class ClassEntry
+	{
+		String localName;
+
+		String uri;
+
+		/**
+		 * Depth of the class in the hierarchy, root classes have level 0
+		 */
+		int hLevel;
+
+		/**
+		 * Position of the super class in {@link OntologyIndex#classes} or -1 for root classes
+		 */
+		int parent;
+
+		boolean hasIndividuals = false;
+
+		ClassEntry(String localName, String uri, int hLevel, int parent)
+		{
+			this.localName = localName;
+			this.uri = uri;
+			this.hLevel = hLevel;
+			this.parent = parent;
+		}
+	}
+
+	/**
+	 * The parsed model of the file
+	 */
+	OntModel model;
+
+	/**
+	 * Classes in the order they are listed, every class follows its super class
+	 */
+	ArrayList<ClassEntry> classes = new ArrayList<ClassEntry>();
+
+	ArrayList<Individual> individuals;
+
+	/**
+	 * Local names of the classes of {@link #individuals}
+	 */
+	String[] individualClassNames;
+
+	/**
+	 * Properties without the general properties
+	 */
+	ArrayList<OntProperty> properties;
+
+	/**
+	 * @return The local names of the classes, individuals and properties, e.g. as words for the
+	 *         handwriting recognition
+	 */
+	ArrayList<String> getLocalNames()
+	{
+		ArrayList<String> names = new ArrayList<String>(classes.size() + individuals.size() + properties.size());
+
+		for (ClassEntry entry : classes)
+		{
+			if (entry.localName != null) names.add(entry.localName);
+		}
+
+		for (Individual individual : individuals)
+		{
+			if (individual.getLocalName() != null) names.add(individual.getLocalName());
+		}
+
+		for (OntProperty property : properties)
+		{
+			if (property.getLocalName() != null) names.add(property.getLocalName());
+		}
+
+		return names;
+	}
+}
@@ -12,115 +12,147 @@
  
 package com.drawing.application;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import android.graphics.RectF;
+import android.graphics.Matrix;
 import android.os.AsyncTask;
 import android.util.Log;
 
 import com.drawing.datastructure.CustomPath;
 import com.drawing.datastructure.DrawingComponent;
-import com.drawing.gestures.Point;
 
 /**
  * 
  * @author Christian Brndel class for the asynchronous retrieval of drawn
  *         path objects
  */
-public class PathRetrieverTask extends AsyncTask<CustomPath, Integer, Integer> 
+public class PathRetrieverTask extends AsyncTask<Void, Integer, Integer> 
 {
 
 	private GeneralView view;
 	
-	public PathRetrieverTask(GeneralView view)
+	/**
+	 * Start of the selection, measured from the touch input until the path is highlighted
+	 */
+	private long start;
+	
+	/**
+	 * Maximum manhattan distance in screen coordinates between the input and the
+	 * nearest vertex of a path that still counts as a selection of the path
+	 */
+	private static final float MAXSELECTIONDISTANCE = 40;
+
+	/**
+	 * Snapshot of the path list, the list itself is rebuilt in place on the UI thread
+	 */
+	private CustomPath[] paths;
+
+	/**
+	 * Components of the paths, the registry of the structure is only used on the UI thread
+	 */
+	private DrawingComponent[] components;
+
+	private float[] matrixValues = new float[9];
+
+	private float highlightedScaleX, highlightedScaleY, scaleX, scaleY;
+
+	private float[] highlightedInput = new float[2];
+
+	private float[] input = new float[2];
+
+	/**
+	 * Take everything the retrieval needs from the view, must be called on the UI thread
+	 * @param view The view whose paths are searched
+	 * @param paths Array of paths that are drawn on the canvas
+	 */
+	public PathRetrieverTask(GeneralView view, CustomPath[] paths)
 	{
 		this.view = view;
+		this.paths = paths;
+		
+		start = PerformanceMetrics.start();
+
+		components = new DrawingComponent[paths.length];
+
+		for (int i = 0; i < paths.length; i++)
+		{
+			components[i] = view.getDrawingObjects().getObjectByPathId(paths[i].getUid());
+		}
+
+		// backup the transformation matrix, if no path is
+		// highlighted in order to keep it up to date
+
+		if (!view.getDrawingObjects().getPathList().ContainsHighlightedPath()) 
+		{
+			view.backupCurrentTransformationMatrix();
+		}
+
+		// map the input once into the coordinate systems of the highlighted and
+		// the not highlighted paths, the canvas matrices only scale and translate
+		// so the screen distance is the scaled distance in path coordinates
+
+		Matrix inverse = new Matrix();
+
+		view.matrix.getValues(matrixValues);
+		highlightedScaleX = matrixValues[Matrix.MSCALE_X];
+		highlightedScaleY = matrixValues[Matrix.MSCALE_Y];
+
+		highlightedInput[0] = view.start.x;
+		highlightedInput[1] = view.start.y;
+		view.matrix.invert(inverse);
+		inverse.mapPoints(highlightedInput);
+
+		view.backupTransformationMatrix.getValues(matrixValues);
+		scaleX = matrixValues[Matrix.MSCALE_X];
+		scaleY = matrixValues[Matrix.MSCALE_Y];
+
+		input[0] = view.start.x;
+		input[1] = view.start.y;
+		view.backupTransformationMatrix.invert(inverse);
+		inverse.mapPoints(input);
 	}
-	
-	
+
 	/**
 	 * asynchronous retrieval of the drawn path that was selected by user
 	 * input
-	 * 
-	 * @param paths
-	 *            array of paths that are drawn on the canvas
 	 */
-	protected Integer doInBackground(CustomPath... paths) 
+	protected Integer doInBackground(Void... params) 
 	{
 		int minDistanceIndex = -1;
-		// positive infinity
-		float minDistance = (float) 1e9;
-		List<Point> vertices = new ArrayList<Point>();
-		Point vertex = new Point();
-		RectF inputBounds = new RectF();
-		float offset = 10;
-		float distance;
-		inputBounds.left = view.start.x - offset;
-		inputBounds.right = view.start.x + offset;
-		inputBounds.top = view.start.y - offset;
-		inputBounds.bottom = view.start.y + offset;
-		CustomPath tempPath = new CustomPath();
-
-		if (paths != null) 
+
+		if (paths.length == 0) return minDistanceIndex;
+
+		// accept distances up to and including the maximum selection distance
+		float minDistance = Math.nextUp(MAXSELECTIONDISTANCE);
+
+		for (int i = 0; i < paths.length; i++) 
 		{
-			// debugList.clear();
-			
-			for (int i = 0; i < paths.length; i++) 
+			// a newer selection has superseded this one
+			if (isCancelled()) return -1;
+
+			DrawingComponent dc = components[i];
+
+			if (dc != null && dc.getAlpha() > 0)
 			{
-				
-				Log.d("Pathretreiver", "path.length " + paths.length);
+				float distance;
 
-				tempPath.set(paths[i]);
-				
-				DrawingComponent dc = view.getDrawingObjects().getObjectByPathId(paths[i].getUid());
-				
-				if (dc.getAlpha() > 0)
+				if (paths[i].isHighlighted()) 
+				{
+					distance = paths[i].getVertexIndex().nearestDistance(highlightedInput[0], highlightedInput[1],
+							highlightedScaleX, highlightedScaleY, minDistance);
+				} 
+				else 
 				{
-					vertices = new ArrayList<Point>();
-					vertices = paths[i].getVertices();
-
-					// backup the transformation matrix, if no path is
-					// highlighted in order to keep it up to date
-
-					if (!view.getDrawingObjects().getPathList().ContainsHighlightedPath()) 
-					{
-						view.backupCurrentTransformationMatrix();
-					}
-
-					if (paths[i].isHighlighted()) 
-					{
-						vertices = CustomPath.transformVertices(vertices, view.matrix);
-					} 
-					else 
-					{
-						vertices = CustomPath.transformVertices(vertices, view.backupTransformationMatrix);
-					}
-
-					// debugList.add(vertices);
-
-					for (int j = 0; j < vertices.size(); j++) 
-					{
-						vertex = vertices.get(j);
-
-						inputBounds.contains(vertex.x, vertex.y);
-
-						distance = Math.abs(vertex.x - inputBounds.centerX()) + Math.abs(vertex.y - inputBounds.centerY());
-						
-						if (distance < minDistance) 
-						{
-							minDistance = distance;
-							minDistanceIndex = i;
-						}
-					}
+					distance = paths[i].getVertexIndex().nearestDistance(input[0], input[1],
+							scaleX, scaleY, minDistance);
 				}
 
+				if (distance < minDistance) 
+				{
+					minDistance = distance;
+					minDistanceIndex = i;
+				}
 			}
 		}
 
-		if (minDistance > 40)
-			minDistanceIndex = -1;
-
 		return minDistanceIndex;
 	}
 
@@ -129,21 +161,21 @@ public class PathRetrieverTask extends AsyncTask<CustomPath, Integer, Integer>
 	 */
 	protected void onPostExecute(Integer minDistanceIndex) 
 	{
-		Log.d("PathRetrieverTask","minDistanceIndex "+ minDistanceIndex);
+//		Log.d("PathRetrieverTask","minDistanceIndex "+ minDistanceIndex);
 		
 		if (minDistanceIndex != -1)
 		{
-			CustomPath path = view.getDrawingObjects().getPathList().getPaths().get(minDistanceIndex);
+			CustomPath path = paths[minDistanceIndex];
 
 			if(!path.isHighlighted())
 			{
 				// path match was found
-				Log.d("PathRetrieverTask","updatePath "+ path);
+//				Log.d("PathRetrieverTask","updatePath "+ path);
 				view.updatePath(path);
 			}
 			else
 			{
-				Log.d("PathRetrieverTask","removeHighlightFromPaths ");
+//				Log.d("PathRetrieverTask","removeHighlightFromPaths ");
 				view.removeHighlightFromPaths();
 			}
 		}
@@ -157,7 +189,7 @@ public class PathRetrieverTask extends AsyncTask<CustomPath, Integer, Integer>
 
 				if((view instanceof DrawView))
 				{
-					Log.d("PathRetrieverTask","adjustViewPort ");
+//					Log.d("PathRetrieverTask","adjustViewPort ");
 					view.adjustViewPort();
 				}
 				
@@ -167,7 +199,7 @@ public class PathRetrieverTask extends AsyncTask<CustomPath, Integer, Integer>
 				
 				if((view instanceof DrawView))
 				{
-					Log.d("PathRetrieverTask","removeHighlightFromPaths ");
+//					Log.d("PathRetrieverTask","removeHighlightFromPaths ");
 					view.removeHighlightFromPaths();
 				}
 				
@@ -176,10 +208,10 @@ public class PathRetrieverTask extends AsyncTask<CustomPath, Integer, Integer>
 			
 		}
 
+		// every branch repaints the area it has changed
 		view.configureButtonActivation();
 
-		view.invalidate();
-
+		PerformanceMetrics.SELECTIONTIME.stop(start);
 	}
 
 }
@@ -0,0 +1,553 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.application;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+/**
+ * Counters and timing histograms of the drawing and recognition hot paths. Nothing is measured
+ * while the metrics are disabled, a disabled timer only costs the check of a static flag.
+ * <p>
+ * A timer is started with {@link #start()} and stopped by {@link Histogram#stop(long)}, which
+ * returns the start of the next phase so that consecutive phases can be chained. While enabled,
+ * the collected values are written periodically to a text file and can be drawn on the canvas.
+ *
+ */
+public final class PerformanceMetrics
+{
+	/**
+	 * Time in milliseconds between two dumps of the metrics into the dump file
+	 */
+	static final long DUMPINTERVAL = 10000;
+
+	private static final String TAG = "PerformanceMetrics";
+
+	private static volatile boolean enabled = false;
+
+	// frame time and its phases
+
+	public static final Histogram FRAMETIME = new Histogram("frame");
+
+	public static final Histogram GEOMETRYTIME = new Histogram("frame geometry");
+
+	public static final Histogram STATICLAYERTIME = new Histogram("frame static layer");
+
+	public static final Histogram PATHSTIME = new Histogram("frame paths");
+
+	public static final Histogram DECORATIONTIME = new Histogram("frame decorations");
+
+	// hot paths outside of the frame
+
+	public static final Histogram RECOGNITIONTIME = new Histogram("recognition");
+
+	public static final Histogram SELECTIONTIME = new Histogram("selection");
+
+	public static final Histogram REBUILDTIME = new Histogram("path list rebuild");
+
+	public static final Histogram SAVETIME = new Histogram("save");
+
+	public static final Histogram LOADTIME = new Histogram("load");
+
+	public static final Histogram QUEUEWAIT = new Histogram("scheduler queue wait");
+
+	public static final Counter STATICLAYERREDRAWS = new Counter("static layer redraws");
+
+	public static final Counter PATHLISTREBUILDS = new Counter("path list rebuilds");
+
+	public static final Counter SUPERSEDEDTASKS = new Counter("superseded tasks");
+
+	public static final Gauge QUEUEDEPTH = new Gauge("scheduler queue depth");
+
+	public static final Gauge DRAWNCOMPONENTS = new Gauge("drawn components");
+
+	public static final Gauge CULLEDCOMPONENTS = new Gauge("culled components");
+
+	private static final Histogram[] HISTOGRAMS = { FRAMETIME, GEOMETRYTIME, STATICLAYERTIME, PATHSTIME, DECORATIONTIME,
+			RECOGNITIONTIME, SELECTIONTIME, QUEUEWAIT, REBUILDTIME, SAVETIME, LOADTIME };
+
+	private static final Counter[] COUNTERS = { STATICLAYERREDRAWS, PATHLISTREBUILDS, SUPERSEDEDTASKS };
+
+	private static final Gauge[] GAUGES = { QUEUEDEPTH, DRAWNCOMPONENTS, CULLEDCOMPONENTS };
+
+	/**
+	 * Number of histograms from the start of the list that are shown in the HUD
+	 */
+	private static final int HUDHISTOGRAMS = 8;
+
+	private static HandlerThread dumpThread;
+
+	private static Handler dumpHandler;
+
+	private static File dumpFile;
+
+	private static Runnable dumpRunnable = new Runnable()
+	{
+		public void run()
+		{
+			writeDump();
+
+			dumpHandler.postDelayed(this, DUMPINTERVAL);
+		}
+	};
+
+	// only used by the UI thread to draw the HUD
+
+	private static Paint hudPaint;
+
+	private static Paint hudBackground;
+
+	private static StringBuilder hudLine = new StringBuilder();
+
+	private PerformanceMetrics()
+	{
+	}
+
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Enable or disable the collection of metrics. All values are reset when the metrics are
+	 * enabled, the last values are written to the dump file when they are disabled.
+	 * @param enable True to collect metrics
+	 * @param file The file the metrics are written to periodically, or null to keep them in memory only
+	 */
+	public static synchronized void setEnabled(boolean enable, File file)
+	{
+		if (enable == enabled) return;
+
+		if (enable)
+		{
+			reset();
+
+			dumpFile = file;
+
+			enabled = true;
+
+			if (dumpFile != null)
+			{
+				dumpThread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+				dumpThread.start();
+
+				dumpHandler = new Handler(dumpThread.getLooper());
+				dumpHandler.postDelayed(dumpRunnable, DUMPINTERVAL);
+			}
+		}
+		else
+		{
+			enabled = false;
+
+			if (dumpHandler != null)
+			{
+				dumpHandler.removeCallbacks(dumpRunnable);
+
+				// write the final values and stop the thread afterwards
+				dumpHandler.post(new Runnable()
+				{
+					public void run()
+					{
+						writeDump();
+
+						Looper.myLooper().quit();
+					}
+				});
+
+				dumpHandler = null;
+				dumpThread = null;
+			}
+		}
+	}
+
+	/**
+	 * Start a timer
+	 * @return The start time that is passed to {@link Histogram#stop(long)}, 0 if the metrics are disabled
+	 */
+	public static long start()
+	{
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Reset all counters and histograms
+	 */
+	public static void reset()
+	{
+		for (Histogram histogram : HISTOGRAMS)
+		{
+			histogram.reset();
+		}
+
+		for (Counter counter : COUNTERS)
+		{
+			counter.reset();
+		}
+
+		for (Gauge gauge : GAUGES)
+		{
+			gauge.reset();
+		}
+	}
+
+	/**
+	 * Write all counters and histograms as text, one line per metric
+	 * @param writer The target of the text
+	 */
+	public static void dump(Writer writer) throws IOException
+	{
+		StringBuilder line = new StringBuilder();
+
+		for (Histogram histogram : HISTOGRAMS)
+		{
+			line.setLength(0);
+			histogram.format(line);
+			line.append('\n');
+
+			writer.write(line.toString());
+		}
+
+		for (Counter counter : COUNTERS)
+		{
+			writer.write(counter.getName() + ": " + counter.get() + "\n");
+		}
+
+		for (Gauge gauge : GAUGES)
+		{
+			writer.write(gauge.getName() + ": " + gauge.get() + " max=" + gauge.getMax() + "\n");
+		}
+	}
+
+	/**
+	 * Replace the content of the dump file by the current values, runs on the dump thread
+	 */
+	private static void writeDump()
+	{
+		Writer writer = null;
+
+		try
+		{
+			writer = new FileWriter(dumpFile, false);
+
+			dump(writer);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+		finally
+		{
+			if (writer != null)
+			{
+				try
+				{
+					writer.close();
+				}
+				catch (IOException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draw the frame time, its phases and the selection and recognition latencies into the
+	 * upper left corner of the canvas
+	 * @param canvas The canvas of the view, without transformations
+	 */
+	public static void drawHud(Canvas canvas)
+	{
+		if (hudPaint == null)
+		{
+			hudPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+			hudPaint.setColor(Color.WHITE);
+			hudPaint.setTextSize(20);
+
+			hudBackground = new Paint();
+			hudBackground.setColor(Color.argb(160, 0, 0, 0));
+		}
+
+		float lineHeight = hudPaint.getTextSize() * 1.25f;
+
+		int lines = HUDHISTOGRAMS + COUNTERS.length + GAUGES.length;
+
+		canvas.drawRect(0, 0, 520, lineHeight * lines + lineHeight / 2, hudBackground);
+
+		float y = lineHeight;
+
+		for (int i = 0; i < HUDHISTOGRAMS; i++)
+		{
+			hudLine.setLength(0);
+			HISTOGRAMS[i].format(hudLine);
+
+			canvas.drawText(hudLine, 0, hudLine.length(), 10, y, hudPaint);
+
+			y += lineHeight;
+		}
+
+		for (int i = 0; i < COUNTERS.length; i++)
+		{
+			hudLine.setLength(0);
+			hudLine.append(COUNTERS[i].getName()).append(": ").append(COUNTERS[i].get());
+
+			canvas.drawText(hudLine, 0, hudLine.length(), 10, y, hudPaint);
+
+			y += lineHeight;
+		}
+
+		for (int i = 0; i < GAUGES.length; i++)
+		{
+			hudLine.setLength(0);
+			hudLine.append(GAUGES[i].getName()).append(": ").append(GAUGES[i].get()).append(" max=").append(GAUGES[i].getMax());
+
+			canvas.drawText(hudLine, 0, hudLine.length(), 10, y, hudPaint);
+
+			y += lineHeight;
+		}
+	}
+
+	/**
+	 * Monotonic counter that can be incremented from any thread
+	 */
+	public static final class Counter
+	{
+		private final String name;
+
+		private final AtomicLong value = new AtomicLong();
+
+		Counter(String name)
+		{
+			this.name = name;
+		}
+
+		public void increment()
+		{
+			if (enabled) value.incrementAndGet();
+		}
+
+		public void add(long delta)
+		{
+			if (enabled) value.addAndGet(delta);
+		}
+
+		public long get()
+		{
+			return value.get();
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		void reset()
+		{
+			value.set(0);
+		}
+	}
+
+	/**
+	 * Current value of a quantity and the maximum it reached
+	 */
+	public static final class Gauge
+	{
+		private final String name;
+
+		private long value;
+
+		private long max;
+
+		Gauge(String name)
+		{
+			this.name = name;
+		}
+
+		public synchronized void set(long value)
+		{
+			if (!enabled) return;
+
+			this.value = value;
+
+			if (value > max) max = value;
+		}
+
+		public synchronized long get()
+		{
+			return value;
+		}
+
+		public synchronized long getMax()
+		{
+			return max;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		synchronized void reset()
+		{
+			value = 0;
+			max = 0;
+		}
+	}
+
+	/**
+	 * Histogram of durations with one bucket per power of two microseconds, records are
+	 * free of allocations and can be made from any thread
+	 */
+	public static final class Histogram
+	{
+		private static final int BUCKETS = 32;
+
+		private final String name;
+
+		private final long[] buckets = new long[BUCKETS];
+
+		private long count;
+
+		private long sum;
+
+		private long max;
+
+		Histogram(String name)
+		{
+			this.name = name;
+		}
+
+		/**
+		 * Record the time that passed since the passed start time
+		 * @param start The result of {@link PerformanceMetrics#start()} or of a previous stop
+		 * @return The current time as the start of a following phase, 0 if the metrics are disabled
+		 */
+		public long stop(long start)
+		{
+			if (start == 0) return 0;
+
+			long now = System.nanoTime();
+
+			record(now - start);
+
+			return now;
+		}
+
+		/**
+		 * Record a duration
+		 * @param nanos The duration in nanoseconds
+		 */
+		public synchronized void record(long nanos)
+		{
+			long micros = Math.max(nanos / 1000, 0);
+
+			int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+
+			buckets[bucket]++;
+			count++;
+			sum += micros;
+
+			if (micros > max) max = micros;
+		}
+
+		public synchronized long getCount()
+		{
+			return count;
+		}
+
+		/**
+		 * @return The maximum recorded duration in microseconds
+		 */
+		public synchronized long getMax()
+		{
+			return max;
+		}
+
+		/**
+		 * @return The mean of the recorded durations in microseconds
+		 */
+		public synchronized long getMean()
+		{
+			return (count > 0) ? sum / count : 0;
+		}
+
+		/**
+		 * Estimate a percentile by the upper limit of the bucket it falls into
+		 * @param percentile The percentile between 0 and 100
+		 * @return The estimated duration in microseconds
+		 */
+		public synchronized long getPercentile(int percentile)
+		{
+			if (count == 0) return 0;
+
+			long rank = (count * percentile + 99) / 100;
+
+			long seen = 0;
+
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				seen += buckets[i];
+
+				if (seen >= rank) return Math.min((1L << i) - 1, max);
+			}
+
+			return max;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		synchronized void reset()
+		{
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				buckets[i] = 0;
+			}
+
+			count = 0;
+			sum = 0;
+			max = 0;
+		}
+
+		/**
+		 * Append the name, the count and the mean, median, 95th percentile and maximum in milliseconds
+		 */
+		synchronized void format(StringBuilder target)
+		{
+			target.append(name).append(": n=").append(count);
+
+			appendMillis(target.append(" mean="), getMean());
+			appendMillis(target.append(" p50="), getPercentile(50));
+			appendMillis(target.append(" p95="), getPercentile(95));
+			appendMillis(target.append(" max="), max);
+		}
+
+		private static void appendMillis(StringBuilder target, long micros)
+		{
+			target.append(micros / 1000).append('.').append((micros / 100) % 10);
+		}
+	}
+}
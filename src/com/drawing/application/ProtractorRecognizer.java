@@ -0,0 +1,384 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.application;
+
+import com.drawing.datastructure.CustomPath;
+import com.drawing.datastructure.GestureTypes;
+import com.drawing.gestures.Result;
+
+/**
+ * Gesture recognizer after the Protractor algorithm. Strokes and templates are resampled to
+ * a fixed number of points, translated to their centroid and scaled to a unit vector. The
+ * similarity of two vectors at their optimal rotation is computed in closed form, so no
+ * search over the rotation angle is needed like in the $1 recognizer.
+ * <p>
+ * The templates are preprocessed once and kept packed in float arrays. A template is
+ * abandoned as soon as its remaining points cannot exceed the best similarity found so far.
+ * Recognizing a stroke does not allocate apart from the returned <b>Result</b>.
+ *
+ */
+public class ProtractorRecognizer
+{
+	/**
+	 * Number of points strokes and templates are resampled to
+	 */
+	static final int SAMPLES = 32;
+
+	/**
+	 * Minimum similarity between a stroke and a template for the stroke to be recognized,
+	 * the similarity is the cosine of the angle between the two vectors
+	 */
+	static final float MINSIMILARITY = 0.92f;
+
+	/**
+	 * Number of points between two checks whether a template can still be the best match
+	 */
+	private static final int CHECKINTERVAL = 4;
+
+	private static final int VECTORLENGTH = SAMPLES * 2;
+
+	private static final String NONE = "- none - ";
+
+	private int templateCount = 0;
+
+	private float[] templateVectors = new float[0];
+
+	/**
+	 * Sum of the squared components of every template from each point to its end
+	 */
+	private float[] templateEnergies = new float[0];
+
+	private String[] templateNames = new String[0];
+
+	private GestureTypes[] templateTypes = new GestureTypes[0];
+
+	// buffers of the stroke that is recognized
+
+	private float[] vector = new float[VECTORLENGTH];
+
+	private float[] energies = new float[SAMPLES + 1];
+
+	private float[] input = new float[0];
+
+	/**
+	 * Create a recognizer with the templates of concepts and individuals
+	 */
+	public ProtractorRecognizer()
+	{
+		addDefaultTemplates();
+	}
+
+	/**
+	 * Add a template
+	 * @param name The name of the gesture, returned as the name of the <b>Result</b>
+	 * @param type The type of the gesture
+	 * @param points The packed coordinates of the points of the template
+	 * @param count The number of points
+	 */
+	public synchronized void addTemplate(String name, GestureTypes type, float[] points, int count)
+	{
+		if (!vectorize(points, count, vector, energies)) return;
+
+		int index = templateCount;
+
+		templateCount++;
+
+		if (templateNames.length < templateCount)
+		{
+			int capacity = Math.max(templateCount, templateNames.length * 2);
+
+			templateVectors = grow(templateVectors, capacity * VECTORLENGTH);
+			templateEnergies = grow(templateEnergies, capacity * (SAMPLES + 1));
+
+			String[] names = new String[capacity];
+			System.arraycopy(templateNames, 0, names, 0, index);
+			templateNames = names;
+
+			GestureTypes[] types = new GestureTypes[capacity];
+			System.arraycopy(templateTypes, 0, types, 0, index);
+			templateTypes = types;
+		}
+
+		System.arraycopy(vector, 0, templateVectors, index * VECTORLENGTH, VECTORLENGTH);
+		System.arraycopy(energies, 0, templateEnergies, index * (SAMPLES + 1), SAMPLES + 1);
+
+		templateNames[index] = name;
+		templateTypes[index] = type;
+	}
+
+	/**
+	 * Recognize the gesture of a path
+	 * @param path The path of the stroke
+	 * @return The result with the name and type of the best matching template and the
+	 * similarity as score, or a result of the type <b>NOGESTURE</b>
+	 */
+	public synchronized Result recognize(CustomPath path)
+	{
+		int count = path.getVertexCount();
+
+		if (input.length < count * 2) input = new float[count * 2];
+
+		for (int i = 0; i < count; i++)
+		{
+			input[2 * i] = path.getVertexX(i);
+			input[2 * i + 1] = path.getVertexY(i);
+		}
+
+		return recognize(input, count);
+	}
+
+	/**
+	 * Recognize the gesture of a stroke
+	 * @param points The packed coordinates of the points of the stroke
+	 * @param count The number of points
+	 * @return The result with the name and type of the best matching template and the
+	 * similarity as score, or a result of the type <b>NOGESTURE</b>
+	 */
+	public synchronized Result recognize(float[] points, int count)
+	{
+		if (!vectorize(points, count, vector, energies)) return new Result(NONE, 0.0f, 1.0f, GestureTypes.NOGESTURE);
+
+		int best = -1;
+
+		// only templates that can exceed the minimum similarity are of interest
+		float bestSimilarity = MINSIMILARITY;
+
+		for (int t = 0; t < templateCount; t++)
+		{
+			float similarity = similarity(t, bestSimilarity);
+
+			if (similarity > bestSimilarity)
+			{
+				bestSimilarity = similarity;
+				best = t;
+			}
+		}
+
+		if (best == -1) return new Result(NONE, 0.0f, 1.0f, GestureTypes.NOGESTURE);
+
+		return new Result(templateNames[best], bestSimilarity, 1.0f, templateTypes[best]);
+	}
+
+	/**
+	 * Getter for the number of templates
+	 * @return The number of templates
+	 */
+	public synchronized int getTemplateCount()
+	{
+		return templateCount;
+	}
+
+	/**
+	 * Compute the similarity between the current stroke and a template at their optimal rotation.
+	 * With both as complex vectors, it is the magnitude of their inner product.
+	 * @param template The index of the template
+	 * @param threshold The similarity the template has to exceed
+	 * @return The similarity, or 0 if the template cannot exceed the threshold
+	 */
+	private float similarity(int template, float threshold)
+	{
+		int offset = template * VECTORLENGTH;
+		int energyOffset = template * (SAMPLES + 1);
+
+		float a = 0;
+		float b = 0;
+
+		for (int i = 0; i < SAMPLES; i++)
+		{
+			float tx = templateVectors[offset + 2 * i];
+			float ty = templateVectors[offset + 2 * i + 1];
+			float vx = vector[2 * i];
+			float vy = vector[2 * i + 1];
+
+			a += tx * vx + ty * vy;
+			b += tx * vy - ty * vx;
+
+			// the remaining points add at most the product of their norms
+			if ((i + 1) % CHECKINTERVAL == 0 && i + 1 < SAMPLES)
+			{
+				double bound = Math.sqrt(a * a + b * b) + Math.sqrt(templateEnergies[energyOffset + i + 1] * energies[i + 1]);
+
+				if (bound <= threshold) return 0;
+			}
+		}
+
+		return (float) Math.sqrt(a * a + b * b);
+	}
+
+	/**
+	 * Resample points to {@link #SAMPLES} points of equal distance along the stroke, move
+	 * their centroid to the origin and scale them to a unit vector
+	 * @param points The packed coordinates of the points
+	 * @param count The number of points
+	 * @param target The packed coordinates of the resampled points
+	 * @param suffixEnergies Filled with the sum of the squared components from each point to the end
+	 * @return False if the stroke has no length
+	 */
+	private static boolean vectorize(float[] points, int count, float[] target, float[] suffixEnergies)
+	{
+		if (count < 2) return false;
+
+		double length = 0;
+
+		for (int i = 1; i < count; i++)
+		{
+			length += Math.hypot(points[2 * i] - points[2 * i - 2], points[2 * i + 1] - points[2 * i - 1]);
+		}
+
+		if (length == 0) return false;
+
+		double interval = length / (SAMPLES - 1);
+		double distance = 0;
+
+		float px = points[0];
+		float py = points[1];
+
+		target[0] = px;
+		target[1] = py;
+
+		int k = 1;
+
+		for (int i = 1; i < count && k < SAMPLES; i++)
+		{
+			float qx = points[2 * i];
+			float qy = points[2 * i + 1];
+
+			double d = Math.hypot(qx - px, qy - py);
+
+			while (distance + d >= interval && k < SAMPLES)
+			{
+				double t = (interval - distance) / d;
+
+				px += (float) (t * (qx - px));
+				py += (float) (t * (qy - py));
+
+				target[2 * k] = px;
+				target[2 * k + 1] = py;
+				k++;
+
+				d -= interval - distance;
+				distance = 0;
+			}
+
+			distance += d;
+
+			px = qx;
+			py = qy;
+		}
+
+		// rounding errors can leave the last point out
+		for (; k < SAMPLES; k++)
+		{
+			target[2 * k] = points[2 * count - 2];
+			target[2 * k + 1] = points[2 * count - 1];
+		}
+
+		float cx = 0;
+		float cy = 0;
+
+		for (int i = 0; i < SAMPLES; i++)
+		{
+			cx += target[2 * i];
+			cy += target[2 * i + 1];
+		}
+
+		cx /= SAMPLES;
+		cy /= SAMPLES;
+
+		double norm = 0;
+
+		for (int i = 0; i < SAMPLES; i++)
+		{
+			target[2 * i] -= cx;
+			target[2 * i + 1] -= cy;
+
+			norm += target[2 * i] * target[2 * i] + target[2 * i + 1] * target[2 * i + 1];
+		}
+
+		if (norm == 0) return false;
+
+		float scale = (float) (1 / Math.sqrt(norm));
+
+		suffixEnergies[SAMPLES] = 0;
+
+		for (int i = SAMPLES - 1; i >= 0; i--)
+		{
+			target[2 * i] *= scale;
+			target[2 * i + 1] *= scale;
+
+			suffixEnergies[i] = suffixEnergies[i + 1] + target[2 * i] * target[2 * i] + target[2 * i + 1] * target[2 * i + 1];
+		}
+
+		return true;
+	}
+
+	private static float[] grow(float[] data, int length)
+	{
+		float[] grown = new float[length];
+		System.arraycopy(data, 0, grown, 0, data.length);
+
+		return grown;
+	}
+
+	/**
+	 * Add rectangles and ellipses of different aspect ratios in both directions. Rectangles
+	 * are individuals and circles are concepts.
+	 * <p>
+	 * Starting at another corner of a rectangle or another quarter of an ellipse equals a
+	 * rotation by a multiple of 90 degrees of the template with the same or the reciprocal
+	 * aspect ratio, which the similarity measure ignores. Start points in between, at the
+	 * middle of an edge or at a diagonal of an ellipse, are added as templates of their own.
+	 */
+	private void addDefaultTemplates()
+	{
+		float[] aspects = { 1.0f, 1.6f, 1 / 1.6f };
+
+		float[] points = new float[2 * 64];
+
+		for (float aspect : aspects)
+		{
+			for (int direction = -1; direction <= 1; direction += 2)
+			{
+				float w = 100 * aspect;
+				float h = 100;
+
+				// corners of the rectangle, clockwise on the screen for direction 1
+				float[] corners = (direction == 1)
+						? new float[] { 0, 0, w, 0, w, h, 0, h, 0, 0 }
+						: new float[] { 0, 0, 0, h, w, h, w, 0, 0, 0 };
+
+				addTemplate("rectangle", GestureTypes.INDIVIDUAL, corners, 5);
+
+				// the same rectangle started at the middle of its top edge
+				float[] edgeStart = (direction == 1)
+						? new float[] { w / 2, 0, w, 0, w, h, 0, h, 0, 0, w / 2, 0 }
+						: new float[] { w / 2, 0, 0, 0, 0, h, w, h, w, 0, w / 2, 0 };
+
+				addTemplate("rectangle", GestureTypes.INDIVIDUAL, edgeStart, 6);
+
+				for (int start = 0; start < 2; start++)
+				{
+					for (int i = 0; i < 64; i++)
+					{
+						double angle = Math.PI / 4 * start + 2 * Math.PI * i / 63;
+
+						points[2 * i] = (float) (w / 2 * Math.cos(angle));
+						points[2 * i + 1] = (float) (direction * h / 2 * Math.sin(angle));
+					}
+
+					addTemplate("circle", GestureTypes.CONCEPT, points, 64);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,247 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.application;
+
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import android.os.AsyncTask;
+import android.os.Process;
+
+import com.drawing.datastructure.CustomPath;
+
+/**
+ * Runs the <b>AsyncTask</b>s of the recognition and the selection on own threads instead of the
+ * serial executor that all tasks of the application share. Selections are run before gesture
+ * recognitions, background work like the import of ontologies runs on a separate thread with a
+ * low priority, so it never delays the interactive tasks.
+ * <p>
+ * Tasks can be submitted for a group, a new task of the same group supersedes the previous one:
+ * it is dropped if it is still queued and cancelled if it already runs, so it has to check
+ * <b>isCancelled()</b> in its loops.
+ *
+ */
+public class RecognitionScheduler
+{
+	/**
+	 * Priority of the selection of paths
+	 */
+	public static final int SELECTION = 0;
+
+	/**
+	 * Priority of the gesture recognition
+	 */
+	public static final int GESTURE = 1;
+
+	/**
+	 * Priority of long running work that is not waited for
+	 */
+	public static final int BACKGROUND = 2;
+
+	private static final String TAG = "RecognitionScheduler";
+
+	private static RecognitionScheduler instance;
+
+	private final PriorityBlockingQueue<Job> interactiveQueue = new PriorityBlockingQueue<Job>();
+
+	private final PriorityBlockingQueue<Job> backgroundQueue = new PriorityBlockingQueue<Job>();
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final AtomicInteger queueDepth = new AtomicInteger();
+
+	private final Executor[] executors = new Executor[3];
+
+	/**
+	 * Latest task of every group, only accessed by the UI thread
+	 */
+	private final HashMap<Object, AsyncTask<?, ?, ?>> latestTasks = new HashMap<Object, AsyncTask<?, ?, ?>>();
+
+	private RecognitionScheduler()
+	{
+		for (int i = 0; i < executors.length; i++)
+		{
+			final int priority = i;
+
+			executors[i] = new Executor()
+			{
+				public void execute(Runnable command)
+				{
+					enqueue(command, priority);
+				}
+			};
+		}
+
+		new Worker(TAG, interactiveQueue, Process.THREAD_PRIORITY_DEFAULT).start();
+		new Worker(TAG + "-background", backgroundQueue, Process.THREAD_PRIORITY_BACKGROUND).start();
+	}
+
+	public static synchronized RecognitionScheduler getInstance()
+	{
+		if (instance == null) instance = new RecognitionScheduler();
+
+		return instance;
+	}
+
+	/**
+	 * Execute a task without parameters, has to be called on the UI thread
+	 * @param task The task
+	 * @param priority One of {@link #SELECTION}, {@link #GESTURE} or {@link #BACKGROUND}
+	 * @param group The group the task supersedes the previous task of, or null
+	 */
+	public void execute(AsyncTask<Void, ?, ?> task, int priority, Object group)
+	{
+		supersede(task, group);
+
+		task.executeOnExecutor(executors[priority]);
+	}
+
+	/**
+	 * Execute a task on paths, has to be called on the UI thread
+	 * @param task The task
+	 * @param priority One of {@link #SELECTION}, {@link #GESTURE} or {@link #BACKGROUND}
+	 * @param group The group the task supersedes the previous task of, or null
+	 * @param paths The paths the task is executed with
+	 */
+	public void execute(AsyncTask<CustomPath, ?, ?> task, int priority, Object group, CustomPath[] paths)
+	{
+		supersede(task, group);
+
+		task.executeOnExecutor(executors[priority], paths);
+	}
+
+	/**
+	 * Cancel the latest task of a group, has to be called on the UI thread
+	 * @param group The group of the task
+	 */
+	public void cancel(Object group)
+	{
+		AsyncTask<?, ?, ?> previous = latestTasks.remove(group);
+
+		if (previous != null && previous.getStatus() != AsyncTask.Status.FINISHED && previous.cancel(false))
+		{
+			PerformanceMetrics.SUPERSEDEDTASKS.increment();
+		}
+	}
+
+	/**
+	 * Register a task as the latest task of its group and cancel the previous one
+	 */
+	private void supersede(AsyncTask<?, ?, ?> task, Object group)
+	{
+		if (group == null) return;
+
+		cancel(group);
+
+		latestTasks.put(group, task);
+	}
+
+	/**
+	 * Getter for the number of tasks that wait for a thread
+	 * @return The number of queued tasks, including dropped ones that were not taken from the queue yet
+	 */
+	public int getQueueDepth()
+	{
+		return queueDepth.get();
+	}
+
+	private void enqueue(Runnable command, int priority)
+	{
+		Job job = new Job(command, priority, sequence.getAndIncrement());
+
+		PerformanceMetrics.QUEUEDEPTH.set(queueDepth.incrementAndGet());
+
+		if (priority == BACKGROUND) backgroundQueue.put(job);
+		else interactiveQueue.put(job);
+	}
+
+	/**
+	 * A queued task, ordered by priority and then by the order of submission
+	 */
+	private static class Job implements Comparable<Job>
+	{
+		final Runnable command;
+
+		final int priority;
+
+		final long sequence;
+
+		final long enqueued = PerformanceMetrics.start();
+
+		Job(Runnable command, int priority, long sequence)
+		{
+			this.command = command;
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+
+		public int compareTo(Job other)
+		{
+			if (priority != other.priority) return (priority < other.priority) ? -1 : 1;
+
+			return (sequence < other.sequence) ? -1 : ((sequence == other.sequence) ? 0 : 1);
+		}
+	}
+
+	private class Worker extends Thread
+	{
+		private final PriorityBlockingQueue<Job> queue;
+
+		private final int threadPriority;
+
+		Worker(String name, PriorityBlockingQueue<Job> queue, int threadPriority)
+		{
+			super(name);
+
+			this.queue = queue;
+			this.threadPriority = threadPriority;
+
+			setDaemon(true);
+		}
+
+		public void run()
+		{
+			Process.setThreadPriority(threadPriority);
+
+			while (true)
+			{
+				Job job;
+
+				try
+				{
+					job = queue.take();
+				}
+				catch (InterruptedException e)
+				{
+					return;
+				}
+
+				PerformanceMetrics.QUEUEDEPTH.set(queueDepth.decrementAndGet());
+				PerformanceMetrics.QUEUEWAIT.stop(job.enqueued);
+
+				// the future of a cancelled task returns immediately
+				try
+				{
+					job.command.run();
+				}
+				catch (RuntimeException e)
+				{
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,587 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+ 
+package com.drawing.application;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import android.content.Context;
+import android.os.ConditionVariable;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import com.drawing.datastructure.DrawingComponent;
+import com.drawing.datastructure.DrawingComposite;
+import com.drawing.datastructure.SessionReader;
+import com.drawing.datastructure.SessionWriter;
+
+/**
+ * Autosave of the current session. A snapshot in the binary session format is followed by
+ * an append-only journal of records that contain the components changed since then.
+ * Records are collected on the UI thread and written and synced by a background thread.
+ * When the journal grows too large, the background thread compacts it into a new snapshot.
+ * It restores the session from the files for this, so the structure that is drawn is not
+ * touched outside of the UI thread.
+ * <p>
+ * The journal starts with the length and the checksum of the snapshot it belongs to, every
+ * record is prefixed with its length and checksum. A torn record at the end of the journal
+ * is dropped when the session is restored.
+ *
+ */
+public class SessionJournal implements DrawingComposite.ChangeListener
+{
+	/**
+	 * Time in milliseconds changes are collected before they are written as one record
+	 */
+	static final long FLUSHDELAY = 250;
+
+	/**
+	 * Size of the journal in bytes that triggers writing a new snapshot
+	 */
+	static final int COMPACTIONSIZE = 256 * 1024;
+
+	private static final String TAG = "SessionJournal";
+
+	private MainActivity ma;
+
+	private File snapshotFile;
+
+	private File journalFile;
+
+	private Handler handler;
+
+	private HandlerThread writerThread;
+
+	private Handler writerHandler;
+
+	private DrawingComposite root;
+
+	/**
+	 * Writer of the current snapshot, keeps the component indices for the records
+	 */
+	private SessionWriter writer;
+
+	private Set<DrawingComponent> changedComponents;
+
+	private boolean flushScheduled = false;
+
+	/**
+	 * Bytes that were handed to the writer thread since the last snapshot
+	 */
+	private int journalSize = 0;
+
+	/**
+	 * True while the writer thread compacts the journal. Records are not written until the
+	 * writer has been renumbered for the compacted snapshot.
+	 */
+	private boolean compacting = false;
+
+	/**
+	 * Number of compactions that were started, the results of older ones are discarded
+	 */
+	private int compactionCount = 0;
+
+	/**
+	 * Open unless the writer thread is compacting, see {@link #close()}
+	 */
+	private ConditionVariable compactionDone = new ConditionVariable(true);
+
+	// results of the compaction, written by the writer thread before compactionDone is opened
+	private int[] compactedComponentIds;
+	private int[] compactedPathIds;
+
+	// only accessed by the writer thread
+	private FileOutputStream journalStream;
+	private int journalRecords = 0;
+
+	private Runnable flushRunnable = new Runnable()
+	{
+		public void run()
+		{
+			flush();
+		}
+	};
+
+	public SessionJournal(MainActivity ma)
+	{
+		this.ma = ma;
+
+		File dir = ma.getDir("autosave", Context.MODE_PRIVATE);
+
+		snapshotFile = new File(dir, "session");
+		journalFile = new File(dir, "journal");
+
+		changedComponents = Collections.newSetFromMap(new IdentityHashMap<DrawingComponent, Boolean>());
+
+		handler = new Handler();
+
+		writerThread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+		writerThread.start();
+
+		writerHandler = new Handler(writerThread.getLooper());
+	}
+
+	/**
+	 * Check whether a session was autosaved before
+	 * @return True if {@link #restore()} can be used
+	 */
+	public boolean hasAutosave()
+	{
+		return snapshotFile.exists() || new File(snapshotFile.getPath() + ".bak").exists();
+	}
+
+	/**
+	 * Start journaling the passed structure, a new snapshot is written immediately
+	 * @param root The root of the structure that is shown by the <b>DrawView</b>
+	 */
+	public void attach(DrawingComposite root)
+	{
+		if (this.root != null) this.root.setChangeListener(null);
+
+		this.root = root;
+
+		root.setChangeListener(this);
+
+		writeSnapshot();
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComposite.ChangeListener#componentChanged(DrawingComponent)
+	 */
+	public void componentChanged(DrawingComponent component)
+	{
+		changedComponents.add(component);
+
+		if (!flushScheduled)
+		{
+			flushScheduled = true;
+			handler.postDelayed(flushRunnable, FLUSHDELAY);
+		}
+	}
+
+	/**
+	 * Write the collected changes as a record and start a compaction if the journal has grown
+	 * too large. During a compaction the changes are kept until it has finished.
+	 */
+	public void flush()
+	{
+		handler.removeCallbacks(flushRunnable);
+		flushScheduled = false;
+
+		if (root == null || compacting || changedComponents.isEmpty()) return;
+
+		ArrayList<DrawingComponent> changed = new ArrayList<DrawingComponent>(changedComponents.size());
+
+		for (DrawingComponent component : changedComponents)
+		{
+			addSubtree(component, changed);
+		}
+
+		changedComponents.clear();
+
+		final ByteBuffer record = writer.writeRecord(changed, ma.drawView.getMatrices(), ma.getOntoList());
+
+		journalSize += record.remaining() + 8;
+
+		writerHandler.post(new Runnable()
+		{
+			public void run()
+			{
+				appendRecord(record);
+			}
+		});
+
+		if (journalSize > COMPACTIONSIZE) startCompaction();
+	}
+
+	/**
+	 * Write the pending changes and stop the writer thread once they are on disk
+	 */
+	public void close()
+	{
+		// the pending changes can only be written with the indices of the compacted snapshot
+		if (compacting)
+		{
+			compactionDone.block();
+			finishCompaction(compactionCount);
+		}
+
+		flush();
+
+		if (root != null) root.setChangeListener(null);
+
+		root = null;
+
+		writerHandler.post(new Runnable()
+		{
+			public void run()
+			{
+				closeJournal();
+
+				Looper.myLooper().quit();
+			}
+		});
+	}
+
+	/**
+	 * Read the autosaved snapshot and apply all complete records of its journal. The
+	 * transformation matrices and the ontology list are restored as well.
+	 * @return The restored structure, or an empty one if nothing could be restored
+	 */
+	public DrawingComposite restore()
+	{
+		long start = PerformanceMetrics.start();
+
+		SessionReader reader = readAutosave(-1);
+
+		if (reader == null) return createRoot();
+
+		if (reader.getMatrices() != null) ma.drawView.restoreMatrices(reader.getMatrices());
+
+		if (reader.getOntoList() != null) ma.setOntoList(reader.getOntoList());
+
+		PerformanceMetrics.LOADTIME.stop(start);
+
+		return reader.getRoot();
+	}
+
+	/**
+	 * Read the snapshot file and apply the records of the journal file
+	 * @param expectedRecords The number of records the journal has to contain, or -1 to
+	 *            apply all complete records of a matching journal
+	 * @return The reader that holds the session, or null if it could not be read
+	 */
+	private SessionReader readAutosave(int expectedRecords)
+	{
+		ByteBuffer snapshot = DataStorageHelper.readFile(snapshotFile);
+
+		if (snapshot == null || !SessionReader.isSession(snapshot)) return null;
+
+		int snapshotLength = snapshot.remaining();
+		int snapshotChecksum = checksum(snapshot);
+
+		SessionReader reader = new SessionReader(snapshot);
+
+		try
+		{
+			reader.readSession();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			Log.d(TAG, e.toString());
+			return null;
+		}
+
+		ByteBuffer journal = journalFile.exists() ? DataStorageHelper.readFile(journalFile) : null;
+
+		int records = 0;
+
+		// a journal of an older snapshot is left over if the process died during compaction
+		if (journal != null && journal.remaining() >= 8 && journal.getInt() == snapshotLength && journal.getInt() == snapshotChecksum)
+		{
+			while (journal.remaining() >= 8)
+			{
+				int length = journal.getInt();
+				int recordChecksum = journal.getInt();
+
+				if (length < 0 || length > journal.remaining()) break;
+
+				ByteBuffer record = journal.slice();
+				record.limit(length);
+
+				if (checksum(record) != recordChecksum) break;
+
+				journal.position(journal.position() + length);
+
+				try
+				{
+					reader.readRecord(record);
+				}
+				catch (IOException e)
+				{
+					e.printStackTrace();
+					break;
+				}
+
+				records++;
+			}
+
+			Log.d(TAG, "restored " + records + " journal records");
+		}
+
+		if (expectedRecords >= 0 && records != expectedRecords) return null;
+
+		return reader;
+	}
+
+	private DrawingComposite createRoot()
+	{
+		DrawingComposite root = new DrawingComposite(null, null);
+
+		root.setIsRoot(true);
+
+		return root;
+	}
+
+	/**
+	 * Write a snapshot of the structure on the UI thread, used when a structure is attached
+	 * and when the files could not be compacted
+	 */
+	private void writeSnapshot()
+	{
+		changedComponents.clear();
+
+		// a running compaction belongs to the previous snapshot
+		compacting = false;
+
+		writer = new SessionWriter();
+
+		final ByteBuffer snapshot = writer.writeSession(root, ma.drawView.getMatrices(), ma.getOntoList());
+
+		journalSize = 0;
+
+		writerHandler.post(new Runnable()
+		{
+			public void run()
+			{
+				replaceSnapshot(snapshot);
+			}
+		});
+	}
+
+	/**
+	 * Let the writer thread compact the snapshot and the journal into a new snapshot
+	 */
+	private void startCompaction()
+	{
+		compacting = true;
+		compactionDone.close();
+
+		final int compaction = ++compactionCount;
+
+		writerHandler.post(new Runnable()
+		{
+			public void run()
+			{
+				compact();
+
+				compactionDone.open();
+
+				handler.post(new Runnable()
+				{
+					public void run()
+					{
+						finishCompaction(compaction);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Continue the records with the indices of the compacted snapshot and write the changes
+	 * that were collected in the meantime, runs on the UI thread
+	 * @param compaction The number of the compaction that has finished
+	 */
+	private void finishCompaction(int compaction)
+	{
+		// a new snapshot was written, or close() has finished the compaction already
+		if (!compacting || compaction != compactionCount) return;
+
+		compacting = false;
+
+		if (compactedComponentIds == null)
+		{
+			writeSnapshot();
+			return;
+		}
+
+		writer.renumber(compactedComponentIds, compactedPathIds);
+
+		compactedComponentIds = null;
+		compactedPathIds = null;
+
+		journalSize = 0;
+
+		flush();
+	}
+
+	/**
+	 * Write the session of the snapshot and journal files as a new snapshot, runs on the writer
+	 * thread. The new snapshot drops the removed components and numbers the others anew, the
+	 * new indices are left in compactedComponentIds and compactedPathIds. They stay null if
+	 * the files are incomplete, then the snapshot has to be written from the structure.
+	 */
+	private void compact()
+	{
+		compactedComponentIds = null;
+		compactedPathIds = null;
+
+		// the snapshot or a record could not be written
+		if (journalStream == null) return;
+
+		long start = PerformanceMetrics.start();
+
+		SessionReader reader = readAutosave(journalRecords);
+
+		if (reader == null) return;
+
+		SessionWriter compacted = new SessionWriter();
+
+		ByteBuffer snapshot = compacted.writeSession(reader.getRoot(), reader.getMatrices(), reader.getOntoList());
+
+		int[] componentIds = reader.mapComponentIds(compacted);
+		int[] pathIds = reader.mapPathIds(compacted);
+
+		replaceSnapshot(snapshot);
+
+		if (journalStream == null) return;
+
+		compactedComponentIds = componentIds;
+		compactedPathIds = pathIds;
+
+		PerformanceMetrics.SAVETIME.stop(start);
+	}
+
+	/**
+	 * Collect a component and, unless it is the root, all its children
+	 */
+	private void addSubtree(DrawingComponent component, List<DrawingComponent> target)
+	{
+		target.add(component);
+
+		if (component.isComposite && component != root)
+		{
+			for (DrawingComponent child : ((DrawingComposite) component).children)
+			{
+				if (!changedComponents.contains(child)) addSubtree(child, target);
+			}
+		}
+	}
+
+	private static int checksum(ByteBuffer buffer)
+	{
+		CRC32 checksum = new CRC32();
+
+		checksum.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+
+		return (int) checksum.getValue();
+	}
+
+	/**
+	 * Write a new snapshot and start a new journal for it, runs on the writer thread
+	 */
+	private void replaceSnapshot(ByteBuffer snapshot)
+	{
+		int snapshotLength = snapshot.remaining();
+		int snapshotChecksum = checksum(snapshot);
+
+		// records of the previous snapshot must not be appended any more
+		closeJournal();
+
+		if (!DataStorageHelper.writeFile(snapshotFile, snapshot)) return;
+
+		try
+		{
+			journalStream = new FileOutputStream(journalFile, false);
+
+			ByteBuffer header = ByteBuffer.allocate(8);
+			header.putInt(snapshotLength);
+			header.putInt(snapshotChecksum);
+			header.flip();
+
+			write(header);
+
+			journalStream.getFD().sync();
+
+			journalRecords = 0;
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			Log.d(TAG, e.toString());
+			closeJournal();
+		}
+	}
+
+	/**
+	 * Append a record to the journal and sync it to the storage, runs on the writer thread
+	 */
+	private void appendRecord(ByteBuffer record)
+	{
+		// the snapshot this record belongs to could not be written
+		if (journalStream == null) return;
+
+		try
+		{
+			ByteBuffer header = ByteBuffer.allocate(8);
+			header.putInt(record.remaining());
+			header.putInt(checksum(record));
+			header.flip();
+
+			write(header);
+			write(record);
+
+			journalStream.getFD().sync();
+
+			journalRecords++;
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			Log.d(TAG, e.toString());
+
+			// the following records would depend on this one, the next compaction writes a new snapshot
+			closeJournal();
+		}
+	}
+
+	private void write(ByteBuffer buffer) throws IOException
+	{
+		FileChannel channel = journalStream.getChannel();
+
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+
+	private void closeJournal()
+	{
+		if (journalStream == null) return;
+
+		try
+		{
+			journalStream.close();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+
+		journalStream = null;
+	}
+}
@@ -22,6 +22,7 @@ import android.view.View.OnDragListener;
 import com.drawing.datastructure.CustomPath;
 import com.drawing.datastructure.FormalizedConcept;
 import com.drawing.datastructure.FormalizedIndividual;
+import com.drawing.datastructure.FormalizedObject;
 import com.drawing.datastructure.GestureTypes;
 import com.drawing.ontosketch.ui.ClassListItem;
 import com.drawing.ontosketch.ui.IndividualClassListItem;
@@ -70,6 +71,8 @@ public class SketchBoardDragListener implements OnDragListener
 			        
 			        OntResource ontresource = MainActivity.getOntologyResource(uri);
 			        
+			        FormalizedObject dropped = null;
+			        
 			        if (view.getClass().equals(ClassListItem.class))
 			        {
 			        	CustomPath cp = new CustomPath();
@@ -84,6 +87,8 @@ public class SketchBoardDragListener implements OnDragListener
 			        	FormalizedConcept fc = new FormalizedConcept(cp, sketchBoard.matrix, ontresource.getLocalName(), "");
 	
 			        	sketchBoard.addFormalizedObject(fc, new Point((int)event.getX(), (int)event.getY()), ontresource);
+			        	
+			        	dropped = fc;
 	
 			        }
 			        else if(view.getClass().equals(IndividualListItem.class) || view.getClass().equals(IndividualClassListItem.class))
@@ -100,10 +105,14 @@ public class SketchBoardDragListener implements OnDragListener
 			        	FormalizedIndividual fi = new FormalizedIndividual(cp, sketchBoard.matrix, ontresource.getLocalName(),"");
 	
 		        		sketchBoard.addFormalizedObject(fi, new Point((int)event.getX(), (int)event.getY()), ontresource);
+		        		
+		        		dropped = fi;
 			        }
 	
 			        
-			        sketchBoard.invalidate();
+			        // the new object and the relations it was connected with
+			        sketchBoard.invalidateComponent(dropped);
+			        sketchBoard.invalidateDirtyRegion();
 
 	        break;
 	      case DragEvent.ACTION_DRAG_ENDED:
@@ -0,0 +1,227 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.application;
+
+import android.view.MotionEvent;
+
+import com.drawing.datastructure.CustomPath;
+
+/**
+ * Captures the samples of a stroke in screen coordinates. The samples of a <b>MotionEvent</b>,
+ * including the historical ones that were batched since the previous event, are copied into
+ * a preallocated ring buffer and then reduced to the vertices of the stroke: a sample is only
+ * kept if it is at least {@link #MINDISTANCE} away from the previous vertex, so the number of
+ * vertices depends on the length of the stroke and not on the input rate.
+ * <p>
+ * The vertices are kept packed in a float array that is reused for all strokes.
+ *
+ */
+final class StrokeBuffer
+{
+	/**
+	 * Number of samples the ring buffer can hold, has to be a power of two
+	 */
+	static final int RINGCAPACITY = 64;
+
+	/**
+	 * Minimum distance in pixels between two vertices of a stroke
+	 */
+	static final float MINDISTANCE = 3;
+
+	private static final int RINGMASK = RINGCAPACITY - 1;
+
+	private static final int INITIALCAPACITY = 256;
+
+	private final float[] ring = new float[RINGCAPACITY * 2];
+
+	// samples are read at the head and written at the tail, both only grow
+	private int head = 0;
+
+	private int tail = 0;
+
+	private float[] vertices = new float[INITIALCAPACITY * 2];
+
+	private int vertexCount = 0;
+
+	/**
+	 * Number of vertices that were already passed to {@link #appendTo(CustomPath)}
+	 */
+	private int appendedCount = 0;
+
+	private float lastX, lastY;
+
+	/**
+	 * Add the position of the first pointer of an event and all its historical positions
+	 * @param event A touch event of the stroke
+	 */
+	void addSamples(MotionEvent event)
+	{
+		int historySize = event.getHistorySize();
+
+		for (int i = 0; i < historySize; i++)
+		{
+			addSample(event.getHistoricalX(0, i), event.getHistoricalY(0, i));
+		}
+
+		addSample(event.getX(0), event.getY(0));
+	}
+
+	/**
+	 * Add a single sample, the samples are processed once the ring buffer is full or the
+	 * vertices are requested
+	 */
+	void addSample(float x, float y)
+	{
+		if (tail - head == RINGCAPACITY) drain();
+
+		int index = (tail & RINGMASK) * 2;
+
+		ring[index] = x;
+		ring[index + 1] = y;
+
+		tail++;
+
+		lastX = x;
+		lastY = y;
+	}
+
+	/**
+	 * Keep the last sample as the end of the stroke, even if it is closer than the
+	 * minimum distance to the previous vertex
+	 */
+	void finish()
+	{
+		drain();
+
+		if (vertexCount > 0 && (vertices[2 * vertexCount - 2] != lastX || vertices[2 * vertexCount - 1] != lastY))
+		{
+			addVertex(lastX, lastY);
+		}
+	}
+
+	/**
+	 * Getter for the number of vertices, pending samples are processed first
+	 * @return The number of vertices of the stroke
+	 */
+	int getVertexCount()
+	{
+		drain();
+
+		return vertexCount;
+	}
+
+	float getX(int index)
+	{
+		return vertices[2 * index];
+	}
+
+	float getY(int index)
+	{
+		return vertices[2 * index + 1];
+	}
+
+	/**
+	 * Append the vertices that were added since the last call to a path, the first vertex
+	 * of the stroke starts a new contour
+	 * @param path The path that shows the stroke while it is drawn
+	 */
+	void appendTo(CustomPath path)
+	{
+		drain();
+
+		for (int i = appendedCount; i < vertexCount; i++)
+		{
+			if (i == 0) path.moveTo(vertices[0], vertices[1]);
+			else path.lineTo(vertices[2 * i], vertices[2 * i + 1]);
+		}
+
+		appendedCount = vertexCount;
+	}
+
+	/**
+	 * Create a path of all vertices of the stroke
+	 * @return A new path that starts with a move to the first vertex
+	 */
+	CustomPath toPath()
+	{
+		drain();
+
+		CustomPath path = new CustomPath();
+
+		if (vertexCount == 0) return path;
+
+		path.moveTo(vertices[0], vertices[1]);
+
+		for (int i = 0; i < vertexCount; i++)
+		{
+			path.lineTo(vertices[2 * i], vertices[2 * i + 1]);
+		}
+
+		return path;
+	}
+
+	/**
+	 * Discard the stroke, the buffers are kept for the next one
+	 */
+	void reset()
+	{
+		head = 0;
+		tail = 0;
+		vertexCount = 0;
+		appendedCount = 0;
+	}
+
+	/**
+	 * Move the pending samples from the ring buffer to the vertices
+	 */
+	private void drain()
+	{
+		float minDistanceSquared = MINDISTANCE * MINDISTANCE;
+
+		while (head != tail)
+		{
+			int index = (head & RINGMASK) * 2;
+
+			float x = ring[index];
+			float y = ring[index + 1];
+
+			head++;
+
+			if (vertexCount > 0)
+			{
+				float dx = x - vertices[2 * vertexCount - 2];
+				float dy = y - vertices[2 * vertexCount - 1];
+
+				if (dx * dx + dy * dy < minDistanceSquared) continue;
+			}
+
+			addVertex(x, y);
+		}
+	}
+
+	private void addVertex(float x, float y)
+	{
+		if (vertices.length < 2 * vertexCount + 2)
+		{
+			float[] grown = new float[vertices.length * 2];
+			System.arraycopy(vertices, 0, grown, 0, vertices.length);
+
+			vertices = grown;
+		}
+
+		vertices[2 * vertexCount] = x;
+		vertices[2 * vertexCount + 1] = y;
+
+		vertexCount++;
+	}
+}
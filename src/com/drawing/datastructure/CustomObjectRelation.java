@@ -12,6 +12,8 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
+
 import com.drawing.gestures.Point;
 
 import android.graphics.Matrix;
@@ -39,6 +41,11 @@ public abstract class CustomObjectRelation extends DrawingLeaf
 	protected Point startPoint;
 	protected Point endPoint;
 
+	/**
+	 * Cached bounds of this relation and its elements, see {@link #getGeometry()}
+	 */
+	transient private RelationGeometry geometry;
+
 	protected double angle;
 	
 	public CustomObjectRelation(CustomPath path, Matrix pathMatrix, DrawingComponent startElement, DrawingComponent endElement) 
@@ -57,6 +64,42 @@ public abstract class CustomObjectRelation extends DrawingLeaf
 		endElement.addRelation(this);
 		
 	}
+
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	CustomObjectRelation()
+	{
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#writeFields(SessionWriter)
+	 */
+	protected void writeFields(SessionWriter out)
+	{
+		super.writeFields(out);
+
+		out.writeComponent(startElement);
+		out.writeComponent(endElement);
+		out.writePoint(startPoint);
+		out.writePoint(endPoint);
+		out.writeDouble(angle);
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#readFields(SessionReader)
+	 */
+	protected void readFields(SessionReader in) throws IOException
+	{
+		super.readFields(in);
+
+		startElement = in.readComponent();
+		endElement = in.readComponent();
+		startPoint = in.readPoint();
+		endPoint = in.readPoint();
+		angle = in.readDouble();
+	}
 	
 	private void calculateRelationAngle()
 	{
@@ -191,6 +234,38 @@ public abstract class CustomObjectRelation extends DrawingLeaf
 	{
 		return angle;
 	}
+
+	/**
+	 * Getter for the cached world space geometry of this relation
+	 * @return The geometry, created on first access
+	 */
+	public RelationGeometry getGeometry()
+	{
+		if (geometry == null) geometry = new RelationGeometry();
+
+		return geometry;
+	}
+
+	/**
+	 * Update the screen positions of the start and the end element without allocating new points
+	 */
+	public void setAnchors(float startX, float startY, float endX, float endY)
+	{
+		if (startPoint == null || endPoint == null)
+		{
+			startPoint = new Point(startX, startY);
+			endPoint = new Point(endX, endY);
+		}
+		else
+		{
+			startPoint.x = startX;
+			startPoint.y = startY;
+			endPoint.x = endX;
+			endPoint.y = endY;
+		}
+
+		calculateRelationAngle();
+	}
 	
 
 }
@@ -12,8 +12,13 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
 
@@ -69,14 +74,90 @@ public class CustomPath extends Path implements Serializable
 	private GestureTypes gestureType;
 	
 	/**
-	 * Transformed vertex array 
+	 * Initial number of vertices the vertex arrays can hold
 	 */
-	private List<Point> vertices = new ArrayList<Point>();
+	private static final int INITIALCAPACITY = 16;
 	
 	/**
-	 * original vertex array
+	 * Transformed vertex array, x and y coordinates are stored interleaved
 	 */
-	private List<Point> originalVertices = new ArrayList<Point>();
+	private float[] vertexData = new float[INITIALCAPACITY * 2];
+	
+	/**
+	 * Number of vertices stored in the transformed vertex array
+	 */
+	private int vertexCount = 0;
+	
+	/**
+	 * original vertex array, x and y coordinates are stored interleaved
+	 */
+	private float[] originalVertexData = new float[INITIALCAPACITY * 2];
+	
+	/**
+	 * Number of vertices stored in the original vertex array
+	 */
+	private int originalVertexCount = 0;
+	
+	/**
+	 * k-d tree over the vertex array, built on demand for the selection of paths
+	 */
+	transient private volatile VertexIndex vertexIndex;
+	
+	/**
+	 * Mark of the last <b>ScaledPathArray</b> rebuild that attached this path
+	 */
+	transient int listStamp;
+	
+	/**
+	 * Tolerances in world units of the simplified versions of this path, from fine to coarse
+	 */
+	static final float[] DETAILTOLERANCES = { 0.5f, 1f, 2f, 4f, 8f, 16f };
+	
+	/**
+	 * Paths with less vertices are always drawn completely
+	 */
+	static final int MINDETAILVERTICES = 8;
+	
+	/**
+	 * Number of subpaths and whether the path contains other elements than lines, only a
+	 * single polyline through the vertices can be simplified
+	 */
+	transient private int moveCount = 0;
+	transient private boolean curved = false;
+	transient private boolean closed = false;
+	
+	/**
+	 * Simplified versions of this path per tolerance, built on demand
+	 */
+	transient private Path[] detailPaths;
+	
+	/**
+	 * Incremented whenever the geometry of this path changes, read by the selection task
+	 */
+	transient private volatile int geometryStamp = 0;
+	
+	/**
+	 * Serialized fields of this class. Sessions stored by older versions contain the
+	 * vertices as lists of <b>Point</b> objects, which are still accepted on loading.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = 
+	{
+		new ObjectStreamField("color", int.class),
+		new ObjectStreamField("isVisible", boolean.class),
+		new ObjectStreamField("maxX", float.class),
+		new ObjectStreamField("maxY", float.class),
+		new ObjectStreamField("minX", float.class),
+		new ObjectStreamField("minY", float.class),
+		new ObjectStreamField("gestureType", GestureTypes.class),
+		new ObjectStreamField("highlighted", boolean.class),
+		new ObjectStreamField("uid", UUID.class),
+		new ObjectStreamField("ontoType", OntologyObjectTypes.class),
+		new ObjectStreamField("vertexData", float[].class),
+		new ObjectStreamField("originalVertexData", float[].class),
+		// legacy vertex lists
+		new ObjectStreamField("vertices", List.class),
+		new ObjectStreamField("originalVertices", List.class)
+	};
 	
 	/**
 	 * get the unmodified vertex array that is the foundation of the respective path object
@@ -84,8 +165,14 @@ public class CustomPath extends Path implements Serializable
 	 */
 	public Point[] getOriginalVertices() 
 	{
-		Point[] array = new Point[originalVertices.size()];
-		return originalVertices.toArray(array);
+		Point[] array = new Point[originalVertexCount];
+		
+		for (int i = 0; i < originalVertexCount; i++)
+		{
+			array[i] = new Point(originalVertexData[2 * i], originalVertexData[2 * i + 1]);
+		}
+		
+		return array;
 	}
 
 	/**
@@ -186,8 +273,9 @@ public class CustomPath extends Path implements Serializable
 	 */
 	public void moveTo(float x, float y)
 	{
-		vertices.add(new Point(x,y));
-		originalVertices.add( new Point(x,y));
+		moveCount++;
+		
+		addVertex(x, y);
 		
 		updateExtrema(x, y);
 		
@@ -200,8 +288,7 @@ public class CustomPath extends Path implements Serializable
 	 */
 	public void lineTo(float x, float y)
 	{
-		vertices.add(new Point(x,y));
-		originalVertices.add( new Point(x,y));
+		addVertex(x, y);
 		
 		updateExtrema(x, y);
 		
@@ -210,20 +297,13 @@ public class CustomPath extends Path implements Serializable
 	
 	public void addCircle(float x, float y, float radius, Path.Direction dir)
 	{
-		vertices.add(new Point(x,y));
-		originalVertices.add( new Point(x,y));
-		
-		vertices.add(new Point(x-radius, y));
-		originalVertices.add( new Point(x-radius, y));
-		
-		vertices.add(new Point(x, y+radius));
-		originalVertices.add( new Point(x, y+radius));
+		curved = true;
 		
-		vertices.add(new Point(x, y+radius));
-		originalVertices.add( new Point(x, y+radius));
-		
-		vertices.add(new Point(x+radius, y));
-		originalVertices.add( new Point(x+radius, y));
+		addVertex(x, y);
+		addVertex(x-radius, y);
+		addVertex(x, y+radius);
+		addVertex(x, y+radius);
+		addVertex(x+radius, y);
 		
 		updateExtrema(x, y);
 		
@@ -237,13 +317,54 @@ public class CustomPath extends Path implements Serializable
 	
 	public void reset()
 	{
-		vertices.clear();
-		originalVertices.clear();
+		vertexIndex = null;
+		detailPaths = null;
+		geometryStamp++;
+		
+		moveCount = 0;
+		curved = false;
+		closed = false;
+		
+		vertexCount = 0;
+		originalVertexCount = 0;
 		
 		resetExtrema();
 		
 		super.reset();
 	}
+	
+	public void close()
+	{
+		closed = true;
+		detailPaths = null;
+		geometryStamp++;
+		
+		super.close();
+	}
+	
+	/**
+	 * Copies the structure of the source path as well, so that a <b>CustomPath</b> that was
+	 * rebuilt from its vertices can still be simplified
+	 * @see android.graphics.Path#set(Path)
+	 */
+	public void set(Path src)
+	{
+		detailPaths = null;
+		geometryStamp++;
+		
+		if (src instanceof CustomPath)
+		{
+			moveCount = ((CustomPath) src).moveCount;
+			curved = ((CustomPath) src).curved;
+			closed = ((CustomPath) src).closed;
+		}
+		else
+		{
+			curved = true;
+		}
+		
+		super.set(src);
+	}
 
 	
 	private void updateExtrema(float x, float y)
@@ -270,70 +391,119 @@ public class CustomPath extends Path implements Serializable
 	}
 
 	/**
-	 * get the underlying vertex array of the <b>CustomPath</b> object 
+	 * Attach a vertex to the transformed and the original vertex array
+	 */
+	private void addVertex(float x, float y)
+	{
+		vertexIndex = null;
+		detailPaths = null;
+		geometryStamp++;
+		
+		vertexData = ensureCapacity(vertexData, vertexCount + 1);
+		vertexData[2 * vertexCount] = x;
+		vertexData[2 * vertexCount + 1] = y;
+		vertexCount++;
+		
+		originalVertexData = ensureCapacity(originalVertexData, originalVertexCount + 1);
+		originalVertexData[2 * originalVertexCount] = x;
+		originalVertexData[2 * originalVertexCount + 1] = y;
+		originalVertexCount++;
+	}
+	
+	private static float[] ensureCapacity(float[] data, int vertices)
+	{
+		if (data.length >= vertices * 2) return data;
+		
+		float[] grown = new float[Math.max(vertices * 2, data.length * 2)];
+		System.arraycopy(data, 0, grown, 0, data.length);
+		
+		return grown;
+	}
+
+	/**
+	 * get a copy of the underlying vertex array of the <b>CustomPath</b> object,
+	 * use {@link #getVertexX(int)} and {@link #getVertexY(int)} to avoid the allocation
 	 * @return array of all vertex points that represent the path
 	 */
 	public List<Point> getVertices()
 	{
-		return vertices;		
+		List<Point> list = new ArrayList<Point>(vertexCount);
+		
+		for (int i = 0; i < vertexCount; i++)
+		{
+			list.add(new Point(vertexData[2 * i], vertexData[2 * i + 1]));
+		}
+		
+		return list;
 	}
-
 	
 	/**
-	 * set the underlying vertex array of the <b>CustomPath</b> object
-	 * @param vertices array of all vertex points that represent the path
+	 * Getter for the number of vertices of this path
+	 * @return The number of vertices
 	 */
-	public void setVertices(List<Point> vertices)
-	{			
-		this.vertices = vertices;
+	public int getVertexCount()
+	{
+		return vertexCount;
+	}
+	
+	/**
+	 * Getter for the x coordinate of a vertex
+	 * @param index The index of the vertex
+	 * @return The x coordinate of the vertex
+	 */
+	public float getVertexX(int index)
+	{
+		return vertexData[2 * index];
 	}
 	
 	/**
-	 * transform an array of <b>Point</b> objects with an arbitrary transformation matrix
-	 * @param inputVertices array of <b>Point</b> that should be transformed
+	 * Getter for the y coordinate of a vertex
+	 * @param index The index of the vertex
+	 * @return The y coordinate of the vertex
+	 */
+	public float getVertexY(int index)
+	{
+		return vertexData[2 * index + 1];
+	}
+	
+	/**
+	 * Apply a transformation matrix in place upon the vertex array of this path,
+	 * the path geometry itself stays untouched
 	 * @param matrix <b>Matrix</b> object that includes the transformation information
-	 * @return the transformed array of <b>Point</b> objects
-	 * @see com.drawing.gesture.Point
 	 */
-	public static List<Point> transformVertices(List<Point> inputVertices, Matrix matrix)
+	public void transformVertices(Matrix matrix)
 	{
-		int size = inputVertices.size();
-		Point[] transformedPoints = new Point[size];
-		float [] pointsToTransform = new float[size*2];
-		int counter = 0;
+		if (vertexCount > 0) matrix.mapPoints(vertexData, 0, vertexData, 0, vertexCount);
 		
-		for(int i = 0; i < size; i++)
-		{
-			pointsToTransform[counter]=inputVertices.get(i).x;
-			counter ++;
-			pointsToTransform[counter]=inputVertices.get(i).y;
-			counter ++;
-			
-		}
+		vertexIndex = null;
+		detailPaths = null;
+		geometryStamp++;
+	}
+	
+	/**
+	 * Getter for the k-d tree over the vertex array of this path. The tree is built
+	 * on first access after the vertices have changed. It is usually built by the
+	 * selection task while the UI thread may move the path, so the tree is tagged with
+	 * the geometry stamp that was read before its vertices and rebuilt once it differs.
+	 * @return k-d tree over the current vertices
+	 */
+	public VertexIndex getVertexIndex()
+	{
+		int stamp = geometryStamp;
 		
-		matrix.mapPoints(pointsToTransform);
-				
-		counter = 0;
+		VertexIndex index = vertexIndex;
 		
-		for(int j = 0; j < inputVertices.size(); j++)
+		if (index == null || index.getStamp() != stamp)
 		{
+			float[] data = vertexData;
 			
-			transformedPoints[j] = new Point(pointsToTransform[counter],pointsToTransform[counter+1]);
-			counter+=2;
-			
+			index = new VertexIndex(data, Math.min(vertexCount, data.length / 2), stamp);
+			vertexIndex = index;
 		}
 		
-		List<Point> transformedPointsList = new ArrayList<Point>();
-		
-		for(Point point : transformedPoints)
-		{
-			transformedPointsList.add(point);
-		}
-		
-		
-		return transformedPointsList;
+		return index;
 	}
-
+	
 	/**
 	 * Apply the geometric transformation upon the highlighted <b>CustomPath</b> object
 	 * @param matrix The current Transformation matrix that should be applied upon the highlighted path
@@ -343,21 +513,12 @@ public class CustomPath extends Path implements Serializable
 	{			
 		Log.d("CustomPath", "applyTransformation");
 		
-		List<Point> tempVertices = new ArrayList<Point>();		
-		//apply matrices upon vertices
-		tempVertices = CustomPath.transformVertices(vertices, matrix);
-		
 		Matrix backupTransformationInverse = new Matrix();
 		backupTransformationMatrix.invert(backupTransformationInverse);
 		
-		tempVertices = CustomPath.transformVertices(tempVertices, backupTransformationInverse);
-				
-		vertices = new ArrayList<Point>();
-		
-		for(Point point : tempVertices)
-		{
-			vertices.add(point);
-		}
+		//apply matrices upon vertices
+		transformVertices(matrix);
+		transformVertices(backupTransformationInverse);
 		
 		//apply matrices upon the path itself
 		this.transform(matrix);
@@ -382,9 +543,150 @@ public class CustomPath extends Path implements Serializable
 		minY = extrema[5];
 		maxY = extrema[7];
 		
+		detailPaths = null;
+		geometryStamp++;
+		
 		super.transform(matrix);
 	}
 	
+	/**
+	 * Getter for the modification stamp of the geometry, allows to cache values that are
+	 * derived from this path
+	 * @return A value that changes whenever the path is modified or transformed
+	 */
+	public int getGeometryStamp()
+	{
+		return geometryStamp;
+	}
+	
+	/**
+	 * Getter for a simplified version of this path for drawing at a small scale. Only paths
+	 * that consist of a single polyline are simplified, with the Douglas-Peucker algorithm.
+	 * @param tolerance The deviation in world units that is not visible at the current scale
+	 * @return The simplified path with the largest tolerance up to the passed one, or this path
+	 */
+	public Path getDetailPath(float tolerance)
+	{
+		if (moveCount != 1 || curved || vertexCount < MINDETAILVERTICES) return this;
+		
+		int level = -1;
+		
+		while (level + 1 < DETAILTOLERANCES.length && DETAILTOLERANCES[level + 1] <= tolerance)
+		{
+			level++;
+		}
+		
+		if (level < 0) return this;
+		
+		if (detailPaths == null) detailPaths = new Path[DETAILTOLERANCES.length];
+		
+		if (detailPaths[level] == null) detailPaths[level] = simplify(DETAILTOLERANCES[level]);
+		
+		return detailPaths[level];
+	}
+	
+	/**
+	 * Douglas-Peucker simplification of the vertex array
+	 * @param tolerance The maximal distance of a removed vertex to the simplified polyline
+	 */
+	private Path simplify(float tolerance)
+	{
+		boolean[] keep = new boolean[vertexCount];
+		
+		keep[0] = true;
+		keep[vertexCount - 1] = true;
+		
+		// ranges of vertex indices that still have to be examined
+		int[] stack = new int[2 * vertexCount];
+		int top = 0;
+		
+		stack[top++] = 0;
+		stack[top++] = vertexCount - 1;
+		
+		float squaredTolerance = tolerance * tolerance;
+		
+		while (top > 0)
+		{
+			int last = stack[--top];
+			int first = stack[--top];
+			
+			float maxDistance = 0;
+			int index = -1;
+			
+			for (int i = first + 1; i < last; i++)
+			{
+				float distance = squaredSegmentDistance(i, first, last);
+				
+				if (distance > maxDistance)
+				{
+					maxDistance = distance;
+					index = i;
+				}
+			}
+			
+			if (index >= 0 && maxDistance > squaredTolerance)
+			{
+				keep[index] = true;
+				
+				stack[top++] = first;
+				stack[top++] = index;
+				stack[top++] = index;
+				stack[top++] = last;
+			}
+		}
+		
+		Path simplified = new Path();
+		
+		simplified.moveTo(vertexData[0], vertexData[1]);
+		
+		for (int i = 1; i < vertexCount; i++)
+		{
+			if (keep[i]) simplified.lineTo(vertexData[2 * i], vertexData[2 * i + 1]);
+		}
+		
+		if (closed) simplified.close();
+		
+		return simplified;
+	}
+	
+	/**
+	 * Squared distance of a vertex to the segment between two other vertices
+	 */
+	private float squaredSegmentDistance(int index, int start, int end)
+	{
+		float x = vertexData[2 * start];
+		float y = vertexData[2 * start + 1];
+		
+		float dx = vertexData[2 * end] - x;
+		float dy = vertexData[2 * end + 1] - y;
+		
+		float px = vertexData[2 * index];
+		float py = vertexData[2 * index + 1];
+		
+		float length = dx * dx + dy * dy;
+		
+		if (length > 0)
+		{
+			float t = ((px - x) * dx + (py - y) * dy) / length;
+			
+			if (t > 1)
+			{
+				x += dx;
+				y += dy;
+			}
+			else if (t > 0)
+			{
+				x += t * dx;
+				y += t * dy;
+			}
+		}
+		
+		dx = px - x;
+		dy = py - y;
+		
+		return dx * dx + dy * dy;
+	}
+	
 	public void updateExtrema(Matrix matrix)
 	{
 		//update the extrema of this path during every transformation
@@ -399,6 +701,128 @@ public class CustomPath extends Path implements Serializable
 		maxY = extrema[7];
 	}
 
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		ObjectOutputStream.PutField fields = out.putFields();
+		
+		fields.put("color", color);
+		fields.put("isVisible", isVisible);
+		fields.put("maxX", maxX);
+		fields.put("maxY", maxY);
+		fields.put("minX", minX);
+		fields.put("minY", minY);
+		fields.put("gestureType", gestureType);
+		fields.put("highlighted", highlighted);
+		fields.put("uid", uid);
+		fields.put("ontoType", ontoType);
+		fields.put("vertexData", Arrays.copyOf(vertexData, vertexCount * 2));
+		fields.put("originalVertexData", Arrays.copyOf(originalVertexData, originalVertexCount * 2));
+		
+		out.writeFields();
+	}
+	
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream.GetField fields = in.readFields();
+		
+		color = fields.get("color", Color.RED);
+		isVisible = fields.get("isVisible", true);
+		maxX = fields.get("maxX", -1f);
+		maxY = fields.get("maxY", -1f);
+		minX = fields.get("minX", Float.POSITIVE_INFINITY);
+		minY = fields.get("minY", Float.POSITIVE_INFINITY);
+		gestureType = (GestureTypes) fields.get("gestureType", GestureTypes.NOGESTURE);
+		highlighted = fields.get("highlighted", false);
+		uid = (UUID) fields.get("uid", null);
+		ontoType = (OntologyObjectTypes) fields.get("ontoType", OntologyObjectTypes.NONE);
+		
+		float[] data = (float[]) fields.get("vertexData", null);
+		float[] originalData = (float[]) fields.get("originalVertexData", null);
+		
+		if (data == null)
+		{
+			data = pack((List<Point>) fields.get("vertices", null));
+			originalData = pack((List<Point>) fields.get("originalVertices", null));
+		}
+		
+		vertexData = (data.length > 0) ? data : new float[INITIALCAPACITY * 2];
+		vertexCount = data.length / 2;
+		
+		originalVertexData = (originalData.length > 0) ? originalData : new float[INITIALCAPACITY * 2];
+		originalVertexCount = originalData.length / 2;
+	}
+	
+	/**
+	 * Write the path to a binary session, the vertex arrays are stored as packed blocks
+	 * @param out The writer of the session
+	 */
+	void writeFields(SessionWriter out)
+	{
+		out.writeInt(color);
+		out.writeBoolean(isVisible);
+		out.writeFloat(maxX);
+		out.writeFloat(maxY);
+		out.writeFloat(minX);
+		out.writeFloat(minY);
+		out.writeEnum(gestureType);
+		out.writeBoolean(highlighted);
+		out.writeUUID(uid);
+		out.writeEnum(ontoType);
+		out.writeFloats(vertexData, vertexCount * 2);
+		out.writeFloats(originalVertexData, originalVertexCount * 2);
+	}
+	
+	/**
+	 * Read the fields that were written by {@link #writeFields(SessionWriter)}
+	 * @param in The reader of the session
+	 * @throws IOException If the session is corrupt
+	 */
+	void readFields(SessionReader in) throws IOException
+	{
+		color = in.readInt();
+		isVisible = in.readBoolean();
+		maxX = in.readFloat();
+		maxY = in.readFloat();
+		minX = in.readFloat();
+		minY = in.readFloat();
+		gestureType = in.readEnum(GestureTypes.class);
+		highlighted = in.readBoolean();
+		uid = in.readUUID();
+		ontoType = in.readEnum(OntologyObjectTypes.class);
+		
+		float[] data = in.readFloats();
+		float[] originalData = in.readFloats();
+		
+		vertexIndex = null;
+		detailPaths = null;
+		geometryStamp++;
+		
+		vertexData = (data != null && data.length > 0) ? data : new float[INITIALCAPACITY * 2];
+		vertexCount = (data != null) ? data.length / 2 : 0;
+		
+		originalVertexData = (originalData != null && originalData.length > 0) ? originalData : new float[INITIALCAPACITY * 2];
+		originalVertexCount = (originalData != null) ? originalData.length / 2 : 0;
+	}
+	
+	/**
+	 * Convert a vertex list of a session stored by an older version into an interleaved array
+	 */
+	private static float[] pack(List<Point> points)
+	{
+		if (points == null) return new float[0];
+		
+		float[] data = new float[points.size() * 2];
+		
+		for (int i = 0; i < points.size(); i++)
+		{
+			data[2 * i] = points.get(i).x;
+			data[2 * i + 1] = points.get(i).y;
+		}
+		
+		return data;
+	}
+
 	public int getColor() 
 	{
 		return color;
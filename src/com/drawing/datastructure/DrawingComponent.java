@@ -12,6 +12,7 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -71,8 +72,7 @@ public abstract class DrawingComponent implements Serializable{
 	{
 		if (path != null)
 		{
-			List<Point> points = CustomPath.transformVertices(path.getVertices(), pathMatrix);
-			path.setVertices(points);
+			path.transformVertices(pathMatrix);
 			
 			path.setHighlighted(false);
 		}
@@ -96,6 +96,72 @@ public abstract class DrawingComponent implements Serializable{
 		alpha = 255;
 
 	}
+
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	DrawingComponent()
+	{
+		relations = new LinkedList<DrawingComponent>();
+
+		displayState = DisplayObjectState.NONE;
+
+		alpha = 255;
+	}
+
+	/**
+	 * Write the persistent fields of this component to a binary session, subclasses
+	 * with further fields have to override this method and call it first
+	 * @param out The writer of the session
+	 */
+	protected void writeFields(SessionWriter out)
+	{
+		out.writeComponent(parent);
+		out.writeString(uri);
+		out.writeBoolean(isOpen);
+		out.writeString(helpText);
+		out.writeString(itemText);
+		out.writeEnum(displayState);
+		out.writeInt(alpha);
+		out.writeComponents(relations);
+		out.writePath(path);
+		out.writeComponent(annotation);
+		out.writeFloats(pathMatrixValues, (pathMatrixValues != null) ? pathMatrixValues.length : 0);
+		out.writeFloats(annotationMatrixValues, (annotationMatrixValues != null) ? annotationMatrixValues.length : 0);
+		out.writeBoolean(highlighted);
+		out.writeBoolean(grouped);
+		out.writeBoolean(isComposite);
+		out.writeBoolean(isRoot);
+	}
+
+	/**
+	 * Read the fields that were written by {@link #writeFields(SessionWriter)}
+	 * @param in The reader of the session
+	 * @throws IOException If the session is corrupt
+	 */
+	protected void readFields(SessionReader in) throws IOException
+	{
+		parent = (DrawingComposite) in.readComponent();
+		uri = in.readString();
+		isOpen = in.readBoolean();
+		helpText = in.readString();
+		itemText = in.readString();
+		displayState = in.readEnum(DisplayObjectState.class);
+		alpha = in.readInt();
+
+		relations.clear();
+		in.readComponents(relations);
+
+		path = in.readPath();
+		annotation = in.readComponent();
+		pathMatrixValues = in.readFloats();
+		annotationMatrixValues = in.readFloats();
+		highlighted = in.readBoolean();
+		grouped = in.readBoolean();
+		isComposite = in.readBoolean();
+		isRoot = in.readBoolean();
+	}
 	
 	protected DisplayObjectState displayState;
 	
@@ -206,6 +272,8 @@ public abstract class DrawingComponent implements Serializable{
 	public void addRelation(DrawingComponent relation)
 	{
 		if(!relations.contains(relation)) relations.add(relation);
+		
+		notifyChanged();
 	}
 	
 	public void removeRelation(DrawingComponent relation)
@@ -213,9 +281,27 @@ public abstract class DrawingComponent implements Serializable{
 		if(relations.contains(relation)) 
 		{
 			relations.remove(relation);
+			
+			notifyChanged();
 		}
 
 	}
+	
+	/**
+	 * Inform the change listener of the root that the fields of this component have changed
+	 * @see DrawingComposite.ChangeListener
+	 */
+	protected void notifyChanged()
+	{
+		DrawingComponent top = this;
+		
+		while (top.parent != null)
+		{
+			top = top.parent;
+		}
+		
+		if (top.isRoot) ((DrawingComposite) top).fireChanged(this);
+	}
 
 
 	protected boolean isRoot = false;
@@ -366,6 +452,7 @@ public abstract class DrawingComponent implements Serializable{
 		if (helpText.contains("Resource")) this.helpText = "";
 		else this.helpText = helpText;
 		
+		notifyChanged();
 	}
 
 	public boolean isOpen()
@@ -376,6 +463,19 @@ public abstract class DrawingComponent implements Serializable{
 	public void setOpen(boolean isOpen)
 	{
 		this.isOpen = isOpen;
+		
+		notifyChanged();
+	}
+
+	/**
+	 * Compute the screen bounds of the opened help text label of this component
+	 * @param matrix The <b>Matrix</b> the component is drawn with
+	 * @param bounds Receives the bounds of the label
+	 * @return False if no label is drawn
+	 */
+	public boolean computeLabelBounds(Matrix matrix, RectF bounds)
+	{
+		return false;
 	}
 
 	/**
@@ -513,7 +613,14 @@ public abstract class DrawingComponent implements Serializable{
 
 	public void setUri(String uri) 
 	{
+		String oldUri = this.uri;
+
 		this.uri = uri;
+
+		// keep the uri lookup of the root in sync
+		if (parent != null && parent.isRoot) parent.updateUri(this, oldUri);
+		
+		notifyChanged();
 	}
 
 	public String getItemText() {
@@ -522,6 +629,8 @@ public abstract class DrawingComponent implements Serializable{
 
 	public void setItemText(String itemText) {
 		this.itemText = itemText;
+		
+		notifyChanged();
 	}
 
 	public boolean hasSuperClass()
@@ -12,10 +12,15 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 import android.graphics.Canvas;
@@ -26,6 +31,7 @@ import android.util.Log;
 
 import com.drawing.application.DrawView;
 import com.drawing.application.MainActivity;
+import com.drawing.application.PerformanceMetrics;
 import com.drawing.gestures.Point;
 import com.drawing.ontosketch.R;
 
@@ -74,6 +80,52 @@ public class DrawingComposite extends DrawingComponent
 		changed = true;
 	}
 
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	DrawingComposite()
+	{
+		isComposite = true;
+
+		children = new ArrayList<DrawingComponent>();
+
+		localPathList = new ScaledPathArray();
+
+		changed = true;
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#writeFields(SessionWriter)
+	 */
+	protected void writeFields(SessionWriter out)
+	{
+		super.writeFields(out);
+
+		out.writeBoolean(leafState);
+		out.writeComponents(children);
+		out.writeComponents(childrenToAdd);
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#readFields(SessionReader)
+	 */
+	protected void readFields(SessionReader in) throws IOException
+	{
+		super.readFields(in);
+
+		leafState = in.readBoolean();
+
+		children.clear();
+		in.readComponents(children);
+
+		childrenToAdd.clear();
+		in.readComponents(childrenToAdd);
+
+		// the path list is rebuilt on the next request
+		changed = true;
+	}
+
 	/**
 	 * A List of all child objects this composite object contains
 	 */
@@ -88,13 +140,352 @@ public class DrawingComposite extends DrawingComponent
 	
 	public List<DrawingComponent> childrenToAdd = new LinkedList<DrawingComponent>();
 
+	/**
+	 * Spatial index over the paths of the structure, only used by the root element
+	 */
+	transient private SpatialIndex spatialIndex;
+
+	/**
+	 * Getter for the spatial index of this structure. The index is built on first
+	 * access, which also covers deserialized structures.
+	 * @return The spatial index over all <b>DrawingComponent</b> objects of this structure
+	 */
+	public SpatialIndex getSpatialIndex()
+	{
+		if (spatialIndex == null)
+		{
+			spatialIndex = new SpatialIndex();
+			spatialIndex.rebuild(this);
+		}
+
+		return spatialIndex;
+	}
+
+	/**
+	 * Lookup table from the <b>UUID</b> of a path to its component, only used by the root element
+	 */
+	transient private HashMap<UUID, DrawingComponent> pathRegistry;
+
+	/**
+	 * Getter for the lookup table of this structure, which is built on first access
+	 * @return The lookup table from path UUIDs to <b>DrawingComponent</b> objects
+	 */
+	private HashMap<UUID, DrawingComponent> getPathRegistry()
+	{
+		if (pathRegistry == null)
+		{
+			pathRegistry = new HashMap<UUID, DrawingComponent>();
+			registerPaths(this);
+		}
+
+		return pathRegistry;
+	}
+
+	/**
+	 * Path ids that were not found in the structure, only used by the root element.
+	 * Cleared on every change of the structure, since a later change may attach the path.
+	 */
+	transient private HashSet<UUID> missingPathIds;
+
+	private void forgetMissingPaths()
+	{
+		if (missingPathIds != null) missingPathIds.clear();
+	}
+
+	private void registerPaths(DrawingComponent component)
+	{
+		CustomPath componentPath = component.getPath();
+
+		// paths that are shared by several components belong to the first registered one
+		if (componentPath != null && !pathRegistry.containsKey(componentPath.getUid()))
+		{
+			pathRegistry.put(componentPath.getUid(), component);
+		}
+
+		if (component instanceof DrawingComposite)
+		{
+			List<DrawingComponent> componentChildren = ((DrawingComposite) component).children;
+
+			for (int i = 0; i < componentChildren.size(); i++)
+			{
+				registerPaths(componentChildren.get(i));
+			}
+		}
+	}
+
+	private void unregisterPaths(DrawingComponent component, boolean withChildren)
+	{
+		CustomPath componentPath = component.getPath();
+
+		if (componentPath != null && pathRegistry.get(componentPath.getUid()) == component)
+		{
+			pathRegistry.remove(componentPath.getUid());
+		}
+
+		if (withChildren && component instanceof DrawingComposite)
+		{
+			List<DrawingComponent> componentChildren = ((DrawingComposite) component).children;
+
+			for (int i = 0; i < componentChildren.size(); i++)
+			{
+				unregisterPaths(componentChildren.get(i), true);
+			}
+		}
+	}
+
+	private void indexComponent(DrawingComponent component)
+	{
+		getSpatialIndex().insertSubtree(component);
+
+		getPathRegistry();
+		registerPaths(component);
+
+		forgetMissingPaths();
+
+		fireChanged(this);
+		fireChanged(component);
+	}
+
+	private void unindexComponent(DrawingComponent component, boolean withChildren)
+	{
+		if (withChildren) getSpatialIndex().removeSubtree(component);
+		else getSpatialIndex().remove(component);
+
+		getPathRegistry();
+		unregisterPaths(component, withChildren);
+
+		fireChanged(this);
+		if (component.parent != null) fireChanged(component.parent);
+	}
+
+	/**
+	 * Listener for changes of the composite structure, see {@link #setChangeListener(ChangeListener)}
+	 */
+	public interface ChangeListener
+	{
+		/**
+		 * Called after a component was attached, removed or modified. Composite components
+		 * other than the root stand for their complete subtree.
+		 * @param component The component whose fields have changed
+		 */
+		public void componentChanged(DrawingComponent component);
+	}
+
+	/**
+	 * Listener for changes of the structure, only used by the root element
+	 */
+	transient private ChangeListener changeListener;
+
+	/**
+	 * Setter for the listener that is informed about changes of this structure, only
+	 * supported by the root element
+	 * @param listener The listener or null
+	 */
+	public void setChangeListener(ChangeListener listener)
+	{
+		changeListener = listener;
+	}
+
+	/**
+	 * Number of changes of this structure, only counted by the root element
+	 */
+	transient private int changeCount = 0;
+
+	/**
+	 * Getter for the number of changes, allows to detect changes without a listener
+	 * @return The number of changes since this structure was created
+	 */
+	public int getChangeCount()
+	{
+		return changeCount;
+	}
+
+	void fireChanged(DrawingComponent component)
+	{
+		changeCount++;
+
+		if (changeListener != null) changeListener.componentChanged(component);
+	}
+
+	/**
+	 * Make a direct child of the root and all its children known to the lookup
+	 * structures of this structure. Has to be called if children of the root are
+	 * attached without {@link #addComponent(DrawingComponent)}.
+	 * @param component The component that was attached
+	 */
+	public void registerComponent(DrawingComponent component)
+	{
+		if (component == null) return;
+
+		indexComponent(component);
+		addUri(component);
+	}
+
+	/**
+	 * Remove a direct child of the root from the lookup structures of this
+	 * structure. Has to be called if children of the root are removed without
+	 * {@link #removeComponent(DrawingComponent)}.
+	 * @param component The component that was removed
+	 * @param withChildren True if the children of the component were removed as well
+	 */
+	public void unregisterComponent(DrawingComponent component, boolean withChildren)
+	{
+		if (component == null) return;
+
+		unindexComponent(component, withChildren);
+		removeUri(component);
+	}
+
+	/**
+	 * Direct children of the root by their lower case uri, only used by the root element
+	 */
+	transient private HashMap<String, ArrayList<DrawingComponent>> uriIndex;
+
+	private static String normalizeUri(String uri)
+	{
+		return uri.toLowerCase(Locale.ENGLISH);
+	}
+
+	private HashMap<String, ArrayList<DrawingComponent>> getUriIndex()
+	{
+		if (uriIndex == null)
+		{
+			uriIndex = new HashMap<String, ArrayList<DrawingComponent>>();
+
+			for (int i = 0; i < children.size(); i++)
+			{
+				addUri(children.get(i));
+			}
+		}
+
+		return uriIndex;
+	}
+
+	private void addUri(DrawingComponent component)
+	{
+		String uri = component.getUri();
+
+		if (!isRoot || uri == null || uri.length() == 0) return;
+
+		String key = normalizeUri(uri);
+
+		ArrayList<DrawingComponent> bucket = getUriIndex().get(key);
+
+		if (bucket == null)
+		{
+			bucket = new ArrayList<DrawingComponent>(1);
+			uriIndex.put(key, bucket);
+		}
+
+		if (!bucket.contains(component)) bucket.add(component);
+	}
+
+	private boolean removeUri(DrawingComponent component, String uri)
+	{
+		if (!isRoot || uriIndex == null || uri == null || uri.length() == 0) return false;
+
+		String key = normalizeUri(uri);
+
+		ArrayList<DrawingComponent> bucket = uriIndex.get(key);
+
+		if (bucket == null || !bucket.remove(component)) return false;
+
+		if (bucket.isEmpty()) uriIndex.remove(key);
+
+		return true;
+	}
+
+	private void removeUri(DrawingComponent component)
+	{
+		removeUri(component, component.getUri());
+	}
+
+	/**
+	 * Move a child of the root to another uri after its uri has been changed
+	 * @param component The component whose uri has changed
+	 * @param oldUri The previous uri of the component
+	 */
+	void updateUri(DrawingComponent component, String oldUri)
+	{
+		if (removeUri(component, oldUri)) addUri(component);
+	}
+
+	/**
+	 * Get the first direct child of the root whose uri equals the passed one, ignoring case
+	 * @param uri The uri of the requested component
+	 * @return The matching component or null
+	 */
+	public DrawingComponent getChildByUri(String uri)
+	{
+		if (uri == null) return null;
+
+		if (uri.length() == 0)
+		{
+			for (DrawingComponent dc : children)
+			{
+				if (uri.equalsIgnoreCase(dc.getUri())) return dc;
+			}
+
+			return null;
+		}
+
+		ArrayList<DrawingComponent> bucket = getUriIndex().get(normalizeUri(uri));
+
+		return (bucket != null) ? bucket.get(0) : null;
+	}
+
+	/**
+	 * Get all direct children of the root whose uri equals the passed one, ignoring case
+	 * @param uri The uri of the requested components
+	 * @return Unmodifiable list of the matching components
+	 */
+	public List<DrawingComponent> getChildrenByUri(String uri)
+	{
+		if (uri == null || uri.length() == 0) return Collections.emptyList();
+
+		ArrayList<DrawingComponent> bucket = getUriIndex().get(normalizeUri(uri));
+
+		if (bucket == null) return Collections.emptyList();
+
+		return Collections.unmodifiableList(bucket);
+	}
+
+	/**
+	 * Refresh the indexed bounds of the passed component after its path has been
+	 * transformed. The complete top level object is updated, since transformations
+	 * are passed on to parents and children.
+	 * @param component The component whose path has changed
+	 */
+	public void updateSpatialIndex(DrawingComponent component)
+	{
+		if (component == null) return;
+
+		DrawingComponent top = component;
+
+		while (top.parent != null && top.parent != this)
+		{
+			top = top.parent;
+		}
+
+		getSpatialIndex().insertSubtree(top);
+
+		fireChanged(top);
+	}
+
 	/**
 	 * Delete all child objects
 	 */
 	public void deleteChildren()
 	{
-		changed = true;
+		setChanged();
 		children.clear();
+
+		if (spatialIndex != null) spatialIndex.clear();
+		if (pathRegistry != null) pathRegistry.clear();
+		if (uriIndex != null) uriIndex.clear();
+		forgetMissingPaths();
+
+		fireChanged(this);
 	}
 
 	/**
@@ -143,10 +534,16 @@ public class DrawingComposite extends DrawingComponent
 	 */
 	public void addComponent(DrawingComponent component) 
 	{
+		// the path list of the root can be patched if the component is simply appended
+		boolean patchable = isRoot && !changed && !localPathList.isReordered();
+		int childCount = children.size();
+
 		// check whether the attached object lies within the current one
 		if (component != null)
 		{
-			changed = true;
+			setChanged();
+
+			if (isRoot) indexComponent(component);
 
 			List<DrawingComponent> componentsToDelete = new ArrayList<DrawingComponent>();
 
@@ -242,6 +639,7 @@ public class DrawingComposite extends DrawingComponent
 //						Log.d("DrawingComposite", component + " add in children of this " + this);
 						
 						children.add(component);
+						addUri(component);
 						
 					} 
 					else 
@@ -312,6 +710,7 @@ public class DrawingComposite extends DrawingComponent
 						{
 //							Log.d("DrawingComposite","remove child - componentsToDelete: " + child);
 							children.remove(child);
+							removeUri(child);
 						}
 						
 						// GROUPING added 30.05.2012
@@ -320,6 +719,7 @@ public class DrawingComposite extends DrawingComponent
 							if (component.getParent() != null) 
 							{
 								component.getParent().children.add(component);
+								component.getParent().addUri(component);
 							}
 						} 
 						else
@@ -331,15 +731,17 @@ public class DrawingComposite extends DrawingComponent
 								int index = getLastRelationIndex();
 								
 								children.add(index,component);
+								addUri(component);
 							}
 							else 
 							{
 //								Log.d("DrawingComposite","add component to children at end: " + component);
 								component.parent = this;
 								children.add(component);
+								addUri(component);
 							}
 							
-							Log.d("DrawingComposite","= size0: " + this.children.size() );
+//							Log.d("DrawingComposite","= size0: " + this.children.size() );
 						}
 					}
 				} 
@@ -362,6 +764,7 @@ public class DrawingComposite extends DrawingComponent
 					{
 						component.parent = this;
 						this.children.add(component);
+						addUri(component);
 					}
 				}
 				else 
@@ -374,6 +777,13 @@ public class DrawingComposite extends DrawingComponent
 		
 		addChildren(component);
 
+		if (patchable && component != null && children.size() == childCount + 1
+				&& children.get(childCount) == component)
+		{
+			localPathList.add(component.getPathList());
+			changed = false;
+		}
+
 	}
 	
 	private void addChildren(DrawingComponent component)
@@ -423,19 +833,33 @@ public class DrawingComposite extends DrawingComponent
 		// -> restructuring neccessary
 
 		Log.d("DrawingComposite", "removeComponent " + component);
+
+		if (isRoot) unindexComponent(component, false);
+
+		// leaves that are direct children of the root only have to be taken out of the path list
+		if (isRoot && !changed && !localPathList.isReordered() && !component.isComposite && children.remove(component))
+		{
+			removeUri(component);
+			localPathList.removePath(component.getPath());
+			return;
+		}
 		
-		changed = true;
+		setChanged();
 
 		if (children.contains(component)) 
 		{
 			if (component.isComposite) 
 			{
 				children.remove(component);
+				removeUri(component);
 
 				for (DrawingComponent child : ((DrawingComposite) component).children) 
 				{
 					if (!children.contains(child))
+					{
 						children.add(child);
+						addUri(child);
+					}
 				}
 
 				return;
@@ -443,6 +867,7 @@ public class DrawingComposite extends DrawingComponent
 			} else 
 			{
 				children.remove(component);
+				removeUri(component);
 				return;
 			}
 		} 
@@ -463,7 +888,9 @@ public class DrawingComposite extends DrawingComponent
 	{
 		Log.d("DrawingComposite", "removeCompositeComponent this: " + this + "  component: "  + component);
 		
-		changed = true;
+		setChanged();
+
+		if (isRoot) unregisterComponent(component, true);
 
 		if (children.contains(component)) 
 		{
@@ -518,44 +945,51 @@ public class DrawingComposite extends DrawingComponent
 	{
 		if (changed) 
 		{
-			ScaledPathArray pathArray = new ScaledPathArray();
-
-			if (path != null && !(path.getVertices().size() == 0)) 
+			// the time is measured for the whole structure, the rebuilds are counted per composite
+			long start = isRoot ? PerformanceMetrics.start() : 0;
+			
+			// bring the lists of all children up to date before the own list is refilled
+			for (int i = 0; i < children.size(); i++)
 			{
-				pathArray.getPaths().add(path);
-
-				Matrix matrix = new Matrix();
-				matrix.setValues(pathMatrixValues);
+				children.get(i).getPathList();
+			}
 
-				List<Matrix> matrixList = pathArray.getScales();
-				matrixList.add(matrix);
-				pathArray.setScales(matrixList);
+			localPathList.beginRebuild();
 
-			} 
-			else if (path != null) 
+			if (path != null) 
 			{
-				pathArray.getPaths().add(path);
-
-				List<Matrix> matrixList = pathArray.getScales();
-				matrixList.add(new Matrix());
-				pathArray.setScales(matrixList);
+				localPathList.addUnique(path, (path.getVertexCount() == 0) ? ScaledPathArray.IDENTITY : pathMatrixValues);
 			}
 
-			for (DrawingComponent component : children) 
+			for (int i = 0; i < children.size(); i++) 
 			{
-				pathArray.add(component.getPathList());
+				localPathList.addAllUnique(children.get(i).getPathList());
 			}
-
-			localPathList = pathArray;
 			
 			changed = false;
+			
+			PerformanceMetrics.PATHLISTREBUILDS.increment();
+			PerformanceMetrics.REBUILDTIME.stop(start);
+		} 
 
-			return pathArray;
+		return localPathList;
+	}
 
-		} 
-		else 
+	/**
+	 * Flag this element and all its parents as changed, so that their path lists
+	 * are rebuilt on the next request
+	 */
+	public void setChanged()
+	{
+		DrawingComposite composite = this;
+
+		while (composite != null)
 		{
-			return localPathList;
+			composite.changed = true;
+
+			if (composite.isRoot) composite.forgetMissingPaths();
+
+			composite = composite.parent;
 		}
 	}
 
@@ -618,9 +1052,47 @@ public class DrawingComposite extends DrawingComponent
 
 	
 	/**
+	 * The root caches the results in its registry, so it may only be called on the UI thread
 	 * @see com.drawing.datastructure.DrawingComponent#getObjectByPathId(java.util.UUID)
 	 */
 	public DrawingComponent getObjectByPathId(UUID uid)
+	{
+		if (!isRoot || uid == null) return findObjectByPathId(uid);
+
+		HashMap<UUID, DrawingComponent> registry = getPathRegistry();
+
+		DrawingComponent component = registry.get(uid);
+
+		if (component != null && component.getPath() != null && uid.equals(component.getPath().getUid()))
+			return component;
+
+		// ids of deleted or unknown paths are not searched again until the structure changes
+		if (missingPathIds != null && missingPathIds.contains(uid)) return null;
+
+		// fall back to the search within the structure and remember the result
+		component = findObjectByPathId(uid);
+
+		if (component != null)
+		{
+			registry.put(uid, component);
+		}
+		else
+		{
+			registry.remove(uid);
+
+			if (missingPathIds == null) missingPathIds = new HashSet<UUID>();
+			missingPathIds.add(uid);
+		}
+
+		return component;
+	}
+
+	/**
+	 * Search the structure depth first for the component that owns the path with the passed id
+	 * @param uid The <b>UUID</b> of the path
+	 * @return The first component that owns the path or null
+	 */
+	private DrawingComponent findObjectByPathId(UUID uid)
 	{
 
 		DrawingComponent component = null;
@@ -774,7 +1246,7 @@ public class DrawingComposite extends DrawingComponent
 		{
 			if ((path.getOntoType() == OntologyObjectTypes.DRAWNPROPERTYRELATION))
 			{
-				Point p = path.getVertices().get(0);
+				Point p = new Point(path.getVertexX(0), path.getVertexY(0));
 				
 				float radius = (float) ma.getResources().getIntArray(R.array.sizes)[0];
 				
@@ -807,17 +1279,17 @@ public class DrawingComposite extends DrawingComponent
 			}
 			else
 			{
-				for (Point point : path.getVertices())
+				for (int i = 0; i < path.getVertexCount(); i++)
 				{
 
 					if (first)
 					{
-						tempPath.moveTo(point.x, point.y);
+						tempPath.moveTo(path.getVertexX(i), path.getVertexY(i));
 						first = false;
 					}
 					else
 					{
-						tempPath.lineTo(point.x, point.y);
+						tempPath.lineTo(path.getVertexX(i), path.getVertexY(i));
 					}
 				}
 
@@ -839,6 +1311,13 @@ public class DrawingComposite extends DrawingComponent
 			child.parent = this;
 		}
 
+		if (isRoot)
+		{
+			getSpatialIndex().rebuild(this);
+			pathRegistry = null;
+			uriIndex = null;
+		}
+
 	}
 
 	/**
@@ -12,6 +12,7 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -80,6 +81,34 @@ public class DrawingCompositeWord extends DrawingSingleComposite {
 		this.leafState = true; //unused?!?
 
 	}
+
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	DrawingCompositeWord()
+	{
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#writeFields(SessionWriter)
+	 */
+	protected void writeFields(SessionWriter out)
+	{
+		super.writeFields(out);
+
+		out.writeString(result);
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#readFields(SessionReader)
+	 */
+	protected void readFields(SessionReader in) throws IOException
+	{
+		super.readFields(in);
+
+		result = in.readString();
+	}
 	
 	
 	public RectF getBounds()
@@ -48,6 +48,14 @@ public class DrawingConcept extends DrawingSingleComposite
 	{
 		super(path, pathMatrix);
 	}
+
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	DrawingConcept()
+	{
+	}
 	
 	
 	public void addComponent(DrawingComponent component) 
@@ -133,6 +141,29 @@ public class DrawingConcept extends DrawingSingleComposite
 	}
 	
 	
+	/**
+	 * Compute the screen bounds of the help text label, the same as in
+	 * {@link #drawDrawingConceptIcon(Canvas, Matrix)}
+	 */
+	public boolean computeLabelBounds(Matrix matrix, RectF bounds)
+	{
+		if (!isOpen || helpText.equalsIgnoreCase("")) return false;
+
+		path.computeBounds(bounds, true);
+
+		matrix.mapRect(bounds);
+
+		float relHeight = bounds.height()/10;
+		float centerY = bounds.top+(bounds.height()/2);
+
+		float textX = (float) (bounds.right+1.5*relHeight);
+		float textWidth = LabelLayoutCache.getInstance().measure(helpText, (float) 0.8 * relHeight, paint);
+
+		bounds.set(bounds.right, centerY-relHeight, (float) (textX + textWidth + 0.5*relHeight), centerY+relHeight);
+
+		return true;
+	}
+
 	public void drawDrawingConceptIcon(Canvas canvas, Matrix matrix)
 	{
 		if (!helpText.equalsIgnoreCase(""))
@@ -144,7 +175,7 @@ public class DrawingConcept extends DrawingSingleComposite
 
 			path.computeBounds(tempRect, true);
 
-			if (!isHighlighted()) matrix.mapRect(tempRect);
+			matrix.mapRect(tempRect);
 			
 			float relHeight = tempRect.height()/10;
 			
@@ -153,11 +184,14 @@ public class DrawingConcept extends DrawingSingleComposite
 			if (isOpen)
 			{
 				
-				int stringCount = helpText.length();
+				float tempTextSize = (float) 0.8 * relHeight;
+				
+				float textX = (float) (relCircleCenter.x+1.5*relHeight);
+				float textWidth = LabelLayoutCache.getInstance().measure(helpText, tempTextSize, paint);
 
 				float rTop = (float) (relCircleCenter.y-relHeight);
 				float rLeft = relCircleCenter.x;
-				float rRight = (float)(relCircleCenter.x + 2*relHeight +(stringCount*(0.5 * relHeight)));
+				float rRight = (float)(textX + textWidth + 0.5*relHeight);
 				float rBottom = (float) (relCircleCenter.y+relHeight);
 
 				RectF helpBackground = new RectF(rLeft, rTop,rRight, rBottom);
@@ -173,16 +207,10 @@ public class DrawingConcept extends DrawingSingleComposite
 				backgroundPaint.setAlpha(alpha);
 				canvas.drawRect(helpBackground, backgroundPaint);
 				
-				float tempTextSize = (float) 0.8 * relHeight;
-				
-				Point textPos = new Point((float)(relCircleCenter.x+1.5*relHeight), (float) (relCircleCenter.y+(relHeight*0.25)));
-				
-				paint.setTextSize(tempTextSize);  
-
 				paint.setColor(Color.BLACK);
 
 				paint.setAlpha(alpha);
-				canvas.drawText(helpText, textPos.x, textPos.y, paint);
+				LabelLayoutCache.getInstance().draw(canvas, helpText, textX, (float) (relCircleCenter.y+(relHeight*0.25)), tempTextSize, paint);
 
 			}
 			
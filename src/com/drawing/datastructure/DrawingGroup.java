@@ -18,6 +18,12 @@ import android.graphics.Matrix;
 
 public class DrawingGroup extends DrawingComposite {
 
+	/**
+	 * Serial version UID, the value that was computed for the class before it was declared,
+	 * so that groups in sessions that were stored with Java serialization can still be read
+	 */
+	private static final long serialVersionUID = -2792871649048446980L;
+
 //	private static CustomPath path = new CustomPath();
 //
 //	private static Matrix matrix = new Matrix();
@@ -48,6 +54,14 @@ public class DrawingGroup extends DrawingComposite {
 
 	}
 
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	DrawingGroup()
+	{
+	}
+
 	/**
 	 * @see com.drawing.datastructure.DrawingComponent#updatePath(android.graphics.Matrix,
 	 *      android.graphics.Matrix)
@@ -44,6 +44,14 @@ public class DrawingIndividual extends DrawingSingleComposite
 	{
 		super(path, pathMatrix);
 	}
+
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	DrawingIndividual()
+	{
+	}
 	
 	
 	public void addComponent(DrawingComponent component) 
@@ -230,6 +238,29 @@ public class DrawingIndividual extends DrawingSingleComposite
 	}
 
 
+	/**
+	 * Compute the screen bounds of the help text label, the same as in
+	 * {@link #drawDrawingIndividualIcon(Canvas, Matrix)}
+	 */
+	public boolean computeLabelBounds(Matrix matrix, RectF bounds)
+	{
+		if (!isOpen || helpText.equalsIgnoreCase("")) return false;
+
+		path.computeBounds(bounds, true);
+
+		matrix.mapRect(bounds);
+
+		float relHeight = bounds.height()/5;
+		float rTop = bounds.top+(bounds.height()/2)-relHeight/2;
+
+		float textX = (float) (bounds.right+1.5*relHeight/2);
+		float textWidth = LabelLayoutCache.getInstance().measure(helpText, (float) 0.8 * (relHeight/2), paint);
+
+		bounds.set(bounds.right-relHeight/2, rTop, (float) (textX + textWidth + 0.5*relHeight/2), rTop+relHeight);
+
+		return true;
+	}
+
 	public void drawDrawingIndividualIcon(Canvas canvas, Matrix matrix)
 	{
 		if (!helpText.equalsIgnoreCase(""))
@@ -241,7 +272,7 @@ public class DrawingIndividual extends DrawingSingleComposite
 
 			path.computeBounds(tempRect, true);
 
-			if (!isHighlighted()) matrix.mapRect(tempRect);
+			matrix.mapRect(tempRect);
 			
 			float relHeight = tempRect.height()/5;
 			
@@ -251,11 +282,14 @@ public class DrawingIndividual extends DrawingSingleComposite
 			
 			if (isOpen)
 			{
-				int stringCount = helpText.length();
+				float tempTextSize = (float) 0.8 * (relHeight/2);
+				
+				float textX = (float) (coloredRectCenter.x+1.5*relHeight/2);
+				float textWidth = LabelLayoutCache.getInstance().measure(helpText, tempTextSize, paint);
 
 				float rTop = (float) (relRectPoint.y);
 				float rLeft = relRectPoint.x;
-				float rRight = (float) (relRectPoint.x + 2*relHeight +(stringCount*(0.35 * relHeight/2)));
+				float rRight = (float) (textX + textWidth + 0.5*relHeight/2);
 				float rBottom = (float) (relRectPoint.y+relHeight);
 
 				RectF helpBackground = new RectF(rLeft, rTop,rRight, rBottom);
@@ -271,16 +305,10 @@ public class DrawingIndividual extends DrawingSingleComposite
 				backgroundPaint.setAlpha(alpha);
 				canvas.drawRect(helpBackground, backgroundPaint);
 				
-				float tempTextSize = (float) 0.8 * (relHeight/2);
-				
-				Point textPos = new Point((float)(coloredRectCenter.x+1.5*relHeight/2), (float) (coloredRectCenter.y+(relHeight/2*0.25)));
-				
-				paint.setTextSize(tempTextSize);  
-
 				paint.setColor(Color.BLACK);
 
 				paint.setAlpha(alpha);
-				canvas.drawText(helpText, textPos.x, textPos.y, paint);
+				LabelLayoutCache.getInstance().draw(canvas, helpText, textX, (float) (coloredRectCenter.y+(relHeight/2*0.25)), tempTextSize, paint);
 				
 			}
 				
@@ -34,6 +34,11 @@ public class DrawingLeaf extends DrawingComponent {
 	 * Serial version UID
 	 */
 	private static final long serialVersionUID = -3959048327911389993L;
+	
+	/**
+	 * Cached path list of this leaf
+	 */
+	private transient ScaledPathArray localPathList;
 
 	/**
 	 * Constructor of the leaf component of the composite object structure
@@ -51,6 +56,15 @@ public class DrawingLeaf extends DrawingComponent {
 
 	}
 
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	DrawingLeaf()
+	{
+		isComposite = false;
+	}
+
 	/**
 	 * @see com.drawing.datastructure.DrawingComponent#getComponentCount()
 	 */
@@ -80,13 +94,17 @@ public class DrawingLeaf extends DrawingComponent {
 	 */
 	public ScaledPathArray getPathList() {
 
-		ScaledPathArray pathArray = new ScaledPathArray();
-		pathArray.getPaths().add(path);
-		Matrix matrix = new Matrix();
-		matrix.setValues(pathMatrixValues);
-		pathArray.getScales().add(matrix);
+		// the list only has to be recreated if the path object was replaced
+		if (localPathList == null || localPathList.getPaths().size() != 1 || localPathList.getPath(0) != path)
+		{
+			ScaledPathArray pathArray = new ScaledPathArray();
+			pathArray.beginRebuild();
+			pathArray.addUnique(path, pathMatrixValues);
+			
+			localPathList = pathArray;
+		}
 
-		return pathArray;
+		return localPathList;
 	}
 
 
@@ -193,20 +211,20 @@ public class DrawingLeaf extends DrawingComponent {
 					(path.getOntoType() == OntologyObjectTypes.DRAWNCONCEPT))
 			{
 
-				for (Point point : path.getVertices()) 
+				for (int i = 0; i < path.getVertexCount(); i++) 
 				{
 					if (first) 
 					{
-						tempPath.moveTo(point.x, point.y);
+						tempPath.moveTo(path.getVertexX(i), path.getVertexY(i));
 						first = false;
 					}
 	
-					tempPath.lineTo(point.x, point.y);
+					tempPath.lineTo(path.getVertexX(i), path.getVertexY(i));
 				}
 			}
 			else if ((path.getOntoType() == OntologyObjectTypes.DRAWNPROPERTYRELATION))
 			{
-				Point p = path.getVertices().get(0);
+				Point p = new Point(path.getVertexX(0), path.getVertexY(0));
 				
 				float radius = (float) ma.getResources().getIntArray(R.array.sizes)[0];
 				
@@ -243,9 +261,9 @@ public class DrawingLeaf extends DrawingComponent {
 					(path.getOntoType() == OntologyObjectTypes.DRAWNINSTANTIATION) ||
 					(path.getOntoType() == OntologyObjectTypes.DRAWNSUBCONCEPTRELATION))
 			{		
-				if (path.getVertices().size() > 0)
+				if (path.getVertexCount() > 0)
 				{
-					Point p = path.getVertices().get(0);
+					Point p = new Point(path.getVertexX(0), path.getVertexY(0));
 					
 					tempPath.moveTo(p.x, p.y);
 					tempPath.addCircle(p.x, p.y, (float) ma.getResources().getIntArray(R.array.sizes)[0], Path.Direction.CW);
@@ -255,17 +273,17 @@ public class DrawingLeaf extends DrawingComponent {
 			else
 			{
 
-				for (Point point : path.getVertices())
+				for (int i = 0; i < path.getVertexCount(); i++)
 				{
 
 					if (first)
 					{
-						tempPath.moveTo(point.x, point.y);
+						tempPath.moveTo(path.getVertexX(i), path.getVertexY(i));
 						first = false;
 					}
 					else
 					{
-						tempPath.lineTo(point.x, point.y);
+						tempPath.lineTo(path.getVertexX(i), path.getVertexY(i));
 					}
 				}
 				
@@ -12,6 +12,7 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 import android.graphics.Canvas;
@@ -20,7 +21,6 @@ import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Paint.Join;
 import android.graphics.Paint.Style;
-import android.graphics.Path;
 import android.graphics.RectF;
 import android.util.Log;
 
@@ -37,6 +37,11 @@ public class DrawingPropertyRelation extends DrawingSingleComposite
 {
 
 	private static final long serialVersionUID = 5236571357067681303L;
+
+	/**
+	 * Distance between the center of the path and the point the relation line passes through, in radii
+	 */
+	public static final float CENTEROFFSET = 2.75f;
 	
 	transient public ArrayList<FormalizedPropertyRelationButton> formalizedRelationbuttons = new ArrayList<FormalizedPropertyRelationButton>();
 
@@ -48,16 +53,25 @@ public class DrawingPropertyRelation extends DrawingSingleComposite
 	
 	protected Point startPoint;
 	protected Point endPoint;
+
+	/**
+	 * Cached bounds of this relation and its elements, see {@link #getGeometry()}
+	 */
+	transient private RelationGeometry geometry;
 	
 	transient private Paint arrowPaint;
-	transient private Path arrow;
+	transient private RelationArrow arrow;
 
 	private int backgroundColor;
 	
 	transient protected Paint paint;
 	transient protected Paint backgroundPaint;
 	
+	/**
+	 * Reused objects for drawing the arrow
+	 */
 	transient private RectF strokeWidthRect;
+	transient private RectF tempRect;
 
 	protected double angle;
 	
@@ -93,7 +107,53 @@ public class DrawingPropertyRelation extends DrawingSingleComposite
 		
 		backgroundPaint = new Paint();
 		backgroundPaint.setAntiAlias(true);
+		
+		arrow = new RelationArrow(true);
+		strokeWidthRect = new RectF();
+		tempRect = new RectF();
+
+	}
+
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	DrawingPropertyRelation()
+	{
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#writeFields(SessionWriter)
+	 */
+	protected void writeFields(SessionWriter out)
+	{
+		super.writeFields(out);
+
+		out.writeComponent(startElement);
+		out.writeComponent(endElement);
+		out.writePoint(startPoint);
+		out.writePoint(endPoint);
+		out.writeInt(backgroundColor);
+		out.writeDouble(angle);
+		out.writeInt(oldColor);
+		out.writeString(oldItemName);
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#readFields(SessionReader)
+	 */
+	protected void readFields(SessionReader in) throws IOException
+	{
+		super.readFields(in);
 
+		startElement = in.readComponent();
+		endElement = in.readComponent();
+		startPoint = in.readPoint();
+		endPoint = in.readPoint();
+		backgroundColor = in.readInt();
+		angle = in.readDouble();
+		oldColor = in.readInt();
+		oldItemName = in.readString();
 	}
 	
 	public void removeReferences()
@@ -104,13 +164,11 @@ public class DrawingPropertyRelation extends DrawingSingleComposite
 
 	public void updateArrow(Canvas canvas, Matrix matrix)
 	{
-		strokeWidthRect = new RectF(0,0, 4f, 4f);
-		
-		RectF tempRect = new RectF();
+		strokeWidthRect.set(0,0, 4f, 4f);
 		
 		path.computeBounds(tempRect, true);
 
-		if (!path.isHighlighted()) matrix.mapRect(tempRect);
+		matrix.mapRect(tempRect);
 		matrix.mapRect(strokeWidthRect);
 		
 		float leftBg = tempRect.left;
@@ -128,31 +186,9 @@ public class DrawingPropertyRelation extends DrawingSingleComposite
 		
 		canvas.drawCircle(leftBg+rad, topBg+rad, rad, backgroundPaint);
 
-		Point circleCenterPoint = new Point((float)(tempRect.left+(0.5*tempRect.width())), (float)(tempRect.top+(0.5*tempRect.height())));
-		
-		Matrix rotateMatrix = new Matrix();
-		
-		Point start = new Point((float)(tempRect.left+(0.25*tempRect.width())), (float)(tempRect.top+(0.5*tempRect.height())));
-		Point end = new Point((float)(tempRect.left+(0.75*tempRect.width())), (float)(tempRect.top+(0.5*tempRect.height())));
-		Point top = new Point((float)(tempRect.left+(0.5*tempRect.width())), (float)(tempRect.top+(0.25*tempRect.height())));
-		Point bottom = new Point((float)(tempRect.left+(0.5*tempRect.width())), (float)(tempRect.top+(0.75*tempRect.height())));
-		
-		arrow = new Path();
-		arrow.moveTo(start.x, start.y);
-		arrow.lineTo(end.x, end.y);
-		arrow.lineTo(top.x, top.y);
-		arrow.lineTo(end.x, end.y);
-		arrow.lineTo(bottom.x, bottom.y);
-		arrow.lineTo(end.x, end.y);
-		arrow.lineTo(start.x, start.y);
-		
-		rotateMatrix.setRotate((float)(-90+this.angle),circleCenterPoint.x, circleCenterPoint.y);
-		
-		arrow.transform(rotateMatrix);
-		
 		arrowPaint.setStrokeWidth(strokeWidthRect.width());
 		arrowPaint.setAlpha(alpha);
-		canvas.drawPath(arrow, arrowPaint);
+		canvas.drawPath(arrow.getPath(tempRect, angle), arrowPaint);
 	}
 	
 	
@@ -444,6 +480,10 @@ public class DrawingPropertyRelation extends DrawingSingleComposite
 		backgroundPaint = new Paint();
 		backgroundPaint.setAntiAlias(true);
 		
+		arrow = new RelationArrow(true);
+		strokeWidthRect = new RectF();
+		tempRect = new RectF();
+		
 		super.redrawPathsafterDeserialization(ma);
 		
 	}
@@ -566,7 +606,7 @@ public class DrawingPropertyRelation extends DrawingSingleComposite
 		
 		path.computeBounds(bounds, true);
 	
-		Point point = new Point((float)(bounds.centerX()-(2.75*(bounds.height()/2))), bounds.centerY()); //3.25
+		Point point = new Point((float)(bounds.centerX()-(CENTEROFFSET*(bounds.height()/2))), bounds.centerY()); //3.25
 	
 		return point;
 	}
@@ -634,6 +674,38 @@ public class DrawingPropertyRelation extends DrawingSingleComposite
 	{
 		return angle;
 	}
+
+	/**
+	 * Getter for the cached world space geometry of this relation
+	 * @return The geometry, created on first access
+	 */
+	public RelationGeometry getGeometry()
+	{
+		if (geometry == null) geometry = new RelationGeometry();
+
+		return geometry;
+	}
+
+	/**
+	 * Update the screen positions of the start and the end element without allocating new points
+	 */
+	public void setAnchors(float startX, float startY, float endX, float endY)
+	{
+		if (startPoint == null || endPoint == null)
+		{
+			startPoint = new Point(startX, startY);
+			endPoint = new Point(endX, endY);
+		}
+		else
+		{
+			startPoint.x = startX;
+			startPoint.y = startY;
+			endPoint.x = endX;
+			endPoint.y = endY;
+		}
+
+		calculateRelationAngle();
+	}
 	
 	public int getBackgroundColor()
 	{
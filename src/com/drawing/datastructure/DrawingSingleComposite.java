@@ -12,6 +12,8 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
+
 import com.drawing.application.MainActivity;
 import com.hp.hpl.jena.ontology.OntResource;
 
@@ -60,6 +62,36 @@ public abstract class DrawingSingleComposite extends DrawingComposite
 		
 	}
 
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	DrawingSingleComposite()
+	{
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#writeFields(SessionWriter)
+	 */
+	protected void writeFields(SessionWriter out)
+	{
+		super.writeFields(out);
+
+		out.writeComponent(componentChild);
+		out.writeString(name);
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#readFields(SessionReader)
+	 */
+	protected void readFields(SessionReader in) throws IOException
+	{
+		super.readFields(in);
+
+		componentChild = (DrawingCompositeWord) in.readComponent();
+		name = in.readString();
+	}
+
 	/**
 	 * @see com.drawing.datastructure.DrawingLeaf#redrawPathsafterDeserialization()
 	 */
@@ -37,6 +37,14 @@ public class DrawingWordLetter extends DrawingLeaf
 		super(path, pathMatrix);
 	}
 
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	DrawingWordLetter()
+	{
+	}
+
 	
 	/**
 	 * @see com.drawing.datastructure.DrawingComponent#setHighlighted(boolean)
@@ -12,6 +12,8 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
+
 import com.drawing.gestures.Point;
 
 import android.graphics.Canvas;
@@ -60,6 +62,42 @@ public class FormalizedConcept extends FormalizedObject
 		if (scale == 0)
 			scale = 1.0f;
 	}
+
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	FormalizedConcept()
+	{
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#writeFields(SessionWriter)
+	 */
+	protected void writeFields(SessionWriter out)
+	{
+		super.writeFields(out);
+
+		out.writeFloat(x);
+		out.writeFloat(y);
+		out.writeFloat(textScale);
+		out.writeFloats(points, (points != null) ? points.length : 0);
+		out.writeFloat(scale);
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#readFields(SessionReader)
+	 */
+	protected void readFields(SessionReader in) throws IOException
+	{
+		super.readFields(in);
+
+		x = in.readFloat();
+		y = in.readFloat();
+		textScale = in.readFloat();
+		points = in.readFloats();
+		scale = in.readFloat();
+	}
 	
 	public void drawFormalizedConcept(Canvas canvas, Matrix matrix)
 	{
@@ -78,7 +116,7 @@ public class FormalizedConcept extends FormalizedObject
 				(int) tempRect.top - frameOffset,
 				(int) tempRect.right + frameOffset, (int) tempRect.bottom + frameOffset);
 
-		points = new float[] { path.getVertices().get(0).x, path.getVertices().get(0).y, width, height};
+		points = new float[] { path.getVertexX(0), path.getVertexY(0), width, height};
 		
 		matrix.mapPoints(points);
 		
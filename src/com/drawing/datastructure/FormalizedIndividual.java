@@ -12,6 +12,8 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
+
 import com.drawing.gestures.Point;
 
 import android.graphics.Canvas;
@@ -49,6 +51,36 @@ public class FormalizedIndividual extends FormalizedObject
 		if (scale == 0)
 			scale = 1.0f;
 	}
+
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	FormalizedIndividual()
+	{
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#writeFields(SessionWriter)
+	 */
+	protected void writeFields(SessionWriter out)
+	{
+		super.writeFields(out);
+
+		out.writeFloats(points, (points != null) ? points.length : 0);
+		out.writeFloat(scale);
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#readFields(SessionReader)
+	 */
+	protected void readFields(SessionReader in) throws IOException
+	{
+		super.readFields(in);
+
+		points = in.readFloats();
+		scale = in.readFloat();
+	}
 	
 	
 	
@@ -66,7 +98,7 @@ public class FormalizedIndividual extends FormalizedObject
 		destinationRect = new Rect((int) tempRect.left - frameOffset, (int) tempRect.top - frameOffset,
 				(int) tempRect.right + frameOffset, (int) tempRect.bottom + frameOffset);
 
-		points = new float[] { path.getVertices().get(0).x, path.getVertices().get(0).y, width, height, 4f};
+		points = new float[] { path.getVertexX(0), path.getVertexY(0), width, height, 4f};
 
 		matrix.mapPoints(points);
 		
@@ -12,6 +12,7 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
 import java.util.UUID;
 
 import android.graphics.Color;
@@ -83,6 +84,52 @@ public abstract class FormalizedObject extends DrawingLeaf
 		else this.helpText = helptext;
 	}
 
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	FormalizedObject()
+	{
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#writeFields(SessionWriter)
+	 */
+	protected void writeFields(SessionWriter out)
+	{
+		super.writeFields(out);
+
+		out.writeString(name);
+		out.writeFloat(x);
+		out.writeFloat(y);
+		out.writeInt(width);
+		out.writeInt(height);
+		out.writeInt(normalColor);
+		out.writeInt(backgroundColor);
+		out.writeInt(buttonColorActive);
+		out.writeInt(buttonColorInactive);
+		out.writeInt(highlightColor);
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#readFields(SessionReader)
+	 */
+	protected void readFields(SessionReader in) throws IOException
+	{
+		super.readFields(in);
+
+		name = in.readString();
+		x = in.readFloat();
+		y = in.readFloat();
+		width = in.readInt();
+		height = in.readInt();
+		normalColor = in.readInt();
+		backgroundColor = in.readInt();
+		buttonColorActive = in.readInt();
+		buttonColorInactive = in.readInt();
+		highlightColor = in.readInt();
+	}
+
 	
 	/**
 	 * Setter for the Position of the upper left corner of the
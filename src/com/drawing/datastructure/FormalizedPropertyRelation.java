@@ -29,4 +29,12 @@ public class FormalizedPropertyRelation extends PropertyRelation
 		super(path, pathMatrix, startElement, endElement);
 	}
 
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	FormalizedPropertyRelation()
+	{
+	}
+
 }
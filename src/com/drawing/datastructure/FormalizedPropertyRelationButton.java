@@ -12,6 +12,8 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
+
 import android.graphics.Matrix;
 
 /**
@@ -34,6 +36,34 @@ public class FormalizedPropertyRelationButton extends PropertyRelation
 		isOpen = true;
 	}
 
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	FormalizedPropertyRelationButton()
+	{
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#writeFields(SessionWriter)
+	 */
+	protected void writeFields(SessionWriter out)
+	{
+		super.writeFields(out);
+
+		out.writeComponent(parentRelation);
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#readFields(SessionReader)
+	 */
+	protected void readFields(SessionReader in) throws IOException
+	{
+		super.readFields(in);
+
+		parentRelation = (DrawingPropertyRelation) in.readComponent();
+	}
+
 	@Override
 	public void setOpen(boolean b)
 	{
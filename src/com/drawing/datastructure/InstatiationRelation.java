@@ -31,6 +31,14 @@ public class InstatiationRelation extends CustomObjectRelation
 		
 	}
 
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	InstatiationRelation()
+	{
+	}
+
 	public void updateHelpText()
 	{
 		if (endElement instanceof DrawingIndividual)
@@ -0,0 +1,375 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+
+package com.drawing.datastructure;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Paint.FontMetrics;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+/**
+ * Cache for the help text labels that are drawn next to concepts, individuals and relations.
+ * A label is measured and rasterized into an alpha bitmap once per text, size bucket and
+ * style, and drawn scaled to the requested text size afterwards. The least recently used
+ * labels are evicted if the bitmaps exceed the memory budget, labels that are larger than the
+ * budget are drawn directly. Only to be used from the UI thread.
+ * <p>
+ * Evicted bitmaps are not recycled, since the current frame may still draw them. Their memory
+ * is reclaimed by the garbage collector.
+ *
+ */
+public class LabelLayoutCache
+{
+	/**
+	 * Default memory budget for the label bitmaps in bytes
+	 */
+	public static final int DEFAULTBUDGET = 2 * 1024 * 1024;
+
+	/**
+	 * Number of size buckets per doubling of the text size
+	 */
+	private static final int BUCKETSPEROCTAVE = 4;
+
+	/**
+	 * Labels bigger than this text size are drawn directly, in pixels
+	 */
+	private static final float MAXRASTERSIZE = 96f;
+
+	private static LabelLayoutCache instance;
+
+	private LinkedHashMap<Key, Label> labels;
+
+	private int budget;
+
+	private int usedBytes = 0;
+
+	/**
+	 * Key that is reused for the lookups, so that a cache hit does not allocate
+	 */
+	private Key probe = new Key();
+
+	private Paint rasterPaint = new Paint();
+
+	private FontMetrics fontMetrics = new FontMetrics();
+
+	private RectF destination = new RectF();
+
+	private int hits = 0;
+	private int misses = 0;
+
+	public LabelLayoutCache(int budget)
+	{
+		this.budget = budget;
+
+		labels = new LinkedHashMap<Key, Label>(64, 0.75f, true);
+	}
+
+	/**
+	 * Getter for the cache that is shared by all components
+	 * @return The shared cache with the default budget
+	 */
+	public static LabelLayoutCache getInstance()
+	{
+		if (instance == null) instance = new LabelLayoutCache(DEFAULTBUDGET);
+
+		return instance;
+	}
+
+	/**
+	 * Measure the width of a label
+	 * @param text The text of the label
+	 * @param textSize The text size the label is drawn with
+	 * @param paint The paint the label is drawn with, its text size is not used
+	 * @return The width of the text in pixels
+	 */
+	public float measure(String text, float textSize, Paint paint)
+	{
+		Label label = getLabel(text, textSize, paint);
+
+		if (label == null)
+		{
+			paint.setTextSize(textSize);
+
+			return paint.measureText(text);
+		}
+
+		return label.width * textSize / label.textSize;
+	}
+
+	/**
+	 * Draw a label like <b>Canvas.drawText</b> does, in the color and alpha of the paint
+	 * @param x The left side of the text
+	 * @param y The baseline of the text
+	 */
+	public void draw(Canvas canvas, String text, float x, float y, float textSize, Paint paint)
+	{
+		Label label = getLabel(text, textSize, paint);
+
+		if (label == null)
+		{
+			paint.setTextSize(textSize);
+
+			canvas.drawText(text, x, y, paint);
+
+			return;
+		}
+
+		if (label.bitmap == null) return;
+
+		float scale = textSize / label.textSize;
+
+		destination.set(x, y + label.top * scale, x + label.bitmap.getWidth() * scale, y + (label.top + label.bitmap.getHeight()) * scale);
+
+		boolean filterBitmap = paint.isFilterBitmap();
+
+		paint.setFilterBitmap(true);
+
+		canvas.drawBitmap(label.bitmap, null, destination, paint);
+
+		paint.setFilterBitmap(filterBitmap);
+	}
+
+	/**
+	 * Change the memory budget, labels are evicted immediately if necessary
+	 * @param budget The budget in bytes
+	 */
+	public void setBudget(int budget)
+	{
+		this.budget = budget;
+
+		trim(budget);
+	}
+
+	public int getBudget()
+	{
+		return budget;
+	}
+
+	public int getUsedBytes()
+	{
+		return usedBytes;
+	}
+
+	public int getHitCount()
+	{
+		return hits;
+	}
+
+	public int getMissCount()
+	{
+		return misses;
+	}
+
+	/**
+	 * Remove all labels
+	 */
+	public void clear()
+	{
+		labels.clear();
+
+		usedBytes = 0;
+	}
+
+	/**
+	 * Getter for the cached label of a text, a missing label is created
+	 * @return The label or null if the label has to be drawn directly
+	 */
+	private Label getLabel(String text, float textSize, Paint paint)
+	{
+		if (textSize > MAXRASTERSIZE) return null;
+
+		probe.set(text, getBucket(textSize), getStyle(paint));
+
+		Label label = labels.get(probe);
+
+		if (label != null)
+		{
+			hits++;
+			return label;
+		}
+
+		misses++;
+
+		label = measureLabel(text, (float) Math.pow(2, (double) probe.bucket / BUCKETSPEROCTAVE), paint);
+
+		int bytes = label.getByteCount();
+
+		if (bytes > budget) return null;
+
+		// room is made before the label is added, so it is never evicted itself
+		trim(budget - bytes);
+
+		if (!rasterizeLabel(label, text)) return null;
+
+		Key key = new Key();
+		key.set(text, probe.bucket, probe.style);
+
+		labels.put(key, label);
+
+		usedBytes += bytes;
+
+		return label;
+	}
+
+	/**
+	 * Measure a label at the text size of its bucket
+	 */
+	private Label measureLabel(String text, float textSize, Paint paint)
+	{
+		rasterPaint.set(paint);
+		rasterPaint.setTextSize(textSize);
+		rasterPaint.setColor(0xFF000000);
+
+		rasterPaint.getFontMetrics(fontMetrics);
+
+		Label label = new Label();
+
+		label.textSize = textSize;
+		label.width = rasterPaint.measureText(text);
+		label.top = (float) Math.floor(fontMetrics.top);
+
+		if (text.length() > 0)
+		{
+			label.bitmapWidth = Math.max((int) Math.ceil(label.width) + 1, 0);
+			label.bitmapHeight = Math.max((int) Math.ceil(fontMetrics.bottom) - (int) label.top + 1, 0);
+		}
+
+		return label;
+	}
+
+	/**
+	 * Draw the text of a measured label into its bitmap, with the paint of the measurement
+	 * @return False if there is not enough memory for the bitmap
+	 */
+	private boolean rasterizeLabel(Label label, String text)
+	{
+		if (label.getByteCount() == 0) return true;
+
+		try
+		{
+			label.bitmap = Bitmap.createBitmap(label.bitmapWidth, label.bitmapHeight, Bitmap.Config.ALPHA_8);
+
+			new Canvas(label.bitmap).drawText(text, 0, -label.top, rasterPaint);
+
+			return true;
+		}
+		catch (OutOfMemoryError e)
+		{
+			e.printStackTrace();
+
+			// the other labels are released to the garbage collector, this one is drawn directly
+			clear();
+
+			return false;
+		}
+	}
+
+	/**
+	 * Evict the least recently used labels until the bitmaps fit into the passed size
+	 */
+	private void trim(int size)
+	{
+		Iterator<Label> iterator = labels.values().iterator();
+
+		while (usedBytes > size && iterator.hasNext())
+		{
+			usedBytes -= iterator.next().getByteCount();
+
+			iterator.remove();
+		}
+	}
+
+	private static int getBucket(float textSize)
+	{
+		if (textSize < 1) return 0;
+
+		return (int) Math.round(Math.log(textSize) / Math.log(2) * BUCKETSPEROCTAVE);
+	}
+
+	private static int getStyle(Paint paint)
+	{
+		Typeface typeface = paint.getTypeface();
+
+		int style = (typeface != null) ? typeface.getStyle() : Typeface.NORMAL;
+
+		if (paint.isFakeBoldText()) style |= 4;
+		if (paint.getTextSkewX() != 0) style |= 8;
+
+		return style;
+	}
+
+	private static class Key
+	{
+		String text;
+		int bucket;
+		int style;
+		int hash;
+
+		void set(String text, int bucket, int style)
+		{
+			this.text = text;
+			this.bucket = bucket;
+			this.style = style;
+
+			hash = (text.hashCode() * 31 + bucket) * 31 + style;
+		}
+
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key)) return false;
+
+			Key other = (Key) o;
+
+			return bucket == other.bucket && style == other.style && text.equals(other.text);
+		}
+	}
+
+	private static class Label
+	{
+		/**
+		 * The text size the label was measured and rasterized with
+		 */
+		float textSize;
+
+		float width;
+
+		/**
+		 * Distance from the baseline to the top of the bitmap, negative
+		 */
+		float top;
+
+		/**
+		 * Size of the bitmap, 0 for empty texts
+		 */
+		int bitmapWidth;
+		int bitmapHeight;
+
+		Bitmap bitmap;
+
+		int getByteCount()
+		{
+			return bitmapWidth * bitmapHeight;
+		}
+	}
+}
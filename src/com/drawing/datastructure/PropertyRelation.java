@@ -12,17 +12,17 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
+
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Paint.Join;
 import android.graphics.Paint.Style;
-import android.graphics.Path;
 import android.graphics.RectF;
 
 import com.drawing.application.MainActivity;
-import com.drawing.gestures.Point;
 
 
 /**
@@ -36,14 +36,19 @@ public abstract class PropertyRelation extends CustomObjectRelation
 	private static final long serialVersionUID = 6454438369422880498L;
 
 	transient private Paint arrowPaint;
-	transient private Path arrow;
+	transient private RelationArrow arrow;
 
 	private int backgroundColor;
 	
 	transient protected Paint paint;
 	transient protected Paint backgroundPaint;
 	
+	/**
+	 * Reused objects for drawing the arrow and the help text
+	 */
 	transient private RectF strokeWidthRect;
+	transient private RectF tempRect;
+	transient private RectF helpBackground;
 
 	public PropertyRelation(CustomPath path, Matrix pathMatrix, DrawingComponent startElement, DrawingComponent endElement) 
 	{
@@ -62,69 +67,104 @@ public abstract class PropertyRelation extends CustomObjectRelation
 		
 		backgroundPaint = new Paint();
 		backgroundPaint.setAntiAlias(true);
+		
+		arrow = new RelationArrow(true);
+		strokeWidthRect = new RectF();
+		tempRect = new RectF();
+		helpBackground = new RectF();
+	}
+
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	PropertyRelation()
+	{
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#writeFields(SessionWriter)
+	 */
+	protected void writeFields(SessionWriter out)
+	{
+		super.writeFields(out);
+
+		out.writeInt(backgroundColor);
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#readFields(SessionReader)
+	 */
+	protected void readFields(SessionReader in) throws IOException
+	{
+		super.readFields(in);
+
+		backgroundColor = in.readInt();
 	}
 	
 	public void updateArrow(Canvas canvas, Matrix matrix)
 	{
-		strokeWidthRect = new RectF(0,0, 4f, 4f);
-		
-		RectF tempRect = new RectF();
+		strokeWidthRect.set(0,0, 4f, 4f);
 		
 		path.computeBounds(tempRect, true);
 
-		if (!path.isHighlighted()) matrix.mapRect(tempRect);
+		matrix.mapRect(tempRect);
 		matrix.mapRect(strokeWidthRect);
 
-		Point circleCenterPoint = new Point((float)(tempRect.left+(0.5*tempRect.width())), (float)(tempRect.top+(0.5*tempRect.height())));
-		
-		Matrix rotateMatrix = new Matrix();
-		
-		Point start = new Point((float)(tempRect.left+(0.25*tempRect.width())), (float)(tempRect.top+(0.5*tempRect.height())));
-		Point end = new Point((float)(tempRect.left+(0.75*tempRect.width())), (float)(tempRect.top+(0.5*tempRect.height())));
-		Point top = new Point((float)(tempRect.left+(0.5*tempRect.width())), (float)(tempRect.top+(0.25*tempRect.height())));
-		Point bottom = new Point((float)(tempRect.left+(0.5*tempRect.width())), (float)(tempRect.top+(0.75*tempRect.height())));
-		
-		arrow = new Path();
-		arrow.moveTo(start.x, start.y);
-		arrow.lineTo(end.x, end.y);
-		arrow.lineTo(top.x, top.y);
-		arrow.lineTo(end.x, end.y);
-		arrow.lineTo(bottom.x, bottom.y);
-		arrow.lineTo(end.x, end.y);
-		arrow.lineTo(start.x, start.y);
-		
-		rotateMatrix.setRotate((float)(-90+this.angle),circleCenterPoint.x, circleCenterPoint.y);
-		
-		arrow.transform(rotateMatrix);
-		
 		arrowPaint.setStrokeWidth(strokeWidthRect.width());
 		arrowPaint.setAlpha(alpha);
-		if (path.isVisible()) canvas.drawPath(arrow, arrowPaint);
+		if (path.isVisible()) canvas.drawPath(arrow.getPath(tempRect, angle), arrowPaint);
 	}
 	
+	/**
+	 * Compute the screen bounds of the help text label, the same as in
+	 * {@link #drawPropertyRelation(Canvas, Matrix)}
+	 */
+	public boolean computeLabelBounds(Matrix matrix, RectF bounds)
+	{
+		if (!isOpen || !path.isVisible() || helpText.equalsIgnoreCase("")) return false;
+
+		path.computeBounds(bounds, true);
+
+		matrix.mapRect(bounds);
+
+		float height = bounds.height();
+		float centerX = bounds.centerX();
+		float centerY = bounds.centerY();
+
+		float textX = (float) (centerX + 0.75*height);
+		float textWidth = LabelLayoutCache.getInstance().measure(helpText, (float) (height*0.40), paint);
+
+		bounds.set(centerX, centerY-height/2, (float) (textX + textWidth + 0.25*height), centerY+height/2);
+
+		return true;
+	}
+
 	public void drawPropertyRelation(Canvas canvas, Matrix matrix)
 	{
 		if (!helpText.equalsIgnoreCase(""))
 		{
 			if (isOpen && path.isVisible())
 			{
-				int stringCount = helpText.length();
-				
-				RectF tempRect = new RectF();
-
 				path.computeBounds(tempRect, true);
 
 				matrix.mapRect(tempRect);
 				
-				Point circleCenterPoint = new Point((float)(tempRect.left+(0.5*tempRect.width())), (float)(tempRect.top+(0.5*tempRect.height())));
+				float centerX = tempRect.centerX();
+				float centerY = tempRect.centerY();
 
 				
-				float rTop = (float) (circleCenterPoint.y-tempRect.height()/2);
-				float rLeft = circleCenterPoint.x;
-				float rRight = (float) (circleCenterPoint.x + tempRect.height() + (stringCount*(0.45 * tempRect.height()/2)));
-				float rBottom = (float) (circleCenterPoint.y+tempRect.height()/2);
+				float tempTextSize = (float) (tempRect.height()*0.40);
+				
+				float textX = (float) (centerX + 0.75*tempRect.height());
+				float textWidth = LabelLayoutCache.getInstance().measure(helpText, tempTextSize, paint);
+				
+				float rTop = (float) (centerY-tempRect.height()/2);
+				float rLeft = centerX;
+				float rRight = (float) (textX + textWidth + 0.25*tempRect.height());
+				float rBottom = (float) (centerY+tempRect.height()/2);
 
-				RectF helpBackground = new RectF(rLeft, rTop,rRight, rBottom);
+				helpBackground.set(rLeft, rTop,rRight, rBottom);
 
 				backgroundPaint.setStyle(Style.FILL);
 				backgroundPaint.setColor(backgroundColor);
@@ -139,16 +179,10 @@ public abstract class PropertyRelation extends CustomObjectRelation
 				
 				canvas.drawRect(helpBackground, backgroundPaint);
 				
-				float tempTextSize = (float) (tempRect.height()*0.40);
-				
-				Point textPos = new Point((float)(circleCenterPoint.x+ 0.75*tempRect.height()), (float) (circleCenterPoint.y+(tempRect.height()*0.15)));
-				
-				paint.setTextSize(tempTextSize);  
-
 				paint.setColor(Color.BLACK);
 
 				paint.setAlpha(alpha);
-				canvas.drawText(helpText, textPos.x, textPos.y, paint);
+				LabelLayoutCache.getInstance().draw(canvas, helpText, textX, (float) (centerY+(tempRect.height()*0.15)), tempTextSize, paint);
 				
 			}
 			
@@ -189,6 +223,11 @@ public abstract class PropertyRelation extends CustomObjectRelation
 		backgroundPaint = new Paint();
 		backgroundPaint.setAntiAlias(true);
 		
+		arrow = new RelationArrow(true);
+		strokeWidthRect = new RectF();
+		tempRect = new RectF();
+		helpBackground = new RectF();
+		
 		super.redrawPathsafterDeserialization(ma);
 	}
 }
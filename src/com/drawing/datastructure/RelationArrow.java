@@ -0,0 +1,90 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+
+package com.drawing.datastructure;
+
+import android.graphics.Matrix;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * Arrowhead of a relation. The shape is built once in a unit square and only posed again
+ * with a reused matrix if the screen bounds or the angle of the relation have changed,
+ * so that drawing an arrow does not allocate any objects.
+ *
+ */
+class RelationArrow
+{
+	/**
+	 * The shape in the unit square, pointing to the right
+	 */
+	private Path shape = new Path();
+
+	private Path posedShape = new Path();
+
+	private Matrix pose = new Matrix();
+
+	private RectF posedBounds = new RectF();
+
+	private double posedAngle;
+
+	private boolean posed = false;
+
+	/**
+	 * @param withShaft True if the line through the arrowhead should be drawn as well
+	 */
+	RelationArrow(boolean withShaft)
+	{
+		if (withShaft)
+		{
+			shape.moveTo(0.25f, 0.5f);
+			shape.lineTo(0.75f, 0.5f);
+		}
+		else
+		{
+			shape.moveTo(0.75f, 0.5f);
+		}
+
+		shape.lineTo(0.5f, 0.25f);
+		shape.lineTo(0.75f, 0.5f);
+		shape.lineTo(0.5f, 0.75f);
+		shape.lineTo(0.75f, 0.5f);
+
+		if (withShaft) shape.lineTo(0.25f, 0.5f);
+	}
+
+	/**
+	 * Getter for the arrow placed into the passed bounds and rotated around their center
+	 * @param bounds The screen bounds of the arrow
+	 * @param angle The angle of the relation in degrees
+	 * @return The posed arrow, only valid until the next call
+	 */
+	Path getPath(RectF bounds, double angle)
+	{
+		if (!posed || angle != posedAngle || bounds.left != posedBounds.left || bounds.top != posedBounds.top
+				|| bounds.right != posedBounds.right || bounds.bottom != posedBounds.bottom)
+		{
+			pose.setScale(bounds.width(), bounds.height());
+			pose.postTranslate(bounds.left, bounds.top);
+			pose.postRotate((float) (-90 + angle), bounds.centerX(), bounds.centerY());
+
+			shape.transform(pose, posedShape);
+
+			posedBounds.set(bounds);
+			posedAngle = angle;
+			posed = true;
+		}
+
+		return posedShape;
+	}
+}
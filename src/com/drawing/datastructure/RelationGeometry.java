@@ -0,0 +1,128 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.datastructure;
+
+import android.graphics.RectF;
+
+/**
+ * Cached world space bounds of a relation and the two components it connects. The bounds of a
+ * path are only read again after its geometry has changed, see {@link CustomPath#getGeometryStamp()},
+ * so relations between components that did not move can be drawn without any geometry work.
+ *
+ */
+public class RelationGeometry
+{
+	private RectF startBounds = new RectF();
+
+	private RectF endBounds = new RectF();
+
+	private RectF relationBounds = new RectF();
+
+	private CustomPath startPath, endPath, relationPath;
+
+	private int startStamp, endStamp, relationStamp;
+
+	/**
+	 * True if the start or the end element has moved since the relation was placed
+	 */
+	private boolean moved = false;
+
+	/**
+	 * True if the relation was placed for a highlighted element
+	 */
+	private boolean followsSelection = false;
+
+	/**
+	 * Refresh the cached bounds of all paths that have changed since the last call
+	 * @param relation The relation this geometry belongs to
+	 * @param start The start element of the relation
+	 * @param end The end element of the relation
+	 */
+	public void update(DrawingComponent relation, DrawingComponent start, DrawingComponent end)
+	{
+		CustomPath path = start.getPath();
+
+		if (path != startPath || path.getGeometryStamp() != startStamp)
+		{
+			path.computeBounds(startBounds, true);
+
+			startPath = path;
+			startStamp = path.getGeometryStamp();
+
+			moved = true;
+		}
+
+		path = end.getPath();
+
+		if (path != endPath || path.getGeometryStamp() != endStamp)
+		{
+			path.computeBounds(endBounds, true);
+
+			endPath = path;
+			endStamp = path.getGeometryStamp();
+
+			moved = true;
+		}
+
+		path = relation.getPath();
+
+		if (path != relationPath || path.getGeometryStamp() != relationStamp)
+		{
+			path.computeBounds(relationBounds, true);
+
+			relationPath = path;
+			relationStamp = path.getGeometryStamp();
+		}
+	}
+
+	/**
+	 * Check whether the path of the relation has to be placed between its elements again,
+	 * which is the case if an element has moved or if an element is or was highlighted.
+	 * The relation is expected to be placed if true is returned.
+	 * @param elementHighlighted True if the start or the end element is highlighted
+	 * @return True if the relation has to be placed
+	 */
+	public boolean needsPlacement(boolean elementHighlighted)
+	{
+		boolean placement = moved || elementHighlighted || followsSelection;
+
+		moved = false;
+		followsSelection = elementHighlighted;
+
+		return placement;
+	}
+
+	/**
+	 * @return The world space bounds of the start element, must not be modified
+	 */
+	public RectF getStartBounds()
+	{
+		return startBounds;
+	}
+
+	/**
+	 * @return The world space bounds of the end element, must not be modified
+	 */
+	public RectF getEndBounds()
+	{
+		return endBounds;
+	}
+
+	/**
+	 * @return The world space bounds of the relation path, must not be modified
+	 */
+	public RectF getRelationBounds()
+	{
+		return relationBounds;
+	}
+}
@@ -19,7 +19,6 @@ import java.util.List;
 import android.graphics.Matrix;
 import android.util.Log;
 
-import com.drawing.gestures.Point;
 
 /**
  * 
@@ -35,6 +34,26 @@ public class ScaledPathArray implements Serializable {
 	private static final long serialVersionUID = -95471371206112915L;
 	private List<CustomPath> paths; 
 	private List<float[]> scales; 
+	
+	/**
+	 * Transformation values of the identity matrix
+	 */
+	static final float[] IDENTITY = new float[] { 1, 0, 0, 0, 1, 0, 0, 0, 1 };
+	
+	/**
+	 * Counter for marking the paths that were already attached during a rebuild
+	 */
+	private static int stampCounter = 0;
+	
+	/**
+	 * Mark of the current rebuild
+	 */
+	private transient int stamp;
+	
+	/**
+	 * True if the order of the paths was changed by {@link #setOnTop(CustomPath)}
+	 */
+	private transient boolean reordered = false;
 		
 	/**
 	 * object that manages a list of paths and associated transformation matrices
@@ -53,8 +72,7 @@ public class ScaledPathArray implements Serializable {
 	 */
 	public void addPath(CustomPath path, Matrix scale)
 	{
-		List<Point> points =  CustomPath.transformVertices(path.getVertices(), scale) ;
-		path.setVertices(points);
+		path.transformVertices(scale);
 		
 		paths.add(path);
 		float[] values = new float[9]; 
@@ -65,18 +83,72 @@ public class ScaledPathArray implements Serializable {
 	
 	public void setOnTop(CustomPath path)
 	{
-		if (paths.indexOf(path) > 0)
+		int index = paths.indexOf(path);
+		
+		if (index > 0)
 		{
-			float[] values = new float[9]; 
-			values = scales.get(paths.indexOf(path));
-			scales.remove(paths.indexOf(path));
+			float[] values = scales.get(index);
+			scales.remove(index);
 			
 			scales.add(values);
 		}
 		
-		paths.remove(path);
+		if (index >= 0) paths.remove(index);
 
 		paths.add(path);
+		
+		reordered = true;
+	}
+	
+	/**
+	 * Figure out whether the order of the paths differs from the order of the data structure
+	 * @return true if paths were moved on top since the last rebuild
+	 */
+	public boolean isReordered()
+	{
+		return reordered;
+	}
+	
+	/**
+	 * Clear the list in order to refill it with {@link #addUnique(CustomPath, float[])} and
+	 * {@link #addAllUnique(ScaledPathArray)}, the allocated capacity is kept
+	 */
+	void beginRebuild()
+	{
+		paths.clear();
+		scales.clear();
+		
+		stamp = ++stampCounter;
+		reordered = false;
+	}
+	
+	/**
+	 * Attach a path without transforming it, unless it was already attached since the last
+	 * call of {@link #beginRebuild()}
+	 * @param path path object that is attached to the list
+	 * @param values transformation values that belong to the path
+	 */
+	void addUnique(CustomPath path, float[] values)
+	{
+		if (path.listStamp == stamp) return;
+		
+		path.listStamp = stamp;
+		
+		paths.add(path);
+		scales.add(values);
+	}
+	
+	/**
+	 * Attach all paths of another list, that were not attached since the last call of
+	 * {@link #beginRebuild()}
+	 * @param pathList object that's content should be added
+	 */
+	void addAllUnique(ScaledPathArray pathList)
+	{
+		for (int i = 0; i < pathList.paths.size(); i++)
+		{
+			addUnique(pathList.paths.get(i), (i < pathList.scales.size()) ? pathList.scales.get(i) : IDENTITY);
+		}
 	}
 
 /**
@@ -85,10 +157,12 @@ public class ScaledPathArray implements Serializable {
  */
 	public void removePath(CustomPath path)
 	{
-		if(paths.contains(path))
+		int index = paths.indexOf(path);
+		
+		if(index >= 0)
 		{
-			scales.remove(paths.indexOf(path));
-			paths.remove(path);
+			if (index < scales.size()) scales.remove(index);
+			paths.remove(index);
 		}
 	}
 	
@@ -261,29 +335,15 @@ public class ScaledPathArray implements Serializable {
 	 */
 	public void add(ScaledPathArray pathList) 
 	{
-		for(int i = 0; i < pathList.getPaths().size(); i++)
+		for(int i = 0; i < pathList.paths.size(); i++)
 		{
+			CustomPath path = pathList.paths.get(i);
 			
-			if(!paths.contains(pathList.getPaths().get(i)))
+			if(!paths.contains(path))
 			{
-		
-				paths.add(pathList.getPaths().get(i));
-				
-				float[] helper;
+				paths.add(path);
 				
-				if(pathList.getScales().size() > 0)
-				{
-					helper = new float[9];
-					pathList.getScales().get(i).getValues(helper);
-					scales.add(helper);
-				}
-				else
-				{
-					helper = new float[9];
-					new Matrix().getValues(helper);
-					scales.add(helper);
-				}
-					
+				scales.add((i < pathList.scales.size()) ? pathList.scales.get(i) : IDENTITY);
 			}
 		}
 
@@ -0,0 +1,126 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.datastructure;
+
+import java.io.IOException;
+
+/**
+ * Constants of the binary session format that is written by {@link SessionWriter} and
+ * read by {@link SessionReader}.
+ * <p>
+ * A session consists of a header with the magic number and the format version, the
+ * transformation matrices of the sketch board, the list of loaded ontology files and the
+ * component graph. Components and paths are referenced by their index in the stream, the
+ * first reference to a component carries its type, its fields follow in a later record.
+ * Records of changed components store the fields of their paths again, see {@link #PATHUPDATE}.
+ *
+ */
+public final class SessionFormat
+{
+	/**
+	 * Marks the start of a binary session file ("OSKS")
+	 */
+	public static final int MAGIC = 0x4F534B53;
+
+	/**
+	 * Version of the format that is written by this build
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Reference to a missing object
+	 */
+	static final int NULLREFERENCE = -1;
+
+	/**
+	 * Marks a path of a record that was written before, the index of the path and its current
+	 * fields follow. Paths are changed in place, so a record cannot refer to their old fields.
+	 */
+	static final int PATHUPDATE = -2;
+
+	// type tags of the concrete component classes, never reorder or reuse them
+	static final byte DRAWINGCOMPOSITE = 1;
+	static final byte DRAWINGLEAF = 2;
+	static final byte DRAWINGGROUP = 3;
+	static final byte DRAWINGCOMPOSITEWORD = 4;
+	static final byte DRAWINGWORDLETTER = 5;
+	static final byte DRAWINGCONCEPT = 6;
+	static final byte DRAWINGINDIVIDUAL = 7;
+	static final byte DRAWINGPROPERTYRELATION = 8;
+	static final byte FORMALIZEDCONCEPT = 9;
+	static final byte FORMALIZEDINDIVIDUAL = 10;
+	static final byte FORMALIZEDPROPERTYRELATION = 11;
+	static final byte FORMALIZEDPROPERTYRELATIONBUTTON = 12;
+	static final byte INSTATIATIONRELATION = 13;
+	static final byte SUBCLASSRELATION = 14;
+
+	private SessionFormat()
+	{
+	}
+
+	/**
+	 * Getter for the type tag of a component
+	 * @param component The component that should be stored
+	 * @return The tag that identifies the class of the component
+	 */
+	static byte typeOf(DrawingComponent component)
+	{
+		Class<?> type = component.getClass();
+
+		if (type == DrawingComposite.class) return DRAWINGCOMPOSITE;
+		if (type == DrawingLeaf.class) return DRAWINGLEAF;
+		if (type == DrawingGroup.class) return DRAWINGGROUP;
+		if (type == DrawingCompositeWord.class) return DRAWINGCOMPOSITEWORD;
+		if (type == DrawingWordLetter.class) return DRAWINGWORDLETTER;
+		if (type == DrawingConcept.class) return DRAWINGCONCEPT;
+		if (type == DrawingIndividual.class) return DRAWINGINDIVIDUAL;
+		if (type == DrawingPropertyRelation.class) return DRAWINGPROPERTYRELATION;
+		if (type == FormalizedConcept.class) return FORMALIZEDCONCEPT;
+		if (type == FormalizedIndividual.class) return FORMALIZEDINDIVIDUAL;
+		if (type == FormalizedPropertyRelation.class) return FORMALIZEDPROPERTYRELATION;
+		if (type == FormalizedPropertyRelationButton.class) return FORMALIZEDPROPERTYRELATIONBUTTON;
+		if (type == InstatiationRelation.class) return INSTATIATIONRELATION;
+		if (type == SubClassRelation.class) return SUBCLASSRELATION;
+
+		throw new IllegalArgumentException("Unsupported component type " + type.getName());
+	}
+
+	/**
+	 * Create an empty component of the passed type, its fields are filled in by
+	 * {@link DrawingComponent#readFields(SessionReader)}
+	 * @param tag The type tag that was read from the session
+	 * @return The new component
+	 * @throws IOException If the tag is unknown
+	 */
+	static DrawingComponent newComponent(byte tag) throws IOException
+	{
+		switch (tag)
+		{
+			case DRAWINGCOMPOSITE: return new DrawingComposite();
+			case DRAWINGLEAF: return new DrawingLeaf();
+			case DRAWINGGROUP: return new DrawingGroup();
+			case DRAWINGCOMPOSITEWORD: return new DrawingCompositeWord();
+			case DRAWINGWORDLETTER: return new DrawingWordLetter();
+			case DRAWINGCONCEPT: return new DrawingConcept();
+			case DRAWINGINDIVIDUAL: return new DrawingIndividual();
+			case DRAWINGPROPERTYRELATION: return new DrawingPropertyRelation();
+			case FORMALIZEDCONCEPT: return new FormalizedConcept();
+			case FORMALIZEDINDIVIDUAL: return new FormalizedIndividual();
+			case FORMALIZEDPROPERTYRELATION: return new FormalizedPropertyRelation();
+			case FORMALIZEDPROPERTYRELATIONBUTTON: return new FormalizedPropertyRelationButton();
+			case INSTATIATIONRELATION: return new InstatiationRelation();
+			case SUBCLASSRELATION: return new SubClassRelation();
+			default: throw new IOException("Unknown component type " + tag);
+		}
+	}
+}
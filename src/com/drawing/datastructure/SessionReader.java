@@ -0,0 +1,364 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.datastructure;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.drawing.gestures.Point;
+
+/**
+ * Reads a session that was written by {@link SessionWriter} from a <b>ByteBuffer</b>.
+ *
+ */
+public class SessionReader
+{
+	private ByteBuffer buffer;
+
+	private ArrayList<DrawingComponent> components;
+
+	private ArrayList<CustomPath> paths;
+
+	private DrawingComposite root;
+
+	private float[][] matrices;
+
+	private ArrayList<String> ontoList;
+
+	/**
+	 * @param buffer Buffer that contains the complete session, starting at its position
+	 */
+	public SessionReader(ByteBuffer buffer)
+	{
+		this.buffer = buffer;
+
+		components = new ArrayList<DrawingComponent>();
+		paths = new ArrayList<CustomPath>();
+	}
+
+	/**
+	 * Check whether the buffer starts with a binary session, the position of the buffer is not changed
+	 * @param buffer The buffer that contains the stored data
+	 * @return True if the buffer contains a binary session
+	 */
+	public static boolean isSession(ByteBuffer buffer)
+	{
+		return buffer.remaining() >= 4 && buffer.getInt(buffer.position()) == SessionFormat.MAGIC;
+	}
+
+	/**
+	 * Read the complete session, the results are available through the getters afterwards
+	 * @throws IOException If the session is corrupt or was written by a newer version
+	 */
+	public void readSession() throws IOException
+	{
+		try
+		{
+			if (readInt() != SessionFormat.MAGIC) throw new IOException("Not a session file");
+
+			int version = readInt();
+
+			if (version > SessionFormat.VERSION) throw new IOException("Unsupported session version " + version);
+
+			readState();
+
+			root = (DrawingComposite) readComponent();
+
+			readPendingComponents();
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw new IOException("Unexpected end of session");
+		}
+		catch (RuntimeException e)
+		{
+			// wrong component types or unknown enum constants
+			throw new IOException("Corrupt session: " + e);
+		}
+	}
+
+	/**
+	 * Apply a record that was written by {@link SessionWriter#writeRecord} after the
+	 * session and the records that were read by this reader before
+	 * @param record Buffer that contains the complete record, starting at its position
+	 * @throws IOException If the record is corrupt
+	 */
+	public void readRecord(ByteBuffer record) throws IOException
+	{
+		buffer = record;
+
+		try
+		{
+			readState();
+
+			int count = readInt();
+
+			for (int i = 0; i < count; i++)
+			{
+				readComponent();
+			}
+
+			readPendingComponents();
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw new IOException("Unexpected end of record");
+		}
+		catch (RuntimeException e)
+		{
+			throw new IOException("Corrupt record: " + e);
+		}
+	}
+
+	private void readState() throws IOException
+	{
+		matrices = new float[readInt()][];
+
+		for (int i = 0; i < matrices.length; i++)
+		{
+			matrices[i] = readFloats();
+		}
+
+		int ontoCount = readInt();
+
+		ontoList = new ArrayList<String>(ontoCount);
+
+		for (int i = 0; i < ontoCount; i++)
+		{
+			ontoList.add(readString());
+		}
+	}
+
+	private void readPendingComponents() throws IOException
+	{
+		int id;
+
+		while ((id = readInt()) != SessionFormat.NULLREFERENCE)
+		{
+			if (id < 0 || id >= components.size()) throw new IOException("Invalid component reference " + id);
+
+			components.get(id).readFields(this);
+		}
+	}
+
+	public DrawingComposite getRoot()
+	{
+		return root;
+	}
+
+	/**
+	 * Map the indices of the components that were read to the indices that a writer has
+	 * assigned to them, see {@link SessionWriter#renumber(int[], int[])}
+	 * @param writer The writer that has written the session of this reader again
+	 * @return The new index of every component or -1 if the writer has not written it
+	 */
+	public int[] mapComponentIds(SessionWriter writer)
+	{
+		int[] ids = new int[components.size()];
+
+		for (int i = 0; i < ids.length; i++)
+		{
+			ids[i] = writer.getId(components.get(i));
+		}
+
+		return ids;
+	}
+
+	/**
+	 * Map the indices of the paths that were read to the indices that a writer has assigned to them
+	 * @param writer The writer that has written the session of this reader again
+	 * @return The new index of every path or -1 if the writer has not written it
+	 */
+	public int[] mapPathIds(SessionWriter writer)
+	{
+		int[] ids = new int[paths.size()];
+
+		for (int i = 0; i < ids.length; i++)
+		{
+			ids[i] = writer.getId(paths.get(i));
+		}
+
+		return ids;
+	}
+
+	public float[][] getMatrices()
+	{
+		return matrices;
+	}
+
+	public ArrayList<String> getOntoList()
+	{
+		return ontoList;
+	}
+
+	public int readInt()
+	{
+		return buffer.getInt();
+	}
+
+	public long readLong()
+	{
+		return buffer.getLong();
+	}
+
+	public float readFloat()
+	{
+		return buffer.getFloat();
+	}
+
+	public double readDouble()
+	{
+		return buffer.getDouble();
+	}
+
+	public boolean readBoolean()
+	{
+		return buffer.get() != 0;
+	}
+
+	public String readString() throws IOException
+	{
+		int length = readInt();
+
+		if (length < 0) return null;
+
+		if (length > buffer.remaining()) throw new IOException("Invalid string length " + length);
+
+		byte[] bytes = new byte[length];
+
+		buffer.get(bytes);
+
+		return new String(bytes, SessionWriter.UTF8);
+	}
+
+	/**
+	 * Read a block that was written by {@link SessionWriter#writeFloats(float[], int)}
+	 * @return The values in an array of the stored length or null
+	 */
+	public float[] readFloats() throws IOException
+	{
+		int count = readInt();
+
+		if (count < 0) return null;
+
+		if (count > buffer.remaining() / 4) throw new IOException("Invalid array length " + count);
+
+		float[] values = new float[count];
+
+		buffer.asFloatBuffer().get(values);
+		buffer.position(buffer.position() + count * 4);
+
+		return values;
+	}
+
+	public <E extends Enum<E>> E readEnum(Class<E> type) throws IOException
+	{
+		String name = readString();
+
+		return (name != null) ? Enum.valueOf(type, name) : null;
+	}
+
+	public UUID readUUID()
+	{
+		if (!readBoolean()) return null;
+
+		long mostSignificantBits = readLong();
+
+		return new UUID(mostSignificantBits, readLong());
+	}
+
+	public Point readPoint()
+	{
+		if (!readBoolean()) return null;
+
+		float x = readFloat();
+
+		return new Point(x, readFloat());
+	}
+
+	/**
+	 * Read a component reference, components that are referenced for the first time are
+	 * created empty and filled in when their record is read
+	 * @return The referenced component or null
+	 */
+	public DrawingComponent readComponent() throws IOException
+	{
+		int id = readInt();
+
+		if (id == SessionFormat.NULLREFERENCE) return null;
+
+		if (id >= 0 && id < components.size()) return components.get(id);
+
+		if (id != components.size()) throw new IOException("Invalid component reference " + id);
+
+		DrawingComponent component = SessionFormat.newComponent(buffer.get());
+
+		components.add(component);
+
+		return component;
+	}
+
+	/**
+	 * Read a list of component references
+	 * @param target The list the components are appended to
+	 */
+	public void readComponents(List<DrawingComponent> target) throws IOException
+	{
+		int size = readInt();
+
+		for (int i = 0; i < size; i++)
+		{
+			target.add(readComponent());
+		}
+	}
+
+	/**
+	 * Read a path that was written by {@link SessionWriter#writePath(CustomPath)}
+	 * @return The path or null
+	 */
+	public CustomPath readPath() throws IOException
+	{
+		int id = readInt();
+
+		if (id == SessionFormat.NULLREFERENCE) return null;
+
+		if (id == SessionFormat.PATHUPDATE)
+		{
+			id = readInt();
+
+			if (id < 0 || id >= paths.size()) throw new IOException("Invalid path reference " + id);
+
+			CustomPath path = paths.get(id);
+
+			path.readFields(this);
+
+			return path;
+		}
+
+		if (id >= 0 && id < paths.size()) return paths.get(id);
+
+		if (id != paths.size()) throw new IOException("Invalid path reference " + id);
+
+		CustomPath path = new CustomPath();
+
+		paths.add(path);
+
+		path.readFields(this);
+
+		return path;
+	}
+}
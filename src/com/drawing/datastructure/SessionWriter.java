@@ -0,0 +1,412 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.datastructure;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.drawing.gestures.Point;
+
+/**
+ * Writes a composite structure into the binary session format described in
+ * {@link SessionFormat}. The data is collected in a growing <b>ByteBuffer</b> that can be
+ * handed to a <b>FileChannel</b> as a whole.
+ * <p>
+ * After a session has been written, the same writer can write records of changed
+ * components that refer to the components of the session by their index. Paths are changed
+ * in place, so every record contains the current fields of the paths of its components.
+ *
+ */
+public class SessionWriter
+{
+	private static final int INITIALCAPACITY = 64 * 1024;
+
+	private static final int RECORDCAPACITY = 4 * 1024;
+
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private ByteBuffer buffer;
+
+	private IdentityHashMap<DrawingComponent, Integer> componentIds;
+
+	private IdentityHashMap<CustomPath, Integer> pathIds;
+
+	/**
+	 * Known paths whose fields were written in the current record, null outside of records
+	 */
+	private IdentityHashMap<CustomPath, Boolean> updatedPaths;
+
+	/**
+	 * Components that were referenced but whose fields have not been written yet
+	 */
+	private ArrayList<DrawingComponent> pendingComponents;
+
+	public SessionWriter()
+	{
+		buffer = ByteBuffer.allocate(INITIALCAPACITY);
+
+		componentIds = new IdentityHashMap<DrawingComponent, Integer>();
+		pathIds = new IdentityHashMap<CustomPath, Integer>();
+		pendingComponents = new ArrayList<DrawingComponent>();
+	}
+
+	/**
+	 * Write a complete session
+	 * @param root The root of the composite structure
+	 * @param matrices The transformation matrices of the sketch board
+	 * @param ontoList The file names of the loaded ontologies
+	 * @return The buffer that contains the session, ready to be read
+	 */
+	public ByteBuffer writeSession(DrawingComposite root, float[][] matrices, List<String> ontoList)
+	{
+		writeInt(SessionFormat.MAGIC);
+		writeInt(SessionFormat.VERSION);
+
+		writeState(matrices, ontoList);
+
+		writeComponent(root);
+
+		writePendingComponents();
+
+		buffer.flip();
+
+		return buffer;
+	}
+
+	/**
+	 * Write a record that contains the current fields of the passed components. The record
+	 * can be applied by a {@link SessionReader} that has read the session and all earlier
+	 * records of this writer.
+	 * @param changed The components whose fields have changed
+	 * @param matrices The transformation matrices of the sketch board
+	 * @param ontoList The file names of the loaded ontologies
+	 * @return A new buffer that contains the record, ready to be read
+	 */
+	public ByteBuffer writeRecord(Collection<? extends DrawingComponent> changed, float[][] matrices, List<String> ontoList)
+	{
+		// the buffer of the previous record may still be in use
+		buffer = ByteBuffer.allocate(RECORDCAPACITY);
+
+		updatedPaths = new IdentityHashMap<CustomPath, Boolean>();
+
+		writeState(matrices, ontoList);
+
+		writeInt(changed.size());
+
+		for (DrawingComponent component : changed)
+		{
+			boolean known = componentIds.containsKey(component);
+
+			writeComponent(component);
+
+			// new components are queued by writeComponent already
+			if (known) pendingComponents.add(component);
+		}
+
+		writePendingComponents();
+
+		updatedPaths = null;
+
+		buffer.flip();
+
+		return buffer;
+	}
+
+	/**
+	 * Continue the records of this writer after the session was compacted. The compacted
+	 * session was read from the output of this writer and written again by another writer,
+	 * which numbered the components and paths that are still part of the session anew.
+	 * Objects that were dropped are written as new objects when they are referenced again.
+	 * @param componentIds The new index of every component index of this writer, -1 for dropped components
+	 * @param pathIds The new index of every path index of this writer, -1 for dropped paths
+	 * @see SessionReader#mapComponentIds(SessionWriter)
+	 */
+	public void renumber(int[] componentIds, int[] pathIds)
+	{
+		this.componentIds = renumber(this.componentIds, componentIds);
+		this.pathIds = renumber(this.pathIds, pathIds);
+	}
+
+	private static <T> IdentityHashMap<T, Integer> renumber(IdentityHashMap<T, Integer> ids, int[] newIds)
+	{
+		IdentityHashMap<T, Integer> renumbered = new IdentityHashMap<T, Integer>(ids.size());
+
+		for (Map.Entry<T, Integer> entry : ids.entrySet())
+		{
+			int id = entry.getValue().intValue();
+
+			if (id < newIds.length && newIds[id] >= 0) renumbered.put(entry.getKey(), Integer.valueOf(newIds[id]));
+		}
+
+		return renumbered;
+	}
+
+	/**
+	 * Getter for the index of a component
+	 * @return The index of the component or -1 if it was not written
+	 */
+	int getId(DrawingComponent component)
+	{
+		Integer id = componentIds.get(component);
+
+		return (id != null) ? id.intValue() : -1;
+	}
+
+	/**
+	 * Getter for the index of a path
+	 * @return The index of the path or -1 if it was not written
+	 */
+	int getId(CustomPath path)
+	{
+		Integer id = pathIds.get(path);
+
+		return (id != null) ? id.intValue() : -1;
+	}
+
+	private void writeState(float[][] matrices, List<String> ontoList)
+	{
+		writeInt(matrices.length);
+
+		for (int i = 0; i < matrices.length; i++)
+		{
+			writeFloats(matrices[i], matrices[i].length);
+		}
+
+		writeInt((ontoList != null) ? ontoList.size() : 0);
+
+		if (ontoList != null)
+		{
+			for (int i = 0; i < ontoList.size(); i++)
+			{
+				writeString(ontoList.get(i));
+			}
+		}
+	}
+
+	private void writePendingComponents()
+	{
+		// writing the fields of a component may add further pending components
+		for (int i = 0; i < pendingComponents.size(); i++)
+		{
+			DrawingComponent component = pendingComponents.get(i);
+
+			writeInt(componentIds.get(component));
+
+			component.writeFields(this);
+		}
+
+		pendingComponents.clear();
+
+		writeInt(SessionFormat.NULLREFERENCE);
+	}
+
+	public void writeInt(int value)
+	{
+		ensureCapacity(4);
+		buffer.putInt(value);
+	}
+
+	public void writeLong(long value)
+	{
+		ensureCapacity(8);
+		buffer.putLong(value);
+	}
+
+	public void writeFloat(float value)
+	{
+		ensureCapacity(4);
+		buffer.putFloat(value);
+	}
+
+	public void writeDouble(double value)
+	{
+		ensureCapacity(8);
+		buffer.putDouble(value);
+	}
+
+	public void writeBoolean(boolean value)
+	{
+		ensureCapacity(1);
+		buffer.put(value ? (byte) 1 : (byte) 0);
+	}
+
+	/**
+	 * Write a length prefixed UTF-8 string, null is stored with a length of -1
+	 */
+	public void writeString(String value)
+	{
+		if (value == null)
+		{
+			writeInt(-1);
+			return;
+		}
+
+		byte[] bytes = value.getBytes(UTF8);
+
+		writeInt(bytes.length);
+
+		ensureCapacity(bytes.length);
+		buffer.put(bytes);
+	}
+
+	/**
+	 * Write the first values of a float array as a length prefixed block
+	 * @param values The array, may be null
+	 * @param count The number of values that should be written
+	 */
+	public void writeFloats(float[] values, int count)
+	{
+		if (values == null)
+		{
+			writeInt(-1);
+			return;
+		}
+
+		writeInt(count);
+
+		ensureCapacity(count * 4);
+		buffer.asFloatBuffer().put(values, 0, count);
+		buffer.position(buffer.position() + count * 4);
+	}
+
+	public void writeEnum(Enum<?> value)
+	{
+		writeString((value != null) ? value.name() : null);
+	}
+
+	public void writeUUID(UUID value)
+	{
+		writeBoolean(value != null);
+
+		if (value == null) return;
+
+		writeLong(value.getMostSignificantBits());
+		writeLong(value.getLeastSignificantBits());
+	}
+
+	public void writePoint(Point value)
+	{
+		writeBoolean(value != null);
+
+		if (value == null) return;
+
+		writeFloat(value.x);
+		writeFloat(value.y);
+	}
+
+	/**
+	 * Write a reference to a component, its fields are written later on
+	 * @param component The referenced component, may be null
+	 */
+	public void writeComponent(DrawingComponent component)
+	{
+		if (component == null)
+		{
+			writeInt(SessionFormat.NULLREFERENCE);
+			return;
+		}
+
+		Integer id = componentIds.get(component);
+
+		if (id != null)
+		{
+			writeInt(id);
+			return;
+		}
+
+		id = componentIds.size();
+
+		componentIds.put(component, id);
+		pendingComponents.add(component);
+
+		writeInt(id);
+
+		ensureCapacity(1);
+		buffer.put(SessionFormat.typeOf(component));
+	}
+
+	/**
+	 * Write references to all components of a list
+	 * @param components The list of components, may be null
+	 */
+	public void writeComponents(List<? extends DrawingComponent> components)
+	{
+		int size = (components != null) ? components.size() : 0;
+
+		writeInt(size);
+
+		for (int i = 0; i < size; i++)
+		{
+			writeComponent(components.get(i));
+		}
+	}
+
+	/**
+	 * Write a path, paths that are shared by several components are only stored once per
+	 * session and once per record
+	 * @param path The path, may be null
+	 */
+	public void writePath(CustomPath path)
+	{
+		if (path == null)
+		{
+			writeInt(SessionFormat.NULLREFERENCE);
+			return;
+		}
+
+		Integer id = pathIds.get(path);
+
+		if (id != null)
+		{
+			if (updatedPaths != null && updatedPaths.put(path, Boolean.TRUE) == null)
+			{
+				writeInt(SessionFormat.PATHUPDATE);
+				writeInt(id);
+
+				path.writeFields(this);
+				return;
+			}
+
+			writeInt(id);
+			return;
+		}
+
+		id = pathIds.size();
+
+		pathIds.put(path, id);
+
+		if (updatedPaths != null) updatedPaths.put(path, Boolean.TRUE);
+
+		writeInt(id);
+
+		path.writeFields(this);
+	}
+
+	private void ensureCapacity(int bytes)
+	{
+		if (buffer.remaining() >= bytes) return;
+
+		ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+
+		buffer.flip();
+		grown.put(buffer);
+
+		buffer = grown;
+	}
+}
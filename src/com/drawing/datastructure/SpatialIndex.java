@@ -0,0 +1,371 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.datastructure;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import android.graphics.RectF;
+import android.util.SparseArray;
+
+/**
+ * Uniform grid over the world space bounds of all <b>DrawingComponent</b> objects of a
+ * composite structure. Hit tests only have to inverse-map the touch point and look up a
+ * single grid cell instead of transforming every path of the structure.
+ *
+ */
+public class SpatialIndex
+{
+	/**
+	 * Edge length of a grid cell in world coordinates
+	 */
+	static final float CELLSIZE = 256f;
+
+	/**
+	 * Components that would cover more cells than this are kept in a separate list
+	 */
+	static final int MAXCELLSPERENTRY = 64;
+
+	/**
+	 * Filter that decides whether a component is a valid result of a hit test
+	 */
+	public interface Filter
+	{
+		public boolean accept(DrawingComponent component);
+	}
+
+	/**
+	 * Bounds and cell range of an indexed component
+	 */
+	private static class Entry
+	{
+		DrawingComponent component;
+
+		RectF bounds = new RectF();
+
+		/**
+		 * insertion order, earlier components win a hit test like they did in the path list
+		 */
+		int sequence;
+
+		boolean oversized;
+
+		int minCellX, minCellY, maxCellX, maxCellY;
+	}
+
+	private SparseArray<ArrayList<Entry>> cells;
+
+	private HashMap<DrawingComponent, Entry> entries;
+
+	private ArrayList<Entry> oversizedEntries;
+
+	private int sequenceCounter = 0;
+
+	private RectF helperBounds = new RectF();
+
+	public SpatialIndex()
+	{
+		cells = new SparseArray<ArrayList<Entry>>();
+		entries = new HashMap<DrawingComponent, Entry>();
+		oversizedEntries = new ArrayList<Entry>();
+	}
+
+	/**
+	 * Add the component to the index or refresh its bounds if it is already contained
+	 * @param component The component whose path bounds should be indexed
+	 */
+	public void insert(DrawingComponent component)
+	{
+		update(component);
+	}
+
+	/**
+	 * Add the component and all its children to the index
+	 * @param component The root of the subtree that should be indexed
+	 */
+	public void insertSubtree(DrawingComponent component)
+	{
+		if (component == null) return;
+
+		update(component);
+
+		if (component instanceof DrawingComposite)
+		{
+			List<DrawingComponent> children = ((DrawingComposite) component).children;
+
+			for (int i = 0; i < children.size(); i++)
+			{
+				insertSubtree(children.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Re-read the current path bounds of the component and move it to the matching cells
+	 * @param component The component whose geometry has changed
+	 */
+	public void update(DrawingComponent component)
+	{
+		if (component == null) return;
+
+		CustomPath path = component.getPath();
+
+		if (path == null || path.isEmpty())
+		{
+			remove(component);
+			return;
+		}
+
+		path.computeBounds(helperBounds, true);
+
+		Entry entry = entries.get(component);
+
+		int minCellX = cell(helperBounds.left);
+		int minCellY = cell(helperBounds.top);
+		int maxCellX = cell(helperBounds.right);
+		int maxCellY = cell(helperBounds.bottom);
+
+		if (entry != null)
+		{
+			if (entry.minCellX == minCellX && entry.minCellY == minCellY
+					&& entry.maxCellX == maxCellX && entry.maxCellY == maxCellY)
+			{
+				// the component stays within the same cells
+				entry.bounds.set(helperBounds);
+				return;
+			}
+
+			unlink(entry);
+		}
+		else
+		{
+			entry = new Entry();
+			entry.component = component;
+			entry.sequence = sequenceCounter++;
+			entries.put(component, entry);
+		}
+
+		entry.bounds.set(helperBounds);
+		entry.minCellX = minCellX;
+		entry.minCellY = minCellY;
+		entry.maxCellX = maxCellX;
+		entry.maxCellY = maxCellY;
+
+		link(entry);
+	}
+
+	/**
+	 * Remove the component from the index
+	 * @param component The component that should be removed
+	 */
+	public void remove(DrawingComponent component)
+	{
+		Entry entry = entries.remove(component);
+
+		if (entry != null) unlink(entry);
+	}
+
+	/**
+	 * Remove the component and all its children from the index
+	 * @param component The root of the subtree that should be removed
+	 */
+	public void removeSubtree(DrawingComponent component)
+	{
+		if (component == null) return;
+
+		remove(component);
+
+		if (component instanceof DrawingComposite)
+		{
+			List<DrawingComponent> children = ((DrawingComposite) component).children;
+
+			for (int i = 0; i < children.size(); i++)
+			{
+				removeSubtree(children.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Drop all indexed components
+	 */
+	public void clear()
+	{
+		cells.clear();
+		entries.clear();
+		oversizedEntries.clear();
+		sequenceCounter = 0;
+	}
+
+	/**
+	 * Drop all entries and index the passed structure again
+	 * @param root The root of the composite structure
+	 */
+	public void rebuild(DrawingComposite root)
+	{
+		clear();
+
+		insertSubtree(root);
+	}
+
+	/**
+	 * Find the component whose bounds contain the passed world space point. Relations are
+	 * preferred over other components and earlier inserted components over later ones,
+	 * which corresponds to the order of the path list.
+	 * @param x x coordinate in world space
+	 * @param y y coordinate in world space
+	 * @param filter Filter for the accepted components, may be null
+	 * @return The matching component or null
+	 */
+	public DrawingComponent query(float x, float y, Filter filter)
+	{
+		Entry best = null;
+
+		ArrayList<Entry> cell = cells.get(key(cell(x), cell(y)));
+
+		if (cell != null)
+		{
+			for (int i = 0; i < cell.size(); i++)
+			{
+				best = choose(best, cell.get(i), x, y, filter);
+			}
+		}
+
+		for (int i = 0; i < oversizedEntries.size(); i++)
+		{
+			best = choose(best, oversizedEntries.get(i), x, y, filter);
+		}
+
+		return (best != null) ? best.component : null;
+	}
+
+	/**
+	 * Copy the indexed world space bounds of a component
+	 * @param component The component whose bounds are requested
+	 * @param bounds Receives the bounds
+	 * @return False if the component is not indexed
+	 */
+	public boolean getBounds(DrawingComponent component, RectF bounds)
+	{
+		Entry entry = entries.get(component);
+
+		if (entry == null) return false;
+
+		bounds.set(entry.bounds);
+
+		return true;
+	}
+
+	/**
+	 * Getter for the number of indexed components
+	 * @return The number of indexed components
+	 */
+	public int size()
+	{
+		return entries.size();
+	}
+
+	private Entry choose(Entry best, Entry candidate, float x, float y, Filter filter)
+	{
+		if (!candidate.bounds.contains(x, y)) return best;
+
+		if (filter != null && !filter.accept(candidate.component)) return best;
+
+		if (best == null) return candidate;
+
+		boolean bestIsRelation = isRelation(best.component);
+		boolean candidateIsRelation = isRelation(candidate.component);
+
+		if (candidateIsRelation != bestIsRelation) return candidateIsRelation ? candidate : best;
+
+		return (candidate.sequence < best.sequence) ? candidate : best;
+	}
+
+	private static boolean isRelation(DrawingComponent component)
+	{
+		return component instanceof CustomObjectRelation || component instanceof DrawingPropertyRelation;
+	}
+
+	private void link(Entry entry)
+	{
+		int cellCount = (entry.maxCellX - entry.minCellX + 1) * (entry.maxCellY - entry.minCellY + 1);
+
+		entry.oversized = cellCount > MAXCELLSPERENTRY;
+
+		if (entry.oversized)
+		{
+			oversizedEntries.add(entry);
+			return;
+		}
+
+		for (int cx = entry.minCellX; cx <= entry.maxCellX; cx++)
+		{
+			for (int cy = entry.minCellY; cy <= entry.maxCellY; cy++)
+			{
+				int key = key(cx, cy);
+
+				ArrayList<Entry> cell = cells.get(key);
+
+				if (cell == null)
+				{
+					cell = new ArrayList<Entry>(4);
+					cells.put(key, cell);
+				}
+
+				cell.add(entry);
+			}
+		}
+	}
+
+	private void unlink(Entry entry)
+	{
+		if (entry.oversized)
+		{
+			oversizedEntries.remove(entry);
+			return;
+		}
+
+		for (int cx = entry.minCellX; cx <= entry.maxCellX; cx++)
+		{
+			for (int cy = entry.minCellY; cy <= entry.maxCellY; cy++)
+			{
+				int key = key(cx, cy);
+
+				ArrayList<Entry> cell = cells.get(key);
+
+				if (cell != null)
+				{
+					cell.remove(entry);
+
+					if (cell.isEmpty()) cells.remove(key);
+				}
+			}
+		}
+	}
+
+	private static int cell(float coordinate)
+	{
+		int c = (int) Math.floor(coordinate / CELLSIZE);
+
+		if (c > Short.MAX_VALUE) c = Short.MAX_VALUE;
+		else if (c < Short.MIN_VALUE) c = Short.MIN_VALUE;
+
+		return c;
+	}
+
+	private static int key(int cellX, int cellY)
+	{
+		return (cellX << 16) | (cellY & 0xFFFF);
+	}
+}
@@ -12,13 +12,14 @@
  
 package com.drawing.datastructure;
 
+import java.io.IOException;
+
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Paint.Join;
 import android.graphics.Paint.Style;
-import android.graphics.Path;
 import android.graphics.RectF;
 import com.drawing.application.MainActivity;
 import com.drawing.gestures.Point;
@@ -33,14 +34,19 @@ import com.drawing.gestures.Point;
 public class SubClassRelation extends CustomObjectRelation
 {
 	transient private Paint arrowPaint;
-	transient private Path arrow;
+	transient private RelationArrow arrow;
 
 	private int backgroundColor;
 	
 	transient protected Paint paint;
 	transient protected Paint backgroundPaint;
 	
-	transient private RectF strokeWidthRect;
+	/**
+	 * Reused objects for drawing the arrow, the icon and the help text
+	 */
+	transient private RectF tempRect;
+	transient private RectF helpBackground;
+	transient private float[] arrowPoints;
 
 	private static final long serialVersionUID = 6359953629961716313L;
 
@@ -61,90 +67,81 @@ public class SubClassRelation extends CustomObjectRelation
 		
 		backgroundPaint = new Paint();
 		backgroundPaint.setAntiAlias(true);
+		
+		arrow = new RelationArrow(false);
+		tempRect = new RectF();
+		helpBackground = new RectF();
+		arrowPoints = new float[4];
 
 	}
-	
-	public void updateArrow(Canvas canvas, Matrix matrix, Point center, Point endArrow)
+
+	/**
+	 * Constructor for objects that are restored from a binary session
+	 * @see SessionReader
+	 */
+	SubClassRelation()
 	{
-		RectF tempRect = new RectF();
+	}
 
-		path.computeBounds(tempRect, true);
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#writeFields(SessionWriter)
+	 */
+	protected void writeFields(SessionWriter out)
+	{
+		super.writeFields(out);
 
-		if (!path.isHighlighted()) 
-			matrix.mapRect(tempRect);
-		
-		RectF r = new RectF(center.x, center.y, endArrow.x, endArrow.y);
-		Point arrowCenterPoint = new Point(r.centerX(), r.centerY());
-		
-		Matrix rotateMatrix = new Matrix();
-		
-		tempRect = new RectF((float)(arrowCenterPoint.x-(0.5*tempRect.width())), (float)(arrowCenterPoint.y-(0.5*tempRect.height())), (float)(arrowCenterPoint.x+(0.5*tempRect.width())), (float)(arrowCenterPoint.y+(0.5*tempRect.height())));
+		out.writeInt(backgroundColor);
+	}
+
+	/**
+	 * @see com.drawing.datastructure.DrawingComponent#readFields(SessionReader)
+	 */
+	protected void readFields(SessionReader in) throws IOException
+	{
+		super.readFields(in);
+
+		backgroundColor = in.readInt();
+	}
+	
+	public void updateArrow(Canvas canvas, Matrix matrix, Point center, Point endArrow)
+	{
+		drawArrow(canvas, matrix, (center.x + endArrow.x) / 2, (center.y + endArrow.y) / 2);
+	}
+	
+	public void updateArrow(Canvas canvas, Matrix matrix)
+	{
+		RelationGeometry geometry = getGeometry();
 		
-		Point start = new Point((float)(tempRect.left+(0.25*tempRect.width())), (float)(tempRect.top+(0.5*tempRect.height())));
-		Point end = new Point((float)(tempRect.left+(0.75*tempRect.width())), (float)(tempRect.top+(0.5*tempRect.height())));
-		Point top = new Point((float)(tempRect.left+(0.5*tempRect.width())), (float)(tempRect.top+(0.25*tempRect.height())));
-		Point bottom = new Point((float)(tempRect.left+(0.5*tempRect.width())), (float)(tempRect.top+(0.75*tempRect.height())));
+		geometry.update(this, startElement, endElement);
 		
-		arrow = new Path();
-		arrow.moveTo(end.x, end.y);
-		arrow.lineTo(top.x, top.y);
-		arrow.lineTo(end.x, end.y);
-		arrow.lineTo(bottom.x, bottom.y);
-		arrow.lineTo(end.x, end.y);
-
-		rotateMatrix.setRotate((float)(-90+this.angle),arrowCenterPoint.x, arrowCenterPoint.y);
+		arrowPoints[0] = geometry.getRelationBounds().centerX();
+		arrowPoints[1] = geometry.getRelationBounds().centerY();
+		arrowPoints[2] = geometry.getEndBounds().centerX();
+		arrowPoints[3] = geometry.getEndBounds().centerY();
 		
-		arrow.transform(rotateMatrix);
+		matrix.mapPoints(arrowPoints);
 		
-		arrowPaint.setStrokeWidth(3f);
-		arrowPaint.setColor(Color.BLACK);
-		arrowPaint.setAlpha(alpha);
-		canvas.drawPath(arrow, arrowPaint);
+		drawArrow(canvas, matrix, (arrowPoints[0] + arrowPoints[2]) / 2, (arrowPoints[1] + arrowPoints[3]) / 2);
 	}
 	
-	public void updateArrow(Canvas canvas, Matrix matrix)
+	/**
+	 * Draw the arrowhead with the screen size of the relation circle at the passed position
+	 */
+	private void drawArrow(Canvas canvas, Matrix matrix, float centerX, float centerY)
 	{
-		RectF tempRect = new RectF();
-
 		path.computeBounds(tempRect, true);
 
-		//if (!path.isHighlighted()) 
-			matrix.mapRect(tempRect);
-		
-		Point center = this.getCenterPoint();
-		Point endArrow = this.getEndElementCenterPoint();
-		
-		float[] points = {center.x, center.y, endArrow.x, endArrow.y};
-		matrix.mapPoints(points);
-		
-		RectF r = new RectF(points[0], points[1], points[2], points[3]);
-
-		Point arrowCenterPoint = new Point(r.centerX(), r.centerY());
-
-		Matrix rotateMatrix = new Matrix();
-		
-		tempRect = new RectF((float)(arrowCenterPoint.x-(0.5*tempRect.width())), (float)(arrowCenterPoint.y-(0.5*tempRect.height())), (float)(arrowCenterPoint.x+(0.5*tempRect.width())), (float)(arrowCenterPoint.y+(0.5*tempRect.height())));
+		matrix.mapRect(tempRect);
 		
-		Point start = new Point((float)(tempRect.left+(0.25*tempRect.width())), (float)(tempRect.top+(0.5*tempRect.height())));
-		Point end = new Point((float)(tempRect.left+(0.75*tempRect.width())), (float)(tempRect.top+(0.5*tempRect.height())));
-		Point top = new Point((float)(tempRect.left+(0.5*tempRect.width())), (float)(tempRect.top+(0.25*tempRect.height())));
-		Point bottom = new Point((float)(tempRect.left+(0.5*tempRect.width())), (float)(tempRect.top+(0.75*tempRect.height())));
-
-		arrow = new Path();
-		arrow.moveTo(end.x, end.y);
-		arrow.lineTo(top.x, top.y);
-		arrow.lineTo(end.x, end.y);
-		arrow.lineTo(bottom.x, bottom.y);
-		arrow.lineTo(end.x, end.y);
+		float halfWidth = tempRect.width() / 2;
+		float halfHeight = tempRect.height() / 2;
 		
-		rotateMatrix.setRotate((float)(-90+this.angle),arrowCenterPoint.x, arrowCenterPoint.y);
-		
-		arrow.transform(rotateMatrix);
+		tempRect.set(centerX - halfWidth, centerY - halfHeight, centerX + halfWidth, centerY + halfHeight);
 		
 		arrowPaint.setStrokeWidth(3f);
 		arrowPaint.setColor(Color.BLACK);
 		arrowPaint.setAlpha(alpha);
-		canvas.drawPath(arrow, arrowPaint);
+		canvas.drawPath(arrow.getPath(tempRect, angle), arrowPaint);
 	}
 	
 	public void updateHelpText()
@@ -163,20 +160,12 @@ public class SubClassRelation extends CustomObjectRelation
 	
 	public void drawRelationIcon(Canvas canvas, Matrix matrix)
 	{
-		
-		strokeWidthRect = new RectF(0,0, 4f, 4f);
-		
-		RectF tempRect = new RectF();
-
 		path.computeBounds(tempRect, true);
 
-		if (!path.isHighlighted()) matrix.mapRect(tempRect);
-		matrix.mapRect(strokeWidthRect);
+		matrix.mapRect(tempRect);
 
 		float tempTextSize = (float) (tempRect.height() * 0.8);
 		
-		Point textPos = new Point((float)(tempRect.left+(0.225*tempRect.width())), (float) (tempRect.top+(0.775*tempRect.height())));
-		
 		paint.setTextSize(tempTextSize);  
 
 		if (isOpen)
@@ -185,33 +174,59 @@ public class SubClassRelation extends CustomObjectRelation
 			paint.setColor(Color.WHITE);
 
 		paint.setAlpha(alpha);
-		canvas.drawText("C", textPos.x, textPos.y, paint);
+		canvas.drawText("C", (float)(tempRect.left+(0.225*tempRect.width())), (float) (tempRect.top+(0.775*tempRect.height())), paint);
 		
 	}
 	
 
+	/**
+	 * Compute the screen bounds of the help text label, the same as in
+	 * {@link #drawPropertyRelationHelpText(Canvas, Matrix)}
+	 */
+	public boolean computeLabelBounds(Matrix matrix, RectF bounds)
+	{
+		if (!isOpen || helpText.equalsIgnoreCase("")) return false;
+
+		path.computeBounds(bounds, true);
+
+		matrix.mapRect(bounds);
+
+		float height = bounds.height();
+		float centerX = bounds.centerX();
+		float centerY = bounds.centerY();
+
+		float textX = (float) (centerX + 0.75*height);
+		float textWidth = LabelLayoutCache.getInstance().measure(helpText, (float) (height*0.40), paint);
+
+		bounds.set(centerX, centerY-height/2, (float) (textX + textWidth + 0.25*height), centerY+height/2);
+
+		return true;
+	}
+
 	public void drawPropertyRelationHelpText(Canvas canvas, Matrix matrix)
 	{
 		if (!helpText.equalsIgnoreCase(""))
 		{
 			if (isOpen)
 			{
-				int stringCount = helpText.length();
-				
-				RectF tempRect = new RectF();
-
 				path.computeBounds(tempRect, true);
 
 				matrix.mapRect(tempRect);
 				
-				Point circleCenterPoint = new Point((float)(tempRect.left+(0.5*tempRect.width())), (float)(tempRect.top+(0.5*tempRect.height())));
+				float centerX = tempRect.centerX();
+				float centerY = tempRect.centerY();
 
-				float rTop = (float) (circleCenterPoint.y-tempRect.height()/2);
-				float rLeft = circleCenterPoint.x;
-				float rRight = (float) (circleCenterPoint.x + tempRect.height() +(stringCount*(0.425 * tempRect.height()/2)));
-				float rBottom = (float) (circleCenterPoint.y+tempRect.height()/2);
+				float tempTextSize = (float) (tempRect.height()*0.40);
+				
+				float textX = (float) (centerX + 0.75*tempRect.height());
+				float textWidth = LabelLayoutCache.getInstance().measure(helpText, tempTextSize, paint);
+				
+				float rTop = (float) (centerY-tempRect.height()/2);
+				float rLeft = centerX;
+				float rRight = (float) (textX + textWidth + 0.25*tempRect.height());
+				float rBottom = (float) (centerY+tempRect.height()/2);
 
-				RectF helpBackground = new RectF(rLeft, rTop,rRight, rBottom);
+				helpBackground.set(rLeft, rTop,rRight, rBottom);
 
 				backgroundPaint.setStyle(Style.FILL);
 				backgroundPaint.setColor(backgroundColor);
@@ -226,16 +241,10 @@ public class SubClassRelation extends CustomObjectRelation
 				
 				canvas.drawRect(helpBackground, backgroundPaint);
 				
-				float tempTextSize = (float) (tempRect.height()*0.40);
-				
-				Point textPos = new Point((float)(circleCenterPoint.x+ 0.75*tempRect.height()), (float) (circleCenterPoint.y+(tempRect.height()*0.15)));
-				
-				paint.setTextSize(tempTextSize);  
-
 				paint.setColor(Color.BLACK);
 
 				paint.setAlpha(alpha);
-				canvas.drawText(helpText, textPos.x, textPos.y, paint);
+				LabelLayoutCache.getInstance().draw(canvas, helpText, textX, (float) (centerY+(tempRect.height()*0.15)), tempTextSize, paint);
 			}	
 		}
 		else 
@@ -263,6 +272,11 @@ public class SubClassRelation extends CustomObjectRelation
 		backgroundPaint = new Paint();
 		backgroundPaint.setAntiAlias(true);
 		
+		arrow = new RelationArrow(false);
+		tempRect = new RectF();
+		helpBackground = new RectF();
+		arrowPoints = new float[4];
+		
 		super.redrawPathsafterDeserialization(ma);
 	}
 	
@@ -0,0 +1,194 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.datastructure;
+
+/**
+ * Static two dimensional k-d tree over the vertices of a <b>CustomPath</b>. The
+ * coordinates are stored interleaved (x, y) in a single float array that is
+ * reordered in place so that the median of every range is the splitting node.
+ * Nearest vertex queries do not allocate any objects.
+ *
+ */
+public class VertexIndex
+{
+	/**
+	 * Interleaved and reordered vertex coordinates
+	 */
+	private float[] coordinates;
+
+	/**
+	 * Number of indexed vertices
+	 */
+	private int count;
+
+	/**
+	 * Geometry stamp of the path the coordinates were taken from
+	 */
+	private int stamp;
+
+	/**
+	 * Create a k-d tree over the passed coordinates
+	 * @param xy Interleaved vertex coordinates, the array is copied
+	 * @param count Number of vertices that should be indexed
+	 * @param stamp Geometry stamp of the path at the time the coordinates were read
+	 */
+	public VertexIndex(float[] xy, int count, int stamp)
+	{
+		this.count = count;
+		this.stamp = stamp;
+
+		coordinates = new float[count * 2];
+
+		System.arraycopy(xy, 0, coordinates, 0, count * 2);
+
+		build(0, count, 0);
+	}
+
+	/**
+	 * Getter for the number of indexed vertices
+	 * @return The number of indexed vertices
+	 */
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * Getter for the geometry stamp of the indexed vertices
+	 * @return The stamp that was passed on construction
+	 */
+	public int getStamp()
+	{
+		return stamp;
+	}
+
+	/**
+	 * Determine the weighted manhattan distance between the passed point and the
+	 * nearest vertex. The weights correspond to the scale factors of an axis aligned
+	 * transformation matrix, so the result equals the distance in screen space.
+	 * @param x x coordinate of the query point
+	 * @param y y coordinate of the query point
+	 * @param weightX Weight of the distance along the x axis
+	 * @param weightY Weight of the distance along the y axis
+	 * @param bound Only distances smaller than this value are considered
+	 * @return The distance to the nearest vertex or bound if no vertex is closer
+	 */
+	public float nearestDistance(float x, float y, float weightX, float weightY, float bound)
+	{
+		if (count == 0) return bound;
+
+		return search(0, count, 0, x, y, Math.abs(weightX), Math.abs(weightY), bound);
+	}
+
+	private float search(int from, int to, int axis, float x, float y, float weightX, float weightY, float best)
+	{
+		if (from >= to) return best;
+
+		int median = (from + to) >>> 1;
+
+		float vx = coordinates[2 * median];
+		float vy = coordinates[2 * median + 1];
+
+		float distance = Math.abs(vx - x) * weightX + Math.abs(vy - y) * weightY;
+
+		if (distance < best) best = distance;
+
+		float delta = (axis == 0) ? (x - vx) * weightX : (y - vy) * weightY;
+
+		int nextAxis = axis ^ 1;
+
+		// visit the side of the query point first, the other side only if it can contain a closer vertex
+		if (delta < 0)
+		{
+			best = search(from, median, nextAxis, x, y, weightX, weightY, best);
+
+			if (-delta < best) best = search(median + 1, to, nextAxis, x, y, weightX, weightY, best);
+		}
+		else
+		{
+			best = search(median + 1, to, nextAxis, x, y, weightX, weightY, best);
+
+			if (delta < best) best = search(from, median, nextAxis, x, y, weightX, weightY, best);
+		}
+
+		return best;
+	}
+
+	private void build(int from, int to, int axis)
+	{
+		if (to - from < 2) return;
+
+		int median = (from + to) >>> 1;
+
+		select(from, to - 1, median, axis);
+
+		build(from, median, axis ^ 1);
+		build(median + 1, to, axis ^ 1);
+	}
+
+	/**
+	 * Quickselect that moves the k-th smallest vertex regarding the passed axis to
+	 * position k and partitions the range around it
+	 */
+	private void select(int left, int right, int k, int axis)
+	{
+		while (right > left)
+		{
+			int middle = (left + right) >>> 1;
+
+			// median of three as pivot
+			if (value(middle, axis) < value(left, axis)) swap(middle, left);
+			if (value(right, axis) < value(left, axis)) swap(right, left);
+			if (value(right, axis) < value(middle, axis)) swap(right, middle);
+
+			float pivot = value(middle, axis);
+
+			int i = left;
+			int j = right;
+
+			while (i <= j)
+			{
+				while (value(i, axis) < pivot) i++;
+				while (value(j, axis) > pivot) j--;
+
+				if (i <= j)
+				{
+					swap(i, j);
+					i++;
+					j--;
+				}
+			}
+
+			if (k <= j) right = j;
+			else if (k >= i) left = i;
+			else return;
+		}
+	}
+
+	private float value(int index, int axis)
+	{
+		return coordinates[2 * index + axis];
+	}
+
+	private void swap(int a, int b)
+	{
+		float tx = coordinates[2 * a];
+		float ty = coordinates[2 * a + 1];
+
+		coordinates[2 * a] = coordinates[2 * b];
+		coordinates[2 * a + 1] = coordinates[2 * b + 1];
+
+		coordinates[2 * b] = tx;
+		coordinates[2 * b + 1] = ty;
+	}
+}
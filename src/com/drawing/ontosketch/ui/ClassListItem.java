@@ -63,7 +63,7 @@ public class ClassListItem extends ListItem
 			@SuppressLint("NewApi")
 			public void onClick(View v) 
 			{
-				((MainActivity) context).selectiveUpdateOntoPanel(OntologyObjectTypes.FORMALIZEDCONCEPT, OntologyObjectTypes.FORMALIZEDINDIVIDUAL, getUri(), itemname);
+				((MainActivity) context).selectiveUpdateOntoPanel(OntologyObjectTypes.FORMALIZEDCONCEPT, OntologyObjectTypes.FORMALIZEDINDIVIDUAL, getUri(), getItemname());
 			}
 		});
 
@@ -83,51 +83,22 @@ public class ClassListItem extends ListItem
 		
 	}
 	
-	public ClassListItem(final ClassListItem li)
+	/**
+	 * @see com.drawing.ontosketch.ui.ListItem#bind(OntologyListNode, OntologyListAdapter)
+	 */
+	public void bind(OntologyListNode node, OntologyListAdapter adapter)
 	{
-		super(li.getContext(), li.getItemname());
-		
-		inflater = (LayoutInflater) li.getContext().getSystemService(Context.LAYOUT_INFLATER_SERVICE);
-
-		ll = (LinearLayout) inflater.inflate(R.layout.class_list_item, null);
-		
-		this.addView(ll);
-		
-		tv = (TextView) ll.findViewById(R.id.primaryText);
-		
-		collapseBtn = (ImageButton) ll.findViewById(R.id.collapseButton);
-
-		childToggleBtn = (ImageButton) ll.findViewById(R.id.itemButton);
-		
-		childToggleBtn.setOnClickListener(new OnClickListener() 
-		{
-			@SuppressLint("NewApi")
-			public void onClick(View v) 
-			{
-				((MainActivity) v.getContext()).selectiveUpdateOntoPanel(OntologyObjectTypes.FORMALIZEDCONCEPT, OntologyObjectTypes.FORMALIZEDINDIVIDUAL, getUri(), li.getItemname());
-			}
-		});
-		
-		childToggleBtn.setVisibility(View.GONE);
-		
-		setHasIndividuals(li.hasIndividuals);
-
-		hLevel = li.gethLevel();
+		hLevel = node.gethLevel();
 		
 		LayoutParams params = (LayoutParams) collapseBtn.getLayoutParams();
 		params.setMargins(5+(25*hLevel), 10, 5, 0); //left, top, right, bottom
 		collapseBtn.setLayoutParams(params);
 		
-		collapseBtn.setVisibility(View.GONE);
-		
-		tv.setText(li.getItemname());
+		tv.setText(node.getItemname());
 		
-		setCurrentState(li.getCurrentState());
+		setHasIndividuals(node.hasIndividuals());
 		
-		this.setOnClickListener(this);
-		
-		uri = li.getUri();
-
+		super.bind(node, adapter);
 	}
 
 	public void setHasIndividuals(boolean hasIndividuals)
@@ -37,7 +37,7 @@ public class IndividualListItem extends ListItem
 	private ImageButton childToggleBtn;
 
 	@SuppressLint("NewApi")
-	public IndividualListItem(Context context, String itemname, final String classname)
+	public IndividualListItem(Context context, String itemname, String classname)
 	{
 		super(context, itemname);
 		
@@ -66,44 +66,24 @@ public class IndividualListItem extends ListItem
 			@SuppressLint("NewApi")
 			public void onClick(View v) 
 			{
-				((MainActivity) v.getContext()).selectiveUpdateOntoPanel(OntologyObjectTypes.FORMALIZEDINDIVIDUAL, OntologyObjectTypes.FORMALIZEDCONCEPT, getUri(), classname);
+				((MainActivity) v.getContext()).selectiveUpdateOntoPanel(OntologyObjectTypes.FORMALIZEDINDIVIDUAL, OntologyObjectTypes.FORMALIZEDCONCEPT, getUri(), getClassName());
 			}
 		});
 		
 	}
 
-	public IndividualListItem(final IndividualListItem li)
+	/**
+	 * @see com.drawing.ontosketch.ui.ListItem#bind(OntologyListNode, OntologyListAdapter)
+	 */
+	public void bind(OntologyListNode node, OntologyListAdapter adapter)
 	{
-		super(li.getContext(), li.getItemname());
+		classname = node.getClassName();
 		
-		inflater = (LayoutInflater) li.getContext().getSystemService(Context.LAYOUT_INFLATER_SERVICE);
-
-		ll = (LinearLayout) inflater.inflate(R.layout.individual_list_item, null);
-		
-		this.addView(ll);
-		
-		tv = (TextView) ll.findViewById(R.id.primaryText);
-		
-		tv.setText(li.getItemname());
-		
-		tv2 = (TextView) ll.findViewById(R.id.secondaryText);
-		
-		tv2.setText(getResources().getString(R.string.individual_class_of) + " " + li.getClassName());
-		
-		setCurrentState(li.getCurrentState());
+		tv.setText(node.getItemname());
 		
-		uri = li.getUri();
-		
-		childToggleBtn = (ImageButton) ll.findViewById(R.id.itemButton);
+		tv2.setText(getResources().getString(R.string.individual_class_of) + " " + classname);
 		
-		childToggleBtn.setOnClickListener(new OnClickListener() 
-		{
-			@SuppressLint("NewApi")
-			public void onClick(View v) 
-			{
-				((MainActivity) v.getContext()).selectiveUpdateOntoPanel(OntologyObjectTypes.FORMALIZEDINDIVIDUAL, OntologyObjectTypes.FORMALIZEDCONCEPT, getUri(), li.getClassName());
-			}
-		});
+		super.bind(node, adapter);
 	}
 	
 	public String getClassName() 
@@ -12,8 +12,6 @@
  
 package com.drawing.ontosketch.ui;
 
-import java.util.ArrayList;
-
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.view.LayoutInflater;
@@ -45,20 +43,21 @@ public class ListHeaderItem extends LinearLayout implements OnClickListener, OnT
 
 	protected TextView tv;
 	
-	private boolean open = true;
-	
 	final ImageButton collapseBtn;
 	final ImageButton deleteBtn;
 	
-	private ArrayList<ListItem> childs;
+	/**
+	 * The node that is currently shown by this recycled view
+	 */
+	private OntologyListNode node;
+	
+	private OntologyListAdapter adapter;
 
 	@SuppressLint("NewApi")
-	public ListHeaderItem(final Context context, final String itemname)
+	public ListHeaderItem(final Context context, String itemname)
 	{
 		super(context);
 		
-		childs = new ArrayList<ListItem>();
-
 		this.itemname = itemname;
 
 		inflater = (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
@@ -84,47 +83,33 @@ public class ListHeaderItem extends LinearLayout implements OnClickListener, OnT
 			@SuppressLint("NewApi")
 			public void onClick(View v) 
 			{
-				((MainActivity) context).showRemoveOntologyDialog(itemname);
+				((MainActivity) context).showRemoveOntologyDialog(ListHeaderItem.this.itemname);
 			}
 		});
 	}
 
-	public ArrayList<ListItem> getChilds()
-	{
-		return childs;
-	}
-
-	public void addChildren(ListItem cll)
+	/**
+	 * Show the header node of an ontology, the view may have shown another node before
+	 * @param node The node that is shown
+	 * @param adapter The adapter that handles collapsing the node
+	 */
+	public void bind(OntologyListNode node, OntologyListAdapter adapter)
 	{
-		if (!childs.contains(cll))
-		{
-			childs.add(cll);
-		}
+		this.node = node;
+		this.adapter = adapter;
+		
+		itemname = node.getItemname();
 		
+		tv.setText(itemname);
+		
+		if (node.isOpen()) collapseBtn.setImageDrawable(getResources().getDrawable(R.drawable.ic_listitem_open2));
+		else collapseBtn.setImageDrawable(getResources().getDrawable(R.drawable.ic_listitem_close2));
 	}
 
 	@Override
 	public void onClick(View v)
 	{
-		for (ListItem li : childs)
-		{
-			if (open) 
-			{
-
-				li.setVisibility(View.GONE);
-				collapseBtn.setImageDrawable(getResources().getDrawable(R.drawable.ic_listitem_close2));
-				
-			}
-			else 
-			{
-				li.setVisibility(View.VISIBLE);
-				li.setIconOpen();
-				
-				collapseBtn.setImageDrawable(getResources().getDrawable(R.drawable.ic_listitem_open2));
-			}
-		}
-		
-		open = !open;
+		if (adapter != null) adapter.toggle(node);
 	}
 	
 	@Override
@@ -12,8 +12,6 @@
  
 package com.drawing.ontosketch.ui;
 
-import java.util.ArrayList;
-
 import android.annotation.SuppressLint;
 import android.content.ClipData;
 import android.content.Context;
@@ -24,6 +22,7 @@ import android.view.View;
 import android.view.View.OnClickListener;
 import android.view.View.OnLongClickListener;
 import android.view.View.OnTouchListener;
+import android.widget.AbsListView;
 import android.widget.ImageButton;
 import android.widget.LinearLayout;
 import android.widget.TextView;
@@ -56,19 +55,14 @@ public abstract class ListItem extends LinearLayout implements OnLongClickListen
 
 	private ListItemState _currentState = ListItemState.NONE;
 	
-	protected boolean open = true;
-	
 	protected ImageButton collapseBtn;
 	
-	private ArrayList<ListItem> childs;
+	/**
+	 * The node that is currently shown by this recycled view
+	 */
+	protected OntologyListNode node;
 	
-	public void addChildren(ListItem cll)
-	{
-		if (!childs.contains(cll))
-		{
-			childs.add(cll);
-		}	
-	}
+	protected OntologyListAdapter adapter;
 	
 	@SuppressLint("NewApi")
 	public ListItem(Context context, String itemname)
@@ -77,9 +71,7 @@ public abstract class ListItem extends LinearLayout implements OnLongClickListen
 		
 		this.setBackgroundColor(getResources().getColor(R.color.tabBackground));
 		
-		childs = new ArrayList<ListItem>();
-		
-		LayoutParams params = new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
+		AbsListView.LayoutParams params = new AbsListView.LayoutParams(AbsListView.LayoutParams.MATCH_PARENT, AbsListView.LayoutParams.WRAP_CONTENT);
 
 		this.setLayoutParams(params);
 		
@@ -128,64 +120,47 @@ public abstract class ListItem extends LinearLayout implements OnLongClickListen
 		this.uri = uri;
 	}
 
-	public void checkChildCount()
+	/**
+	 * Show a node of the ontology panel, the view may have shown another node before
+	 * @param node The node that is shown
+	 * @param adapter The adapter that handles collapsing the node
+	 */
+	public void bind(OntologyListNode node, OntologyListAdapter adapter)
 	{
-		if (childs.size() > 0)
-			collapseBtn.setVisibility(View.VISIBLE);
-	}
-
-	@Override
-	public void onClick(View v)
-	{
-		for (ListItem li : childs)
+		this.node = node;
+		this.adapter = adapter;
+		
+		itemname = node.getItemname();
+		uri = node.getUri();
+		
+		// redraw the state, the recycled view may show a state of the previous node
+		_currentState = ListItemState.NONE;
+		setCurrentState(node.getCurrentState());
+		
+		if (collapseBtn != null)
 		{
-			if (open) 
+			if (!adapter.isHierarchical())
 			{
-				li.setVisibility(View.GONE);
-				collapseBtn.setImageDrawable(getResources().getDrawable(R.drawable.ic_listitem_close2));
+				collapseBtn.setVisibility(View.GONE);
 			}
-			else 
+			else if (node.getChilds().size() > 0)
 			{
-				li.setVisibility(View.VISIBLE);
-				collapseBtn.setImageDrawable(getResources().getDrawable(R.drawable.ic_listitem_open2));
-			}
-			
-			if (open && li.getChilds().size() > 0)
-			{
-				li.toogleCollapse(open);
-			}
+				collapseBtn.setVisibility(View.VISIBLE);
 				
-		}
-		
-		open = !open;
-	}
-	
-	public void toogleCollapse(boolean b)
-	{
-		for (ListItem li : childs)
-		{
-			if (b) 
-			{
-				li.setVisibility(View.GONE);
-				collapseBtn.setImageDrawable(getResources().getDrawable(R.drawable.ic_listitem_close2));
+				if (node.isOpen()) collapseBtn.setImageDrawable(getResources().getDrawable(R.drawable.ic_listitem_open2));
+				else collapseBtn.setImageDrawable(getResources().getDrawable(R.drawable.ic_listitem_close2));
 			}
-			else 
+			else
 			{
-				li.setVisibility(View.VISIBLE);
-				collapseBtn.setImageDrawable(getResources().getDrawable(R.drawable.ic_listitem_open2));
+				collapseBtn.setVisibility(View.INVISIBLE);
 			}
-			
-			li.open = b;
-			
-			if (li.getChilds().size() > 0)
-				li.toogleCollapse(b);
 		}
 	}
-	
-	public void setIconOpen()
+
+	@Override
+	public void onClick(View v)
 	{
-		if(collapseBtn != null) collapseBtn.setImageDrawable(getResources().getDrawable(R.drawable.ic_listitem_open2));
-		open = true;
+		if (adapter != null) adapter.toggle(node);
 	}
 
 	@Override
@@ -225,11 +200,6 @@ public abstract class ListItem extends LinearLayout implements OnLongClickListen
 		return uri;
 	}
 
-	public boolean isOpen()
-	{
-		return open;
-	}
-
 	public void setCurrentState(ListItemState clis)
 	{
 		if (clis != _currentState)	
@@ -262,12 +232,6 @@ public abstract class ListItem extends LinearLayout implements OnLongClickListen
 		return _currentState;
 	}
 
-	public ArrayList<ListItem> getChilds()
-	{
-		return childs;
-	}
-
-
 	public String getItemname()
 	{
 		return itemname;
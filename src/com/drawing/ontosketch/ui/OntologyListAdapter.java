@@ -0,0 +1,353 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+ 
+package com.drawing.ontosketch.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+import com.drawing.ontosketch.ui.ListItem.ListItemState;
+
+/**
+ * Adapter that backs a list of the ontology panel with trees of {@link OntologyListNode}s.
+ * The visible nodes are flattened into rows in depth first order, collapsing a node only
+ * changes the model and the list item views of the rows on screen are recycled.
+ * <p>
+ * A flat adapter shows its nodes without their children, it is used for the search results.
+ *
+ */
+public class OntologyListAdapter extends BaseAdapter
+{
+	private Context context;
+
+	private boolean hierarchical;
+
+	private ArrayList<OntologyListNode> roots = new ArrayList<OntologyListNode>();
+
+	/**
+	 * Visible nodes in the order they are listed, rebuilt on demand after the model has changed
+	 */
+	private ArrayList<OntologyListNode> rows;
+
+	/**
+	 * All nodes of the adapter by their lower case uri
+	 */
+	private HashMap<String, ArrayList<OntologyListNode>> uriIndex = new HashMap<String, ArrayList<OntologyListNode>>();
+
+	/**
+	 * @param context The context of the list item views
+	 * @param hierarchical False if the children of the nodes should not be shown
+	 */
+	public OntologyListAdapter(Context context, boolean hierarchical)
+	{
+		this.context = context;
+		this.hierarchical = hierarchical;
+	}
+
+	public boolean isHierarchical()
+	{
+		return hierarchical;
+	}
+
+	/**
+	 * Add a node, {@link #update()} has to be called afterwards
+	 * @param parent The parent node or null to add a root node
+	 * @param node The new node without children
+	 */
+	public void add(OntologyListNode parent, OntologyListNode node)
+	{
+		if (parent == null) roots.add(node);
+		else parent.addChild(node);
+
+		index(node);
+	}
+
+	/**
+	 * Remove a root node and all its children, {@link #update()} has to be called afterwards
+	 * @param root The root node
+	 */
+	public void remove(OntologyListNode root)
+	{
+		if (!roots.remove(root)) return;
+
+		ArrayList<OntologyListNode> nodes = new ArrayList<OntologyListNode>();
+
+		collect(root, nodes);
+
+		for (OntologyListNode node : nodes)
+		{
+			List<OntologyListNode> list = uriIndex.get(key(node.getUri()));
+
+			if (list != null) list.remove(node);
+		}
+	}
+
+	/**
+	 * Replace the content of the adapter and update the list
+	 * @param nodes The new root nodes, their children are added as well
+	 */
+	public void setNodes(List<OntologyListNode> nodes)
+	{
+		roots.clear();
+		uriIndex.clear();
+
+		for (OntologyListNode node : nodes)
+		{
+			roots.add(node);
+
+			if (hierarchical)
+			{
+				ArrayList<OntologyListNode> subtree = new ArrayList<OntologyListNode>();
+
+				collect(node, subtree);
+
+				for (OntologyListNode n : subtree)
+				{
+					index(n);
+				}
+			}
+			else
+			{
+				index(node);
+			}
+		}
+
+		update();
+	}
+
+	/**
+	 * Remove all nodes and update the list
+	 */
+	public void clear()
+	{
+		roots.clear();
+		uriIndex.clear();
+
+		update();
+	}
+
+	/**
+	 * Getter for all nodes in depth first order, including the hidden ones
+	 * @return New list of the nodes
+	 */
+	public ArrayList<OntologyListNode> getNodes()
+	{
+		ArrayList<OntologyListNode> nodes = new ArrayList<OntologyListNode>();
+
+		for (OntologyListNode root : roots)
+		{
+			if (hierarchical) collect(root, nodes);
+			else nodes.add(root);
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * Getter for the nodes of an uri, the comparison ignores the case
+	 * @param uri The uri of the ontology resource
+	 * @return Unmodifiable list of the nodes, empty if there are none
+	 */
+	public List<OntologyListNode> getNodes(String uri)
+	{
+		List<OntologyListNode> list = uriIndex.get(key(uri));
+
+		if (list == null) return Collections.emptyList();
+
+		return Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * Getter for the first node of an uri
+	 * @param uri The uri of the ontology resource
+	 * @return The node or null
+	 */
+	public OntologyListNode getNode(String uri)
+	{
+		List<OntologyListNode> list = uriIndex.get(key(uri));
+
+		return (list == null || list.isEmpty()) ? null : list.get(0);
+	}
+
+	/**
+	 * Set the state of all nodes of an uri and update the list
+	 * @param uri The uri of the ontology resource
+	 * @param state The new state
+	 */
+	public void setCurrentState(String uri, ListItemState state)
+	{
+		List<OntologyListNode> list = uriIndex.get(key(uri));
+
+		if (list == null || list.isEmpty()) return;
+
+		for (OntologyListNode node : list)
+		{
+			node.setCurrentState(state);
+		}
+
+		notifyDataSetChanged();
+	}
+
+	/**
+	 * Collapse or expand the children of a node
+	 * @param node A node of this adapter
+	 */
+	public void toggle(OntologyListNode node)
+	{
+		if (!hierarchical || node.getChilds().isEmpty()) return;
+
+		node.setOpen(!node.isOpen());
+
+		update();
+	}
+
+	/**
+	 * Rebuild the rows after the model has changed and redraw the list
+	 */
+	public void update()
+	{
+		rows = null;
+
+		notifyDataSetChanged();
+	}
+
+	@Override
+	public int getCount()
+	{
+		return getRows().size();
+	}
+
+	@Override
+	public OntologyListNode getItem(int position)
+	{
+		return getRows().get(position);
+	}
+
+	@Override
+	public long getItemId(int position)
+	{
+		return position;
+	}
+
+	@Override
+	public int getViewTypeCount()
+	{
+		return OntologyListNode.NodeType.values().length;
+	}
+
+	@Override
+	public int getItemViewType(int position)
+	{
+		return getItem(position).getType().ordinal();
+	}
+
+	@Override
+	public View getView(int position, View convertView, ViewGroup parent)
+	{
+		OntologyListNode node = getItem(position);
+
+		switch (node.getType())
+		{
+			case HEADER:
+
+				ListHeaderItem lhi = (convertView != null) ? (ListHeaderItem) convertView : new ListHeaderItem(context, node.getItemname());
+				lhi.bind(node, this);
+				return lhi;
+
+			case CONCEPT:
+
+				ClassListItem cll = (convertView != null) ? (ClassListItem) convertView : new ClassListItem(context, node.getItemname(), node.gethLevel());
+				cll.bind(node, this);
+				return cll;
+
+			case INDIVIDUAL:
+
+				IndividualListItem ill = (convertView != null) ? (IndividualListItem) convertView : new IndividualListItem(context, node.getItemname(), node.getClassName());
+				ill.bind(node, this);
+				return ill;
+
+			default:
+
+				PropertyListItem pll = (convertView != null) ? (PropertyListItem) convertView : new PropertyListItem(context, node.getItemname(), node.getColor());
+				pll.bind(node, this);
+				return pll;
+		}
+	}
+
+	private ArrayList<OntologyListNode> getRows()
+	{
+		if (rows == null)
+		{
+			rows = new ArrayList<OntologyListNode>();
+
+			for (OntologyListNode root : roots)
+			{
+				if (hierarchical) addVisible(root, rows);
+				else rows.add(root);
+			}
+		}
+
+		return rows;
+	}
+
+	private void addVisible(OntologyListNode node, ArrayList<OntologyListNode> target)
+	{
+		target.add(node);
+
+		if (!node.isOpen()) return;
+
+		for (OntologyListNode child : node.getChilds())
+		{
+			addVisible(child, target);
+		}
+	}
+
+	private void collect(OntologyListNode node, ArrayList<OntologyListNode> target)
+	{
+		target.add(node);
+
+		for (OntologyListNode child : node.getChilds())
+		{
+			collect(child, target);
+		}
+	}
+
+	private void index(OntologyListNode node)
+	{
+		if (node.getUri() == null) return;
+
+		String key = key(node.getUri());
+
+		ArrayList<OntologyListNode> list = uriIndex.get(key);
+
+		if (list == null)
+		{
+			list = new ArrayList<OntologyListNode>(1);
+			uriIndex.put(key, list);
+		}
+
+		list.add(node);
+	}
+
+	private static String key(String uri)
+	{
+		return (uri != null) ? uri.toLowerCase(Locale.ENGLISH) : null;
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+ 
+package com.drawing.ontosketch.ui;
+
+import java.util.ArrayList;
+
+import com.drawing.ontosketch.ui.ListItem.ListItemState;
+
+/**
+ * Model of an entry in the ontology panel. The nodes of an ontology form a tree of
+ * its header, the concepts and their sub concepts, the list item views are only
+ * created for the visible nodes by the {@link OntologyListAdapter}.
+ *
+ */
+public class OntologyListNode
+{
+	public enum NodeType { HEADER, CONCEPT, INDIVIDUAL, PROPERTY };
+
+	private NodeType type;
+
+	private String itemname;
+
+	private String uri;
+
+	/**
+	 * Local name of the class of an individual
+	 */
+	private String classname;
+
+	private int hLevel = 0;
+
+	private int color = 0;
+
+	private boolean hasIndividuals = false;
+
+	private ListItemState state;
+
+	/**
+	 * Whether the relations of a property are shown, only active properties can be checked
+	 */
+	private boolean checked = false;
+
+	/**
+	 * Whether the children of the node are shown
+	 */
+	private boolean open = true;
+
+	private OntologyListNode parent;
+
+	private ArrayList<OntologyListNode> childs = new ArrayList<OntologyListNode>();
+
+	public OntologyListNode(NodeType type, String itemname, String uri)
+	{
+		this.type = type;
+		this.itemname = itemname;
+		this.uri = uri;
+
+		state = (type == NodeType.PROPERTY) ? ListItemState.INACTIVE : ListItemState.ACTIVE;
+	}
+
+	/**
+	 * Append a child node, the adapter that shows the tree has to be updated afterwards
+	 * @param child The new child
+	 */
+	public void addChild(OntologyListNode child)
+	{
+		child.parent = this;
+
+		childs.add(child);
+	}
+
+	public NodeType getType()
+	{
+		return type;
+	}
+
+	public String getItemname()
+	{
+		return itemname;
+	}
+
+	public String getUri()
+	{
+		return uri;
+	}
+
+	public String getClassName()
+	{
+		return classname;
+	}
+
+	public void setClassName(String classname)
+	{
+		this.classname = classname;
+	}
+
+	public int gethLevel()
+	{
+		return hLevel;
+	}
+
+	public void sethLevel(int hLevel)
+	{
+		this.hLevel = hLevel;
+	}
+
+	public int getColor()
+	{
+		return color;
+	}
+
+	public void setColor(int color)
+	{
+		this.color = color;
+	}
+
+	public boolean hasIndividuals()
+	{
+		return hasIndividuals;
+	}
+
+	public void setHasIndividuals(boolean hasIndividuals)
+	{
+		this.hasIndividuals = hasIndividuals;
+	}
+
+	public ListItemState getCurrentState()
+	{
+		return state;
+	}
+
+	/**
+	 * Setter for the state, activating a property checks it and deactivating unchecks it
+	 * @param state The new state
+	 */
+	public void setCurrentState(ListItemState state)
+	{
+		if (state == this.state) return;
+
+		this.state = state;
+
+		if (state == ListItemState.ACTIVE) checked = true;
+		else if (state == ListItemState.INACTIVE) checked = false;
+	}
+
+	public boolean isChecked()
+	{
+		return checked;
+	}
+
+	public void setChecked(boolean checked)
+	{
+		this.checked = checked;
+	}
+
+	public boolean isOpen()
+	{
+		return open;
+	}
+
+	public void setOpen(boolean open)
+	{
+		this.open = open;
+	}
+
+	public OntologyListNode getParent()
+	{
+		return parent;
+	}
+
+	public ArrayList<OntologyListNode> getChilds()
+	{
+		return childs;
+	}
+}
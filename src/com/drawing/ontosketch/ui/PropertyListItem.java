@@ -56,10 +56,6 @@ public class PropertyListItem extends ListItem implements OnCheckedChangeListene
 		
 		ma = (MainActivity) getContext();
 
-		LayoutParams params = new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
-
-		this.setLayoutParams(params);
-
 		this.itemname = itemname;
 		
 		this.color = color;
@@ -84,39 +80,21 @@ public class PropertyListItem extends ListItem implements OnCheckedChangeListene
 
 	}
 
-	public PropertyListItem(PropertyListItem li)
+	/**
+	 * @see com.drawing.ontosketch.ui.ListItem#bind(OntologyListNode, OntologyListAdapter)
+	 */
+	public void bind(OntologyListNode node, OntologyListAdapter adapter)
 	{
-		super(li.getContext(), li.getItemname());
-		
-		ma = (MainActivity) getContext();
-
-		LayoutParams params = new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT);
-
-		this.setLayoutParams(params);
-
-		this.itemname = li.getItemname();
+		itemname = node.getItemname();
+		uri = node.getUri();
+		color = node.getColor();
 		
-		this.color = li.getColor();
-
-		inflater = (LayoutInflater) li.getContext().getSystemService(Context.LAYOUT_INFLATER_SERVICE);
-
-		ll = (LinearLayout) inflater.inflate(R.layout.property_list_item, null);
-
-		this.addView(ll);
-
-		cb = (CheckBox) ll.findViewById(R.id.primaryText);
-
 		cb.setText(itemname);
 		
-		iconBackground = (PropertyIconBackground) ll.findViewById(R.id.imageDraw);
-		
-		iconBackground.setColor(color);
-
-		setCurrentState(li.getCurrentState());
-		
-		this.setOnTouchListener(null);
+		// redraw the state, the recycled view may show a state of the previous node
+		_currentState = ListItemState.NONE;
 		
-		uri = li.getUri();
+		super.bind(node, adapter);
 	}
 
 	private ListItemState _currentState = ListItemState.NONE;
@@ -163,19 +141,16 @@ public class PropertyListItem extends ListItem implements OnCheckedChangeListene
 		
 		cb.setChecked(false);
 		cb.setEnabled(false);
-		
-		ma.setOntopanelPropertyListItemActive(uri, false);
-
 	}
 
 	private void drawActive()
 	{
 		iconBackground.setColor(color);
 		
-		cb.setChecked(true);
-		cb.setEnabled(true);
+		cb.setOnCheckedChangeListener(null);
 		
-		ma.setOntopanelPropertyListItemActive(uri, true);
+		cb.setChecked((node != null) ? node.isChecked() : true);
+		cb.setEnabled(true);
 		
 		cb.setOnCheckedChangeListener(this);
 
@@ -207,6 +182,8 @@ public class PropertyListItem extends ListItem implements OnCheckedChangeListene
 	@Override
 	public void onCheckedChanged(CompoundButton buttonView, boolean isChecked)
 	{
+		if (node != null) node.setChecked(isChecked);
+		
 		if(isChecked)
 		{
 			ma.showPropertyRelation(this.uri, this.color);
@@ -0,0 +1,233 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.hwr.android.RecoInterface;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Converts a {@link WordTrie} into the compact file format of {@link MappedDictionary}. Nodes
+ * with the same children are stored only once, so the common endings of the words are shared
+ * like in a directed acyclic word graph.
+ * <p>
+ * The file starts with the header
+ * <ul>
+ * <li>the magic number {@link #MAGIC}</li>
+ * <li>the version {@link #VERSION}</li>
+ * <li>the number of edges</li>
+ * <li>the first edge of the root</li>
+ * <li>the number of words</li>
+ * <li>the CRC32 of the word list that the words were read from</li>
+ * </ul>
+ * followed by the edges. Every edge consists of two integers: the symbol in the upper 16 bits,
+ * the frequency in the next 8 bits and {@link #LASTEDGE} for the last child of a node, then the
+ * first edge of the children or -1.
+ *
+ */
+public class DictionaryCompiler
+{
+	public static final int MAGIC = 0x44415747;
+
+	public static final int VERSION = 3;
+
+	static final int HEADERSIZE = 24;
+
+	static final int EDGESIZE = 8;
+
+	static final int LASTEDGE = 1;
+
+	private WordTrie source;
+
+	/**
+	 * First edges of the lists of children that were added
+	 */
+	private HashMap<EdgeList, Integer> lists = new HashMap<EdgeList, Integer>();
+
+	/**
+	 * The lists of children in the order of their edges
+	 */
+	private ArrayList<int[]> edges = new ArrayList<int[]>();
+
+	private int edgeCount;
+
+	/**
+	 * Children of a node, two integers per edge in the format of the file
+	 */
+	private static class EdgeList
+	{
+		final int[] values;
+
+		final int hash;
+
+		EdgeList(int[] values)
+		{
+			this.values = values;
+
+			hash = Arrays.hashCode(values);
+		}
+
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		public boolean equals(Object o)
+		{
+			return o instanceof EdgeList && Arrays.equals(values, ((EdgeList) o).values);
+		}
+	}
+
+	private DictionaryCompiler(WordTrie source)
+	{
+		this.source = source;
+	}
+
+	/**
+	 * Write the words of the trie to a file, the file is replaced once it is complete
+	 * @param source The words
+	 * @param sourceChecksum The CRC32 of the word list, see
+	 *            {@link MappedDictionary#getSourceChecksum()}
+	 * @param target The file of the dictionary
+	 * @return The number of edges
+	 */
+	public static int compile(WordTrie source, int sourceChecksum, File target) throws IOException
+	{
+		DictionaryCompiler compiler = new DictionaryCompiler(source);
+
+		int rootEdge = compiler.addChildren(source.getRoot());
+
+		File file = new File(target.getPath() + ".tmp");
+
+		FileOutputStream out = new FileOutputStream(file);
+
+		try
+		{
+			FileChannel channel = out.getChannel();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADERSIZE);
+
+			header.putInt(MAGIC);
+			header.putInt(VERSION);
+			header.putInt(compiler.edgeCount);
+			header.putInt(rootEdge);
+			header.putInt(source.getWordCount());
+			header.putInt(sourceChecksum);
+			header.flip();
+
+			write(channel, header);
+
+			ByteBuffer block = ByteBuffer.allocate(64 * 1024);
+
+			for (int[] list : compiler.edges)
+			{
+				if (block.remaining() < list.length * 4)
+				{
+					block.flip();
+					write(channel, block);
+					block.clear();
+				}
+
+				for (int value : list)
+				{
+					block.putInt(value);
+				}
+			}
+
+			block.flip();
+			write(channel, block);
+
+			out.getFD().sync();
+		}
+		finally
+		{
+			out.close();
+		}
+
+		if (!file.renameTo(target)) throw new IOException("Could not replace " + target);
+
+		return compiler.edgeCount;
+	}
+
+	/**
+	 * Add the children of the node after their own children unless an equal list was added before
+	 * @return The first edge of the children or -1 if the node has none
+	 */
+	private int addChildren(int node)
+	{
+		int count = 0;
+
+		for (int child = source.getFirstChild(node); child != WordTrie.NONODE; child = source.getNextSibling(child))
+		{
+			count++;
+		}
+
+		if (count == 0) return -1;
+
+		int[] children = new int[count];
+
+		count = 0;
+
+		for (int child = source.getFirstChild(node); child != WordTrie.NONODE; child = source.getNextSibling(child))
+		{
+			// sorted by symbol, so equal lists are found regardless of the insertion order
+			int position = count++;
+
+			while (position > 0 && source.getSymbol(children[position - 1]) > source.getSymbol(child))
+			{
+				children[position] = children[position - 1];
+				position--;
+			}
+
+			children[position] = child;
+		}
+
+		int[] values = new int[count * 2];
+
+		for (int i = 0; i < count; i++)
+		{
+			int child = children[i];
+
+			values[2 * i] = (source.getSymbol(child) << 16) | (Math.min(source.getFrequency(child), WordTrie.MAXFREQUENCY) << 8) | ((i == count - 1) ? LASTEDGE : 0);
+			values[2 * i + 1] = addChildren(child);
+		}
+
+		EdgeList list = new EdgeList(values);
+
+		Integer first = lists.get(list);
+
+		if (first != null) return first.intValue();
+
+		int edge = edgeCount;
+
+		lists.put(list, Integer.valueOf(edge));
+		edges.add(values);
+
+		edgeCount += count;
+
+		return edge;
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+}
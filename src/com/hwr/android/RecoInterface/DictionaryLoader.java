@@ -0,0 +1,324 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.hwr.android.RecoInterface;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import android.content.res.AssetManager;
+import android.util.Log;
+
+/**
+ * Opens the {@link MappedDictionary} of a language.
+ * <p>
+ * The assets contain a dictionary <i>Language.dct</i> for every supported language. These
+ * files start with the header <i>RCDT</i> that is checked here, their body is the compressed
+ * format of the commercial recognizer that was used before and can not be read. The words are
+ * taken from
+ * <ol>
+ * <li>a compiled dictionary <i>Language.dawg</i> that is stored uncompressed in the assets and
+ * mapped in place</li>
+ * <li>a dictionary of the same name in the cache directory that was compiled before</li>
+ * <li>a plain list <i>Language.txt</i> in the assets, see {@link Lexicon#read(InputStream, int)},
+ * that is compiled into the cache directory and compiled again when its checksum changes, regional
+ * dictionaries without a list of their own use the list of their language, see
+ * {@link #WORDLISTS}. The lists are generated from the vocabularies in <i>tools/wordlists</i>.</li>
+ * </ol>
+ *
+ */
+public class DictionaryLoader
+{
+	/**
+	 * Frequency of the words of lists without frequencies
+	 */
+	public static final int LISTFREQUENCY = 16;
+
+	private static final String TAG = "DictionaryLoader";
+
+	private static final byte[] DICTIONARYMAGIC = { 'R', 'C', 'D', 'T' };
+
+	/**
+	 * Length of the header of the dictionaries in bytes
+	 */
+	private static final int DICTIONARYHEADER = 12;
+
+	/**
+	 * Languages of the assets by their ISO 639 code
+	 */
+	private static final String[][] LANGUAGES = {
+		{ "en", "English" },
+		{ "de", "German" },
+		{ "fr", "French" },
+		{ "es", "Spanish" },
+		{ "it", "Italian" },
+		{ "nl", "Dutch" },
+		{ "da", "Dannish" },
+		{ "fi", "Finnish" },
+		{ "nb", "Norwegian" },
+		{ "no", "Norwegian" },
+		{ "sv", "Swedish" },
+		{ "pt", "Portugues" } };
+
+	/**
+	 * Word lists of the regional dictionaries that do not have one of their own
+	 */
+	private static final String[][] WORDLISTS = {
+		{ "EnglishUS", "English" },
+		{ "EnglishUS2", "English" },
+		{ "EnglishUK", "English" },
+		{ "MedicalUS", "English" },
+		{ "Brazilian", "Portugues" } };
+
+	/**
+	 * @return The name of the dictionary for the language of the locale, English if there is none
+	 */
+	public static String getLanguage(Locale locale)
+	{
+		String code = locale.getLanguage();
+
+		if ("pt".equals(code) && "BR".equals(locale.getCountry())) return "Brazilian";
+
+		if ("en".equals(code) && "US".equals(locale.getCountry())) return "EnglishUS";
+
+		if ("en".equals(code) && "GB".equals(locale.getCountry())) return "EnglishUK";
+
+		for (String[] language : LANGUAGES)
+		{
+			if (language[0].equals(code)) return language[1];
+		}
+
+		return "English";
+	}
+
+	/**
+	 * @return The names of the languages that have a dictionary in the assets
+	 */
+	public static String[] getLanguages(AssetManager assets)
+	{
+		ArrayList<String> languages = new ArrayList<String>();
+
+		try
+		{
+			for (String name : assets.list(""))
+			{
+				if (name.endsWith(".dct")) languages.add(name.substring(0, name.length() - 4));
+			}
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+
+		return languages.toArray(new String[languages.size()]);
+	}
+
+	/**
+	 * Open the dictionary of a language, it is compiled first if necessary
+	 * @param assets The assets of the application
+	 * @param cacheDirectory The directory of the compiled dictionaries
+	 * @param language The name of the dictionary, e.g. <i>German</i>
+	 * @return The dictionary or null if there are no words for the language
+	 */
+	public static synchronized MappedDictionary load(AssetManager assets, File cacheDirectory, String language)
+	{
+		if (!hasDictionary(assets, language)) Log.d(TAG, "no dictionary for " + language);
+
+		String name = language + ".dawg";
+
+		try
+		{
+			return MappedDictionary.open(assets.openFd(name));
+		}
+		catch (FileNotFoundException e)
+		{
+			// not in the assets or compressed
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+
+		File file = new File(cacheDirectory, name);
+
+		if (file.exists())
+		{
+			try
+			{
+				MappedDictionary dictionary = MappedDictionary.open(file);
+
+				if (dictionary.getSourceChecksum() == getWordListChecksum(assets, language)) return dictionary;
+
+				Log.d(TAG, "word list of " + language + " changed, it is compiled again");
+			}
+			catch (IOException e)
+			{
+				// written by an older version or the word list is missing
+				Log.d(TAG, e.toString());
+			}
+		}
+
+		Lexicon lexicon = new Lexicon();
+
+		CRC32 checksum = new CRC32();
+
+		InputStream in = null;
+
+		try
+		{
+			// the checksum is computed while the list is read
+			in = new CheckedInputStream(openWordList(assets, language), checksum);
+
+			lexicon.read(in, LISTFREQUENCY);
+		}
+		catch (FileNotFoundException e)
+		{
+			Log.d(TAG, "no word list for " + language + ", only added words are recognized");
+			return null;
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			return null;
+		}
+		finally
+		{
+			close(in);
+		}
+
+		try
+		{
+			cacheDirectory.mkdirs();
+
+			int edges = DictionaryCompiler.compile(lexicon, (int) checksum.getValue(), file);
+
+			Log.d(TAG, lexicon.getWordCount() + " words of " + language + " compiled to " + edges + " edges");
+
+			return MappedDictionary.open(file);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Open the word list of a language or the one of its {@link #WORDLISTS} if it has none
+	 */
+	private static InputStream openWordList(AssetManager assets, String language) throws IOException
+	{
+		try
+		{
+			return assets.open(language + ".txt");
+		}
+		catch (FileNotFoundException e)
+		{
+			for (String[] list : WORDLISTS)
+			{
+				if (list[0].equals(language)) return assets.open(list[1] + ".txt");
+			}
+
+			throw e;
+		}
+	}
+
+	/**
+	 * @return The CRC32 of the word list of a language, it changes with the words and not only with
+	 *         the length of the list
+	 */
+	private static int getWordListChecksum(AssetManager assets, String language) throws IOException
+	{
+		InputStream in = openWordList(assets, language);
+
+		try
+		{
+			CRC32 checksum = new CRC32();
+
+			byte[] buffer = new byte[16 * 1024];
+
+			int read;
+
+			while ((read = in.read(buffer)) >= 0)
+			{
+				checksum.update(buffer, 0, read);
+			}
+
+			return (int) checksum.getValue();
+		}
+		finally
+		{
+			close(in);
+		}
+	}
+
+	/**
+	 * Check whether the assets contain a dictionary with a valid header for the language
+	 */
+	public static boolean hasDictionary(AssetManager assets, String language)
+	{
+		InputStream in = null;
+
+		try
+		{
+			in = assets.open(language + ".dct");
+
+			byte[] header = new byte[DICTIONARYHEADER];
+
+			int length = 0;
+
+			while (length < header.length)
+			{
+				int read = in.read(header, length, header.length - length);
+
+				if (read < 0) return false;
+
+				length += read;
+			}
+
+			for (int i = 0; i < DICTIONARYMAGIC.length; i++)
+			{
+				if (header[i] != DICTIONARYMAGIC[i]) return false;
+			}
+
+			return true;
+		}
+		catch (IOException e)
+		{
+			return false;
+		}
+		finally
+		{
+			close(in);
+		}
+	}
+
+	private static void close(InputStream in)
+	{
+		if (in == null) return;
+
+		try
+		{
+			in.close();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+}
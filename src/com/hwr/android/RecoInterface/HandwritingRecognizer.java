@@ -0,0 +1,523 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.hwr.android.RecoInterface;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Recognizes handwritten words by a beam search over the tries of the words added to the
+ * {@link Lexicon} and of the dictionary of the language. The letters of the words are aligned
+ * to the cells of the {@link WordShape}, a letter costs the score of its class in the cell. Letters without a cell and cells without a letter are
+ * allowed for a fixed cost, since the number of letters of connected writing can only be estimated.
+ * <p>
+ * The tries are searched depth first, prefixes that cost more than the best word found so far
+ * plus {@link #BEAMMARGIN} or than the last of the requested candidates are not followed.
+ * <p>
+ * Segments that hold a single letter are compared to the letters of confirmed words as well,
+ * see {@link #learn(String)}.
+ *
+ */
+public class HandwritingRecognizer
+{
+	/**
+	 * Cost above the best word up to which prefixes are followed
+	 */
+	static final float BEAMMARGIN = 6f;
+
+	/**
+	 * Cost up to which prefixes are followed before a word was found
+	 */
+	static final float MAXCOST = 24f;
+
+	/**
+	 * Number of letters a word may have in addition to the cells
+	 */
+	static final int MAXINSERTIONS = 3;
+
+	static final float INSERTIONCOST = 2f;
+
+	static final float DELETIONCOST = 2f;
+
+	/**
+	 * Weight of the word frequency against the shape costs
+	 */
+	static final float PRIORWEIGHT = 0.3f;
+
+	/**
+	 * Weight of the template similarity against the shape costs
+	 */
+	static final float TEMPLATEWEIGHT = 4f;
+
+	/**
+	 * Similarity that is assumed for letters without templates
+	 */
+	static final float UNKNOWNSIMILARITY = 0.75f;
+
+	static final int TEMPLATEPOINTS = 32;
+
+	static final int MAXTEMPLATES = 8;
+
+	/**
+	 * Time in nanoseconds after which the search returns the words found so far, below
+	 * the duration of one frame
+	 */
+	static final long TIMEBUDGET = 12000000L;
+
+	private Lexicon lexicon;
+
+	private WordTrie dictionary;
+
+	private HashMap<Character, ArrayList<float[]>> templates = new HashMap<Character, ArrayList<float[]>>();
+
+	private WordShape lastShape;
+
+	/**
+	 * Template similarities of the segments of the current search, null for segments that
+	 * are not compared
+	 */
+	private HashMap<Character, Float>[] similarities;
+
+	// state of the current search
+
+	private WordShape shape;
+
+	private int cells;
+
+	private float[][] rows;
+
+	private char[] prefix;
+
+	private int maxCandidates;
+
+	private String[] words;
+
+	private float[] wordCosts;
+
+	private int wordCount;
+
+	private long deadline;
+
+	private int visitedNodes;
+
+	public HandwritingRecognizer(Lexicon lexicon)
+	{
+		this.lexicon = lexicon;
+	}
+
+	public Lexicon getLexicon()
+	{
+		return lexicon;
+	}
+
+	/**
+	 * @param dictionary The words of the language, may be null
+	 */
+	public void setDictionary(WordTrie dictionary)
+	{
+		this.dictionary = dictionary;
+	}
+
+	public WordTrie getDictionary()
+	{
+		return dictionary;
+	}
+
+	/**
+	 * Recognize the word that is written by the strokes
+	 * @param strokes The strokes in the order they were written, see {@link WordShape}
+	 * @param count The number of strokes
+	 * @param maxCandidates The maximum number of words that are returned
+	 * @return The words with the lowest costs, the best one first
+	 */
+	@SuppressWarnings("unchecked")
+	public String[] recognize(float[][] strokes, int count, int maxCandidates)
+	{
+		deadline = System.nanoTime() + TIMEBUDGET;
+
+		shape = new WordShape(strokes, count);
+
+		lastShape = shape;
+
+		cells = shape.getCellCount();
+
+		int available = lexicon.getWordCount() + ((dictionary != null) ? dictionary.getWordCount() : 0);
+
+		if (cells == 0 || available == 0) return new String[0];
+
+		similarities = new HashMap[shape.getSegmentCount()];
+
+		if (!templates.isEmpty())
+		{
+			for (int s = 0; s < shape.getSegmentCount(); s++)
+			{
+				if (shape.getSegmentCellCount(s) == 1) similarities[s] = compareTemplates(shape.getSegmentInk(s));
+			}
+		}
+
+		// every letter takes at most one cell, a few more are allowed for the insertions
+		int maxLetters = cells + MAXINSERTIONS;
+
+		rows = new float[maxLetters + 1][cells + 1];
+		prefix = new char[maxLetters];
+
+		for (int cell = 0; cell <= cells; cell++)
+		{
+			rows[0][cell] = cell * DELETIONCOST;
+		}
+
+		this.maxCandidates = maxCandidates;
+
+		words = new String[maxCandidates];
+		wordCosts = new float[maxCandidates];
+		wordCount = 0;
+		visitedNodes = 0;
+
+		search(lexicon, lexicon.getRoot(), 0);
+
+		if (dictionary != null) search(dictionary, dictionary.getRoot(), 0);
+
+		String[] result = new String[wordCount];
+
+		System.arraycopy(words, 0, result, 0, wordCount);
+
+		shape = null;
+		similarities = null;
+		rows = null;
+		words = null;
+
+		return result;
+	}
+
+	/**
+	 * Compute the alignment costs of the children of a node and descend into those that can
+	 * still lead to a word within the bound
+	 * @param trie The searched words
+	 * @param node The node whose prefix is aligned in <b>rows[depth]</b>
+	 * @param depth The length of the prefix
+	 */
+	private void search(WordTrie trie, int node, int depth)
+	{
+		if (depth == rows.length - 1) return;
+
+		// the search stops after the time budget, the words found so far are returned
+		if ((++visitedNodes & 0xff) == 0 && System.nanoTime() > deadline) return;
+
+		float[] previous = rows[depth];
+		float[] row = rows[depth + 1];
+
+		for (int child = trie.getFirstChild(node); child != WordTrie.NONODE; child = trie.getNextSibling(child))
+		{
+			char symbol = trie.getSymbol(child);
+
+			row[0] = previous[0] + INSERTIONCOST;
+
+			float best = row[0];
+
+			for (int cell = 1; cell <= cells; cell++)
+			{
+				float cost = previous[cell - 1] + getLetterCost(symbol, cell - 1, depth == 0);
+
+				cost = Math.min(cost, previous[cell] + INSERTIONCOST);
+				cost = Math.min(cost, row[cell - 1] + DELETIONCOST);
+
+				row[cell] = cost;
+
+				best = Math.min(best, cost);
+			}
+
+			float bound = getBound();
+
+			if (best > bound) continue;
+
+			prefix[depth] = symbol;
+
+			int frequency = trie.getFrequency(child);
+
+			if (frequency > 0)
+			{
+				float cost = row[cells] + PRIORWEIGHT * (float) Math.log((float) WordTrie.MAXFREQUENCY / frequency);
+
+				if (cost <= bound) addWord(new String(prefix, 0, depth + 1), cost);
+			}
+
+			search(trie, child, depth + 1);
+		}
+	}
+
+	/**
+	 * @return The cost up to which a prefix can still lead to one of the best words
+	 */
+	private float getBound()
+	{
+		if (wordCount == 0) return MAXCOST;
+
+		float bound = Math.min(MAXCOST, wordCosts[0] + BEAMMARGIN);
+
+		if (wordCount == maxCandidates) bound = Math.min(bound, wordCosts[wordCount - 1]);
+
+		return bound;
+	}
+
+	/**
+	 * Add a confirmed word to the lexicon. If the last recognized strokes have one segment per
+	 * letter, the segments are kept as templates of their letters.
+	 */
+	public void learn(String word)
+	{
+		lexicon.add(word, WordTrie.MAXFREQUENCY);
+
+		if (lastShape == null || lastShape.getSegmentCount() != word.length()) return;
+
+		for (int s = 0; s < word.length(); s++)
+		{
+			float[] template = vectorize(lastShape.getSegmentInk(s));
+
+			if (template == null) continue;
+
+			Character symbol = Character.valueOf(word.charAt(s));
+
+			ArrayList<float[]> symbolTemplates = templates.get(symbol);
+
+			if (symbolTemplates == null)
+			{
+				symbolTemplates = new ArrayList<float[]>();
+				templates.put(symbol, symbolTemplates);
+			}
+
+			// the oldest template is replaced
+			if (symbolTemplates.size() == MAXTEMPLATES) symbolTemplates.remove(0);
+
+			symbolTemplates.add(template);
+		}
+
+		lastShape = null;
+	}
+
+	public int getTemplateCount()
+	{
+		int count = 0;
+
+		for (ArrayList<float[]> symbolTemplates : templates.values())
+		{
+			count += symbolTemplates.size();
+		}
+
+		return count;
+	}
+
+	/**
+	 * Cost of a letter in a cell, the first letter of a word may be written in the other case
+	 */
+	private float getLetterCost(char symbol, int cell, boolean first)
+	{
+		float cost = getSymbolCost(symbol, cell);
+
+		if (first)
+		{
+			char other = Character.isUpperCase(symbol) ? Character.toLowerCase(symbol) : Character.toUpperCase(symbol);
+
+			if (other != symbol) cost = Math.min(cost, getSymbolCost(other, cell));
+		}
+
+		return cost;
+	}
+
+	private float getSymbolCost(char symbol, int cell)
+	{
+		float cost = shape.getCost(cell, WordShape.getLetterClass(symbol));
+
+		HashMap<Character, Float> segmentSimilarities = similarities[shape.getSegment(cell)];
+
+		if (segmentSimilarities != null)
+		{
+			Float similarity = segmentSimilarities.get(Character.valueOf(symbol));
+
+			cost += TEMPLATEWEIGHT * (1 - ((similarity != null) ? similarity.floatValue() : UNKNOWNSIMILARITY));
+		}
+
+		return cost;
+	}
+
+	/**
+	 * Insert a word into the sorted list of candidates, a word that is found in both tries keeps
+	 * its lower cost
+	 */
+	private void addWord(String word, float cost)
+	{
+		for (int i = 0; i < wordCount; i++)
+		{
+			if (!words[i].equals(word)) continue;
+
+			if (wordCosts[i] <= cost) return;
+
+			System.arraycopy(words, i + 1, words, i, wordCount - i - 1);
+			System.arraycopy(wordCosts, i + 1, wordCosts, i, wordCount - i - 1);
+
+			wordCount--;
+			break;
+		}
+
+		int position = wordCount;
+
+		while (position > 0 && wordCosts[position - 1] > cost) position--;
+
+		if (position >= maxCandidates) return;
+
+		int moved = Math.min(wordCount, maxCandidates - 1) - position;
+
+		System.arraycopy(words, position, words, position + 1, moved);
+		System.arraycopy(wordCosts, position, wordCosts, position + 1, moved);
+
+		words[position] = word;
+		wordCosts[position] = cost;
+
+		wordCount = Math.min(wordCount + 1, maxCandidates);
+	}
+
+	private HashMap<Character, Float> compareTemplates(float[] ink)
+	{
+		float[] vector = vectorize(ink);
+
+		HashMap<Character, Float> result = new HashMap<Character, Float>();
+
+		if (vector == null) return result;
+
+		for (Character symbol : templates.keySet())
+		{
+			float best = -1;
+
+			for (float[] template : templates.get(symbol))
+			{
+				float similarity = 0;
+
+				for (int i = 0; i < vector.length; i++)
+				{
+					similarity += vector[i] * template[i];
+				}
+
+				best = Math.max(best, similarity);
+			}
+
+			result.put(symbol, Float.valueOf(best));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Resample the ink to {@link #TEMPLATEPOINTS} equidistant points that are centered and scaled
+	 * to a unit vector, so the dot product of two vectors is their similarity
+	 * @return The vector or null if the ink has no length
+	 */
+	static float[] vectorize(float[] ink)
+	{
+		int points = ink.length / 2;
+
+		if (points < 2) return null;
+
+		float length = 0;
+
+		for (int i = 1; i < points; i++)
+		{
+			length += distance(ink, i - 1, i);
+		}
+
+		if (length == 0) return null;
+
+		float[] vector = new float[TEMPLATEPOINTS * 2];
+
+		float interval = length / (TEMPLATEPOINTS - 1);
+		float covered = 0;
+
+		int count = 0;
+
+		vector[count++] = ink[0];
+		vector[count++] = ink[1];
+
+		float previousX = ink[0];
+		float previousY = ink[1];
+
+		for (int i = 1; i < points && count < vector.length; i++)
+		{
+			float x = ink[2 * i];
+			float y = ink[2 * i + 1];
+
+			float d = (float) Math.hypot(x - previousX, y - previousY);
+
+			while (covered + d >= interval && count < vector.length && d > 0)
+			{
+				float t = (interval - covered) / d;
+
+				previousX += t * (x - previousX);
+				previousY += t * (y - previousY);
+
+				vector[count++] = previousX;
+				vector[count++] = previousY;
+
+				d = (float) Math.hypot(x - previousX, y - previousY);
+				covered = 0;
+			}
+
+			covered += d;
+
+			previousX = x;
+			previousY = y;
+		}
+
+		// rounding can leave out the last point
+		while (count < vector.length)
+		{
+			vector[count++] = ink[ink.length - 2];
+			vector[count++] = ink[ink.length - 1];
+		}
+
+		float centerX = 0;
+		float centerY = 0;
+
+		for (int i = 0; i < vector.length; i += 2)
+		{
+			centerX += vector[i];
+			centerY += vector[i + 1];
+		}
+
+		centerX /= TEMPLATEPOINTS;
+		centerY /= TEMPLATEPOINTS;
+
+		float norm = 0;
+
+		for (int i = 0; i < vector.length; i += 2)
+		{
+			vector[i] -= centerX;
+			vector[i + 1] -= centerY;
+
+			norm += vector[i] * vector[i] + vector[i + 1] * vector[i + 1];
+		}
+
+		if (norm == 0) return null;
+
+		norm = (float) Math.sqrt(norm);
+
+		for (int i = 0; i < vector.length; i++)
+		{
+			vector[i] /= norm;
+		}
+
+		return vector;
+	}
+
+	private static float distance(float[] ink, int a, int b)
+	{
+		return (float) Math.hypot(ink[2 * b] - ink[2 * a], ink[2 * b + 1] - ink[2 * a + 1]);
+	}
+}
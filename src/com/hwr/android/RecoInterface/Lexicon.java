@@ -0,0 +1,211 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.hwr.android.RecoInterface;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Trie of words that can be changed, e.g. the words added by the user. The nodes are stored in
+ * parallel arrays, a node is the index of its last symbol.
+ *
+ */
+public class Lexicon extends WordTrie
+{
+	private static final int ROOT = 0;
+
+	private char[] symbols;
+
+	private int[] firstChildren;
+
+	private int[] nextSiblings;
+
+	private int[] frequencies;
+
+	private int nodeCount;
+
+	private int wordCount;
+
+	public Lexicon()
+	{
+		symbols = new char[256];
+		firstChildren = new int[256];
+		nextSiblings = new int[256];
+		frequencies = new int[256];
+
+		clear();
+	}
+
+	/**
+	 * Remove all words
+	 */
+	public void clear()
+	{
+		nodeCount = 1;
+		wordCount = 0;
+
+		firstChildren[ROOT] = NONODE;
+		nextSiblings[ROOT] = NONODE;
+		frequencies[ROOT] = 0;
+	}
+
+	/**
+	 * Add a word, the frequency of a word that was added before is raised if the new one is higher
+	 * @param word The word, leading and trailing white space is removed
+	 * @param frequency The frequency between 1 and {@link #MAXFREQUENCY}
+	 */
+	public void add(String word, int frequency)
+	{
+		if (word == null) return;
+
+		word = word.trim();
+
+		if (word.length() == 0) return;
+
+		int node = ROOT;
+
+		for (int i = 0; i < word.length(); i++)
+		{
+			char symbol = word.charAt(i);
+
+			int child = getChild(node, symbol);
+
+			if (child == NONODE) child = addChild(node, symbol);
+
+			node = child;
+		}
+
+		frequency = Math.max(1, Math.min(frequency, MAXFREQUENCY));
+
+		if (frequencies[node] == 0) wordCount++;
+
+		if (frequency > frequencies[node]) frequencies[node] = frequency;
+	}
+
+	/**
+	 * Add the words of a list with one word per line, a frequency can follow the word separated
+	 * by a tab. Empty lines and lines that start with # are skipped.
+	 * @param in The stream of the list in UTF-8, it is not closed
+	 * @param defaultFrequency Frequency of the words without one
+	 * @return The number of lines that were added
+	 */
+	public int read(InputStream in, int defaultFrequency) throws IOException
+	{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+
+		int count = 0;
+
+		String line;
+
+		while ((line = reader.readLine()) != null)
+		{
+			if (line.length() == 0 || line.charAt(0) == '#') continue;
+
+			int tab = line.indexOf('\t');
+
+			int frequency = defaultFrequency;
+
+			if (tab >= 0)
+			{
+				try
+				{
+					frequency = Integer.parseInt(line.substring(tab + 1).trim());
+				}
+				catch (NumberFormatException e)
+				{
+					// the word is added with the default frequency
+				}
+
+				line = line.substring(0, tab);
+			}
+
+			add(line, frequency);
+
+			count++;
+		}
+
+		return count;
+	}
+
+	public int getRoot()
+	{
+		return ROOT;
+	}
+
+	public int getFirstChild(int node)
+	{
+		return firstChildren[node];
+	}
+
+	public int getNextSibling(int node)
+	{
+		return nextSiblings[node];
+	}
+
+	public char getSymbol(int node)
+	{
+		return symbols[node];
+	}
+
+	public int getFrequency(int node)
+	{
+		return frequencies[node];
+	}
+
+	public int getWordCount()
+	{
+		return wordCount;
+	}
+
+	public int getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	private int addChild(int node, char symbol)
+	{
+		if (nodeCount == symbols.length)
+		{
+			int capacity = nodeCount * 2;
+
+			char[] newSymbols = new char[capacity];
+			int[] newFirstChildren = new int[capacity];
+			int[] newNextSiblings = new int[capacity];
+			int[] newFrequencies = new int[capacity];
+
+			System.arraycopy(symbols, 0, newSymbols, 0, nodeCount);
+			System.arraycopy(firstChildren, 0, newFirstChildren, 0, nodeCount);
+			System.arraycopy(nextSiblings, 0, newNextSiblings, 0, nodeCount);
+			System.arraycopy(frequencies, 0, newFrequencies, 0, nodeCount);
+
+			symbols = newSymbols;
+			firstChildren = newFirstChildren;
+			nextSiblings = newNextSiblings;
+			frequencies = newFrequencies;
+		}
+
+		int child = nodeCount++;
+
+		symbols[child] = symbol;
+		firstChildren[child] = NONODE;
+		frequencies[child] = 0;
+
+		// new children are prepended, the order of the siblings does not matter
+		nextSiblings[child] = firstChildren[node];
+		firstChildren[node] = child;
+
+		return child;
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.hwr.android.RecoInterface;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import android.content.res.AssetFileDescriptor;
+
+/**
+ * Dictionary that is read directly from a memory mapped file in the format of
+ * {@link DictionaryCompiler}. Only the pages that are visited by the lookups are loaded, they
+ * are shared with all other mappings of the file and do not count to the heap.
+ * <p>
+ * The nodes are the positions of the edges in the file. The children of a node are stored as
+ * consecutive edges, the last one is flagged. The root has no edge, its id is the number of edges.
+ *
+ */
+public class MappedDictionary extends WordTrie
+{
+	private ByteBuffer buffer;
+
+	private int edgeCount;
+
+	private int rootEdge;
+
+	private int wordCount;
+
+	private int sourceChecksum;
+
+	/**
+	 * @param buffer The buffer that holds the dictionary at its position
+	 * @throws IOException If the buffer does not hold a dictionary of a supported version
+	 */
+	public MappedDictionary(ByteBuffer buffer) throws IOException
+	{
+		this.buffer = buffer.slice();
+
+		if (this.buffer.remaining() < DictionaryCompiler.HEADERSIZE) throw new IOException("Dictionary too short");
+
+		if (this.buffer.getInt(0) != DictionaryCompiler.MAGIC) throw new IOException("Not a dictionary");
+
+		int version = this.buffer.getInt(4);
+
+		if (version != DictionaryCompiler.VERSION) throw new IOException("Unsupported dictionary version " + version);
+
+		edgeCount = this.buffer.getInt(8);
+		rootEdge = this.buffer.getInt(12);
+		wordCount = this.buffer.getInt(16);
+		sourceChecksum = this.buffer.getInt(20);
+
+		if (edgeCount < 0 || (long) edgeCount * DictionaryCompiler.EDGESIZE > this.buffer.remaining() - DictionaryCompiler.HEADERSIZE)
+		{
+			throw new IOException("Invalid dictionary length");
+		}
+	}
+
+	/**
+	 * Map a compiled dictionary file
+	 */
+	public static MappedDictionary open(File file) throws IOException
+	{
+		FileInputStream in = new FileInputStream(file);
+
+		try
+		{
+			FileChannel channel = in.getChannel();
+
+			// the mapping stays valid after the channel is closed
+			return new MappedDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Map a compiled dictionary that is stored uncompressed in the assets
+	 * @param descriptor The descriptor from <b>AssetManager.openFd()</b>
+	 */
+	public static MappedDictionary open(AssetFileDescriptor descriptor) throws IOException
+	{
+		FileInputStream in = descriptor.createInputStream();
+
+		try
+		{
+			return new MappedDictionary(in.getChannel().map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength()));
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * @return The size of the mapping in bytes, the upper bound of the memory used by the dictionary
+	 */
+	public int getMappedSize()
+	{
+		return buffer.capacity();
+	}
+
+	public int getRoot()
+	{
+		return edgeCount;
+	}
+
+	public int getFirstChild(int node)
+	{
+		return (node == edgeCount) ? rootEdge : buffer.getInt(DictionaryCompiler.HEADERSIZE + node * DictionaryCompiler.EDGESIZE + 4);
+	}
+
+	public int getNextSibling(int node)
+	{
+		if (node == edgeCount) return NONODE;
+
+		return ((buffer.getInt(DictionaryCompiler.HEADERSIZE + node * DictionaryCompiler.EDGESIZE) & DictionaryCompiler.LASTEDGE) != 0) ? NONODE : node + 1;
+	}
+
+	public char getSymbol(int node)
+	{
+		return (char) (buffer.getInt(DictionaryCompiler.HEADERSIZE + node * DictionaryCompiler.EDGESIZE) >>> 16);
+	}
+
+	public int getFrequency(int node)
+	{
+		if (node == edgeCount) return 0;
+
+		return (buffer.getInt(DictionaryCompiler.HEADERSIZE + node * DictionaryCompiler.EDGESIZE) >>> 8) & 0xff;
+	}
+
+	public int getWordCount()
+	{
+		return wordCount;
+	}
+
+	public int getEdgeCount()
+	{
+		return edgeCount;
+	}
+
+	/**
+	 * @return The CRC32 of the word list that the dictionary was compiled from
+	 */
+	public int getSourceChecksum()
+	{
+		return sourceChecksum;
+	}
+}
@@ -12,20 +12,65 @@
  
 package com.hwr.android.RecoInterface;
 
+import java.io.File;
+import java.util.Collection;
+import java.util.Locale;
+
 import android.app.Service;
+import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.os.Binder;
+import android.os.Bundle;
 import android.os.ConditionVariable;
 import android.os.Handler;
 import android.os.IBinder;
+import android.os.Message;
 import android.util.Log;
 
+/**
+ * Recognizes the handwritten word on a worker thread whenever strokes are added or removed,
+ * see {@link HandwritingRecognizer}. The ranked candidates are sent to {@link #mHandler} as a
+ * message {@link #MSG_CANDIDATES}.
+ * <p>
+ * The dictionary of the language is memory mapped by the worker thread, see
+ * {@link DictionaryLoader}, it is replaced when the language is changed.
+ *
+ */
 public class RecognizerService extends Service 
 {
+    /**
+     * <b>what</b> of the messages with candidates, <b>arg1</b> is the generation of the recognized
+     * strokes, <b>arg2</b> their number and the data holds the words as a string array {@link #CANDIDATES}
+     */
+    public static final int MSG_CANDIDATES = 1;
+
+    public static final String CANDIDATES = "candidates";
+
+    static final int MAXCANDIDATES = 5;
+
+    /**
+     * Frequency of the words added by {@link #addWords(Collection)}
+     */
+    static final int ADDEDFREQUENCY = 128;
+
+    private static final String PREFERENCES = "RecognizerService";
+
+    private static final String LANGUAGE = "language";
+
     private ConditionVariable mCondition;
     private boolean mRunRecognizerThread;
     private int mStrokeCnt;
+    private float[][] mStrokes;
+    private int mGeneration;
     private boolean mReady;
+    private String mLanguage;
+    
+    // only accessed by the worker thread
+    private String mLoadedLanguage;
+    
+    // only used while holding its lock, words are added by the UI thread
+    private HandwritingRecognizer mRecognizer;
     
     public Handler mHandler;
          
@@ -39,6 +84,9 @@ public class RecognizerService extends Service
         mStrokeCnt = 0; 
         mReady = false;
         mHandler = null;
+        mRecognizer = new HandwritingRecognizer(new Lexicon());
+        mLanguage = getSharedPreferences(PREFERENCES, MODE_PRIVATE).getString(LANGUAGE, DictionaryLoader.getLanguage(Locale.getDefault()));
+        mLoadedLanguage = null;
         Thread recognizeThread = new Thread(null, mTask, "RecognizerService");
         mCondition = new ConditionVariable(false);
         recognizeThread.start();
@@ -62,9 +110,13 @@ public class RecognizerService extends Service
     {
         public void run() 
         {
+            updateDictionary();
+            
             while( mRunRecognizerThread ) 
             { 
                 int strokes = 0;
+                int generation = 0;
+                float[][] ink = null;
                 synchronized( mCondition )
                 {
                     while ( ! mReady )
@@ -84,16 +136,33 @@ public class RecognizerService extends Service
                 }
                 if ( ! mRunRecognizerThread )
                     break;
+                
+                updateDictionary();
                                 
-                synchronized( this )
+                synchronized( RecognizerService.this )
                 {
                     strokes = mStrokeCnt;
+                    generation = mGeneration;
+                    ink = mStrokes;
                 }
                 
-                if ( strokes > 0 && mHandler != null )
+                if ( strokes > 0 && ink != null && mHandler != null )
                 {
-                       // call recognizer
+                    String[] candidates;
                     
+                    synchronized( mRecognizer )
+                    {
+                        candidates = mRecognizer.recognize( ink, ink.length, MAXCANDIDATES );
+                    }
+                    
+                    if ( candidates.length > 0 )
+                    {
+                        Message message = mHandler.obtainMessage( MSG_CANDIDATES, generation, ink.length );
+                        Bundle bundle = new Bundle();
+                        bundle.putStringArray( CANDIDATES, candidates );
+                        message.setData( bundle );
+                        mHandler.sendMessage( message );
+                    }
                 }
             }
             // Done with our work...  stop the service!
@@ -102,10 +171,34 @@ public class RecognizerService extends Service
     };
         
       public void dataNotify( int nStrokeCnt )
+    {
+        int generation;
+        
+        synchronized( this )
+        {
+            generation = mGeneration;
+        }
+        
+        dataNotify( nStrokeCnt, null, generation );
+    }
+    
+    /**
+     * Recognize the passed strokes on the worker thread
+     * @param nStrokeCnt The number of strokes of the word
+     * @param strokes The vertices of every stroke with alternating x and y coordinates, null
+     *            if the strokes did not change
+     * @param generation Identifies the strokes, it is passed back with their candidates so
+     *            candidates of outdated strokes can be dropped
+     */
+    public void dataNotify( int nStrokeCnt, float[][] strokes, int generation )
     {
         synchronized( this )
         {
             mStrokeCnt = nStrokeCnt;
+            mGeneration = generation;
+            
+            if ( strokes != null || nStrokeCnt == 0 )
+                mStrokes = strokes;
         }
         synchronized( mCondition )
         {
@@ -114,6 +207,96 @@ public class RecognizerService extends Service
         }
     }   
 
+    /**
+     * Map the dictionary of the current language unless it is mapped already, runs on the
+     * worker thread
+     */
+    private void updateDictionary()
+    {
+        String language;
+        
+        synchronized( this )
+        {
+            language = mLanguage;
+        }
+        
+        if ( language.equals( mLoadedLanguage ) )
+            return;
+        
+        MappedDictionary dictionary = DictionaryLoader.load( getAssets(), getDictionaryDirectory( this ), language );
+        
+        synchronized( mRecognizer )
+        {
+            mRecognizer.setDictionary( dictionary );
+        }
+        
+        mLoadedLanguage = language;
+        
+        Log.d( "Recognizer", "language " + language + ", " + ( ( dictionary != null ) ? dictionary.getWordCount() : 0 ) + " words" );
+    }
+    
+    /**
+     * @return The directory of the compiled dictionaries
+     */
+    public static File getDictionaryDirectory( Context context )
+    {
+        return new File( context.getCacheDir(), "dictionaries" );
+    }
+    
+    /**
+     * Switch the language of the recognition, the dictionary is mapped by the worker thread and
+     * the current word is recognized again
+     * @param language The name of a dictionary, see {@link DictionaryLoader#getLanguages(android.content.res.AssetManager)}
+     */
+    public void setLanguage( String language )
+    {
+        synchronized( this )
+        {
+            mLanguage = language;
+        }
+        
+        SharedPreferences.Editor editor = getSharedPreferences(PREFERENCES, MODE_PRIVATE).edit();
+        editor.putString(LANGUAGE, language);
+        editor.commit();
+        
+        synchronized( mCondition )
+        {
+            mReady = true;
+            mCondition.notify();
+        }
+    }
+    
+    public synchronized String getLanguage()
+    {
+        return mLanguage;
+    }
+    
+    /**
+     * Add words that can be recognized besides those of the dictionary, e.g. the names of the
+     * ontology elements. They are preferred to the words of the dictionary.
+     */
+    public void addWords( Collection<String> words )
+    {
+        synchronized( mRecognizer )
+        {
+            for ( String word : words )
+            {
+                mRecognizer.getLexicon().add( word, ADDEDFREQUENCY );
+            }
+        }
+    }
+    
+    /**
+     * Learn a word the user confirmed for the last recognized strokes
+     */
+    public void confirmWord( String word )
+    {
+        synchronized( mRecognizer )
+        {
+            mRecognizer.learn( word );
+        }
+    }
+
     @Override
     public IBinder onBind(Intent intent)
     {
@@ -0,0 +1,493 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.hwr.android.RecoInterface;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Shape of a handwritten word that is used to score the letters of the lexicon words.
+ * <p>
+ * The band of the lower case letters is estimated from the vertical ink density of all strokes.
+ * Strokes that overlap horizontally are grouped into segments, small marks above the band are
+ * taken as dots of <i>i</i> and <i>j</i>. Every segment is divided into cells of the estimated
+ * width of one letter, for each cell the costs of the letter classes are computed from the ink
+ * above and below the band.
+ *
+ */
+public class WordShape
+{
+	/**
+	 * Letters that stay within the band, like <i>a</i> or <i>n</i>
+	 */
+	public static final int XHEIGHT = 0;
+
+	/**
+	 * Letters that reach above the band, like <i>b</i> or <i>t</i>, capitals and digits
+	 */
+	public static final int ASCENDER = 1;
+
+	/**
+	 * Letters that reach below the band, like <i>g</i> or <i>p</i>
+	 */
+	public static final int DESCENDER = 2;
+
+	/**
+	 * Letters with a dot, <i>i</i> and <i>j</i>
+	 */
+	public static final int DOTTED = 3;
+
+	public static final int CLASSES = 4;
+
+	/**
+	 * Width of a letter relative to the height of the band
+	 */
+	static final float LETTERWIDTH = 0.75f;
+
+	/**
+	 * Size of marks relative to the height of the band
+	 */
+	static final float MARKSIZE = 0.35f;
+
+	/**
+	 * Ink beyond the band relative to its height that counts as ascender or descender
+	 */
+	static final float EXTENSION = 0.4f;
+
+	static final int MAXCELLS = 16;
+
+	private static final int DENSITYBINS = 24;
+
+	/**
+	 * Density of the rows relative to the sparsest row of the band that are added to the band
+	 */
+	private static final float BANDDENSITY = 0.5f;
+
+	/**
+	 * Lowest probability of a class, keeps single misjudged cells from excluding a word
+	 */
+	private static final float MINPROBABILITY = 0.03f;
+
+	private float bandTop;
+
+	private float bandBottom;
+
+	private float xHeight;
+
+	private int segmentCount;
+
+	private int[] segmentFirstCells;
+
+	private float[][] segmentInk;
+
+	private int cellCount;
+
+	private int[] cellSegments;
+
+	private float[] costs;
+
+	/**
+	 * @param strokes The strokes in the order they were written, every stroke holds the x and
+	 *            y coordinates of its vertices alternately
+	 * @param count The number of strokes
+	 */
+	public WordShape(float[][] strokes, int count)
+	{
+		segmentFirstCells = new int[count + 1];
+		segmentInk = new float[count][];
+		cellSegments = new int[count * MAXCELLS];
+		costs = new float[count * MAXCELLS * CLASSES];
+
+		if (count == 0) return;
+
+		final float[] minX = new float[count];
+		float[] maxX = new float[count];
+		float[] minY = new float[count];
+		float[] maxY = new float[count];
+
+		float top = Float.MAX_VALUE;
+		float bottom = -Float.MAX_VALUE;
+
+		for (int s = 0; s < count; s++)
+		{
+			float[] stroke = strokes[s];
+
+			minX[s] = minY[s] = Float.MAX_VALUE;
+			maxX[s] = maxY[s] = -Float.MAX_VALUE;
+
+			for (int i = 0; i + 1 < stroke.length; i += 2)
+			{
+				minX[s] = Math.min(minX[s], stroke[i]);
+				maxX[s] = Math.max(maxX[s], stroke[i]);
+				minY[s] = Math.min(minY[s], stroke[i + 1]);
+				maxY[s] = Math.max(maxY[s], stroke[i + 1]);
+			}
+
+			top = Math.min(top, minY[s]);
+			bottom = Math.max(bottom, maxY[s]);
+		}
+
+		if (top > bottom) return;
+
+		estimateBand(strokes, count, top, bottom);
+
+		// marks are small strokes, those above the band are dots
+
+		boolean[] marks = new boolean[count];
+		boolean[] dots = new boolean[count];
+
+		for (int s = 0; s < count; s++)
+		{
+			marks[s] = Math.max(maxX[s] - minX[s], maxY[s] - minY[s]) < MARKSIZE * xHeight;
+			dots[s] = marks[s] && maxY[s] < bandTop + 0.1f * xHeight;
+		}
+
+		Integer[] order = new Integer[count];
+
+		for (int s = 0; s < count; s++)
+		{
+			order[s] = Integer.valueOf(s);
+		}
+
+		Arrays.sort(order, new Comparator<Integer>()
+		{
+			public int compare(Integer a, Integer b)
+			{
+				return Float.compare(minX[a.intValue()], minX[b.intValue()]);
+			}
+		});
+
+		// group the strokes from left to right
+
+		int[] strokeSegments = new int[count];
+
+		float[] segmentMinX = new float[count];
+		float[] segmentMaxX = new float[count];
+		boolean[] segmentMarks = new boolean[count];
+
+		int segment = -1;
+
+		for (int o = 0; o < count; o++)
+		{
+			int s = order[o].intValue();
+
+			boolean joins = false;
+
+			if (segment >= 0)
+			{
+				float overlap = Math.min(segmentMaxX[segment], maxX[s]) - Math.max(segmentMinX[segment], minX[s]);
+				float narrower = Math.min(segmentMaxX[segment] - segmentMinX[segment], maxX[s] - minX[s]);
+
+				float center = (minX[s] + maxX[s]) / 2;
+
+				joins = overlap >= 0.5f * narrower
+						|| (marks[s] && center > segmentMinX[segment] - 0.3f * xHeight && center < segmentMaxX[segment] + 0.3f * xHeight)
+						|| (segmentMarks[segment] && overlap >= 0);
+			}
+
+			if (joins)
+			{
+				if (segmentMarks[segment] && !marks[s])
+				{
+					// the segment started with the dot of this letter
+					segmentMinX[segment] = minX[s];
+					segmentMaxX[segment] = maxX[s];
+				}
+				else if (!marks[s])
+				{
+					segmentMinX[segment] = Math.min(segmentMinX[segment], minX[s]);
+					segmentMaxX[segment] = Math.max(segmentMaxX[segment], maxX[s]);
+				}
+
+				segmentMarks[segment] &= marks[s];
+			}
+			else
+			{
+				segment++;
+
+				segmentMinX[segment] = minX[s];
+				segmentMaxX[segment] = maxX[s];
+				segmentMarks[segment] = marks[s];
+			}
+
+			strokeSegments[s] = segment;
+		}
+
+		int groups = segment + 1;
+
+		// segments that only hold marks are punctuation unless there is nothing else
+
+		int[] segmentIndices = new int[groups];
+
+		for (int g = 0; g < groups; g++)
+		{
+			segmentIndices[g] = (segmentMarks[g] && groups > 1) ? -1 : segmentCount++;
+		}
+
+		// divide the segments into cells
+
+		for (int g = 0; g < groups; g++)
+		{
+			int index = segmentIndices[g];
+
+			if (index < 0) continue;
+
+			float width = segmentMaxX[g] - segmentMinX[g];
+
+			int cells = Math.max(1, Math.min(Math.round(width / (LETTERWIDTH * xHeight)), MAXCELLS));
+
+			segmentFirstCells[index] = cellCount;
+
+			for (int c = 0; c < cells; c++)
+			{
+				float left = segmentMinX[g] + width * c / cells;
+				float right = segmentMinX[g] + width * (c + 1) / cells;
+
+				scoreCell(strokes, count, strokeSegments, g, marks, dots, minX, maxX, left, right, c == 0, c == cells - 1);
+
+				cellSegments[cellCount] = index;
+				cellCount++;
+			}
+
+			segmentInk[index] = collectInk(strokes, count, strokeSegments, g);
+		}
+
+		segmentFirstCells[segmentCount] = cellCount;
+	}
+
+	public int getCellCount()
+	{
+		return cellCount;
+	}
+
+	/**
+	 * @return The negative log probability of the letter class in the cell
+	 */
+	public float getCost(int cell, int letterClass)
+	{
+		return costs[cell * CLASSES + letterClass];
+	}
+
+	public int getSegmentCount()
+	{
+		return segmentCount;
+	}
+
+	public int getSegment(int cell)
+	{
+		return cellSegments[cell];
+	}
+
+	public int getSegmentCellCount(int segment)
+	{
+		return segmentFirstCells[segment + 1] - segmentFirstCells[segment];
+	}
+
+	/**
+	 * @return The vertices of all strokes of the segment in the order they were written
+	 */
+	public float[] getSegmentInk(int segment)
+	{
+		return segmentInk[segment];
+	}
+
+	public float getXHeight()
+	{
+		return xHeight;
+	}
+
+	/**
+	 * @return The letter class of the symbol, symbols other than letters are counted as ascenders
+	 */
+	public static int getLetterClass(char symbol)
+	{
+		switch (symbol)
+		{
+			case 'b': case 'd': case 'f': case 'h': case 'k': case 'l': case 't':
+				return ASCENDER;
+			case 'g': case 'p': case 'q': case 'y':
+				return DESCENDER;
+			case 'i': case 'j':
+				return DOTTED;
+		}
+
+		if (Character.isLowerCase(symbol)) return XHEIGHT;
+
+		return ASCENDER;
+	}
+
+	/**
+	 * Find the rows with the densest ink, which are the rows of the lower case letters. The band
+	 * starts as the narrowest range that holds half of the ink and grows while the rows next to
+	 * it are about as dense as its sparsest row.
+	 */
+	private void estimateBand(float[][] strokes, int count, float top, float bottom)
+	{
+		float height = bottom - top;
+
+		float[] density = new float[DENSITYBINS];
+
+		float total = 0;
+
+		for (int s = 0; s < count; s++)
+		{
+			float[] stroke = strokes[s];
+
+			for (int i = 2; i + 1 < stroke.length; i += 2)
+			{
+				float dx = stroke[i] - stroke[i - 2];
+				float dy = stroke[i + 1] - stroke[i - 1];
+
+				float y = (stroke[i + 1] + stroke[i - 1]) / 2;
+
+				int bin = (height > 0) ? Math.min((int) ((y - top) / height * DENSITYBINS), DENSITYBINS - 1) : 0;
+
+				float length = (float) Math.sqrt(dx * dx + dy * dy);
+
+				density[bin] += length;
+				total += length;
+			}
+		}
+
+		int first = 0;
+		int last = DENSITYBINS - 1;
+
+		for (int start = 0; start < DENSITYBINS; start++)
+		{
+			float sum = 0;
+
+			for (int end = start; end < DENSITYBINS && end - start < last - first; end++)
+			{
+				sum += density[end];
+
+				if (sum >= 0.5f * total)
+				{
+					first = start;
+					last = end;
+					break;
+				}
+			}
+		}
+
+		float threshold = Float.MAX_VALUE;
+
+		for (int b = first; b <= last; b++)
+		{
+			threshold = Math.min(threshold, BANDDENSITY * density[b]);
+		}
+
+		while (first > 0 && density[first - 1] >= threshold) first--;
+		while (last < DENSITYBINS - 1 && density[last + 1] >= threshold) last++;
+
+		bandTop = top + height * first / DENSITYBINS;
+		bandBottom = top + height * (last + 1) / DENSITYBINS;
+
+		xHeight = Math.max(Math.max(bandBottom - bandTop, 0.2f * height), 1);
+	}
+
+	private void scoreCell(float[][] strokes, int count, int[] strokeSegments, int segment, boolean[] marks, boolean[] dots,
+			float[] minX, float[] maxX, float left, float right, boolean first, boolean last)
+	{
+		float top = Float.MAX_VALUE;
+		float bottom = -Float.MAX_VALUE;
+
+		boolean dotted = false;
+
+		// the first and the last cell take the ink that lies outside because of rounding
+		if (first) left = -Float.MAX_VALUE;
+		if (last) right = Float.MAX_VALUE;
+
+		for (int s = 0; s < count; s++)
+		{
+			if (strokeSegments[s] != segment) continue;
+
+			if (marks[s])
+			{
+				float center = (minX[s] + maxX[s]) / 2;
+
+				if (dots[s] && center >= left && center < right) dotted = true;
+
+				continue;
+			}
+
+			if (maxX[s] < left || minX[s] >= right) continue;
+
+			float[] stroke = strokes[s];
+
+			for (int i = 0; i + 1 < stroke.length; i += 2)
+			{
+				if (stroke[i] < left || stroke[i] >= right) continue;
+
+				top = Math.min(top, stroke[i + 1]);
+				bottom = Math.max(bottom, stroke[i + 1]);
+			}
+		}
+
+		float ascender = 0;
+		float descender = 0;
+
+		if (top <= bottom)
+		{
+			ascender = (bandTop - top) / xHeight;
+			descender = (bottom - bandBottom) / xHeight;
+		}
+
+		float pAscender = sigmoid(8 * (ascender - EXTENSION));
+		float pDescender = sigmoid(8 * (descender - EXTENSION));
+		float pDot = dotted ? 0.85f : 0.05f;
+
+		int offset = cellCount * CLASSES;
+
+		costs[offset + XHEIGHT] = cost((1 - pAscender) * (1 - pDescender) * (1 - pDot));
+		costs[offset + ASCENDER] = cost(pAscender * (1 - pDot));
+		costs[offset + DESCENDER] = cost(pDescender * (1 - pAscender) * (1 - pDot));
+		costs[offset + DOTTED] = cost(pDot * (1 - pAscender));
+	}
+
+	private float[] collectInk(float[][] strokes, int count, int[] strokeSegments, int segment)
+	{
+		int length = 0;
+
+		for (int s = 0; s < count; s++)
+		{
+			if (strokeSegments[s] == segment) length += strokes[s].length & ~1;
+		}
+
+		float[] ink = new float[length];
+
+		length = 0;
+
+		for (int s = 0; s < count; s++)
+		{
+			if (strokeSegments[s] != segment) continue;
+
+			int strokeLength = strokes[s].length & ~1;
+
+			System.arraycopy(strokes[s], 0, ink, length, strokeLength);
+
+			length += strokeLength;
+		}
+
+		return ink;
+	}
+
+	private static float sigmoid(float x)
+	{
+		return (float) (1 / (1 + Math.exp(-x)));
+	}
+
+	private static float cost(float probability)
+	{
+		return (float) -Math.log(Math.max(probability, MINPROBABILITY));
+	}
+}
@@ -0,0 +1,241 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.hwr.android.RecoInterface;
+
+/**
+ * Words stored as a trie of nodes that are identified by integers. A node stands for a prefix
+ * and links to its first child and its next sibling. Every word has a frequency between 1 and
+ * {@link #MAXFREQUENCY}, nodes that do not end a word have the frequency 0.
+ * <p>
+ * The lookups walk the nodes directly, so the words are never created unless they are returned.
+ *
+ */
+public abstract class WordTrie
+{
+	public static final int MAXFREQUENCY = 255;
+
+	/**
+	 * Value of the links that do not point to a node
+	 */
+	public static final int NONODE = -1;
+
+	public abstract int getRoot();
+
+	/**
+	 * @return The first child of the node or {@link #NONODE}
+	 */
+	public abstract int getFirstChild(int node);
+
+	/**
+	 * @return The next child of the parent of the node or {@link #NONODE}
+	 */
+	public abstract int getNextSibling(int node);
+
+	/**
+	 * @return The last symbol of the prefix the node stands for
+	 */
+	public abstract char getSymbol(int node);
+
+	/**
+	 * @return The frequency of the word that ends at the node or 0
+	 */
+	public abstract int getFrequency(int node);
+
+	public abstract int getWordCount();
+
+	/**
+	 * @return The child of the node for the symbol or {@link #NONODE}
+	 */
+	public int getChild(int node, char symbol)
+	{
+		for (int child = getFirstChild(node); child != NONODE; child = getNextSibling(child))
+		{
+			if (getSymbol(child) == symbol) return child;
+		}
+
+		return NONODE;
+	}
+
+	/**
+	 * Prefix lookup
+	 * @return The node of the prefix or {@link #NONODE} if no word starts with it
+	 */
+	public int findPrefix(CharSequence prefix)
+	{
+		int node = getRoot();
+
+		for (int i = 0; i < prefix.length() && node != NONODE; i++)
+		{
+			node = getChild(node, prefix.charAt(i));
+		}
+
+		return node;
+	}
+
+	/**
+	 * Exact lookup
+	 * @return The frequency of the word or 0 if it is not contained
+	 */
+	public int getFrequency(CharSequence word)
+	{
+		int node = findPrefix(word);
+
+		return (node == NONODE) ? 0 : getFrequency(node);
+	}
+
+	public boolean contains(CharSequence word)
+	{
+		return getFrequency(word) > 0;
+	}
+
+	/**
+	 * Count the words that start with the prefix of the node
+	 */
+	public int countWords(int node)
+	{
+		int count = (getFrequency(node) > 0) ? 1 : 0;
+
+		for (int child = getFirstChild(node); child != NONODE; child = getNextSibling(child))
+		{
+			count += countWords(child);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Find the words within an edit distance of the passed word. Prefixes are only followed
+	 * while one of their alignments is within the distance.
+	 * @param word The word to look for
+	 * @param maxDistance The maximum number of inserted, deleted or replaced symbols
+	 * @param results Receives the words with the lowest distances, ties are resolved by the
+	 *            higher frequency
+	 * @param distances Receives the distances of the results, may be null
+	 * @return The number of results
+	 */
+	public int findSimilar(CharSequence word, int maxDistance, String[] results, int[] distances)
+	{
+		if (results.length == 0) return 0;
+
+		Similar search = new Similar(word, maxDistance, results, distances);
+
+		for (int i = 0; i <= word.length(); i++)
+		{
+			search.rows[0][i] = i;
+		}
+
+		search.find(getRoot(), 0);
+
+		return search.count;
+	}
+
+	/**
+	 * State of {@link WordTrie#findSimilar(CharSequence, int, String[], int[])}
+	 */
+	private class Similar
+	{
+		CharSequence word;
+
+		int maxDistance;
+
+		String[] results;
+
+		int[] distances;
+
+		int[] frequencies;
+
+		int count;
+
+		int[][] rows;
+
+		char[] prefix;
+
+		Similar(CharSequence word, int maxDistance, String[] results, int[] distances)
+		{
+			this.word = word;
+			this.maxDistance = maxDistance;
+			this.results = results;
+			this.distances = (distances != null) ? distances : new int[results.length];
+
+			frequencies = new int[results.length];
+			rows = new int[word.length() + maxDistance + 1][word.length() + 1];
+			prefix = new char[word.length() + maxDistance];
+		}
+
+		void find(int node, int depth)
+		{
+			if (depth == prefix.length) return;
+
+			int[] previous = rows[depth];
+			int[] row = rows[depth + 1];
+
+			for (int child = getFirstChild(node); child != NONODE; child = getNextSibling(child))
+			{
+				char symbol = getSymbol(child);
+
+				row[0] = depth + 1;
+
+				int best = row[0];
+
+				for (int i = 1; i <= word.length(); i++)
+				{
+					int distance = previous[i - 1] + ((word.charAt(i - 1) == symbol) ? 0 : 1);
+
+					distance = Math.min(distance, previous[i] + 1);
+					distance = Math.min(distance, row[i - 1] + 1);
+
+					row[i] = distance;
+
+					best = Math.min(best, distance);
+				}
+
+				if (best > maxDistance) continue;
+
+				prefix[depth] = symbol;
+
+				int frequency = getFrequency(child);
+
+				if (frequency > 0 && row[word.length()] <= maxDistance) add(depth + 1, row[word.length()], frequency);
+
+				find(child, depth + 1);
+			}
+		}
+
+		void add(int length, int distance, int frequency)
+		{
+			int position = count;
+
+			while (position > 0 && (distances[position - 1] > distance || (distances[position - 1] == distance && frequencies[position - 1] < frequency)))
+			{
+				position--;
+			}
+
+			if (position >= results.length) return;
+
+			int moved = Math.min(count, results.length - 1) - position;
+
+			System.arraycopy(results, position, results, position + 1, moved);
+			System.arraycopy(distances, position, distances, position + 1, moved);
+			System.arraycopy(frequencies, position, frequencies, position + 1, moved);
+
+			results[position] = new String(prefix, 0, length);
+			distances[position] = distance;
+			frequencies[position] = frequency;
+
+			count = Math.min(count + 1, results.length);
+
+			// only closer words can replace the results once all are found
+			if (count == results.length) maxDistance = Math.min(maxDistance, distances[count - 1]);
+		}
+	}
+}
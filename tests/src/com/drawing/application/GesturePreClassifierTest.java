@@ -0,0 +1,205 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+
+package com.drawing.application;
+
+import android.graphics.RectF;
+
+import com.drawing.datastructure.CustomPath;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks each rule of the <b>GesturePreClassifier</b>. Every rejected stroke is accepted once
+ * the threshold of its rule is relaxed, so no other rule rejects it.
+ *
+ */
+public class GesturePreClassifierTest extends TestCase
+{
+	private GesturePreClassifier classifier = new GesturePreClassifier();
+
+	public void testCircleIsCandidate()
+	{
+		assertTrue(classifier.isGestureCandidate(createEllipse(300, 300, 1, 60), null));
+	}
+
+	public void testVertexCount()
+	{
+		CustomPath stroke = createEllipse(300, 300, 1, 20);
+
+		assertFalse(classifier.isGestureCandidate(stroke, null));
+
+		classifier.setMinVertexCount(10);
+
+		assertTrue(classifier.isGestureCandidate(stroke, null));
+	}
+
+	public void testSize()
+	{
+		CustomPath stroke = createEllipse(60, 60, 1, 60);
+
+		assertFalse(classifier.isGestureCandidate(stroke, null));
+
+		classifier.setMinSize(40);
+
+		assertTrue(classifier.isGestureCandidate(stroke, null));
+	}
+
+	public void testAspectRatio()
+	{
+		CustomPath stroke = createEllipse(1000, 120, 1, 200);
+
+		assertFalse(classifier.isGestureCandidate(stroke, null));
+
+		classifier.setMinAspectRatio(0.1f);
+
+		assertTrue(classifier.isGestureCandidate(stroke, null));
+	}
+
+	/**
+	 * Two thirds of a circle, the gap between the ends is 0.41 of the length
+	 */
+	public void testClosure()
+	{
+		CustomPath stroke = createEllipse(300, 300, 2 / 3f, 60);
+
+		assertFalse(classifier.isGestureCandidate(stroke, null));
+
+		classifier.setMaxClosureRatio(0.5f);
+
+		assertTrue(classifier.isGestureCandidate(stroke, null));
+	}
+
+	/**
+	 * A circle drawn twice turns by two full turns
+	 */
+	public void testTurningSum()
+	{
+		CustomPath stroke = createEllipse(300, 300, 2, 120);
+
+		assertFalse(classifier.isGestureCandidate(stroke, null));
+
+		classifier.setMaxTurns(2.5f);
+
+		assertTrue(classifier.isGestureCandidate(stroke, null));
+	}
+
+	/**
+	 * A triangle with two spikes that are drawn forth and back
+	 */
+	public void testReversals()
+	{
+		CustomPath stroke = createPolygon(new float[] { 0, 0, 400, 0, 500, 0, 400, 0, 200, 300, 150, 375, 200, 300, 0, 0 }, 5);
+
+		assertFalse(classifier.isGestureCandidate(stroke, null));
+
+		assertEquals(2, classifier.getHistogram()[GesturePreClassifier.BINS - 1]);
+
+		classifier.setMaxReversals(2);
+
+		assertTrue(classifier.isGestureCandidate(stroke, null));
+	}
+
+	public void testHandwritingBand()
+	{
+		CustomPath stroke = createEllipse(300, 300, 1, 60);
+
+		// the stroke lies inside the line
+		RectF line = new RectF(-200, -200, 200, 200);
+
+		assertFalse(classifier.isGestureCandidate(stroke, line));
+
+		// the stroke exceeds the line but stays within the band of 1.5 line heights
+		line.set(-200, -100, 200, 100);
+
+		assertFalse(classifier.isGestureCandidate(stroke, line));
+
+		// the stroke exceeds the band
+		line.set(-200, -20, 200, 20);
+
+		assertTrue(classifier.isGestureCandidate(stroke, line));
+
+		classifier.setLineTolerance(5, 200, 200);
+
+		assertFalse(classifier.isGestureCandidate(stroke, line));
+	}
+
+	/**
+	 * Bands higher than 80 pixels are set to 100 pixels
+	 */
+	public void testHandwritingBandClamp()
+	{
+		CustomPath stroke = createEllipse(300, 250, 1, 60);
+
+		// a band of 90 pixels is raised to 100, the stroke exceeds the line by 95 pixels
+		RectF line = new RectF(-200, -30, 200, 30);
+
+		assertFalse(classifier.isGestureCandidate(stroke, line));
+
+		classifier.setLineTolerance(1.5f, 100, 100);
+
+		assertTrue(classifier.isGestureCandidate(stroke, line));
+	}
+
+	/**
+	 * Create an ellipse around the origin, starting at its right end
+	 * @param turns The number of turns that are drawn
+	 * @param count The number of vertices per turn
+	 */
+	static CustomPath createEllipse(float width, float height, float turns, int count)
+	{
+		CustomPath path = new CustomPath();
+
+		int vertices = Math.round(count * turns);
+
+		for (int i = 0; i <= vertices; i++)
+		{
+			double angle = 2 * Math.PI * turns * i / vertices;
+
+			float x = (float) (width / 2 * Math.cos(angle));
+			float y = (float) (height / 2 * Math.sin(angle));
+
+			if (i == 0) path.moveTo(x, y);
+			else path.lineTo(x, y);
+		}
+
+		return path;
+	}
+
+	/**
+	 * Create a polygon with vertices at a fixed distance along its edges
+	 * @param corners The packed coordinates of the corners
+	 * @param spacing The distance between the vertices
+	 */
+	static CustomPath createPolygon(float[] corners, float spacing)
+	{
+		CustomPath path = new CustomPath();
+
+		path.moveTo(corners[0], corners[1]);
+
+		for (int c = 2; c < corners.length; c += 2)
+		{
+			float dx = corners[c] - corners[c - 2];
+			float dy = corners[c + 1] - corners[c - 1];
+
+			int steps = (int) Math.ceil(Math.hypot(dx, dy) / spacing);
+
+			for (int i = 1; i <= steps; i++)
+			{
+				path.lineTo(corners[c - 2] + dx * i / steps, corners[c - 1] + dy * i / steps);
+			}
+		}
+
+		return path;
+	}
+}
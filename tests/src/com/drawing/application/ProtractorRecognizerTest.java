@@ -0,0 +1,139 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+
+package com.drawing.application;
+
+import com.drawing.datastructure.GestureTypes;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that rectangles and ellipses are recognized regardless of where the stroke starts
+ * and in which direction it is drawn
+ *
+ */
+public class ProtractorRecognizerTest extends TestCase
+{
+	private static final float[] ASPECTS = { 1.0f, 1.3f, 1.6f, 1 / 1.3f, 1 / 1.6f };
+
+	private ProtractorRecognizer recognizer = new ProtractorRecognizer();
+
+	/**
+	 * Rectangles started at each corner and at each edge middle, in both directions
+	 */
+	public void testRectangleStartPoints()
+	{
+		for (float aspect : ASPECTS)
+		{
+			for (int direction = -1; direction <= 1; direction += 2)
+			{
+				for (int start = 0; start < 8; start++)
+				{
+					float[] points = createRectangle(100 * aspect, 100, start, direction);
+
+					assertEquals("aspect " + aspect + ", start " + start + ", direction " + direction,
+							GestureTypes.INDIVIDUAL, recognizer.recognize(points, points.length / 2).getType());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Ellipses started at every eighth of the perimeter, in both directions
+	 */
+	public void testEllipseStartPoints()
+	{
+		for (float aspect : ASPECTS)
+		{
+			for (int direction = -1; direction <= 1; direction += 2)
+			{
+				for (int start = 0; start < 8; start++)
+				{
+					float[] points = createEllipse(100 * aspect, 100, start / 8f, direction);
+
+					assertEquals("aspect " + aspect + ", start " + start + ", direction " + direction,
+							GestureTypes.CONCEPT, recognizer.recognize(points, points.length / 2).getType());
+				}
+			}
+		}
+	}
+
+	public void testLineIsNoGesture()
+	{
+		float[] points = { 0, 0, 50, 5, 100, 0, 150, 5 };
+
+		assertEquals(GestureTypes.NOGESTURE, recognizer.recognize(points, 4).getType());
+	}
+
+	/**
+	 * Create the outline of a rectangle
+	 * @param start The start point, the corners and edge middles clockwise from the top left corner
+	 * @param direction 1 for clockwise on the screen, -1 for counterclockwise
+	 */
+	static float[] createRectangle(float w, float h, int start, int direction)
+	{
+		float[] corners = { 0, 0, w, 0, w, h, 0, h };
+
+		float[] starts = { 0, w / 2, w, w + h / 2, w + h, 1.5f * w + h, 2 * w + h, 2 * w + 1.5f * h };
+
+		float perimeter = 2 * (w + h);
+
+		float[] points = new float[2 * 101];
+
+		for (int i = 0; i <= 100; i++)
+		{
+			float d = starts[start] + direction * i / 100f * perimeter;
+
+			d = ((d % perimeter) + perimeter) % perimeter;
+
+			for (int c = 0; c < 4; c++)
+			{
+				float edge = (c % 2 == 0) ? w : h;
+
+				if (d <= edge || c == 3)
+				{
+					float t = Math.min(d / edge, 1);
+
+					points[2 * i] = corners[2 * c] + t * (corners[(2 * c + 2) % 8] - corners[2 * c]);
+					points[2 * i + 1] = corners[2 * c + 1] + t * (corners[(2 * c + 3) % 8] - corners[2 * c + 1]);
+
+					break;
+				}
+
+				d -= edge;
+			}
+		}
+
+		return points;
+	}
+
+	/**
+	 * Create the outline of an ellipse
+	 * @param start The start angle as fraction of a full turn
+	 * @param direction 1 for clockwise on the screen, -1 for counterclockwise
+	 */
+	static float[] createEllipse(float w, float h, float start, int direction)
+	{
+		float[] points = new float[2 * 101];
+
+		for (int i = 0; i <= 100; i++)
+		{
+			double angle = 2 * Math.PI * (start + direction * i / 100.0);
+
+			points[2 * i] = (float) (w / 2 * Math.cos(angle));
+			points[2 * i + 1] = (float) (h / 2 * Math.sin(angle));
+		}
+
+		return points;
+	}
+}
@@ -0,0 +1,205 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.datastructure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import android.graphics.Matrix;
+
+/**
+ * Round trips of sessions and the records of the autosave journal. Paths are moved in
+ * place, so every record has to carry their current vertices.
+ *
+ */
+public class SessionRecordTest extends TestCase
+{
+	private static final float[] IDENTITY = { 1, 0, 0, 0, 1, 0, 0, 0, 1 };
+
+	private static final float[][] MATRICES = { IDENTITY, IDENTITY, IDENTITY };
+
+	private static final List<String> ONTOLIST = Arrays.asList("ontology.owl");
+
+	private DrawingComposite root;
+
+	private DrawingLeaf first;
+
+	private DrawingLeaf second;
+
+	private SessionWriter writer;
+
+	private ByteBuffer snapshot;
+
+	private List<ByteBuffer> records;
+
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		root = new DrawingComposite(null, null);
+		root.setIsRoot(true);
+
+		first = createLeaf(10, 20);
+		second = createLeaf(200, 100);
+
+		attach(first);
+		attach(second);
+
+		writer = new SessionWriter();
+		snapshot = writer.writeSession(root, MATRICES, ONTOLIST);
+
+		records = new ArrayList<ByteBuffer>();
+	}
+
+	public void testMovedPathIsRestored() throws IOException
+	{
+		move(first, 100, 50);
+
+		DrawingComposite restored = restore(snapshot, records);
+
+		assertVertices(first.getPath(), restored.children.get(0).getPath());
+		assertVertices(second.getPath(), restored.children.get(1).getPath());
+	}
+
+	public void testLastMoveIsRestored() throws IOException
+	{
+		move(first, 100, 50);
+		move(second, -30, 0);
+		move(first, 5, 5);
+
+		DrawingComposite restored = restore(snapshot, records);
+
+		assertEquals(115f, restored.children.get(0).getPath().getVertexX(0), 0f);
+		assertVertices(first.getPath(), restored.children.get(0).getPath());
+		assertVertices(second.getPath(), restored.children.get(1).getPath());
+	}
+
+	public void testPathIsSharedAfterRestore() throws IOException
+	{
+		DrawingLeaf shared = new DrawingLeaf(first.getPath(), new Matrix());
+
+		attach(shared);
+
+		records.add(writer.writeRecord(Arrays.asList(root, shared), MATRICES, ONTOLIST));
+
+		move(first, 100, 50);
+
+		DrawingComposite restored = restore(snapshot, records);
+
+		assertSame(restored.children.get(0).getPath(), restored.children.get(2).getPath());
+		assertVertices(first.getPath(), restored.children.get(2).getPath());
+	}
+
+	/**
+	 * The journal compacts the session on its own thread and renumbers the writer afterwards
+	 */
+	public void testRecordsContinueAfterCompaction() throws IOException
+	{
+		move(first, 100, 50);
+
+		root.children.remove(second);
+		records.add(writer.writeRecord(Arrays.asList(root), MATRICES, ONTOLIST));
+
+		SessionReader reader = read(snapshot, records);
+
+		SessionWriter compacted = new SessionWriter();
+		ByteBuffer compactedSnapshot = compacted.writeSession(reader.getRoot(), reader.getMatrices(), reader.getOntoList());
+
+		writer.renumber(reader.mapComponentIds(compacted), reader.mapPathIds(compacted));
+
+		records.clear();
+
+		move(first, 0, 25);
+
+		DrawingLeaf third = createLeaf(-40, -40);
+		attach(third);
+
+		// a removed component that is attached again is written as a new one
+		attach(second);
+
+		records.add(writer.writeRecord(Arrays.asList(root, third, second), MATRICES, ONTOLIST));
+
+		DrawingComposite restored = restore(compactedSnapshot, records);
+
+		assertEquals(3, restored.children.size());
+		assertVertices(first.getPath(), restored.children.get(0).getPath());
+		assertVertices(third.getPath(), restored.children.get(1).getPath());
+		assertVertices(second.getPath(), restored.children.get(2).getPath());
+		assertSame(restored, restored.children.get(1).parent);
+	}
+
+	private DrawingLeaf createLeaf(float x, float y)
+	{
+		CustomPath path = new CustomPath();
+
+		path.moveTo(x, y);
+		path.lineTo(x + 30, y + 10);
+		path.lineTo(x + 60, y - 5);
+
+		return new DrawingLeaf(path, new Matrix());
+	}
+
+	private void attach(DrawingComponent component)
+	{
+		root.children.add(component);
+		component.setParent(root);
+	}
+
+	/**
+	 * Move the vertices of a component in place like a transformation does and record the change
+	 */
+	private void move(DrawingComponent component, float dx, float dy)
+	{
+		Matrix matrix = new Matrix();
+		matrix.setTranslate(dx, dy);
+
+		component.getPath().transformVertices(matrix);
+
+		records.add(writer.writeRecord(Arrays.asList(component), MATRICES, ONTOLIST));
+	}
+
+	private static SessionReader read(ByteBuffer session, List<ByteBuffer> records) throws IOException
+	{
+		SessionReader reader = new SessionReader(session.duplicate());
+
+		reader.readSession();
+
+		for (ByteBuffer record : records)
+		{
+			reader.readRecord(record.duplicate());
+		}
+
+		return reader;
+	}
+
+	private static DrawingComposite restore(ByteBuffer session, List<ByteBuffer> records) throws IOException
+	{
+		return read(session, records).getRoot();
+	}
+
+	private static void assertVertices(CustomPath expected, CustomPath actual)
+	{
+		assertEquals(expected.getVertexCount(), actual.getVertexCount());
+
+		for (int i = 0; i < expected.getVertexCount(); i++)
+		{
+			assertEquals(expected.getVertexX(i), actual.getVertexX(i), 0f);
+			assertEquals(expected.getVertexY(i), actual.getVertexY(i), 0f);
+		}
+	}
+}
@@ -0,0 +1,391 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.datastructure;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import android.graphics.Matrix;
+import android.graphics.Path;
+
+/**
+ * Round trips of complete sessions through {@link SessionWriter} and {@link SessionReader},
+ * and of sessions that were stored with Java serialization by older versions and are
+ * converted to the binary format when they are loaded.
+ * <p>
+ * The restored structure is compared field by field with the original one. References
+ * have to point to the restored counterparts of the original objects, so paths and
+ * components that are shared in the original are shared in the restored structure too.
+ *
+ */
+public class SessionRoundTripTest extends TestCase
+{
+	private static final float[][] MATRICES = {
+		{ 2, 0, 15, 0, 2, -40, 0, 0, 1 },
+		{ 1, 0, 0, 0, 1, 0, 0, 0, 1 },
+		{ 0.5f, 0, 3, 0, 0.5f, 7, 0, 0, 1 } };
+
+	private static final List<String> ONTOLIST = Arrays.asList("pizza.owl", "Ontologie für Maschinen.owl");
+
+	private DrawingComposite root;
+
+	private CustomPath sharedPath;
+
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		root = createSketch();
+	}
+
+	/**
+	 * The sketch has to contain every type of the format, so a new type without a test fails
+	 */
+	public void testSketchContainsEveryType()
+	{
+		HashSet<Byte> types = new HashSet<Byte>();
+
+		collectTypes(root, types);
+
+		assertEquals(SessionFormat.SUBCLASSRELATION, types.size());
+	}
+
+	public void testSessionRoundTrip() throws IOException
+	{
+		SessionReader reader = read(new SessionWriter().writeSession(root, MATRICES, ONTOLIST));
+
+		assertRestored(reader);
+	}
+
+	public void testSharedPathIsStoredOnce() throws IOException
+	{
+		SessionReader reader = read(new SessionWriter().writeSession(root, MATRICES, ONTOLIST));
+
+		DrawingComposite restored = reader.getRoot();
+
+		DrawingComponent first = restored.children.get(restored.children.size() - 2);
+		DrawingComponent second = restored.children.get(restored.children.size() - 1);
+
+		assertSame(first.getPath(), second.getPath());
+		assertNotSame(sharedPath, first.getPath());
+	}
+
+	/**
+	 * Older versions stored the structure, the matrices and the ontology list with Java
+	 * serialization, they are written into the binary format when they are loaded
+	 */
+	public void testLegacySessionIsConverted() throws IOException, ClassNotFoundException
+	{
+		byte[] legacy = serialize(root);
+
+		assertFalse(SessionReader.isSession(ByteBuffer.wrap(legacy)));
+
+		DrawingComposite loaded = (DrawingComposite) deserialize(legacy);
+		float[][] matrices = (float[][]) deserialize(serialize(MATRICES));
+		@SuppressWarnings("unchecked")
+		List<String> ontoList = (List<String>) deserialize(serialize(new ArrayList<String>(ONTOLIST)));
+
+		ByteBuffer session = new SessionWriter().writeSession(loaded, matrices, ontoList);
+
+		assertTrue(SessionReader.isSession(session.duplicate()));
+
+		assertRestored(read(session));
+	}
+
+	private void assertRestored(SessionReader reader)
+	{
+		assertEquals(MATRICES.length, reader.getMatrices().length);
+
+		for (int i = 0; i < MATRICES.length; i++)
+		{
+			assertTrue(Arrays.equals(MATRICES[i], reader.getMatrices()[i]));
+		}
+
+		assertEquals(ONTOLIST, reader.getOntoList());
+
+		assertEquivalent(root, reader.getRoot(), new IdentityHashMap<Object, Object>(), "root");
+	}
+
+	/**
+	 * Root with every component type, the relations connect the elements they are drawn between
+	 */
+	private DrawingComposite createSketch()
+	{
+		DrawingComposite sketch = new DrawingComposite(null, null);
+		sketch.setIsRoot(true);
+
+		DrawingConcept concept = new DrawingConcept(createPath(0, 0, 20), new Matrix());
+		concept.uri = "http://example.org/pizza#Pizza";
+		concept.helpText = "Pizza";
+		concept.name = "Pizza";
+		concept.setDisplayState(DisplayObjectState.CONCEPT);
+		attach(sketch, concept);
+
+		ArrayList<DrawingComponent> letters = new ArrayList<DrawingComponent>();
+		letters.add(new DrawingWordLetter(createPath(10, 10, 5), new Matrix()));
+		letters.add(new DrawingWordLetter(createPath(20, 10, 5), new Matrix()));
+
+		// addComponent would also annotate the ontology resource
+		DrawingCompositeWord word = new DrawingCompositeWord(letters, "Pizza");
+		concept.children.add(word);
+		word.setParent(concept);
+		concept.componentChild = word;
+		concept.itemText = word.getResult();
+
+		DrawingIndividual individual = new DrawingIndividual(createPath(400, 0, 20), new Matrix());
+		individual.name = "Margherita";
+		individual.setDisplayState(DisplayObjectState.INDIVIDUAL);
+		attach(sketch, individual);
+
+		InstatiationRelation instantiation = new InstatiationRelation(createPath(100, 0, 3), new Matrix(), concept, individual);
+		attachRelation(sketch, instantiation, concept, individual);
+
+		DrawingPropertyRelation property = new DrawingPropertyRelation(createPath(100, 100, 3), new Matrix(), concept, individual);
+		property.itemText = "hasTopping";
+		attachRelation(sketch, property, concept, individual);
+
+		FormalizedConcept formalizedConcept = new FormalizedConcept(createPath(0, 400, 20), new Matrix(), "Topping", "A topping");
+		formalizedConcept.uri = "http://example.org/pizza#Topping";
+		attach(sketch, formalizedConcept);
+
+		FormalizedIndividual formalizedIndividual = new FormalizedIndividual(createPath(400, 400, 20), new Matrix(), "Mozzarella", "");
+		attach(sketch, formalizedIndividual);
+
+		SubClassRelation subClass = new SubClassRelation(createPath(0, 200, 3), new Matrix(), formalizedConcept, concept);
+		attachRelation(sketch, subClass, formalizedConcept, concept);
+
+		FormalizedPropertyRelation formalizedProperty = new FormalizedPropertyRelation(createPath(200, 400, 3), new Matrix(), formalizedConcept, formalizedIndividual);
+		attachRelation(sketch, formalizedProperty, formalizedConcept, formalizedIndividual);
+
+		FormalizedPropertyRelationButton button = new FormalizedPropertyRelationButton(createPath(200, 300, 3), new Matrix(), concept, individual);
+		button.setParentRelation(property);
+		attachRelation(sketch, button, concept, individual);
+
+		ArrayList<DrawingComponent> grouped = new ArrayList<DrawingComponent>();
+		grouped.add(new DrawingLeaf(createPath(600, 0, 10), new Matrix()));
+		grouped.add(new DrawingLeaf(createPath(650, 0, 10), new Matrix()));
+		attach(sketch, new DrawingGroup(grouped, createPath(600, 0, 60), new Matrix()));
+
+		DrawingComposite composite = new DrawingComposite(createPath(800, 0, 30), new Matrix());
+		DrawingLeaf inner = new DrawingLeaf(createPath(810, 10, 5), new Matrix());
+		composite.children.add(inner);
+		inner.setParent(composite);
+		attach(sketch, composite);
+
+		// two leaves that share their path, they have to stay the last children
+		sharedPath = createPath(1000, 1000, 15);
+		attach(sketch, new DrawingLeaf(sharedPath, new Matrix()));
+		attach(sketch, new DrawingLeaf(sharedPath, new Matrix()));
+
+		return sketch;
+	}
+
+	private static void attach(DrawingComposite parent, DrawingComponent component)
+	{
+		parent.children.add(component);
+		component.setParent(parent);
+	}
+
+	private static void attachRelation(DrawingComposite parent, DrawingComponent relation, DrawingComponent start, DrawingComponent end)
+	{
+		attach(parent, relation);
+
+		start.addRelation(relation);
+		end.addRelation(relation);
+	}
+
+	/**
+	 * Closed polygon around a center with a color and a curved detail
+	 */
+	private static CustomPath createPath(float x, float y, float radius)
+	{
+		CustomPath path = new CustomPath();
+
+		path.moveTo(x + radius, y);
+
+		for (int i = 1; i < 12; i++)
+		{
+			double angle = i * Math.PI / 6;
+
+			path.lineTo(x + radius * (float) Math.cos(angle), y + radius * (float) Math.sin(angle));
+		}
+
+		path.close();
+		path.setColor(0xFF000000 | (int) (x * 31 + y));
+
+		return path;
+	}
+
+	private static void collectTypes(DrawingComponent component, HashSet<Byte> types)
+	{
+		types.add(Byte.valueOf(SessionFormat.typeOf(component)));
+
+		if (component instanceof DrawingComposite)
+		{
+			for (DrawingComponent child : ((DrawingComposite) component).children)
+			{
+				collectTypes(child, types);
+			}
+		}
+	}
+
+	private static SessionReader read(ByteBuffer session) throws IOException
+	{
+		SessionReader reader = new SessionReader(session);
+
+		reader.readSession();
+
+		return reader;
+	}
+
+	private static byte[] serialize(Object object) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+
+		out.writeObject(object);
+		out.close();
+
+		return bytes.toByteArray();
+	}
+
+	private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+
+		try
+		{
+			return in.readObject();
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Compare the persistent fields of two object graphs, every original object has to be
+	 * restored as exactly one object
+	 * @param restored Maps the original objects to the restored ones that were compared already
+	 * @param where Description of the field for the failure message
+	 */
+	private static void assertEquivalent(Object expected, Object actual, IdentityHashMap<Object, Object> restored, String where)
+	{
+		if (expected == null)
+		{
+			assertNull(where, actual);
+			return;
+		}
+
+		assertNotNull(where, actual);
+
+		if (expected instanceof String || expected instanceof Number || expected instanceof Boolean
+				|| expected instanceof Character || expected instanceof Enum || expected instanceof java.util.UUID)
+		{
+			assertEquals(where, expected, actual);
+			return;
+		}
+
+		if (restored.containsKey(expected))
+		{
+			assertSame(where + " is not shared", restored.get(expected), actual);
+			return;
+		}
+
+		restored.put(expected, actual);
+
+		assertEquals(where, expected.getClass(), actual.getClass());
+
+		if (expected instanceof float[])
+		{
+			assertTrue(where, Arrays.equals((float[]) expected, (float[]) actual));
+			return;
+		}
+
+		if (expected instanceof List)
+		{
+			List<?> expectedList = (List<?>) expected;
+			List<?> actualList = (List<?>) actual;
+
+			assertEquals(where + ".size()", expectedList.size(), actualList.size());
+
+			for (int i = 0; i < expectedList.size(); i++)
+			{
+				assertEquivalent(expectedList.get(i), actualList.get(i), restored, where + "[" + i + "]");
+			}
+
+			return;
+		}
+
+		if (expected instanceof CustomPath)
+		{
+			assertVertices(where, (CustomPath) expected, (CustomPath) actual);
+		}
+
+		for (Class<?> type = expected.getClass(); type != Object.class && type != Path.class; type = type.getSuperclass())
+		{
+			for (Field field : type.getDeclaredFields())
+			{
+				if (!isPersistent(field)) continue;
+
+				field.setAccessible(true);
+
+				try
+				{
+					assertEquivalent(field.get(expected), field.get(actual), restored, where + "." + field.getName());
+				}
+				catch (IllegalAccessException e)
+				{
+					throw new AssertionError(e);
+				}
+			}
+		}
+	}
+
+	private static boolean isPersistent(Field field)
+	{
+		int modifiers = field.getModifiers();
+
+		if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) return false;
+
+		// the vertex arrays have spare capacity, their used part is compared by assertVertices
+		if (field.getDeclaringClass() == CustomPath.class && field.getType() == float[].class) return false;
+
+		// derived from the children whenever the structure changes
+		return field.getType() != ScaledPathArray.class;
+	}
+
+	private static void assertVertices(String where, CustomPath expected, CustomPath actual)
+	{
+		assertEquals(where + " vertices", expected.getVertexCount(), actual.getVertexCount());
+
+		for (int i = 0; i < expected.getVertexCount(); i++)
+		{
+			assertEquals(where, expected.getVertexX(i), actual.getVertexX(i), 0f);
+			assertEquals(where, expected.getVertexY(i), actual.getVertexY(i), 0f);
+		}
+	}
+}
@@ -0,0 +1,229 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.datastructure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import android.graphics.Matrix;
+import android.graphics.RectF;
+
+/**
+ * Hit tests of the uniform grid compared with a scan over the bounds of all components,
+ * which is what the hit tests did before the index existed.
+ *
+ */
+public class SpatialIndexTest extends TestCase
+{
+	private SpatialIndex index;
+
+	private List<DrawingComponent> components;
+
+	private Random random = new Random(0);
+
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+
+		index = new SpatialIndex();
+		components = new ArrayList<DrawingComponent>();
+	}
+
+	public void testQueryFindsContainingComponent()
+	{
+		DrawingLeaf leaf = add(100, 100, 50, 40);
+
+		assertSame(leaf, index.query(120, 120, null));
+		assertNull(index.query(90, 120, null));
+		assertNull(index.query(120, 150, null));
+	}
+
+	/**
+	 * Components that span cell borders are found from every cell they touch
+	 */
+	public void testComponentAcrossCells()
+	{
+		float size = SpatialIndex.CELLSIZE;
+
+		DrawingLeaf leaf = add(size - 10, size - 10, 20, 20);
+
+		assertSame(leaf, index.query(size - 5, size - 5, null));
+		assertSame(leaf, index.query(size + 5, size - 5, null));
+		assertSame(leaf, index.query(size - 5, size + 5, null));
+		assertSame(leaf, index.query(size + 5, size + 5, null));
+	}
+
+	public void testEarlierComponentWins()
+	{
+		DrawingLeaf first = add(0, 0, 100, 100);
+		DrawingLeaf second = add(50, 50, 100, 100);
+
+		assertSame(first, index.query(75, 75, null));
+		assertSame(second, index.query(125, 125, null));
+	}
+
+	public void testFilterSkipsComponents()
+	{
+		final DrawingLeaf first = add(0, 0, 100, 100);
+		DrawingLeaf second = add(50, 50, 100, 100);
+
+		SpatialIndex.Filter filter = new SpatialIndex.Filter()
+		{
+			public boolean accept(DrawingComponent component)
+			{
+				return component != first;
+			}
+		};
+
+		assertSame(second, index.query(75, 75, filter));
+		assertNull(index.query(25, 25, filter));
+	}
+
+	public void testUpdateMovesComponent()
+	{
+		DrawingLeaf leaf = add(10, 10, 20, 20);
+
+		Matrix matrix = new Matrix();
+		matrix.setTranslate(1000, 500);
+
+		leaf.getPath().transformVertices(matrix);
+		leaf.getPath().transform(matrix);
+
+		index.update(leaf);
+
+		assertNull(index.query(15, 15, null));
+		assertSame(leaf, index.query(1015, 515, null));
+	}
+
+	public void testRemoveSubtree()
+	{
+		DrawingComposite group = new DrawingComposite(createPath(0, 0, 300, 300), new Matrix());
+		DrawingLeaf child = createLeaf(500, 500, 20, 20);
+
+		group.children.add(child);
+		child.setParent(group);
+
+		index.insertSubtree(group);
+
+		assertEquals(2, index.size());
+		assertSame(child, index.query(510, 510, null));
+
+		index.removeSubtree(group);
+
+		assertEquals(0, index.size());
+		assertNull(index.query(510, 510, null));
+		assertNull(index.query(10, 10, null));
+	}
+
+	/**
+	 * Components that cover too many cells are kept aside but are still found everywhere
+	 */
+	public void testOversizedComponent()
+	{
+		float extent = SpatialIndex.CELLSIZE * 20;
+
+		DrawingLeaf leaf = add(-extent / 2, -extent / 2, extent, extent);
+
+		assertSame(leaf, index.query(-extent / 2 + 1, -extent / 2 + 1, null));
+		assertSame(leaf, index.query(extent / 2 - 1, extent / 2 - 1, null));
+
+		index.remove(leaf);
+
+		assertNull(index.query(0, 0, null));
+	}
+
+	public void testMatchesScan()
+	{
+		for (int i = 0; i < 500; i++)
+		{
+			float width = 5 + random.nextFloat() * ((i % 50 == 0) ? 6000 : 400);
+			float height = 5 + random.nextFloat() * 400;
+
+			add(random.nextFloat() * 5000 - 1000, random.nextFloat() * 5000 - 1000, width, height);
+		}
+
+		// move some components, part of them into other cells
+		Matrix matrix = new Matrix();
+
+		for (int i = 0; i < components.size(); i += 7)
+		{
+			matrix.setTranslate(random.nextFloat() * 600 - 300, random.nextFloat() * 600 - 300);
+
+			CustomPath path = components.get(i).getPath();
+
+			path.transformVertices(matrix);
+			path.transform(matrix);
+
+			index.update(components.get(i));
+		}
+
+		for (int i = 0; i < components.size(); i += 11)
+		{
+			index.remove(components.get(i));
+			components.set(i, null);
+		}
+
+		for (int q = 0; q < 5000; q++)
+		{
+			float x = random.nextFloat() * 6000 - 1500;
+			float y = random.nextFloat() * 6000 - 1500;
+
+			assertSame(scan(x, y), index.query(x, y, null));
+		}
+	}
+
+	private DrawingComponent scan(float x, float y)
+	{
+		RectF bounds = new RectF();
+
+		for (DrawingComponent component : components)
+		{
+			if (component == null) continue;
+
+			component.getPath().computeBounds(bounds, true);
+
+			if (bounds.contains(x, y)) return component;
+		}
+
+		return null;
+	}
+
+	private DrawingLeaf add(float x, float y, float width, float height)
+	{
+		DrawingLeaf leaf = createLeaf(x, y, width, height);
+
+		components.add(leaf);
+		index.insert(leaf);
+
+		return leaf;
+	}
+
+	private static DrawingLeaf createLeaf(float x, float y, float width, float height)
+	{
+		return new DrawingLeaf(createPath(x, y, width, height), new Matrix());
+	}
+
+	private static CustomPath createPath(float x, float y, float width, float height)
+	{
+		CustomPath path = new CustomPath();
+
+		path.moveTo(x, y);
+		path.lineTo(x + width, y + height / 3);
+		path.lineTo(x + width / 2, y + height);
+
+		return path;
+	}
+}
@@ -0,0 +1,202 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+package com.drawing.datastructure;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the nearest vertex queries of <b>VertexIndex</b> with the linear scan that
+ * was used before, for paths from a hundred up to tens of thousands of vertices. The
+ * query time of the index should stay nearly flat while the scan grows linearly.
+ * <p>
+ * Plain Java, runs as part of the test project or on the JVM through {@link #main(String[])}.
+ *
+ */
+public class VertexIndexBenchmark extends TestCase
+{
+	static final int[] SIZES = { 100, 1000, 10000, 50000 };
+
+	static final int QUERIES = 2000;
+
+	/**
+	 * Maximum distance of the selection in <b>PathRetrieverTask</b>
+	 */
+	static final float BOUND = 40;
+
+	private Random random = new Random(0);
+
+	/**
+	 * The index has to find the same distances as the scan, with and without weights
+	 */
+	public void testNearestDistanceMatchesScan()
+	{
+		for (int size : SIZES)
+		{
+			float[] xy = createStroke(size);
+			float[] queries = createQueries(xy, size);
+
+			VertexIndex index = new VertexIndex(xy, size, 0);
+
+			for (int q = 0; q < QUERIES; q++)
+			{
+				float x = queries[2 * q];
+				float y = queries[2 * q + 1];
+
+				assertEquals(scan(xy, size, x, y, 1, 1, BOUND), index.nearestDistance(x, y, 1, 1, BOUND), 0f);
+				assertEquals(scan(xy, size, x, y, 2.5f, 0.5f, BOUND), index.nearestDistance(x, y, 2.5f, 0.5f, BOUND), 0f);
+			}
+		}
+	}
+
+	public void testEmptyIndex()
+	{
+		VertexIndex index = new VertexIndex(new float[0], 0, 0);
+
+		assertEquals(BOUND, index.nearestDistance(0, 0, 1, 1, BOUND), 0f);
+	}
+
+	/**
+	 * Prints the query times of the index and of the scan. They are not asserted, because
+	 * the times on emulators and shared build machines vary too much.
+	 */
+	public void testReportQueryTimes()
+	{
+		System.out.println(format(measure()));
+	}
+
+	/**
+	 * @return Nanoseconds per query of the index and of the scan for every size
+	 */
+	long[][] measure()
+	{
+		long[][] times = new long[SIZES.length][2];
+
+		float found = 0;
+
+		for (int s = 0; s < SIZES.length; s++)
+		{
+			int size = SIZES[s];
+
+			float[] xy = createStroke(size);
+			float[] queries = createQueries(xy, size);
+
+			VertexIndex index = new VertexIndex(xy, size, 0);
+
+			// warm up both variants before they are measured
+			for (int q = 0; q < QUERIES; q++)
+			{
+				found += index.nearestDistance(queries[2 * q], queries[2 * q + 1], 1, 1, BOUND);
+				found += scan(xy, size, queries[2 * q], queries[2 * q + 1], 1, 1, BOUND);
+			}
+
+			long start = System.nanoTime();
+
+			for (int q = 0; q < QUERIES; q++)
+			{
+				found += index.nearestDistance(queries[2 * q], queries[2 * q + 1], 1, 1, BOUND);
+			}
+
+			times[s][0] = (System.nanoTime() - start) / QUERIES;
+
+			start = System.nanoTime();
+
+			for (int q = 0; q < QUERIES; q++)
+			{
+				found += scan(xy, size, queries[2 * q], queries[2 * q + 1], 1, 1, BOUND);
+			}
+
+			times[s][1] = (System.nanoTime() - start) / QUERIES;
+		}
+
+		// keeps the queries from being optimized away
+		if (found < 0) System.out.println(found);
+
+		return times;
+	}
+
+	static String format(long[][] times)
+	{
+		StringBuilder report = new StringBuilder("vertices  index ns/query  scan ns/query\n");
+
+		for (int s = 0; s < SIZES.length; s++)
+		{
+			report.append(String.format("%8d  %14d  %13d%n", SIZES[s], times[s][0], times[s][1]));
+		}
+
+		return report.toString();
+	}
+
+	/**
+	 * Random walk with the step length of a finger stroke
+	 */
+	private float[] createStroke(int size)
+	{
+		float[] xy = new float[size * 2];
+
+		float x = 0;
+		float y = 0;
+
+		for (int i = 0; i < size; i++)
+		{
+			x += random.nextFloat() * 8 - 4;
+			y += random.nextFloat() * 8 - 4;
+
+			xy[2 * i] = x;
+			xy[2 * i + 1] = y;
+		}
+
+		return xy;
+	}
+
+	/**
+	 * Taps near random vertices, some of them beyond the bound
+	 */
+	private float[] createQueries(float[] xy, int size)
+	{
+		float[] queries = new float[QUERIES * 2];
+
+		for (int q = 0; q < QUERIES; q++)
+		{
+			int vertex = random.nextInt(size);
+
+			queries[2 * q] = xy[2 * vertex] + random.nextFloat() * 120 - 60;
+			queries[2 * q + 1] = xy[2 * vertex + 1] + random.nextFloat() * 120 - 60;
+		}
+
+		return queries;
+	}
+
+	/**
+	 * The linear scan over all vertices
+	 */
+	private static float scan(float[] xy, int count, float x, float y, float weightX, float weightY, float bound)
+	{
+		float best = bound;
+
+		for (int i = 0; i < count; i++)
+		{
+			float distance = Math.abs(xy[2 * i] - x) * weightX + Math.abs(xy[2 * i + 1] - y) * weightY;
+
+			if (distance < best) best = distance;
+		}
+
+		return best;
+	}
+
+	public static void main(String[] args)
+	{
+		System.out.print(format(new VertexIndexBenchmark().measure()));
+	}
+}
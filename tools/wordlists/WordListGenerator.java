@@ -0,0 +1,452 @@
+/**
+ * 
+ *Copyright (c) 2014, SAP SE: Christian Brndel | Florian Schneider | Angelika Salmen | Technische Universitt Dresden, Chair of Media Design: Marius Brade | Rainer Groh
+ *On behalf of Marius Brade, this research project (contract no. 080951799) was funded by the European Social Fond and the Free State of Saxony as well as SAP Research. On behalf of Angelika Salmen, the research leading to these results was partly funded by the European Community's Seventh Framework Programme under grant agreement no. FP7-284928 ComVantage.
+ *All rights reserved.
+ *Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Generates the word lists <i>assets/Language.txt</i> of the handwriting recognizer from the
+ * vocabularies in this directory, which were written for the project and are distributed under
+ * its license.
+ * <p>
+ * A vocabulary consists of sections that start with a line like <i>[N]</i>, the words of a
+ * section are separated by white space and lines that start with # are comments. The comment
+ * lines before the first empty line are copied into the list, the recognizer skips them. The
+ * sections of English:
+ * <ul>
+ * <li>[W] words that are taken as they are</li>
+ * <li>[N] nouns <i>word[:plural]</i>, the plural is built regularly if it is missing and - means
+ * that there is none</li>
+ * <li>[V] regular verbs <i>word[=stem]</i>, the stem replaces the word before -ed and -ing</li>
+ * <li>[I] irregular verbs <i>word[=stem]:past:participle</i></li>
+ * <li>[A] adjectives <i>word[=stem][+]</i>, + adds the comparative and the superlative, or
+ * <i>word:comparative:superlative</i></li>
+ * </ul>
+ * The sections of German:
+ * <ul>
+ * <li>[W] and [S] words that are taken as they are, [S] holds the forms of strong verbs</li>
+ * <li>[N] nouns <i>word[:plural]</i>, - means that the plural equals the word</li>
+ * <li>[A] adjectives <i>word[=stem[=]]</i> with the endings of the declension</li>
+ * <li>[C] adjectives <i>word:comparative:superlative-stem</i></li>
+ * <li>[V] weak verbs that are conjugated regularly</li>
+ * </ul>
+ * Usage: <i>java WordListGenerator en English.src ../../assets/English.txt</i>
+ *
+ */
+public class WordListGenerator
+{
+	private static final String[] GERMANENDINGS = { "e", "en", "er", "es", "em" };
+
+	/**
+	 * Prefixes of German verbs whose participle does not start with ge-
+	 */
+	private static final String[] INSEPARABLEPREFIXES = { "be", "ge", "er", "ver", "zer", "ent", "emp", "miss" };
+
+	private final boolean english;
+
+	private TreeSet<String> words = new TreeSet<String>();
+
+	private List<String> notice = new ArrayList<String>();
+
+	public WordListGenerator(String language)
+	{
+		if (!"en".equals(language) && !"de".equals(language)) throw new IllegalArgumentException("unknown language " + language);
+
+		english = "en".equals(language);
+	}
+
+	/**
+	 * Add the words of a vocabulary
+	 * @param reader The vocabulary, it is not closed
+	 */
+	public void read(BufferedReader reader) throws IOException
+	{
+		String section = null;
+
+		boolean header = true;
+
+		int number = 0;
+
+		String line;
+
+		while ((line = reader.readLine()) != null)
+		{
+			number++;
+
+			line = line.trim();
+
+			if (line.length() == 0)
+			{
+				header = false;
+				continue;
+			}
+
+			if (line.charAt(0) == '#')
+			{
+				if (header) notice.add(line);
+				continue;
+			}
+
+			header = false;
+
+			if (line.charAt(0) == '[')
+			{
+				section = line;
+				continue;
+			}
+
+			if (section == null) throw new IOException("line " + number + ": word outside of a section");
+
+			for (String token : line.split("\\s+"))
+			{
+				if (english)
+				{
+					addEnglish(section, token, number);
+				}
+				else
+				{
+					addGerman(section, token, number);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write the notice and the sorted words, one per line
+	 * @param vocabulary The name of the vocabulary that is mentioned in the notice
+	 */
+	public void write(Writer writer, String vocabulary) throws IOException
+	{
+		for (String line : notice)
+		{
+			writer.write(line);
+			writer.write('\n');
+		}
+
+		writer.write("# Generated from tools/wordlists/" + vocabulary + ", edit the vocabulary instead of this list.\n");
+
+		for (String word : words)
+		{
+			writer.write(word);
+			writer.write('\n');
+		}
+	}
+
+	public int getWordCount()
+	{
+		return words.size();
+	}
+
+	private void addEnglish(String section, String token, int number) throws IOException
+	{
+		if ("[W]".equals(section))
+		{
+			words.add(token);
+		}
+		else if ("[N]".equals(section))
+		{
+			String[] parts = token.split(":");
+
+			words.add(parts[0]);
+
+			if (parts.length == 1)
+			{
+				words.add(appendS(parts[0], false));
+			}
+			else if (!"-".equals(parts[1]))
+			{
+				words.add(parts[1]);
+			}
+		}
+		else if ("[V]".equals(section) || "[I]".equals(section))
+		{
+			String[] parts = token.split(":");
+
+			if ("[I]".equals(section) != (parts.length == 3)) throw new IOException("line " + number + ": unexpected verb " + token);
+
+			String[] stem = parts[0].split("=");
+
+			String word = stem[0];
+
+			words.add(word);
+			words.add(appendS(word, true));
+
+			if (stem.length > 1)
+			{
+				words.add(stem[1] + "ing");
+
+				if (parts.length == 1) words.add(stem[1] + "ed");
+			}
+			else
+			{
+				words.add(appendIng(word));
+
+				if (parts.length == 1) words.add(appendEd(word));
+			}
+
+			if (parts.length == 3)
+			{
+				words.add(parts[1]);
+				words.add(parts[2]);
+			}
+		}
+		else if ("[A]".equals(section))
+		{
+			String[] parts = token.split(":");
+
+			if (parts.length == 3)
+			{
+				words.add(parts[0]);
+				words.add(parts[1]);
+				words.add(parts[2]);
+
+				return;
+			}
+
+			boolean compared = token.endsWith("+");
+
+			String[] stem = (compared ? token.substring(0, token.length() - 1) : token).split("=");
+
+			words.add(stem[0]);
+
+			if (!compared) return;
+
+			if (stem.length > 1)
+			{
+				words.add(stem[1] + "er");
+				words.add(stem[1] + "est");
+			}
+			else if (stem[0].endsWith("e"))
+			{
+				words.add(stem[0] + "r");
+				words.add(stem[0] + "st");
+			}
+			else if (endsWithConsonantY(stem[0]))
+			{
+				String base = stem[0].substring(0, stem[0].length() - 1);
+
+				words.add(base + "ier");
+				words.add(base + "iest");
+			}
+			else
+			{
+				words.add(stem[0] + "er");
+				words.add(stem[0] + "est");
+			}
+		}
+		else
+		{
+			throw new IOException("line " + number + ": unknown section " + section);
+		}
+	}
+
+	/**
+	 * The plural of a noun or the third person of a verb, verbs ending in o take -es
+	 */
+	private static String appendS(String word, boolean verb)
+	{
+		if (word.endsWith("s") || word.endsWith("x") || word.endsWith("z") || word.endsWith("ch") || word.endsWith("sh") || (verb && word.endsWith("o")))
+		{
+			return word + "es";
+		}
+
+		if (endsWithConsonantY(word)) return word.substring(0, word.length() - 1) + "ies";
+
+		return word + "s";
+	}
+
+	private static String appendEd(String word)
+	{
+		if (word.endsWith("e")) return word + "d";
+
+		if (endsWithConsonantY(word)) return word.substring(0, word.length() - 1) + "ied";
+
+		return word + "ed";
+	}
+
+	private static String appendIng(String word)
+	{
+		if (word.endsWith("ie")) return word.substring(0, word.length() - 2) + "ying";
+
+		if (word.endsWith("e") && !word.endsWith("ee") && !word.endsWith("ye") && !word.endsWith("oe") && word.length() > 2)
+		{
+			return word.substring(0, word.length() - 1) + "ing";
+		}
+
+		return word + "ing";
+	}
+
+	private static boolean endsWithConsonantY(String word)
+	{
+		return word.length() > 1 && word.endsWith("y") && "aeiou".indexOf(word.charAt(word.length() - 2)) < 0;
+	}
+
+	private void addGerman(String section, String token, int number) throws IOException
+	{
+		if ("[W]".equals(section) || "[S]".equals(section))
+		{
+			words.add(token);
+		}
+		else if ("[N]".equals(section))
+		{
+			int colon = token.indexOf(':');
+
+			if (colon < 0)
+			{
+				words.add(token);
+				return;
+			}
+
+			String word = token.substring(0, colon);
+			String plural = token.substring(colon + 1);
+
+			words.add(word);
+
+			if (plural.length() == 0) return;
+
+			if ("-".equals(plural)) plural = word;
+
+			words.add(plural);
+
+			// the dative plural
+			if (!plural.endsWith("n") && !plural.endsWith("s")) words.add(plural + "n");
+		}
+		else if ("[A]".equals(section))
+		{
+			String[] parts = token.split("=");
+
+			String stem = parts.length > 1 && parts[1].length() > 0 ? parts[1] : parts[0];
+
+			words.add(parts[0]);
+
+			for (String ending : GERMANENDINGS) words.add(stem + ending);
+		}
+		else if ("[C]".equals(section))
+		{
+			String[] parts = token.split(":");
+
+			if (parts.length != 3) throw new IOException("line " + number + ": unexpected comparison " + token);
+
+			words.add(parts[0]);
+			words.add(parts[1]);
+
+			for (String ending : GERMANENDINGS)
+			{
+				words.add(parts[1] + ending);
+				words.add(parts[2] + ending);
+			}
+		}
+		else if ("[V]".equals(section))
+		{
+			addWeakVerb(token);
+		}
+		else
+		{
+			throw new IOException("line " + number + ": unknown section " + section);
+		}
+	}
+
+	/**
+	 * Add the present and past tense and the participle of a weak German verb
+	 */
+	private void addWeakVerb(String infinitive)
+	{
+		String stem;
+		String e = "";
+
+		words.add(infinitive);
+
+		if (infinitive.endsWith("ern") || infinitive.endsWith("eln"))
+		{
+			stem = infinitive.substring(0, infinitive.length() - 1);
+
+			// wechseln: ich wechsle
+			words.add(infinitive.endsWith("eln") ? stem.substring(0, stem.length() - 2) + "le" : stem + "e");
+			words.add(stem + "st");
+		}
+		else
+		{
+			stem = infinitive.substring(0, infinitive.length() - 2);
+
+			char last = stem.charAt(stem.length() - 1);
+
+			// arbeiten: er arbeitet, atmen: er atmet, but lernen: er lernt
+			if (last == 't' || last == 'd' || ((last == 'm' || last == 'n')
+					&& ("lrhmnaeiou".indexOf(stem.charAt(stem.length() - 2)) < 0 || stem.substring(Math.max(0, stem.length() - 3), stem.length() - 1).equals("ch"))))
+			{
+				e = "e";
+			}
+
+			words.add(stem + "e");
+			words.add(stem + ("szx".indexOf(last) >= 0 ? "t" : e + "st"));
+		}
+
+		words.add(stem + e + "t");
+		words.add(stem + e + "te");
+		words.add(stem + e + "test");
+		words.add(stem + e + "ten");
+		words.add(stem + e + "tet");
+
+		boolean prefixed = infinitive.endsWith("ieren");
+
+		for (String prefix : INSEPARABLEPREFIXES)
+		{
+			if (infinitive.startsWith(prefix)) prefixed = true;
+		}
+
+		words.add((prefixed ? "" : "ge") + stem + e + "t");
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length != 3)
+		{
+			System.err.println("usage: WordListGenerator en|de vocabulary list");
+			System.exit(1);
+		}
+
+		WordListGenerator generator = new WordListGenerator(args[0]);
+
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(args[1]), "UTF-8"));
+
+		try
+		{
+			generator.read(reader);
+		}
+		finally
+		{
+			reader.close();
+		}
+
+		Writer writer = new OutputStreamWriter(new FileOutputStream(args[2]), "UTF-8");
+
+		try
+		{
+			generator.write(writer, new File(args[1]).getName());
+		}
+		finally
+		{
+			writer.close();
+		}
+
+		System.out.println(generator.getWordCount() + " words written to " + args[2]);
+	}
+}